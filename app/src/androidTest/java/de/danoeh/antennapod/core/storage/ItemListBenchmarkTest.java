@@ -0,0 +1,147 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedMedia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares loading item lists with separate queries for the media, the tags and the feeds
+ * with loading them through the joined item list selection. Located in the core.storage
+ * package to access the package-private methods.
+ */
+@LargeTest
+public class ItemListBenchmarkTest {
+    private static final String TAG = "ItemListBenchmarkTest";
+    /** Number of feeds and number of items per feed. */
+    private static final int[][] SIZES = {{10, 10}, {10, 80}, {100, 8}};
+    private static final int REPETITIONS = 20;
+
+    @Before
+    public void setUp() {
+        PodDBAdapter.init(InstrumentationRegistry.getTargetContext());
+        PodDBAdapter.deleteDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        assertTrue(PodDBAdapter.deleteDatabase());
+    }
+
+    @Test
+    public void testLoadItemList() {
+        for (int[] size : SIZES) {
+            PodDBAdapter.deleteDatabase();
+            List<FeedItem> items = saveFeeds(size[0], size[1]);
+            String[] ids = new String[items.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = String.valueOf(items.get(i).getId());
+            }
+
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            List<FeedItem> separate = null;
+            long start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++) {
+                try (Cursor cursor = adapter.getFeedItemCursor(ids)) {
+                    separate = DBReader.extractItemlistFromCursor(cursor);
+                    DBReader.loadAdditionalFeedItemListData(separate);
+                }
+            }
+            long separateDuration = (System.nanoTime() - start) / REPETITIONS;
+
+            List<FeedItem> joined = null;
+            start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++) {
+                try (Cursor cursor = adapter.getFeedItemListCursor(ids)) {
+                    joined = DBReader.extractJoinedItemlistFromCursor(cursor);
+                }
+            }
+            long joinedDuration = (System.nanoTime() - start) / REPETITIONS;
+            adapter.close();
+
+            Log.d(TAG, size[0] + " feeds with " + size[1] + " items: separate queries "
+                    + separateDuration / 1000 + " us, joined query " + joinedDuration / 1000 + " us");
+            assertSameItems(separate, joined);
+        }
+    }
+
+    private static void assertSameItems(List<FeedItem> expected, List<FeedItem> actual) {
+        assertEquals(expected.size(), actual.size());
+        Map<Long, FeedItem> expectedById = new HashMap<>();
+        for (FeedItem item : expected) {
+            expectedById.put(item.getId(), item);
+        }
+        Map<Long, Feed> feeds = new HashMap<>();
+        for (FeedItem item : actual) {
+            FeedItem expectedItem = expectedById.get(item.getId());
+            assertNotNull(expectedItem);
+            assertEquals(expectedItem.getTitle(), item.getTitle());
+            assertEquals(expectedItem.isTagged(FeedItem.TAG_QUEUE), item.isTagged(FeedItem.TAG_QUEUE));
+            assertEquals(expectedItem.isTagged(FeedItem.TAG_FAVORITE), item.isTagged(FeedItem.TAG_FAVORITE));
+            assertEquals(expectedItem.getMedia().getId(), item.getMedia().getId());
+            assertSame(item, item.getMedia().getItem());
+            assertEquals(expectedItem.getFeed().getTitle(), item.getFeed().getTitle());
+            assertEquals(expectedItem.getFeed().getPreferences().getFeedID(),
+                    item.getFeed().getPreferences().getFeedID());
+
+            Feed feed = feeds.get(item.getFeedId());
+            if (feed != null) {
+                assertSame(feed, item.getFeed());
+            }
+            feeds.put(item.getFeedId(), item.getFeed());
+        }
+    }
+
+    private static List<FeedItem> saveFeeds(int numFeeds, int numItems) {
+        List<FeedItem> items = new ArrayList<>();
+        List<FeedItem> queue = new ArrayList<>();
+        List<FeedItem> favorites = new ArrayList<>();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        for (int i = 0; i < numFeeds; i++) {
+            Feed feed = new Feed("url" + i, null, "feed " + i);
+            feed.setItems(new ArrayList<>());
+            for (int j = 0; j < numItems; j++) {
+                FeedItem item = new FeedItem(0, "item " + j, "id" + j, "link" + j, new Date(j),
+                        FeedItem.UNPLAYED, feed);
+                item.setMedia(new FeedMedia(item, "url" + i + "-" + j, 1, "audio/mp3"));
+                feed.getItems().add(item);
+            }
+            adapter.setCompleteFeed(feed);
+            for (FeedItem item : feed.getItems()) {
+                items.add(item);
+                if (items.size() % 3 == 0) {
+                    queue.add(item);
+                }
+                if (items.size() % 5 == 0) {
+                    favorites.add(item);
+                }
+            }
+        }
+        adapter.setQueue(queue);
+        adapter.setFavorites(favorites);
+        adapter.close();
+        return items;
+    }
+}
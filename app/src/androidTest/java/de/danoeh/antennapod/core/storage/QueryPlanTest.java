@@ -0,0 +1,104 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.database.Cursor;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that frequent lookups are answered through index searches instead of scanning a table.
+ * Located in the core.storage package to access the package-private queries.
+ */
+@SmallTest
+public class QueryPlanTest {
+
+    private PodDBAdapter adapter;
+
+    @Before
+    public void setUp() {
+        PodDBAdapter.init(InstrumentationRegistry.getTargetContext());
+        PodDBAdapter.deleteDatabase();
+        adapter = PodDBAdapter.getInstance();
+        adapter.open();
+    }
+
+    @After
+    public void tearDown() {
+        adapter.close();
+        assertTrue(PodDBAdapter.deleteDatabase());
+    }
+
+    @Test
+    public void testFeedItemByUrls() {
+        assertPlan(PodDBAdapter.QUERY_FEED_ITEM_BY_URLS, new String[]{"http://example.com/episode.mp3",
+                        "http://example.com/feed.xml"},
+                "SEARCH FeedMedia USING COVERING INDEX FeedMedia_download_url (download_url=?)",
+                "SEARCH FeedItems USING INTEGER PRIMARY KEY (rowid=?)",
+                "SEARCH Feeds USING INTEGER PRIMARY KEY (rowid=?)");
+    }
+
+    @Test
+    public void testImageAuthentication() {
+        assertPlan(PodDBAdapter.QUERY_IMAGE_AUTHENTICATION, new String[]{"http://example.com/image.png",
+                        "http://example.com/image.png"},
+                "SEARCH Feeds USING INDEX Feeds_image_url (image_url=?)",
+                "SEARCH FeedItems USING COVERING INDEX FeedItems_image_url (image_url=?)",
+                "SEARCH Feeds USING INTEGER PRIMARY KEY (rowid=?)");
+    }
+
+    @Test
+    public void testDownloadedItems() {
+        assertPlan(PodDBAdapter.QUERY_DOWNLOADED_ITEMS, new String[0],
+                "SEARCH FeedMedia USING INDEX FeedMedia_downloaded (downloaded=?)",
+                "SEARCH FeedItems USING INTEGER PRIMARY KEY (rowid=?)",
+                "SEARCH Feeds USING INTEGER PRIMARY KEY (rowid=?)",
+                "SEARCH Queue USING COVERING INDEX Queue_feeditem (feeditem=?)",
+                "SEARCH Favorites USING COVERING INDEX Favorites_feeditem (feeditem=?)");
+    }
+
+    @Test
+    public void testCompletedMedia() {
+        assertPlan(PodDBAdapter.QUERY_COMPLETED_MEDIA, new String[]{"50"},
+                "SEARCH FeedMedia USING INDEX FeedMedia_playback_completion_date (playback_completion_date>?)");
+    }
+
+    @Test
+    public void testDownloadLog() {
+        assertPlan(PodDBAdapter.QUERY_DOWNLOAD_LOG, new String[]{"1", "0"},
+                "SEARCH DownloadLog USING INDEX DownloadLog_feedfile (feedfile=? AND feedfile_type=?)");
+    }
+
+    /**
+     * Checks that the query does not scan any table and that its plan contains each of the expected
+     * steps. The queries read the selected rows from the tables, so only some steps use covering indexes.
+     */
+    private void assertPlan(String query, String[] args, String... expectedSteps) {
+        List<String> plan = new ArrayList<>();
+        try (Cursor cursor = adapter.explainQueryPlan(query, args)) {
+            while (cursor.moveToNext()) {
+                // older SQLite versions write "SEARCH TABLE Feeds", newer ones "SEARCH Feeds"
+                plan.add(cursor.getString(3).replaceFirst("^(SCAN|SEARCH) TABLE ", "$1 "));
+            }
+        }
+        for (String step : plan) {
+            assertFalse("Query scans a table:\n" + plan, step.startsWith("SCAN"));
+        }
+        for (String expectedStep : expectedSteps) {
+            boolean found = false;
+            for (String step : plan) {
+                found |= step.startsWith(expectedStep);
+            }
+            assertTrue("Missing step " + expectedStep + " in plan:\n" + plan, found);
+        }
+    }
+}
@@ -8,13 +8,17 @@ import org.junit.Before;
 import org.junit.Test;
 import org.xml.sax.SAXException;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -23,6 +27,7 @@ import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.syndication.handler.FeedHandler;
+import de.danoeh.antennapod.core.syndication.handler.KnownItems;
 import de.danoeh.antennapod.core.syndication.handler.UnsupportedFeedtypeException;
 import de.test.antennapod.util.syndication.feedgenerator.AtomGenerator;
 import de.test.antennapod.util.syndication.feedgenerator.FeedGenerator;
@@ -32,6 +37,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Tests for FeedHandler
@@ -69,12 +75,16 @@ public class FeedHandlerTest {
     }
 
     private Feed runFeedTest(Feed feed, FeedGenerator g, String encoding, long flags) throws IOException, UnsupportedFeedtypeException, SAXException, ParserConfigurationException {
+        return runFeedTest(feed, g, encoding, flags, null);
+    }
+
+    private Feed runFeedTest(Feed feed, FeedGenerator g, String encoding, long flags, KnownItems knownItems) throws IOException, UnsupportedFeedtypeException, SAXException, ParserConfigurationException {
         g.writeFeed(feed, outputStream, encoding, flags);
         FeedHandler handler = new FeedHandler();
         Feed parsedFeed = new Feed(feed.getDownload_url(), feed.getLastUpdate());
         parsedFeed.setFile_url(file.getAbsolutePath());
         parsedFeed.setDownloaded(true);
-        handler.parseFeed(parsedFeed);
+        handler.parseFeed(parsedFeed, knownItems);
         return parsedFeed;
     }
 
@@ -151,6 +161,69 @@ public class FeedHandlerTest {
         feedValid(f1, f2, Feed.TYPE_ATOM1);
     }
 
+    @Test
+    public void testRSS2KnownItemsCutoff() throws IOException, UnsupportedFeedtypeException, SAXException, ParserConfigurationException {
+        Feed f1 = createTestFeed(20, false, true, false);
+        Collections.reverse(f1.getItems());
+        // items 0 to 9 have been saved before
+        Feed f2 = runFeedTest(f1, new RSS2Generator(), "UTF-8", RSS2Generator.FEATURE_WRITE_GUID,
+                createKnownItems(f1, 10, 3));
+        assertEquals(f1.getTitle(), f2.getTitle());
+        assertEquals(13, f2.getItems().size());
+        for (int i = 0; i < f2.getItems().size(); i++) {
+            assertEquals(f1.getItems().get(i).getTitle(), f2.getItems().get(i).getTitle());
+        }
+    }
+
+    @Test
+    public void testAtomKnownItemsCutoff() throws IOException, UnsupportedFeedtypeException, SAXException, ParserConfigurationException {
+        Feed f1 = createTestFeed(20, false, true, false);
+        Collections.reverse(f1.getItems());
+        Feed f2 = runFeedTest(f1, new AtomGenerator(), "UTF-8", 0, createKnownItems(f1, 10, 3));
+        assertEquals(13, f2.getItems().size());
+    }
+
+    @Test
+    public void testKnownItemsCutoffNotSortedByDate() throws IOException, UnsupportedFeedtypeException, SAXException, ParserConfigurationException {
+        // oldest first, the known items are at the beginning of the feed
+        Feed f1 = createTestFeed(20, false, true, false);
+        Feed f2 = runFeedTest(f1, new RSS2Generator(), "UTF-8", RSS2Generator.FEATURE_WRITE_GUID,
+                createKnownItems(f1, 10, 3));
+        feedValid(f1, f2, Feed.TYPE_RSS2);
+    }
+
+    @Test
+    public void testHtmlPage() throws Exception {
+        String html = "<!doctype html>\n<html><head><title>Podcast</title></head><body><br></body></html>";
+        try {
+            new FeedHandler().parseFeed(new Feed("url", null), new ByteArrayInputStream(html.getBytes("UTF-8")));
+            fail("HTML page parsed as feed");
+        } catch (UnsupportedFeedtypeException e) {
+            assertEquals("html", e.getRootElement());
+        }
+    }
+
+    @Test(expected = SAXException.class)
+    public void testInvalidDocumentIsNoHtmlPage() throws Exception {
+        String document = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><!-- truncated";
+        new FeedHandler().parseFeed(new Feed("url", null), new ByteArrayInputStream(document.getBytes("UTF-8")));
+    }
+
+    /**
+     * Creates the known items of a feed whose oldest items have been saved before.
+     *
+     * @param numKnownItems Number of the oldest items of the feed that are known
+     */
+    private static KnownItems createKnownItems(Feed feed, int numKnownItems, int cutoff) {
+        List<FeedItem> items = new ArrayList<>(feed.getItems());
+        Collections.sort(items, (lhs, rhs) -> lhs.getPubDate().compareTo(rhs.getPubDate()));
+        Set<String> identifyingValues = new HashSet<>();
+        for (int i = 0; i < numKnownItems; i++) {
+            identifyingValues.add(items.get(i).getIdentifyingValue());
+        }
+        return new KnownItems(identifyingValues, items.get(numKnownItems - 1).getPubDate(), cutoff);
+    }
+
     private Feed createTestFeed(int numItems, boolean withImage, boolean withFeedMedia, boolean withChapters) {
         Feed feed = new Feed(0, null, "title", "http://example.com", "This is the description",
                 "http://example.com/payment", "Daniel", "en", null, "http://example.com/feed", "http://example.com/picture", file.getAbsolutePath(),
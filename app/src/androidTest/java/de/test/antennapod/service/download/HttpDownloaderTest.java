@@ -2,12 +2,25 @@ package de.test.antennapod.service.download;
 
 import androidx.test.InstrumentationRegistry;
 import androidx.test.filters.LargeTest;
+import android.preference.PreferenceManager;
 import android.util.Log;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.Random;
 
 import de.danoeh.antennapod.core.feed.FeedFile;
+import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
@@ -41,6 +54,8 @@ public class HttpDownloaderTest {
 
     @After
     public void tearDown() throws Exception {
+        PreferenceManager.getDefaultSharedPreferences(InstrumentationRegistry.getTargetContext()).edit()
+                .putBoolean(UserPreferences.PREF_SEGMENTED_DOWNLOADS, false).commit();
         File[] contents = destDir.listFiles();
         for (File f : contents) {
             assertTrue(f.delete());
@@ -164,6 +179,130 @@ public class HttpDownloaderTest {
         assertEquals(DownloadError.ERROR_UNAUTHORIZED, downloader.getResult().getReason());
     }
 
+    @Test
+    public void testSegmentedDownload() throws IOException {
+        setSegmentedDownloads(true);
+        File source = createServedFile("segmented-source.mp3", SEGMENTED_FILE_SIZE);
+        String url = HTTPBin.BASE_URL + "/files/" + httpServer.serveFile(source);
+        Downloader downloader = downloadMedia(url, "testSegmentedDownload.mp3", true);
+        assertDownloaded(source, downloader);
+    }
+
+    @Test
+    public void testSegmentedDownloadRangeIgnored() throws IOException {
+        setSegmentedDownloads(true);
+        File source = createServedFile("segmented-source.mp3", SEGMENTED_FILE_SIZE);
+        String url = HTTPBin.BASE_URL + "/files-ignore-range/" + httpServer.serveFile(source);
+        Downloader downloader = downloadMedia(url, "testSegmentedDownloadRangeIgnored.mp3", true);
+        assertDownloaded(source, downloader);
+    }
+
+    @Test
+    public void testResumeSegmentedDownload() throws IOException {
+        File source = createServedFile("segmented-source.mp3", SEGMENTED_FILE_SIZE);
+        String url = HTTPBin.BASE_URL + "/files/" + httpServer.serveFile(source);
+        File destination = new File(destDir, "testResumeSegmentedDownload.mp3");
+        // the first of two segments has been downloaded into the preallocated file
+        long half = SEGMENTED_FILE_SIZE / 2;
+        copyBeginning(source, destination, half);
+        try (RandomAccessFile out = new RandomAccessFile(destination, "rw")) {
+            out.setLength(SEGMENTED_FILE_SIZE);
+        }
+        writeSegmentState(destination, SEGMENTED_FILE_SIZE + "\n0 " + half + " " + half + "\n"
+                + half + " " + SEGMENTED_FILE_SIZE + " " + half + "\n");
+
+        Downloader downloader = downloadMedia(url, destination.getName(), false);
+        assertDownloaded(source, downloader);
+    }
+
+    @Test
+    public void testResumeWithCorruptSegmentState() throws IOException {
+        File source = createServedFile("segmented-source.mp3", SEGMENTED_FILE_SIZE);
+        String url = HTTPBin.BASE_URL + "/files/" + httpServer.serveFile(source);
+        File destination = new File(destDir, "testResumeWithCorruptSegmentState.mp3");
+        try (RandomAccessFile out = new RandomAccessFile(destination, "rw")) {
+            out.setLength(SEGMENTED_FILE_SIZE);
+        }
+        writeSegmentState(destination, SEGMENTED_FILE_SIZE + "\n0 100");
+
+        Downloader downloader = downloadMedia(url, destination.getName(), false);
+        assertDownloaded(source, downloader);
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        File source = createServedFile("source.mp3", FILE_SIZE);
+        String url = HTTPBin.BASE_URL + "/files/" + httpServer.serveFile(source);
+        File destination = new File(destDir, "testResume.mp3");
+        copyBeginning(source, destination, FILE_SIZE / 3);
+
+        Downloader downloader = downloadMedia(url, destination.getName(), false);
+        assertDownloaded(source, downloader);
+    }
+
+    @Test
+    public void testResumeRangeIgnored() throws IOException {
+        File source = createServedFile("source.mp3", FILE_SIZE);
+        String url = HTTPBin.BASE_URL + "/files-ignore-range/" + httpServer.serveFile(source);
+        File destination = new File(destDir, "testResumeRangeIgnored.mp3");
+        copyBeginning(source, destination, FILE_SIZE / 3);
+
+        Downloader downloader = downloadMedia(url, destination.getName(), false);
+        assertDownloaded(source, downloader);
+    }
+
+    private static final long FILE_SIZE = 300 * 1024;
+    // large enough to be downloaded in segments
+    private static final long SEGMENTED_FILE_SIZE = 16 * 1024 * 1024 + 3;
+
+    private void setSegmentedDownloads(boolean enabled) {
+        PreferenceManager.getDefaultSharedPreferences(InstrumentationRegistry.getTargetContext()).edit()
+                .putBoolean(UserPreferences.PREF_SEGMENTED_DOWNLOADS, enabled).commit();
+    }
+
+    private File createServedFile(String name, long size) throws IOException {
+        File file = new File(destDir, name);
+        Random random = new Random(size);
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        }
+        return file;
+    }
+
+    private static void copyBeginning(File source, File destination, long length) throws IOException {
+        try (InputStream in = new FileInputStream(source); OutputStream out = new FileOutputStream(destination)) {
+            IOUtils.copyLarge(in, out, 0, length);
+        }
+    }
+
+    private static void writeSegmentState(File destination, String state) throws IOException {
+        try (Writer writer = new FileWriter(destination.getPath() + ".segments")) {
+            writer.write(state);
+        }
+    }
+
+    private Downloader downloadMedia(String url, String title, boolean deleteOnFailure) {
+        String destination = new File(destDir, title).getAbsolutePath();
+        DownloadRequest request = new DownloadRequest(destination, url, title, 0, FeedMedia.FEEDFILETYPE_FEEDMEDIA,
+                null, null, deleteOnFailure, null);
+        Downloader downloader = new HttpDownloader(request);
+        downloader.call();
+        return downloader;
+    }
+
+    private static void assertDownloaded(File source, Downloader downloader) throws IOException {
+        DownloadStatus status = downloader.getResult();
+        assertTrue(status.isDone());
+        assertTrue(status.isSuccessful());
+        File destination = new File(downloader.getDownloadRequest().getDestination());
+        assertTrue(FileUtils.contentEquals(source, destination));
+        assertFalse(new File(destination.getPath() + ".segments").exists());
+    }
+
     /* TODO: replace with smaller test file
     public void testUrlWithSpaces() {
         download("http://acedl.noxsolutions.com/ace/Don't Call Salman Rushdie Sneezy in Finland.mp3", "testUrlWithSpaces", true);
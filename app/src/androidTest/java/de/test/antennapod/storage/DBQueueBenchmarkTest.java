@@ -0,0 +1,153 @@
+package de.test.antennapod.storage;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+import android.util.Log;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.preferences.UserPreferences;
+import de.danoeh.antennapod.core.storage.DBReader;
+import de.danoeh.antennapod.core.storage.DBWriter;
+import de.danoeh.antennapod.core.storage.PodDBAdapter;
+import de.danoeh.antennapod.core.util.LongList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures single-item queue operations for different queue sizes and compares them with
+ * rewriting the whole queue.
+ */
+@LargeTest
+public class DBQueueBenchmarkTest {
+    private static final String TAG = "DBQueueBenchmarkTest";
+    private static final int[] QUEUE_SIZES = {10, 100, 500, 1000, 5000};
+    private static final int REPETITIONS = 20;
+    private static final long TIMEOUT = 30L;
+
+    private Context context;
+
+    @After
+    public void tearDown() throws Exception {
+        assertTrue(PodDBAdapter.deleteDatabase());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getTargetContext();
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+
+        SharedPreferences.Editor prefEdit = PreferenceManager
+                .getDefaultSharedPreferences(context.getApplicationContext()).edit();
+        prefEdit.putString(UserPreferences.PREF_ENQUEUE_LOCATION, UserPreferences.EnqueueLocation.BACK.name());
+        prefEdit.putBoolean(UserPreferences.PREF_QUEUE_KEEP_SORTED, false);
+        prefEdit.commit();
+        UserPreferences.init(context);
+    }
+
+    @Test
+    public void testQueueOperations() throws Exception {
+        for (int size : QUEUE_SIZES) {
+            PodDBAdapter.deleteDatabase();
+            List<FeedItem> items = saveFeed(size + REPETITIONS);
+            List<FeedItem> queue = new ArrayList<>(items.subList(0, size));
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.setQueue(queue);
+            adapter.close();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++) {
+                adapter.open();
+                adapter.setQueue(queue);
+                adapter.close();
+            }
+            long rewriteDuration = (System.nanoTime() - start) / REPETITIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++) {
+                FeedItem item = items.get(size + i);
+                DBWriter.addQueueItemAt(context, item.getId(), size / 2, false).get(TIMEOUT, TimeUnit.SECONDS);
+            }
+            long addDuration = (System.nanoTime() - start) / REPETITIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++) {
+                FeedItem item = items.get(size + i);
+                DBWriter.removeQueueItem(context, false, item.getId()).get(TIMEOUT, TimeUnit.SECONDS);
+            }
+            long removeDuration = (System.nanoTime() - start) / REPETITIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++) {
+                DBWriter.moveQueueItem(0, size / 2, false).get(TIMEOUT, TimeUnit.SECONDS);
+            }
+            long moveDuration = (System.nanoTime() - start) / REPETITIONS;
+
+            Log.d(TAG, "Queue size " + size + ": rewrite " + rewriteDuration / 1000 + " us, add "
+                    + addDuration / 1000 + " us, move " + moveDuration / 1000 + " us, remove "
+                    + removeDuration / 1000 + " us");
+
+            // moving the first item to the middle REPETITIONS times rotates the first half
+            LongList expected = new LongList(size);
+            int half = size / 2;
+            for (int i = 0; i < half + 1; i++) {
+                expected.add(queue.get((i + REPETITIONS) % (half + 1)).getId());
+            }
+            for (int i = half + 1; i < size; i++) {
+                expected.add(queue.get(i).getId());
+            }
+            assertEquals(expected, DBReader.getQueueIDList());
+        }
+    }
+
+    @Test
+    public void testRepeatedInsertAtSamePosition() throws Exception {
+        List<FeedItem> items = saveFeed(100);
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setQueue(items.subList(0, 2));
+        adapter.close();
+
+        // more inserts than the gap between two rows allows, so the queue has to be respaced
+        LongList expected = LongList.of(items.get(0).getId());
+        for (int i = items.size() - 1; i >= 2; i--) {
+            DBWriter.addQueueItemAt(context, items.get(i).getId(), 1, false).get(TIMEOUT, TimeUnit.SECONDS);
+        }
+        for (int i = 2; i < items.size(); i++) {
+            expected.add(items.get(i).getId());
+        }
+        expected.add(items.get(1).getId());
+        assertEquals(expected, DBReader.getQueueIDList());
+    }
+
+    private List<FeedItem> saveFeed(int numItems) {
+        Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = new FeedItem(0, "item " + i, "id" + i, "link" + i, new Date(i),
+                    FeedItem.UNPLAYED, feed);
+            feed.getItems().add(item);
+        }
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+        return feed.getItems();
+    }
+}
@@ -1,10 +1,14 @@
 package de.test.antennapod.storage;
 
 import android.content.Context;
+import android.util.Pair;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import androidx.test.InstrumentationRegistry;
@@ -283,6 +287,97 @@ public class DBReaderTest {
         }
     }
 
+    @Test
+    public void testGetRecentlyPublishedEpisodesPaged() {
+        final int numFeeds = 3;
+        final int numItems = 20;
+        final int pageSize = 7;
+        saveFeedlist(numFeeds, numItems, true);
+
+        List<FeedItem> loaded = new ArrayList<>();
+        List<FeedItem> page = DBReader.getRecentlyPublishedEpisodes(null, pageSize);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= pageSize);
+            loaded.addAll(page);
+            page = DBReader.getRecentlyPublishedEpisodes(page.get(page.size() - 1), pageSize);
+        }
+        assertEquals(numFeeds * numItems, loaded.size());
+        for (int i = 1; i < loaded.size(); i++) {
+            FeedItem previous = loaded.get(i - 1);
+            FeedItem current = loaded.get(i);
+            int dateComparison = previous.getPubDate().compareTo(current.getPubDate());
+            assertTrue(dateComparison > 0 || (dateComparison == 0 && previous.getId() > current.getId()));
+        }
+    }
+
+    @Test
+    public void testGetFeedItemListPaged() {
+        final int numItems = 25;
+        final int pageSize = 10;
+        Feed feed = saveFeedlist(2, numItems, false).get(1);
+
+        List<FeedItem> firstPage = DBReader.getFeedItemList(feed, null, pageSize);
+        assertEquals(pageSize, firstPage.size());
+        List<FeedItem> secondPage = DBReader.getFeedItemList(feed, firstPage.get(pageSize - 1), pageSize);
+        assertEquals(pageSize, secondPage.size());
+        List<FeedItem> lastPage = DBReader.getFeedItemList(feed, secondPage.get(pageSize - 1), pageSize);
+        assertEquals(numItems - 2 * pageSize, lastPage.size());
+
+        LongList ids = new LongList();
+        for (List<FeedItem> items : Arrays.asList(firstPage, secondPage, lastPage)) {
+            for (FeedItem item : items) {
+                assertEquals(feed.getId(), item.getFeedId());
+                assertFalse(ids.contains(item.getId()));
+                ids.add(item.getId());
+            }
+        }
+    }
+
+    @Test
+    public void testGetEpisodeSummariesPaged() {
+        final int numItems = 25;
+        final int pageSize = 10;
+        Feed feed = saveFeedlist(2, numItems, true).get(1);
+        Map<Long, FeedItem> itemsByMediaId = new HashMap<>();
+        for (FeedItem item : feed.getItems()) {
+            itemsByMediaId.put(item.getMedia().getId(), item);
+        }
+
+        LongList mediaIds = new LongList();
+        DBReader.EpisodeSummary after = null;
+        for (int page = 0; page < 3; page++) {
+            List<DBReader.EpisodeSummary> episodes = DBReader.getEpisodeSummaries(feed.getId(), after, pageSize);
+            assertEquals(Math.min(pageSize, numItems - page * pageSize), episodes.size());
+            for (DBReader.EpisodeSummary episode : episodes) {
+                FeedItem item = itemsByMediaId.get(episode.mediaId);
+                assertNotNull(item);
+                assertEquals(item.getId(), episode.itemId);
+                assertEquals(item.getTitle(), episode.title);
+                assertFalse(mediaIds.contains(episode.mediaId));
+                mediaIds.add(episode.mediaId);
+            }
+            after = episodes.get(episodes.size() - 1);
+        }
+        assertTrue(DBReader.getEpisodeSummaries(feed.getId(), after, pageSize).isEmpty());
+    }
+
+    @Test
+    public void testGetFeedItemsByUrl() {
+        List<Feed> feeds = saveFeedlist(2, 5, true);
+        Pair<String, String> first = new Pair<>("url0", "url1");
+        Pair<String, String> second = new Pair<>("url1", "url3");
+        Pair<String, String> unknown = new Pair<>("url0", "unknown");
+
+        Map<Pair<String, String>, FeedItem> items = DBReader.getFeedItemsByUrl(
+                Arrays.asList(first, second, unknown));
+        assertEquals(2, items.size());
+        assertEquals(feeds.get(0).getId(), items.get(first).getFeedId());
+        assertEquals("url1", items.get(first).getMedia().getDownload_url());
+        assertEquals(feeds.get(1).getId(), items.get(second).getFeedId());
+        assertEquals("url3", items.get(second).getMedia().getDownload_url());
+        assertNull(items.get(unknown));
+    }
+
     @Test
     public void testGetPlaybackHistory() {
         final int numItems = (DBReader.PLAYBACK_HISTORY_SIZE + 1) * 2;
@@ -326,6 +421,51 @@ public class DBReaderTest {
         }
     }
 
+    @Test
+    public void testGetStatistics() {
+        Feed feed = new Feed("url0", null, "feed 0");
+        feed.setItems(new ArrayList<>());
+        FeedItem played = new FeedItem(0, "played", "id0", "link0", new Date(), FeedItem.PLAYED, feed);
+        played.setMedia(new FeedMedia(0, played, 60000, 0, 1, "audio/mp3", null, "media0",
+                false, new Date(), 50000, 0));
+        feed.getItems().add(played);
+        FeedItem started = new FeedItem(0, "started", "id1", "link1", new Date(), FeedItem.UNPLAYED, feed);
+        started.setMedia(new FeedMedia(0, started, 90000, 30000, 1, "audio/mp3", null, "media1",
+                false, null, 20000, 0));
+        feed.getItems().add(started);
+        FeedItem unplayed = new FeedItem(0, "unplayed", "id2", "link2", new Date(), FeedItem.UNPLAYED, feed);
+        unplayed.setMedia(new FeedMedia(0, unplayed, 120000, 0, 1, "audio/mp3", null, "media2",
+                false, null, 0, 0));
+        feed.getItems().add(unplayed);
+        feed.getItems().add(new FeedItem(0, "no media", "id3", "link3", new Date(), FeedItem.PLAYED, feed));
+        Feed emptyFeed = new Feed("url1", null, "feed 1");
+        emptyFeed.setItems(new ArrayList<>());
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed, emptyFeed);
+        adapter.close();
+
+        DBReader.StatisticsData statistics = DBReader.getStatistics(false);
+        assertEquals(2, statistics.feedTime.size());
+        assertEquals(70, statistics.totalTime);
+        assertEquals(90, statistics.totalTimeCountAll);
+
+        DBReader.StatisticsItem item = statistics.feedTime.get(0);
+        assertEquals(feed.getId(), item.feed.getId());
+        assertEquals(270, item.time);
+        assertEquals(70, item.timePlayed);
+        assertEquals(90, item.timePlayedCountAll);
+        assertEquals(3, item.episodes);
+        assertEquals(2, item.episodesStarted);
+        assertEquals(2, item.episodesStartedIncludingMarked);
+
+        DBReader.StatisticsItem emptyItem = statistics.feedTime.get(1);
+        assertEquals(emptyFeed.getId(), emptyItem.feed.getId());
+        assertEquals(0, emptyItem.time);
+        assertEquals(0, emptyItem.episodes);
+    }
+
     @Test
     public void testGetNavDrawerDataQueueEmptyNoUnreadItems() {
         final int NUM_FEEDS = 10;
@@ -17,6 +17,7 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
@@ -27,7 +28,9 @@ import java.util.concurrent.TimeoutException;
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedMedia;
+import de.danoeh.antennapod.core.gpoddernet.model.GpodnetEpisodeAction;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
+import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.storage.DBReader;
 import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.core.storage.PodDBAdapter;
@@ -112,6 +115,117 @@ public class DBWriterTest {
         assertEquals(DURATION, mediaFromDb.getDuration());
     }
 
+    @Test
+    public void testSetFeedDelta() {
+        Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            FeedItem item = new FeedItem(0, "Item " + i, "Item " + i, "url", new Date(i), FeedItem.PLAYED, feed);
+            item.setDescription("Description " + i);
+            feed.getItems().add(item);
+        }
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+
+        // saved items are loaded without their shownotes
+        Feed savedFeed = DBReader.getFeed(feed.getId());
+        assertNotNull(savedFeed);
+        FeedItem unchangedItem = null;
+        FeedItem changedItem = null;
+        for (FeedItem item : savedFeed.getItems()) {
+            assertNull(item.getDescription());
+            if (item.getItemIdentifier().equals("Item 0")) {
+                unchangedItem = item;
+            } else if (item.getItemIdentifier().equals("Item 1")) {
+                changedItem = item;
+            }
+        }
+        assertNotNull(unchangedItem);
+        assertNotNull(changedItem);
+
+        FeedItem downloadedItem = new FeedItem(0, "Item 0", "Item 0", "url", new Date(0), FeedItem.PLAYED, null);
+        downloadedItem.setDescription("Description 0");
+        unchangedItem.updateFromOther(downloadedItem);
+        assertFalse(unchangedItem.isDirty());
+
+        downloadedItem = new FeedItem(0, "Item 1", "Item 1", "url", new Date(1), FeedItem.PLAYED, null);
+        downloadedItem.setDescription("Changed description");
+        changedItem.updateFromOther(downloadedItem);
+        assertTrue(changedItem.isDirty());
+
+        FeedItem newItem = new FeedItem(0, "Item 3", "Item 3", "url", new Date(3), FeedItem.NEW, savedFeed);
+        newItem.setDescription("Description 3");
+        savedFeed.getItems().add(newItem);
+
+        adapter.open();
+        int rowsWritten = adapter.setFeedDelta(savedFeed);
+        adapter.close();
+
+        // the feed, the changed and the new item
+        assertEquals(3, rowsWritten);
+        assertFalse(changedItem.isDirty());
+        assertTrue(newItem.getId() != 0);
+
+        FeedItem itemFromDb = DBReader.getFeedItem(changedItem.getId());
+        DBReader.loadExtraInformationOfFeedItem(itemFromDb);
+        assertEquals("Changed description", itemFromDb.getDescription());
+        itemFromDb = DBReader.getFeedItem(newItem.getId());
+        DBReader.loadExtraInformationOfFeedItem(itemFromDb);
+        assertEquals("Description 3", itemFromDb.getDescription());
+        assertEquals(4, DBReader.getFeed(feed.getId()).getItems().size());
+
+        // nothing has changed since the last delta
+        adapter.open();
+        assertEquals(1, adapter.setFeedDelta(savedFeed));
+        adapter.close();
+    }
+
+    @Test
+    public void testSetFeedDeltaNotModified() {
+        Feed feed = new Feed("url", "Old-Last-Modified", "title");
+        feed.setEtag("\"old\"");
+        feed.setItems(new ArrayList<>());
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+
+        DownloadRequest request = new DownloadRequest.Builder("destination", feed)
+                .lastModified("New-Last-Modified")
+                .etag("\"new\"")
+                .build();
+        adapter.open();
+        assertEquals(0, adapter.setFeedDelta(Collections.singletonList(request)));
+        adapter.close();
+
+        Feed feedFromDb = DBReader.getFeed(feed.getId());
+        assertNotNull(feedFromDb);
+        assertEquals("New-Last-Modified", feedFromDb.getLastUpdate());
+        assertEquals("\"new\"", feedFromDb.getEtag());
+        assertEquals(1, feedFromDb.getRefreshCount());
+        assertEquals(1, feedFromDb.getNotModifiedCount());
+    }
+
+    @Test
+    public void testAddSkippedFeedRefreshes() throws Exception {
+        Feed feed1 = new Feed("url1", null, "title1");
+        feed1.setItems(new ArrayList<>());
+        Feed feed2 = new Feed("url2", null, "title2");
+        feed2.setItems(new ArrayList<>());
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed1, feed2);
+        adapter.close();
+
+        DBWriter.addSkippedFeedRefreshes(feed1.getId()).get(TIMEOUT, TimeUnit.SECONDS);
+        DBWriter.addSkippedFeedRefreshes(feed1.getId(), feed2.getId()).get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(2, DBReader.getFeed(feed1.getId()).getSkippedRefreshCount());
+        assertEquals(1, DBReader.getFeed(feed2.getId()).getSkippedRefreshCount());
+    }
+
     @Test
     public void testDeleteFeedMediaOfItemFileExists()
             throws IOException, ExecutionException, InterruptedException, TimeoutException {
@@ -773,6 +887,51 @@ public class DBWriterTest {
         }
     }
 
+    @Test
+    public void testAddEpisodeActionReplacesPlayActions() throws InterruptedException, ExecutionException, TimeoutException {
+        GpodnetEpisodeAction download = new GpodnetEpisodeAction.Builder("podcast", "episode",
+                GpodnetEpisodeAction.Action.DOWNLOAD).deviceId("device").timestamp(new Date(1000)).build();
+        GpodnetEpisodeAction otherPlay = new GpodnetEpisodeAction.Builder("podcast", "other",
+                GpodnetEpisodeAction.Action.PLAY).deviceId("device").timestamp(new Date(2000)).build();
+        withPodDB(adapter -> {
+            adapter.addEpisodeAction(download);
+            adapter.addEpisodeAction(otherPlay);
+            for (int i = 1; i <= 10; i++) {
+                adapter.addEpisodeAction(new GpodnetEpisodeAction.Builder("podcast", "episode",
+                        GpodnetEpisodeAction.Action.PLAY).deviceId("device").timestamp(new Date(3000 + i))
+                        .started(0).position(i).total(100).build());
+            }
+        });
+
+        DBReader.QueuedEpisodeActions queued = DBReader.getQueuedEpisodeActions(Integer.MAX_VALUE);
+        assertEquals(3, queued.actions.size());
+        assertEquals(download, queued.actions.get(0));
+        assertEquals(otherPlay, queued.actions.get(1));
+        assertEquals(10, queued.actions.get(2).getPosition());
+    }
+
+    @Test
+    public void testRemoveEpisodeActions() throws InterruptedException, ExecutionException, TimeoutException {
+        final int numActions = 10;
+        withPodDB(adapter -> {
+            for (int i = 0; i < numActions; i++) {
+                adapter.addEpisodeAction(new GpodnetEpisodeAction.Builder("podcast", "episode " + i,
+                        GpodnetEpisodeAction.Action.DOWNLOAD).deviceId("device").timestamp(new Date(i)).build());
+            }
+        });
+
+        DBReader.QueuedEpisodeActions first = DBReader.getQueuedEpisodeActions(4);
+        assertEquals(4, first.actions.size());
+        DBWriter.removeEpisodeActions(first.lastId).get(TIMEOUT, TimeUnit.SECONDS);
+
+        DBReader.QueuedEpisodeActions rest = DBReader.getQueuedEpisodeActions(Integer.MAX_VALUE);
+        assertEquals(numActions - 4, rest.actions.size());
+        assertEquals("episode 4", rest.actions.get(0).getEpisode());
+
+        DBWriter.clearEpisodeActions().get(TIMEOUT, TimeUnit.SECONDS);
+        assertTrue(DBReader.getQueuedEpisodeActions(Integer.MAX_VALUE).actions.isEmpty());
+    }
+
     private static Feed createTestFeed(int numItems) {
         Feed feed = new Feed("url", null, "title");
         feed.setItems(new ArrayList<>());
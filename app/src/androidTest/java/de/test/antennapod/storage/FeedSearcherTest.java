@@ -0,0 +1,149 @@
+package de.test.antennapod.storage;
+
+import android.content.Context;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.danoeh.antennapod.core.feed.Chapter;
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.SearchResult;
+import de.danoeh.antennapod.core.feed.SimpleChapter;
+import de.danoeh.antennapod.core.storage.FeedSearcher;
+import de.danoeh.antennapod.core.storage.PodDBAdapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link FeedSearcher}
+ */
+@LargeTest
+public class FeedSearcherTest {
+
+    private static final int NUM_FEEDS = 20;
+    private static final int NUM_ITEMS = 500;
+
+    private Context context;
+    private final List<Feed> feeds = new ArrayList<>();
+    private final Set<Long> expectedResults = new HashSet<>();
+    private final Set<Long> chapterResults = new HashSet<>();
+
+    @After
+    public void tearDown() throws Exception {
+        assertTrue(PodDBAdapter.deleteDatabase());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getTargetContext();
+
+        // create new database
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        for (int i = 0; i < NUM_FEEDS; i++) {
+            Feed feed = new Feed(0, null, "feed " + i, "link" + i, "descr", null, null,
+                    "author" + i, null, "id" + i, null, null, "url" + i, false);
+            feed.setItems(new ArrayList<>());
+            for (int j = 0; j < NUM_ITEMS; j++) {
+                FeedItem item = new FeedItem(0, "item " + j + ((j % 10 == 0) ? " giraffe" : ""),
+                        "id" + j, "link" + j, new Date(j), FeedItem.PLAYED, feed);
+                item.setDescription("Shownotes of episode " + j + ((j % 7 == 0) ? " about giraffes" : ""));
+                if (j % 11 == 0) {
+                    item.setChapters(new ArrayList<>(Arrays.<Chapter>asList(
+                            new SimpleChapter(0, "Intro", item, null),
+                            new SimpleChapter(1000, "Giraffe facts", item, null))));
+                }
+                feed.getItems().add(item);
+            }
+            adapter.setCompleteFeed(feed);
+            for (int j = 0; j < NUM_ITEMS; j++) {
+                if (j % 10 == 0 || j % 7 == 0 || j % 11 == 0) {
+                    expectedResults.add(feed.getItems().get(j).getId());
+                }
+                if (j % 11 == 0 && j % 10 != 0) {
+                    chapterResults.add(feed.getItems().get(j).getId());
+                }
+            }
+            feeds.add(feed);
+        }
+        adapter.close();
+    }
+
+    @Test
+    public void testSearchFindsAllMatches() {
+        List<SearchResult> results = FeedSearcher.performSearch(context, "giraffe", 0);
+
+        Set<Long> resultIds = new HashSet<>();
+        for (SearchResult result : results) {
+            resultIds.add(((FeedItem) result.getComponent()).getId());
+        }
+        assertEquals("Results must not contain duplicates", results.size(), resultIds.size());
+        assertEquals(expectedResults, resultIds);
+    }
+
+    @Test
+    public void testSearchMatchesBeginningOfWords() {
+        assertTrue(FeedSearcher.performSearch(context, "raffe", 0).isEmpty());
+        assertFalse(FeedSearcher.performSearch(context, "GIRAF", 0).isEmpty());
+    }
+
+    @Test
+    public void testSearchRanksResults() {
+        List<SearchResult> results = FeedSearcher.performSearch(context, "giraffe", 0);
+        assertEquals(2, results.get(0).getValue());
+        assertEquals(0, results.get(results.size() - 1).getValue());
+        for (int i = 1; i < results.size(); i++) {
+            SearchResult previous = results.get(i - 1);
+            SearchResult current = results.get(i);
+            assertTrue("Results not ordered by relevance", current.getValue() <= previous.getValue());
+            if (current.getValue() == previous.getValue()) {
+                Date previousDate = ((FeedItem) previous.getComponent()).getPubDate();
+                Date currentDate = ((FeedItem) current.getComponent()).getPubDate();
+                assertFalse("Results of the same rank not ordered by date", currentDate.after(previousDate));
+            }
+        }
+    }
+
+    @Test
+    public void testSearchDescribesChapterMatches() {
+        List<SearchResult> results = FeedSearcher.performSearch(context, "facts", 0);
+        assertEquals(NUM_FEEDS * (1 + (NUM_ITEMS - 1) / 11), results.size());
+        for (SearchResult result : results) {
+            assertEquals(1, result.getValue());
+        }
+
+        for (SearchResult result : FeedSearcher.performSearch(context, "giraffe", 0)) {
+            long id = ((FeedItem) result.getComponent()).getId();
+            if (chapterResults.contains(id)) {
+                // the title does not match, but the chapters do
+                assertEquals(1, result.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testSearchSingleFeed() {
+        long feedId = feeds.get(0).getId();
+        List<SearchResult> results = FeedSearcher.performSearch(context, "giraffe", feedId);
+        assertTrue(results.size() > 0);
+        for (SearchResult result : results) {
+            assertEquals(feedId, ((FeedItem) result.getComponent()).getFeedId());
+        }
+    }
+}
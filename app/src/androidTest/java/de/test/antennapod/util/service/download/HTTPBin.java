@@ -36,6 +36,7 @@ import de.danoeh.antennapod.BuildConfig;
  * /basic-auth/username/password: Basic auth with username and password
  * /gzip/n:      Send gzipped data of size n bytes
  * /files/id:     Accesses the file with the specified ID (this has to be added first via serveFile).
+ * /files-ignore-range/id: Accesses the file like /files/id, but answers range requests with the whole file.
  */
 public class HTTPBin extends NanoHTTPD {
     private static final String TAG = "HTTPBin";
@@ -174,14 +175,14 @@ public class HTTPBin extends NanoHTTPD {
                 e.printStackTrace();
                 return getInternalError();
             }
-        } else if (func.equalsIgnoreCase("files")) {
+        } else if (func.equalsIgnoreCase("files") || func.equalsIgnoreCase("files-ignore-range")) {
             try {
                 int id = Integer.parseInt(param);
                 if (id < 0) {
                     Log.w(TAG, "Invalid ID: " + id);
                     throw new NumberFormatException();
                 }
-                return getFileAccessResponse(id, headers);
+                return getFileAccessResponse(id, headers, func.equalsIgnoreCase("files-ignore-range"));
 
             } catch (NumberFormatException e) {
                 e.printStackTrace();
@@ -192,7 +193,7 @@ public class HTTPBin extends NanoHTTPD {
         return get404Error();
     }
 
-    private synchronized Response getFileAccessResponse(int id, Map<String, String> header) {
+    private synchronized Response getFileAccessResponse(int id, Map<String, String> header, boolean ignoreRange) {
         File file = accessFile(id);
         if (file == null || !file.exists()) {
             Log.w(TAG, "File not found: " + id);
@@ -200,11 +201,12 @@ public class HTTPBin extends NanoHTTPD {
         }
         InputStream inputStream = null;
         String contentRange = null;
+        long contentLength = file.length();
         Response.Status status;
         boolean successful = false;
         try {
             inputStream = new FileInputStream(file);
-            if (header.containsKey("range")) {
+            if (header.containsKey("range") && !ignoreRange) {
                 // read range header field
                 final String value = header.get("range");
                 final String[] segments = value.split("=");
@@ -219,13 +221,21 @@ public class HTTPBin extends NanoHTTPD {
                 }
                 try {
                     long start = Long.parseLong(StringUtils.substringBefore(segments[1], "-"));
-                    if (start >= file.length()) {
+                    String endValue = StringUtils.substringAfter(segments[1], "-");
+                    long end = endValue.isEmpty() ? file.length() - 1
+                            : Math.min(Long.parseLong(endValue), file.length() - 1);
+                    if (start >= file.length() || end < start) {
                         return getRangeNotSatisfiable();
                     }
 
-                    // skip 'start' bytes
+                    // skip 'start' bytes and only send the requested range
                     IOUtils.skipFully(inputStream, start);
-                    contentRange = "bytes " + start + (file.length() - 1) + "/" + file.length();
+                    contentLength = end - start + 1;
+                    byte[] range = new byte[(int) contentLength];
+                    IOUtils.readFully(inputStream, range);
+                    IOUtils.closeQuietly(inputStream);
+                    inputStream = new ByteArrayInputStream(range);
+                    contentRange = "bytes " + start + "-" + end + "/" + file.length();
 
                 } catch (NumberFormatException e) {
                     e.printStackTrace();
@@ -258,7 +268,7 @@ public class HTTPBin extends NanoHTTPD {
         if (contentRange != null) {
             response.addHeader("Content-Range", contentRange);
         }
-        response.addHeader("Content-Length", String.valueOf(file.length()));
+        response.addHeader("Content-Length", String.valueOf(contentLength));
         return response;
     }
 
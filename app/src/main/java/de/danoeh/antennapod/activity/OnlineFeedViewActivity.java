@@ -415,7 +415,7 @@ public class OnlineFeedViewActivity extends AppCompatActivity {
                 f.setPreferences(feed.getPreferences());
                 this.feed = f;
                 try {
-                    DownloadRequester.getInstance().downloadFeed(this, f);
+                    DownloadRequester.getInstance().downloadFeed(this, f, false, false, true);
                 } catch (DownloadRequestException e) {
                     Log.e(TAG, Log.getStackTraceString(e));
                     DownloadRequestErrorDialogCreator.newRequestErrorDialog(this, e.getMessage());
@@ -2,9 +2,6 @@ package de.danoeh.antennapod.fragment;
 
 import android.os.Bundle;
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.LinearLayoutManager;
-import androidx.recyclerview.widget.RecyclerView;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -17,9 +14,6 @@ import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedItemFilter;
 import de.danoeh.antennapod.core.storage.DBReader;
 import de.danoeh.antennapod.dialog.FilterDialog;
-import io.reactivex.Observable;
-import io.reactivex.android.schedulers.AndroidSchedulers;
-import io.reactivex.schedulers.Schedulers;
 
 import java.util.List;
 import java.util.Set;
@@ -33,12 +27,13 @@ public class AllEpisodesFragment extends EpisodesListFragment {
     public static final String TAG = "AllEpisodesFragment";
     private static final String PREF_NAME = "PrefAllEpisodesFragment";
 
-    private static final int EPISODES_PER_PAGE = 150;
-    private static final int VISIBLE_EPISODES_SCROLL_THRESHOLD = 5;
     private static int page = 1;
 
     private static FeedItemFilter feedItemFilter = new FeedItemFilter("");
 
+    /* Last episode of the loaded pages before filtering, the next page starts after it */
+    private volatile FeedItem lastLoadedItem;
+
     @Override
     protected boolean showOnlyNewEpisodes() {
         return false;
@@ -69,41 +64,7 @@ public class AllEpisodesFragment extends EpisodesListFragment {
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View root = super.onCreateView(inflater, container, savedInstanceState);
 
-        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-
-            /* Total number of episodes after last load */
-            private int previousTotalEpisodes = 0;
-
-            /* True if loading more episodes is still in progress */
-            private boolean isLoadingMore = true;
-
-            @Override
-            public void onScrolled(RecyclerView recyclerView, int deltaX, int deltaY) {
-                super.onScrolled(recyclerView, deltaX, deltaY);
-
-                int visibleEpisodeCount = recyclerView.getChildCount();
-                int totalEpisodeCount = recyclerView.getLayoutManager().getItemCount();
-                int firstVisibleEpisode = ((LinearLayoutManager) recyclerView.getLayoutManager()).findFirstVisibleItemPosition();
-
-                /* Determine if loading more episodes has finished */
-                if (isLoadingMore) {
-                    if (totalEpisodeCount > previousTotalEpisodes) {
-                        isLoadingMore = false;
-                        previousTotalEpisodes = totalEpisodeCount;
-                    }
-                }
-
-                /* Determine if the user scrolled to the bottom and loading more episodes is not already in progress */
-                if (!isLoadingMore && (totalEpisodeCount - visibleEpisodeCount)
-                        <= (firstVisibleEpisode + VISIBLE_EPISODES_SCROLL_THRESHOLD)) {
-
-                    /* The end of the list has been reached. Load more data. */
-                    page++;
-                    loadMoreItems();
-                    isLoadingMore = true;
-                }
-            }
-        });
+        addLoadMoreScrollListener();
 
         return root;
     }
@@ -128,18 +89,10 @@ public class AllEpisodesFragment extends EpisodesListFragment {
         }
     }
 
-    private void loadMoreItems() {
-        if (disposable != null) {
-            disposable.dispose();
-        }
-        disposable = Observable.fromCallable(this::loadMoreData)
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(data -> {
-                    progLoading.setVisibility(View.GONE);
-                    episodes.addAll(data);
-                    onFragmentLoaded(episodes);
-                }, error -> Log.e(TAG, Log.getStackTraceString(error)));
+    @Override
+    void loadMoreItems() {
+        page++;
+        super.loadMoreItems();
     }
 
     private void showFilterDialog() {
@@ -157,10 +110,18 @@ public class AllEpisodesFragment extends EpisodesListFragment {
     @NonNull
     @Override
     protected List<FeedItem> loadData() {
-        return feedItemFilter.filter( DBReader.getRecentlyPublishedEpisodes(0, page * EPISODES_PER_PAGE));
+        List<FeedItem> items = DBReader.getRecentlyPublishedEpisodes(null, page * EPISODES_PER_PAGE);
+        lastLoadedItem = items.isEmpty() ? null : items.get(items.size() - 1);
+        return feedItemFilter.filter(items);
     }
 
+    @NonNull
+    @Override
     List<FeedItem> loadMoreData() {
-        return feedItemFilter.filter( DBReader.getRecentlyPublishedEpisodes((page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE));
+        List<FeedItem> items = DBReader.getRecentlyPublishedEpisodes(lastLoadedItem, EPISODES_PER_PAGE);
+        if (!items.isEmpty()) {
+            lastLoadedItem = items.get(items.size() - 1);
+        }
+        return feedItemFilter.filter(items);
     }
 }
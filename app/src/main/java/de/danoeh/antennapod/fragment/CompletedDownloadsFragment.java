@@ -24,6 +24,7 @@ import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.core.util.FeedItemUtil;
 import de.danoeh.antennapod.dialog.EpisodesApplyActionFragment;
 import de.danoeh.antennapod.view.EmptyViewHandler;
+import de.danoeh.antennapod.view.LoadMoreScrollListener;
 import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
@@ -40,10 +41,22 @@ import static de.danoeh.antennapod.dialog.EpisodesApplyActionFragment.ACTION_DEL
 public class CompletedDownloadsFragment extends ListFragment {
 
     private static final String TAG = CompletedDownloadsFragment.class.getSimpleName();
+    private static final int EPISODES_PER_PAGE = 100;
 
     private List<FeedItem> items = new ArrayList<>();
+    private boolean hasMoreItems = false;
     private DownloadedEpisodesListAdapter listAdapter;
     private Disposable disposable;
+    private Disposable actionDisposable;
+
+    private final LoadMoreScrollListener loadMoreListener = new LoadMoreScrollListener() {
+        @Override
+        public void loadMore() {
+            if (hasMoreItems) {
+                loadMoreItems();
+            }
+        }
+    };
 
     @Override
     public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
@@ -54,6 +67,7 @@ public class CompletedDownloadsFragment extends ListFragment {
 
         listAdapter = new DownloadedEpisodesListAdapter(getActivity(), itemAccess);
         setListAdapter(listAdapter);
+        getListView().setOnScrollListener(loadMoreListener);
         setListShown(false);
         EventBus.getDefault().register(this);
     }
@@ -76,6 +90,9 @@ public class CompletedDownloadsFragment extends ListFragment {
         if (disposable != null) {
             disposable.dispose();
         }
+        if (actionDisposable != null) {
+            actionDisposable.dispose();
+        }
     }
 
     @Override
@@ -96,8 +113,16 @@ public class CompletedDownloadsFragment extends ListFragment {
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == R.id.episode_actions) {
-            ((MainActivity) requireActivity())
-                    .loadChildFragment(EpisodesApplyActionFragment.newInstance(items, ACTION_DELETE | ACTION_ADD_TO_QUEUE));
+            // the actions apply to all downloads, not only to the pages that have been loaded
+            if (actionDisposable != null) {
+                actionDisposable.dispose();
+            }
+            actionDisposable = Observable.fromCallable(DBReader::getDownloadedItems)
+                    .subscribeOn(Schedulers.io())
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribe(allItems -> ((MainActivity) requireActivity()).loadChildFragment(
+                            EpisodesApplyActionFragment.newInstance(allItems, ACTION_DELETE | ACTION_ADD_TO_QUEUE)),
+                            error -> Log.e(TAG, Log.getStackTraceString(error)));
             return true;
         }
         return false;
@@ -153,11 +178,30 @@ public class CompletedDownloadsFragment extends ListFragment {
         if (disposable != null) {
             disposable.dispose();
         }
-        disposable = Observable.fromCallable(DBReader::getDownloadedItems)
+        // keep the episodes that have been loaded by scrolling
+        final int limit = Math.max(items.size(), EPISODES_PER_PAGE);
+        disposable = Observable.fromCallable(() -> DBReader.getDownloadedItems(null, limit))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(result -> {
                     items = result;
+                    hasMoreItems = result.size() == limit;
+                    loadMoreListener.reset();
+                    onItemsLoaded();
+                }, error -> Log.e(TAG, Log.getStackTraceString(error)));
+    }
+
+    private void loadMoreItems() {
+        if (items.isEmpty() || (disposable != null && !disposable.isDisposed())) {
+            return;
+        }
+        final FeedItem lastItem = items.get(items.size() - 1);
+        disposable = Observable.fromCallable(() -> DBReader.getDownloadedItems(lastItem, EPISODES_PER_PAGE))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(result -> {
+                    items.addAll(result);
+                    hasMoreItems = result.size() == EPISODES_PER_PAGE;
                     onItemsLoaded();
                 }, error -> Log.e(TAG, Log.getStackTraceString(error)));
     }
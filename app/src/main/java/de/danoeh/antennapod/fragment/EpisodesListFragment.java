@@ -33,6 +33,7 @@ import org.greenrobot.eventbus.Subscribe;
 import org.greenrobot.eventbus.ThreadMode;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import de.danoeh.antennapod.R;
@@ -69,6 +70,8 @@ public abstract class EpisodesListFragment extends Fragment {
     private static final String DEFAULT_PREF_NAME = "PrefAllEpisodesFragment";
     private static final String PREF_SCROLL_POSITION = "scroll_position";
     private static final String PREF_SCROLL_OFFSET = "scroll_offset";
+    static final int EPISODES_PER_PAGE = 150;
+    private static final int VISIBLE_EPISODES_SCROLL_THRESHOLD = 5;
 
     RecyclerView recyclerView;
     AllEpisodesRecycleAdapter listAdapter;
@@ -431,6 +434,60 @@ public abstract class EpisodesListFragment extends Fragment {
         updateUi();
     }
 
+    /**
+     * Loads the next page of episodes with {@link #loadMoreData()} when the list has been scrolled close to its end.
+     */
+    void addLoadMoreScrollListener() {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+
+            /* Total number of episodes after last load */
+            private int previousTotalEpisodes = 0;
+
+            /* True if loading more episodes is still in progress */
+            private boolean isLoadingMore = true;
+
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int deltaX, int deltaY) {
+                super.onScrolled(recyclerView, deltaX, deltaY);
+
+                int visibleEpisodeCount = recyclerView.getChildCount();
+                int totalEpisodeCount = recyclerView.getLayoutManager().getItemCount();
+                int firstVisibleEpisode = ((LinearLayoutManager) recyclerView.getLayoutManager()).findFirstVisibleItemPosition();
+
+                /* Determine if loading more episodes has finished */
+                if (isLoadingMore) {
+                    if (totalEpisodeCount > previousTotalEpisodes) {
+                        isLoadingMore = false;
+                        previousTotalEpisodes = totalEpisodeCount;
+                    }
+                }
+
+                /* Determine if the user scrolled to the bottom and loading more episodes is not already in progress */
+                if (!isLoadingMore && (totalEpisodeCount - visibleEpisodeCount)
+                        <= (firstVisibleEpisode + VISIBLE_EPISODES_SCROLL_THRESHOLD)) {
+
+                    /* The end of the list has been reached. Load more data. */
+                    loadMoreItems();
+                    isLoadingMore = true;
+                }
+            }
+        });
+    }
+
+    void loadMoreItems() {
+        if (disposable != null) {
+            disposable.dispose();
+        }
+        disposable = Observable.fromCallable(this::loadMoreData)
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(data -> {
+                    progLoading.setVisibility(View.GONE);
+                    episodes.addAll(data);
+                    onFragmentLoaded(episodes);
+                }, error -> Log.e(TAG, Log.getStackTraceString(error)));
+    }
+
     void loadItems() {
         if (disposable != null) {
             disposable.dispose();
@@ -447,4 +504,13 @@ public abstract class EpisodesListFragment extends Fragment {
 
     @NonNull
     protected abstract List<FeedItem> loadData();
+
+    /**
+     * Loads the episodes that follow the ones that have been loaded so far. Only called if
+     * {@link #addLoadMoreScrollListener()} has been used.
+     */
+    @NonNull
+    List<FeedItem> loadMoreData() {
+        return Collections.emptyList();
+    }
 }
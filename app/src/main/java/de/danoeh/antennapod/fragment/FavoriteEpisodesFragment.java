@@ -12,6 +12,7 @@ import android.view.ViewGroup;
 
 import org.greenrobot.eventbus.Subscribe;
 
+import java.util.Collections;
 import java.util.List;
 
 import de.danoeh.antennapod.R;
@@ -82,12 +83,23 @@ public class FavoriteEpisodesFragment extends EpisodesListFragment {
 
         ItemTouchHelper itemTouchHelper = new ItemTouchHelper(simpleItemTouchCallback);
         itemTouchHelper.attachToRecyclerView(recyclerView);
+        addLoadMoreScrollListener();
         return root;
     }
 
     @NonNull
     @Override
     protected List<FeedItem> loadData() {
-        return DBReader.getFavoriteItemsList();
+        // keep the episodes that have been loaded by scrolling
+        return DBReader.getFavoriteItemsList(null, Math.max(episodes.size(), EPISODES_PER_PAGE));
+    }
+
+    @NonNull
+    @Override
+    List<FeedItem> loadMoreData() {
+        if (episodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return DBReader.getFavoriteItemsList(episodes.get(episodes.size() - 1), EPISODES_PER_PAGE);
     }
 }
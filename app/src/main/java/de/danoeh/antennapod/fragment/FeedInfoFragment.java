@@ -62,6 +62,8 @@ public class FeedInfoFragment extends Fragment {
     private TextView lblAuthor;
     private TextView txtvAuthor;
     private TextView txtvUrl;
+    private TextView lblRefreshes;
+    private TextView txtvRefreshes;
     private TextView txtvAuthorHeader;
     private ImageView imgvBackground;
 
@@ -116,6 +118,8 @@ public class FeedInfoFragment extends Fragment {
         lblAuthor = root.findViewById(R.id.lblAuthor);
         txtvAuthor = root.findViewById(R.id.txtvDetailsAuthor);
         txtvUrl = root.findViewById(R.id.txtvUrl);
+        lblRefreshes = root.findViewById(R.id.lblRefreshes);
+        txtvRefreshes = root.findViewById(R.id.txtvRefreshes);
 
         txtvUrl.setOnClickListener(copyUrlToClipboard);
         postponeEnterTransition();
@@ -186,6 +190,14 @@ public class FeedInfoFragment extends Fragment {
         }
         txtvUrl.setText(feed.getDownload_url() + " {fa-paperclip}");
         Iconify.addIcons(txtvUrl);
+        if (feed.getRefreshCount() + feed.getSkippedRefreshCount() > 0) {
+            txtvRefreshes.setText(getString(R.string.refreshes_avoided_value,
+                    Math.round(100 * feed.getAvoidedRefreshRate()), feed.getSkippedRefreshCount(),
+                    feed.getNotModifiedCount(), feed.getRefreshCount()));
+        } else {
+            lblRefreshes.setVisibility(View.GONE);
+            txtvRefreshes.setVisibility(View.GONE);
+        }
 
         getActivity().invalidateOptionsMenu();
     }
@@ -2,7 +2,6 @@ package de.danoeh.antennapod.fragment;
 
 import android.content.res.TypedArray;
 import android.os.Bundle;
-import androidx.annotation.NonNull;
 import androidx.fragment.app.ListFragment;
 import androidx.core.view.MenuItemCompat;
 import android.util.Log;
@@ -34,6 +33,7 @@ import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.core.util.FeedItemUtil;
 import de.danoeh.antennapod.core.util.LongList;
 import de.danoeh.antennapod.view.EmptyViewHandler;
+import de.danoeh.antennapod.view.LoadMoreScrollListener;
 import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
@@ -43,10 +43,20 @@ public class PlaybackHistoryFragment extends ListFragment {
     public static final String TAG = "PlaybackHistoryFragment";
 
     private List<FeedItem> playbackHistory;
+    private boolean hasMoreItems = false;
     private FeedItemlistAdapter adapter;
     private List<Downloader> downloaderList;
     private Disposable disposable;
 
+    private final LoadMoreScrollListener loadMoreListener = new LoadMoreScrollListener() {
+        @Override
+        public void loadMore() {
+            if (hasMoreItems) {
+                loadMoreItems();
+            }
+        }
+    };
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -75,6 +85,7 @@ public class PlaybackHistoryFragment extends ListFragment {
         // it harder to read.
         adapter = new FeedItemlistAdapter(getActivity(), itemAccess, true, false);
         setListAdapter(adapter);
+        lv.setOnScrollListener(loadMoreListener);
     }
 
     @Override
@@ -226,21 +237,34 @@ public class PlaybackHistoryFragment extends ListFragment {
         if(disposable != null) {
             disposable.dispose();
         }
-        disposable = Observable.fromCallable(this::loadData)
+        // keep the episodes that have been loaded by scrolling
+        final int limit = Math.max((playbackHistory != null) ? playbackHistory.size() : 0,
+                DBReader.PLAYBACK_HISTORY_SIZE);
+        disposable = Observable.fromCallable(() -> DBReader.getPlaybackHistory(null, limit))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(result -> {
-                    if (result != null) {
-                        playbackHistory = result;
-                        onFragmentLoaded();
-                    }
+                    playbackHistory = result;
+                    hasMoreItems = result.size() == limit;
+                    loadMoreListener.reset();
+                    onFragmentLoaded();
                 }, error -> Log.e(TAG, Log.getStackTraceString(error)));
     }
 
-    @NonNull
-    private List<FeedItem> loadData() {
-        List<FeedItem> history = DBReader.getPlaybackHistory();
-        DBReader.loadAdditionalFeedItemListData(history);
-        return history;
+    private void loadMoreItems() {
+        if (playbackHistory == null || playbackHistory.isEmpty()
+                || (disposable != null && !disposable.isDisposed())) {
+            return;
+        }
+        final FeedItem lastItem = playbackHistory.get(playbackHistory.size() - 1);
+        disposable = Observable.fromCallable(() ->
+                DBReader.getPlaybackHistory(lastItem, DBReader.PLAYBACK_HISTORY_SIZE))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(result -> {
+                    playbackHistory.addAll(result);
+                    hasMoreItems = result.size() == DBReader.PLAYBACK_HISTORY_SIZE;
+                    onFragmentLoaded();
+                }, error -> Log.e(TAG, Log.getStackTraceString(error)));
     }
 }
@@ -0,0 +1,35 @@
+package de.danoeh.antennapod.view;
+
+import android.widget.AbsListView;
+
+/**
+ * OnScrollListener that calls loadMore() when a list has been scrolled close to its end.
+ * It is called once per list size, so a page that adds no items ends the loading.
+ */
+public abstract class LoadMoreScrollListener implements AbsListView.OnScrollListener {
+    private static final int VISIBLE_ITEMS_SCROLL_THRESHOLD = 5;
+
+    private int lastRequestedCount = -1;
+
+    public abstract void loadMore();
+
+    /**
+     * Allows loading more items again after the list has been reloaded.
+     */
+    public void reset() {
+        lastRequestedCount = -1;
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        if (totalItemCount > 0 && totalItemCount != lastRequestedCount
+                && firstVisibleItem + visibleItemCount + VISIBLE_ITEMS_SCROLL_THRESHOLD >= totalItemCount) {
+            lastRequestedCount = totalItemCount;
+            loadMore();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package android.text;
+
+import java.util.Iterator;
+
+/**
+ * Replaces android.text.TextUtils of android.jar with the methods that the benchmarked code
+ * paths use.
+ */
+public final class TextUtils {
+
+    private TextUtils() {
+
+    }
+
+    public static boolean isEmpty(CharSequence str) {
+        return str == null || str.length() == 0;
+    }
+
+    public static boolean equals(CharSequence a, CharSequence b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null || a.length() != b.length()) {
+            return false;
+        }
+        if (a instanceof String && b instanceof String) {
+            return a.equals(b);
+        }
+        for (int i = 0; i < a.length(); i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String join(CharSequence delimiter, Object[] tokens) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tokens.length; i++) {
+            if (i > 0) {
+                sb.append(delimiter);
+            }
+            sb.append(tokens[i]);
+        }
+        return sb.toString();
+    }
+
+    public static String join(CharSequence delimiter, Iterable tokens) {
+        StringBuilder sb = new StringBuilder();
+        Iterator<?> it = tokens.iterator();
+        while (it.hasNext()) {
+            sb.append(it.next());
+            if (it.hasNext()) {
+                sb.append(delimiter);
+            }
+        }
+        return sb.toString();
+    }
+}
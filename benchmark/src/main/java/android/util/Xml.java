@@ -0,0 +1,19 @@
+package android.util;
+
+import org.kxml2.io.KXmlSerializer;
+import org.xmlpull.v1.XmlSerializer;
+
+/**
+ * Replaces android.util.Xml of android.jar for the feed generators. Android uses the same
+ * serializer implementation.
+ */
+public final class Xml {
+
+    private Xml() {
+
+    }
+
+    public static XmlSerializer newSerializer() {
+        return new KXmlSerializer();
+    }
+}
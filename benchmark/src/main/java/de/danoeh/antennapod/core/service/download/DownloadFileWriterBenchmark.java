@@ -0,0 +1,148 @@
+package de.danoeh.antennapod.core.service.download;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Downloads a file from a local HTTP server with OkHttp, like HttpDownloader does, and writes it
+ * once with the byte array copy loop that HttpDownloader used before and once with
+ * {@link DownloadFileWriter}.
+ * <p/>
+ * Besides the downloads per second, the results contain two counters: megabytes, the downloaded
+ * MB per second, and cpuMillis, the CPU time of the downloading thread in milliseconds per
+ * second, as measured by {@link ThreadMXBean}. The CPU time per GB is
+ * cpuMillis / megabytes * 1024. The CPU time of the server is not included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DownloadFileWriterBenchmark {
+    private static final int DOWNLOAD_SIZE = 32 * 1024 * 1024;
+    private static final int LEGACY_BUFFER_SIZE = 8 * 1024;
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private Request request;
+    private File file;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public double megabytes;
+        public double cpuMillis;
+
+        private final ThreadMXBean threadMxBean = ManagementFactory.getThreadMXBean();
+        private long cpuTimeBefore;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+            cpuMillis = 0;
+        }
+
+        void start() {
+            cpuTimeBefore = threadMxBean.getCurrentThreadCpuTime();
+        }
+
+        void stop(long bytes) {
+            cpuMillis += (threadMxBean.getCurrentThreadCpuTime() - cpuTimeBefore) / 1e6;
+            megabytes += bytes / (1024.0 * 1024.0);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] data = new byte[DOWNLOAD_SIZE];
+        new Random(42).nextBytes(data);
+        MockResponse response = new MockResponse()
+                .setHeader("Content-Type", "audio/mpeg")
+                .setBody(new Buffer().write(data));
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest) {
+                // the body is copied for every response
+                return response;
+            }
+        });
+        server.start();
+        client = new OkHttpClient();
+        request = new Request.Builder().url(server.url("/episode.mp3")).build();
+        file = File.createTempFile("download", ".mp3");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.shutdown();
+        file.delete();
+    }
+
+    @Benchmark
+    public long byteArrayCopy(Counters counters) throws IOException {
+        counters.start();
+        try (Response response = client.newCall(request).execute();
+             RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            InputStream in = response.body().byteStream();
+            byte[] buffer = new byte[LEGACY_BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            counters.stop(out.length());
+            return out.length();
+        }
+    }
+
+    @Benchmark
+    public long downloadFileWriter(Counters counters) throws IOException {
+        counters.start();
+        try (Response response = client.newCall(request).execute();
+             RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            DownloadFileWriter writer = new DownloadFileWriter(out.getChannel(), 0, null);
+            writer.write(response.body().source(), new DownloadFileWriter.Callback() {
+                @Override
+                public boolean isCancelled() {
+                    return false;
+                }
+
+                @Override
+                public void onProgress(long position) {
+                }
+            });
+            counters.stop(writer.getPosition());
+            return writer.getPosition();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package de.danoeh.antennapod.core.storage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_AUTHOR;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_CONTENT_ENCODED;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_DESCRIPTION;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_DOWNLOAD_URL;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_DURATION;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_FEED;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_FEEDITEM;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_FEED_IDENTIFIER;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_ID;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_ITEM_IDENTIFIER;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_PUBDATE;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_READ;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_START;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.KEY_TITLE;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.SEL_FI_SMALL_STR;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.TABLE_NAME_FEEDS;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.TABLE_NAME_FEED_ITEMS;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.TABLE_NAME_FEED_MEDIA;
+import static de.danoeh.antennapod.core.storage.PodDBAdapter.TABLE_NAME_SIMPLECHAPTERS;
+
+/**
+ * Searches all episodes, once through the full-text index with the query of
+ * {@link PodDBAdapter#searchItems(long, String)} and once with the six LIKE queries that
+ * FeedSearcher used before. The database has the schema of PodDBAdapter and is accessed through
+ * the SQLite JDBC driver, because the Android database classes are not available on the JVM.
+ * Located in the core.storage package to access the package-private schema and queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeedSearcherBenchmark {
+    private static final int NUM_FEEDS = 300;
+    private static final int NUM_ITEMS = 200;
+    private static final int NUM_WORDS = 5000;
+    private static final int DESCRIPTION_WORDS = 80;
+
+    /**
+     * "giraffe" is contained in a few episodes, "episode" in the title of every episode.
+     */
+    @Param({"giraffe", "episode"})
+    private String query;
+
+    private File file;
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        file = File.createTempFile("search", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(PodDBAdapter.CREATE_TABLE_FEEDS);
+            statement.execute(PodDBAdapter.CREATE_TABLE_FEED_ITEMS);
+            statement.execute(PodDBAdapter.CREATE_TABLE_FEED_MEDIA);
+            statement.execute(PodDBAdapter.CREATE_TABLE_QUEUE);
+            statement.execute(PodDBAdapter.CREATE_TABLE_SIMPLECHAPTERS);
+            statement.execute(PodDBAdapter.CREATE_TABLE_FAVORITES);
+            statement.execute(PodDBAdapter.CREATE_INDEX_FEEDITEMS_FEED);
+            statement.execute(PodDBAdapter.CREATE_INDEX_FEEDITEMS_PUBDATE);
+            statement.execute(PodDBAdapter.CREATE_INDEX_FEEDMEDIA_FEEDITEM);
+            statement.execute(PodDBAdapter.CREATE_INDEX_QUEUE_FEEDITEM);
+            statement.execute(PodDBAdapter.CREATE_INDEX_FAVORITES_FEEDITEM);
+            statement.execute(PodDBAdapter.CREATE_INDEX_SIMPLECHAPTERS_FEEDITEM);
+        }
+        insertFeeds();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(PodDBAdapter.CREATE_TABLE_FEED_ITEMS_SEARCH);
+            statement.execute(PodDBAdapter.POPULATE_FEED_ITEMS_SEARCH);
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private void insertFeeds() throws SQLException {
+        Random random = new Random(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement feedStatement = connection.prepareStatement("INSERT INTO " + TABLE_NAME_FEEDS
+                + " (" + KEY_TITLE + "," + KEY_AUTHOR + "," + KEY_FEED_IDENTIFIER + "," + KEY_DOWNLOAD_URL
+                + ") VALUES (?,?,?,?)");
+             PreparedStatement itemStatement = connection.prepareStatement("INSERT INTO " + TABLE_NAME_FEED_ITEMS
+                + " (" + KEY_TITLE + "," + KEY_DESCRIPTION + "," + KEY_CONTENT_ENCODED + "," + KEY_PUBDATE + ","
+                + KEY_READ + "," + KEY_FEED + "," + KEY_ITEM_IDENTIFIER + ") VALUES (?,?,?,?,?,?,?)");
+             PreparedStatement mediaStatement = connection.prepareStatement("INSERT INTO " + TABLE_NAME_FEED_MEDIA
+                + " (" + KEY_DURATION + "," + KEY_DOWNLOAD_URL + "," + KEY_FEEDITEM + ") VALUES (?,?,?)");
+             PreparedStatement chapterStatement = connection.prepareStatement("INSERT INTO "
+                + TABLE_NAME_SIMPLECHAPTERS + " (" + KEY_TITLE + "," + KEY_START + "," + KEY_FEEDITEM
+                + ") VALUES (?,?,?)")) {
+            long itemId = 0;
+            for (int i = 0; i < NUM_FEEDS; i++) {
+                feedStatement.setString(1, "Feed " + i);
+                feedStatement.setString(2, "Author " + i);
+                feedStatement.setString(3, "http://example.com/feed" + i);
+                feedStatement.setString(4, "http://example.com/feed" + i);
+                feedStatement.executeUpdate();
+                for (int j = 0; j < NUM_ITEMS; j++) {
+                    itemId++;
+                    itemStatement.setString(1, "Episode " + j + " " + randomText(random, 5)
+                            + ((random.nextInt(100) == 0) ? " giraffe" : ""));
+                    itemStatement.setString(2, randomText(random, DESCRIPTION_WORDS)
+                            + ((random.nextInt(50) == 0) ? " about giraffes" : ""));
+                    itemStatement.setString(3, "<p>" + randomText(random, DESCRIPTION_WORDS) + "</p>");
+                    itemStatement.setLong(4, itemId * 1000);
+                    itemStatement.setInt(5, 1);
+                    itemStatement.setLong(6, i + 1);
+                    itemStatement.setString(7, "id" + itemId);
+                    itemStatement.executeUpdate();
+
+                    mediaStatement.setLong(1, 3600000);
+                    mediaStatement.setString(2, "http://example.com/media" + itemId);
+                    mediaStatement.setLong(3, itemId);
+                    mediaStatement.executeUpdate();
+
+                    if (j % 11 == 0) {
+                        for (int k = 0; k < 3; k++) {
+                            chapterStatement.setString(1, randomText(random, 3)
+                                    + ((random.nextInt(20) == 0) ? " giraffe facts" : ""));
+                            chapterStatement.setLong(2, k * 600000);
+                            chapterStatement.setLong(3, itemId);
+                            chapterStatement.executeUpdate();
+                        }
+                    }
+                }
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private static String randomText(Random random, int numWords) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < numWords; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append("word").append(random.nextInt(NUM_WORDS));
+        }
+        return text.toString();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        file.delete();
+    }
+
+    /**
+     * The single query of the full-text search, including the ranking of FeedSearcher.
+     */
+    @Benchmark
+    public int fullTextSearch() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(PodDBAdapter.getSearchItemsQuery(0))) {
+            statement.setString(1, PodDBAdapter.prepareFullTextQuery(query));
+            List<Integer> ranks = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int indexMatchinfo = resultSet.findColumn(PodDBAdapter.KEY_SEARCH_MATCHINFO);
+                while (resultSet.next()) {
+                    readRow(resultSet);
+                    int[] hits = FeedSearcher.getColumnHits(resultSet.getBytes(indexMatchinfo));
+                    ranks.add(FeedSearcher.getFirstMatchingColumn(hits));
+                }
+            }
+            Collections.sort(ranks);
+            return ranks.size();
+        }
+    }
+
+    /**
+     * The six LIKE queries of the former search. Their results are deduplicated and sorted by
+     * date like FeedSearcher did. The media and feeds of the results, which the former search
+     * loaded with additional queries, are not loaded.
+     */
+    @Benchmark
+    public int likeSearch() throws SQLException {
+        String like = " LIKE '%" + query + "%'";
+        String joinFeeds = " JOIN " + TABLE_NAME_FEEDS + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED
+                + "=" + TABLE_NAME_FEEDS + "." + KEY_ID;
+        String[] queries = {
+                "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS + " WHERE " + KEY_TITLE + like,
+                "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS + " INNER JOIN "
+                        + TABLE_NAME_SIMPLECHAPTERS + " ON " + TABLE_NAME_SIMPLECHAPTERS + "." + KEY_FEEDITEM + "="
+                        + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " WHERE " + TABLE_NAME_SIMPLECHAPTERS + "."
+                        + KEY_TITLE + like,
+                "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS + " WHERE " + KEY_DESCRIPTION + like,
+                "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS
+                        + " WHERE " + KEY_CONTENT_ENCODED + like,
+                "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS + joinFeeds
+                        + " WHERE " + KEY_AUTHOR + like + " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE
+                        + " DESC",
+                "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS + joinFeeds
+                        + " WHERE " + KEY_FEED_IDENTIFIER + like + " ORDER BY " + TABLE_NAME_FEED_ITEMS + "."
+                        + KEY_PUBDATE + " DESC"
+        };
+        Map<Long, Long> pubDates = new HashMap<>();
+        try (Statement statement = connection.createStatement()) {
+            for (String likeQuery : queries) {
+                try (ResultSet resultSet = statement.executeQuery(likeQuery)) {
+                    int indexId = resultSet.findColumn(KEY_ID);
+                    int indexPubDate = resultSet.findColumn(KEY_PUBDATE);
+                    while (resultSet.next()) {
+                        readRow(resultSet);
+                        long id = resultSet.getLong(indexId);
+                        if (!pubDates.containsKey(id)) {
+                            pubDates.put(id, resultSet.getLong(indexPubDate));
+                        }
+                    }
+                }
+            }
+        }
+        List<Long> sorted = new ArrayList<>(pubDates.values());
+        Collections.sort(sorted, Collections.reverseOrder());
+        return sorted.size();
+    }
+
+    private static void readRow(ResultSet resultSet) throws SQLException {
+        int numColumns = resultSet.getMetaData().getColumnCount();
+        for (int i = 1; i <= numColumns; i++) {
+            resultSet.getObject(i);
+        }
+    }
+}
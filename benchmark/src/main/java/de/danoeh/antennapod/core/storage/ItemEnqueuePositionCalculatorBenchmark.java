@@ -0,0 +1,79 @@
+package de.danoeh.antennapod.core.storage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedMedia;
+import de.danoeh.antennapod.core.preferences.UserPreferences.EnqueueLocation;
+
+/**
+ * Calculates the position of a new queue item. The currently playing item is in the middle of
+ * the queue and is followed by items that are being downloaded. Located in the core.storage
+ * package to access the package-private calculator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemEnqueuePositionCalculatorBenchmark {
+    private static final int NUM_DOWNLOADING = 10;
+
+    @Param({"100", "1000"})
+    private int queueSize;
+
+    @Param({"BACK", "FRONT", "AFTER_CURRENTLY_PLAYING"})
+    private EnqueueLocation enqueueLocation;
+
+    private List<FeedItem> queue;
+    private FeedMedia currentlyPlaying;
+    private ItemEnqueuePositionCalculator calculator;
+
+    @Setup
+    public void setUp() {
+        Feed feed = new Feed("http://example.com/feed", null, "Feed");
+        queue = new ArrayList<>(queueSize);
+        for (int i = 0; i < queueSize; i++) {
+            FeedItem item = new FeedItem(i + 1, "Item " + i, "id-" + i, "http://example.com/item-" + i,
+                    new Date(), FeedItem.UNPLAYED, feed);
+            FeedMedia media = new FeedMedia(item, "http://example.com/media-" + i, 1024 * 1024, "audio/mp3");
+            media.setId(i + 1);
+            item.setMedia(media);
+            queue.add(item);
+        }
+        int currentPosition = queueSize / 2;
+        currentlyPlaying = queue.get(currentPosition).getMedia();
+
+        final Set<FeedMedia> downloading = new HashSet<>();
+        for (int i = 0; i < NUM_DOWNLOADING; i++) {
+            downloading.add(queue.get(i).getMedia());
+            downloading.add(queue.get(currentPosition + 1 + i).getMedia());
+        }
+        calculator = new ItemEnqueuePositionCalculator(enqueueLocation);
+        calculator.downloadStateProvider = item -> downloading.contains(item);
+    }
+
+    @Benchmark
+    public int calcPosition() {
+        return calculator.calcPosition(queue, currentlyPlaying);
+    }
+}
@@ -0,0 +1,117 @@
+package de.danoeh.antennapod.core.syndication.handler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedMedia;
+import de.test.antennapod.util.syndication.feedgenerator.AtomGenerator;
+import de.test.antennapod.util.syndication.feedgenerator.FeedGenerator;
+import de.test.antennapod.util.syndication.feedgenerator.RSS2Generator;
+
+/**
+ * Parses synthetic RSS 2.0 and Atom feeds that are written by the feed generators of the
+ * instrumentation tests. The items are sorted newest first, like in most feeds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeedHandlerBenchmark {
+    private static final long MINUTE = 60 * 1000;
+
+    @Param({"10", "100", "1000"})
+    private int numItems;
+
+    private byte[] rss;
+    private byte[] atom;
+    /**
+     * All but the ten most recent items have been saved before.
+     */
+    private KnownItems knownItems;
+
+    @Setup
+    public void setUp() throws IOException {
+        Feed feed = createFeed(numItems);
+        rss = writeFeed(feed, new RSS2Generator(), RSS2Generator.FEATURE_WRITE_GUID);
+        atom = writeFeed(feed, new AtomGenerator(), 0);
+
+        Set<String> identifyingValues = new HashSet<>();
+        Date mostRecentPubDate = null;
+        for (FeedItem item : feed.getItems().subList(Math.min(10, numItems), numItems)) {
+            identifyingValues.add(item.getIdentifyingValue());
+            if (mostRecentPubDate == null || item.getPubDate().after(mostRecentPubDate)) {
+                mostRecentPubDate = item.getPubDate();
+            }
+        }
+        knownItems = new KnownItems(identifyingValues, mostRecentPubDate, 5);
+    }
+
+    @Benchmark
+    public Feed parseRss() throws Exception {
+        return parse(rss, null);
+    }
+
+    @Benchmark
+    public Feed parseAtom() throws Exception {
+        return parse(atom, null);
+    }
+
+    @Benchmark
+    public Feed parseRssWithKnownItems() throws Exception {
+        return parse(rss, knownItems);
+    }
+
+    private static Feed parse(byte[] source, KnownItems knownItems) throws Exception {
+        Feed feed = new Feed("http://example.com/feed", null);
+        new FeedHandler().parseFeed(feed, new ByteArrayInputStream(source), knownItems);
+        return feed;
+    }
+
+    private static byte[] writeFeed(Feed feed, FeedGenerator generator, long flags) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeFeed(feed, out, "UTF-8", flags);
+        return out.toByteArray();
+    }
+
+    private static Feed createFeed(int numItems) {
+        Feed feed = new Feed(0, null, "title", "http://example.com", "This is the description",
+                "http://example.com/payment", "Daniel", "en", null, "http://example.com/feed",
+                "http://example.com/picture", null, "http://example.com/feed", true);
+        List<FeedItem> items = new ArrayList<>();
+        long now = System.currentTimeMillis() / MINUTE * MINUTE;
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = new FeedItem(0, "item-" + i, "http://example.com/item-" + i,
+                    "http://example.com/items/" + i, new Date(now - i * 24 * 60 * MINUTE),
+                    FeedItem.UNPLAYED, feed);
+            item.setDescription("<p>Description of item " + i + "</p>");
+            item.setMedia(new FeedMedia(0, item, 3600 * 1000, 0, 50 * 1024 * 1024, "audio/mp3", null,
+                    "http://example.com/media-" + i + ".mp3", false, null, 0, 0));
+            items.add(item);
+        }
+        feed.setItems(items);
+        return feed;
+    }
+}
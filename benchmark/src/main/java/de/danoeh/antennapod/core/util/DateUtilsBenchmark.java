@@ -0,0 +1,56 @@
+package de.danoeh.antennapod.core.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses publishing dates the way feeds contain them: a new parser for every date with
+ * {@link DateUtils#parse(String)}, and one parser for all dates of a feed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+    @Param({
+            "Sat, 28 Mar 2015 01:31:04 EST",
+            "Tue,  23 Mar   2010 01:06:26 -0500",
+            "2017-02-22T14:28:00.002-08:00",
+            "2015-03-28T13:31:04Z",
+            "Sat, 28 Mar 15 01:31:04 GMT",
+            "Sun 01 Mar 2015 01:00:00 GMT-0400 (EDT)"
+    })
+    private String date;
+
+    private DateParser feedParser;
+
+    @Setup
+    public void setUp() {
+        feedParser = new DateParser();
+    }
+
+    @Benchmark
+    public Date parse() {
+        return DateUtils.parse(date);
+    }
+
+    @Benchmark
+    public Date parseWithFeedParser() {
+        return feedParser.parse(date);
+    }
+}
@@ -0,0 +1,77 @@
+package de.danoeh.antennapod.core.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedMedia;
+
+/**
+ * Sorts a queue of items from several feeds. Every invocation sorts a copy of the same
+ * unsorted queue, so the measured time includes copying the list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeedItemPermutorsBenchmark {
+    private static final int NUM_FEEDS = 20;
+
+    @Param({"100", "1000"})
+    private int numItems;
+
+    @Param({"DATE_NEW_OLD", "EPISODE_TITLE_A_Z", "DURATION_SHORT_LONG", "FEED_TITLE_A_Z",
+            "SMART_SHUFFLE_OLD_NEW"})
+    private SortOrder sortOrder;
+
+    private List<FeedItem> queue;
+    private Permutor<FeedItem> permutor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Feed> feeds = new ArrayList<>();
+        for (int i = 0; i < NUM_FEEDS; i++) {
+            Feed feed = new Feed("http://example.com/feed-" + i, null, "Feed " + random.nextInt(1000));
+            feed.setId(i + 1);
+            feeds.add(feed);
+        }
+        queue = new ArrayList<>(numItems);
+        for (int i = 0; i < numItems; i++) {
+            Feed feed = feeds.get(random.nextInt(NUM_FEEDS));
+            FeedItem item = new FeedItem(i + 1, "Episode " + random.nextInt(100000), "id-" + i,
+                    "http://example.com/item-" + i, new Date(random.nextInt(Integer.MAX_VALUE) * 1000L),
+                    FeedItem.UNPLAYED, feed);
+            item.setFeedId(feed.getId());
+            item.setMedia(new FeedMedia(i + 1, item, random.nextInt(3 * 3600 * 1000), 0, 0, "audio/mp3",
+                    null, "http://example.com/media-" + i, false, null, 0, 0));
+            queue.add(item);
+        }
+        permutor = FeedItemPermutors.getPermutor(sortOrder);
+    }
+
+    @Benchmark
+    public List<FeedItem> reorder() {
+        List<FeedItem> items = new ArrayList<>(queue);
+        permutor.reorder(items);
+        return items;
+    }
+}
@@ -0,0 +1,117 @@
+package de.danoeh.antennapod.core.util;
+
+import androidx.collection.ArrayMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tags a list of items the way DBReader does: every item ID is looked up in the queue IDs, and
+ * the feed of every item is looked up by its ID. The ID collections are built in every
+ * invocation, because they are loaded from the database for every item list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LongHashSetBenchmark {
+    private static final int NUM_FEEDS = 100;
+
+    @Param({"3000"})
+    private int numItems;
+
+    @Param({"40", "400"})
+    private int queueSize;
+
+    private long[] itemIds;
+    private long[] itemFeedIds;
+    private LongList queueIds;
+    private long[] feedIds;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        itemIds = new long[numItems];
+        itemFeedIds = new long[numItems];
+        for (int i = 0; i < numItems; i++) {
+            itemIds[i] = i + 1;
+            itemFeedIds[i] = random.nextInt(NUM_FEEDS) + 1;
+        }
+        queueIds = new LongList(queueSize);
+        for (int i = 0; i < queueSize; i++) {
+            queueIds.add(random.nextInt(2 * numItems) + 1);
+        }
+        feedIds = new long[NUM_FEEDS];
+        for (int i = 0; i < NUM_FEEDS; i++) {
+            feedIds[i] = i + 1;
+        }
+    }
+
+    @Benchmark
+    public int containsLongList() {
+        int tagged = 0;
+        for (long itemId : itemIds) {
+            if (queueIds.contains(itemId)) {
+                tagged++;
+            }
+        }
+        return tagged;
+    }
+
+    @Benchmark
+    public int containsLongHashSet() {
+        LongHashSet queue = LongHashSet.of(queueIds);
+        int tagged = 0;
+        for (long itemId : itemIds) {
+            if (queue.contains(itemId)) {
+                tagged++;
+            }
+        }
+        return tagged;
+    }
+
+    @Benchmark
+    public int getArrayMap() {
+        Map<Long, String> feeds = new ArrayMap<>(feedIds.length);
+        for (long feedId : feedIds) {
+            feeds.put(feedId, "feed");
+        }
+        int found = 0;
+        for (long feedId : itemFeedIds) {
+            if (feeds.get(feedId) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int getLongObjectMap() {
+        LongObjectMap<String> feeds = new LongObjectMap<>(feedIds.length);
+        for (long feedId : feedIds) {
+            feeds.put(feedId, "feed");
+        }
+        int found = 0;
+        for (long feedId : itemFeedIds) {
+            if (feeds.get(feedId) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,103 @@
+package de.danoeh.antennapod.core.util.id3reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.feed.Chapter;
+
+/**
+ * Reads the chapters of a synthetic ID3v2.3 tag. Every chapter consists of a CHAP frame
+ * that is followed by a TIT2 frame with the title of the chapter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChapterReaderBenchmark {
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final int PADDING_LENGTH = 16;
+
+    @Param({"10", "100"})
+    private int numChapters;
+
+    private byte[] tag;
+
+    @Setup
+    public void setUp() {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        for (int i = 0; i < numChapters; i++) {
+            ByteArrayOutputStream chap = new ByteArrayOutputStream();
+            writeString(chap, "ch" + i);
+            chap.write(0);
+            writeInt(chap, i * 60 * 1000);
+            writeInt(chap, (i + 1) * 60 * 1000);
+            writeInt(chap, 0xFFFFFFFF);
+            writeInt(chap, 0xFFFFFFFF);
+            writeFrame(frames, "CHAP", chap.toByteArray());
+
+            ByteArrayOutputStream title = new ByteArrayOutputStream();
+            title.write(0); // ISO-8859-1
+            writeString(title, "Chapter " + i);
+            writeFrame(frames, "TIT2", title.toByteArray());
+        }
+        // The reader stops at the first frame header that only contains null bytes
+        int size = frames.size() + PADDING_LENGTH;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeString(out, "ID3");
+        out.write(3); // version 2.3.0
+        out.write(0);
+        out.write(0); // flags
+        out.write((size >> 21) & 0x7F);
+        out.write((size >> 14) & 0x7F);
+        out.write((size >> 7) & 0x7F);
+        out.write(size & 0x7F);
+        out.write(frames.toByteArray(), 0, frames.size());
+        out.write(new byte[PADDING_LENGTH], 0, PADDING_LENGTH);
+        tag = out.toByteArray();
+    }
+
+    @Benchmark
+    public List<Chapter> readInputStream() throws Exception {
+        ChapterReader reader = new ChapterReader();
+        reader.readInputStream(new ByteArrayInputStream(tag));
+        return reader.getChapters();
+    }
+
+    private static void writeFrame(ByteArrayOutputStream out, String id, byte[] body) {
+        writeString(out, id);
+        writeInt(out, body.length);
+        out.write(0);
+        out.write(0); // flags
+        out.write(body, 0, body.length);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(ISO_8859_1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write((value >> 24) & 0xFF);
+        out.write((value >> 16) & 0xFF);
+        out.write((value >> 8) & 0xFF);
+        out.write(value & 0xFF);
+    }
+}
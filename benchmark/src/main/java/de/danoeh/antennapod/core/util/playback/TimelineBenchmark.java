@@ -0,0 +1,50 @@
+package de.danoeh.antennapod.core.util.playback;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares shownotes that contain a timecode in every paragraph for the web view.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimelineBenchmark {
+
+    @Param({"10", "100"})
+    private int numParagraphs;
+
+    private Timeline timeline;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < numParagraphs; i++) {
+            builder.append(String.format(Locale.US, "<p>%d:%02d:00 Topic %d, see also %02d:%02d</p>",
+                    i / 60, i % 60, i, i % 60, i % 60));
+        }
+        final String shownotes = builder.toString();
+        timeline = new Timeline(() -> () -> shownotes, "No shownotes", "rgba(0,0,0,1.0)",
+                "rgba(0,0,0,0.54)", 8);
+    }
+
+    @Benchmark
+    public String processShownotes() {
+        return timeline.processShownotes(true);
+    }
+}
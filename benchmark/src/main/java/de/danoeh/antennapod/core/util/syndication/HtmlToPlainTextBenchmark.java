@@ -0,0 +1,48 @@
+package de.danoeh.antennapod.core.util.syndication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts HTML item descriptions with paragraphs, links and lists to plain text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlToPlainTextBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int numParagraphs;
+
+    private String html;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < numParagraphs; i++) {
+            builder.append("<p>Paragraph ").append(i).append(" with <b>bold</b> text and a ")
+                    .append("<a href=\"http://example.com/").append(i).append("\">link</a>.</p>")
+                    .append("<ul><li>First point</li><li>Second point</li></ul>");
+        }
+        html = builder.toString();
+    }
+
+    @Benchmark
+    public String getPlainText() {
+        return HtmlToPlainText.getPlainText(html);
+    }
+}
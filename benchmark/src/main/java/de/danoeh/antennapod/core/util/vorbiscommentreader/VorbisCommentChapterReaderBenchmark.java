@@ -0,0 +1,129 @@
+package de.danoeh.antennapod.core.util.vorbiscommentreader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.feed.Chapter;
+
+/**
+ * Reads the chapters of a synthetic Ogg Vorbis file. The first page contains the
+ * identification header and the second page contains the comment header with the chapters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VorbisCommentChapterReaderBenchmark {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /** Version, header type, granule position, serial number, sequence number and checksum. */
+    private static final int PAGE_HEADER_FIELDS_LENGTH = 22;
+    private static final int IDENTIFICATION_PACKET_LENGTH = 30;
+
+    /**
+     * Chapter IDs only have two significant digits, so there can be at most 100 chapters.
+     */
+    @Param({"10", "50"})
+    private int numChapters;
+
+    private byte[] file;
+    private PrintStream systemOut;
+
+    @Setup
+    public void setUp() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        byte[] identification = new byte[IDENTIFICATION_PACKET_LENGTH];
+        identification[0] = 1;
+        System.arraycopy("vorbis".getBytes(UTF_8), 0, identification, 1, "vorbis".length());
+        writePage(out, identification);
+
+        ByteArrayOutputStream comment = new ByteArrayOutputStream();
+        comment.write(3);
+        writeBytes(comment, "vorbis".getBytes(UTF_8));
+        writeVector(comment, "AntennaPod benchmark");
+        writeIntLittleEndian(comment, 2 * numChapters);
+        for (int i = 0; i < numChapters; i++) {
+            String key = String.format(Locale.US, "CHAPTER%03d", i);
+            writeVector(comment, String.format(Locale.US, "%s=%02d:%02d:00.000", key, i / 60, i % 60));
+            writeVector(comment, key + "NAME=Chapter " + i);
+        }
+        writePage(out, comment.toByteArray());
+        file = out.toByteArray();
+    }
+
+    /**
+     * The reader prints every chapter to standard output.
+     */
+    @Setup(Level.Trial)
+    public void silenceSystemOut() {
+        systemOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreSystemOut() {
+        System.setOut(systemOut);
+    }
+
+    @Benchmark
+    public List<Chapter> readInputStream() throws Exception {
+        VorbisCommentChapterReader reader = new VorbisCommentChapterReader();
+        reader.readInputStream(new ByteArrayInputStream(file));
+        return reader.getChapters();
+    }
+
+    private static void writePage(ByteArrayOutputStream out, byte[] packet) {
+        writeBytes(out, "OggS".getBytes(UTF_8));
+        writeBytes(out, new byte[PAGE_HEADER_FIELDS_LENGTH]);
+        int numSegments = packet.length / 255 + 1;
+        out.write(numSegments);
+        for (int i = 0; i < numSegments - 1; i++) {
+            out.write(255);
+        }
+        out.write(packet.length % 255);
+        writeBytes(out, packet);
+    }
+
+    private static void writeVector(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeIntLittleEndian(out, bytes.length);
+        writeBytes(out, bytes);
+    }
+
+    private static void writeIntLittleEndian(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xFF);
+        out.write((value >> 8) & 0xFF);
+        out.write((value >> 16) & 0xFF);
+        out.write((value >> 24) & 0xFF);
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        out.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,202 @@
+package de.danoeh.antennapod.core.gpoddernet;
+
+import android.util.JsonReader;
+import android.util.Log;
+
+import androidx.test.filters.LargeTest;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.danoeh.antennapod.core.gpoddernet.model.GpodnetEpisodeAction;
+import de.danoeh.antennapod.core.gpoddernet.model.GpodnetPodcast;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the parsing of gpodder.net responses. Runs on a device because it uses {@link JsonReader}.
+ */
+@SmallTest
+public class GpodnetServiceTest {
+    private static final String TAG = "GpodnetServiceTest";
+
+    private static final int NUM_LARGE_RESPONSE_ACTIONS = 100000;
+    private static final int HEAP_SAMPLE_INTERVAL = 1000;
+
+    @Test
+    public void testReadEpisodeActions() throws IOException {
+        String json = "{\"actions\": ["
+                + "{\"podcast\": \"http://example.com/feed.xml\", \"episode\": \"http://example.com/1.mp3\","
+                + " \"device\": \"dev\", \"action\": \"play\", \"timestamp\": \"2019-10-01T12:00:00\","
+                + " \"started\": 10, \"position\": 120, \"total\": 500, \"extra\": {\"a\": [1, 2, {}]}},"
+                + "{\"podcast\": \"http://example.com/feed.xml\", \"episode\": \"http://example.com/\\u00e4.mp3\","
+                + " \"action\": \"download\", \"timestamp\": null},"
+                + "{\"episode\": \"http://example.com/3.mp3\", \"action\": \"play\"},"
+                + "{\"podcast\": \"p\", \"episode\": \"e\", \"action\": \"unknown\"}"
+                + "], \"timestamp\": 1570000000}";
+        List<GpodnetEpisodeAction> actions = new ArrayList<>();
+        long timestamp = GpodnetService.readEpisodeActions(
+                new JsonReader(new StringReader(json)), actions::add);
+
+        assertEquals(1570000000L, timestamp);
+        assertEquals(2, actions.size());
+        GpodnetEpisodeAction play = actions.get(0);
+        assertEquals("http://example.com/1.mp3", play.getEpisode());
+        assertEquals("dev", play.getDeviceId());
+        assertEquals(GpodnetEpisodeAction.Action.PLAY, play.getAction());
+        assertEquals(10, play.getStarted());
+        assertEquals(120, play.getPosition());
+        assertEquals(500, play.getTotal());
+        GpodnetEpisodeAction download = actions.get(1);
+        assertEquals("http://example.com/ä.mp3", download.getEpisode());
+        assertEquals(GpodnetEpisodeAction.Action.DOWNLOAD, download.getAction());
+        assertNull(download.getTimestamp());
+    }
+
+    @Test
+    public void testReadEpisodeActionsWithInvalidNumbers() throws IOException {
+        String json = "{\"actions\": ["
+                + "{\"podcast\": \"p\", \"episode\": \"e1\", \"action\": \"play\","
+                + " \"started\": null, \"position\": 120, \"total\": 500},"
+                + "{\"podcast\": \"p\", \"episode\": \"e2\", \"action\": \"play\","
+                + " \"started\": 0, \"position\": 12345678901, \"total\": \"500\"}"
+                + "], \"timestamp\": 1}";
+        List<GpodnetEpisodeAction> actions = new ArrayList<>();
+        GpodnetService.readEpisodeActions(new JsonReader(new StringReader(json)), actions::add);
+
+        assertEquals(2, actions.size());
+        assertEquals(-1, actions.get(0).getPosition());
+        assertEquals(-1, actions.get(1).getPosition());
+    }
+
+    @Test
+    public void testReadPodcastList() throws IOException {
+        String json = "[{\"url\": \"http://example.com/feed.xml\", \"title\": null, \"subscribers\": 42,"
+                + " \"scaled_logo_url\": \"http://example.com/logo.png\", \"mygpo_link\": \"link\"},"
+                + " {\"url\": \"http://example.com/other.xml\", \"title\": \"Title \\\"quoted\\\"\","
+                + " \"description\": \"Line\\nbreak\", \"subscribers\": 1.0e1}]";
+        List<GpodnetPodcast> podcasts = GpodnetService.readPodcastList(
+                new JsonReader(new StringReader(json)));
+
+        assertEquals(2, podcasts.size());
+        assertEquals("http://example.com/feed.xml", podcasts.get(0).getTitle());
+        assertEquals("", podcasts.get(0).getDescription());
+        assertEquals(42, podcasts.get(0).getSubscribers());
+        assertEquals("http://example.com/logo.png", podcasts.get(0).getLogoUrl());
+        assertEquals("Title \"quoted\"", podcasts.get(1).getTitle());
+        assertEquals("Line\nbreak", podcasts.get(1).getDescription());
+        assertEquals(10, podcasts.get(1).getSubscribers());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadMalformedResponse() throws IOException {
+        GpodnetService.readPodcastList(new JsonReader(new StringReader("[{\"url\": \"a\" \"title\": \"b\"}]")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadTruncatedResponse() throws IOException {
+        GpodnetService.readEpisodeActions(new JsonReader(
+                new StringReader("{\"timestamp\": 1, \"actions\": [{\"podcast\": \"a\"")), action -> { });
+    }
+
+    /**
+     * Streams an episode actions response of about 20 MB from a local server and samples the used
+     * heap while it is read. The actions are counted, not kept, so the peak growth of the heap shows
+     * the memory needed by the parser. It has to stay well below the size of the response.
+     */
+    @Test
+    @LargeTest
+    public void testReadLargeEpisodeActionsResponse() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"))) {
+            long[] responseLength = new long[1];
+            Thread server = new Thread(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                    String line;
+                    do {
+                        line = in.readLine();
+                    } while (line != null && !line.isEmpty());
+                    Writer out = new OutputStreamWriter(socket.getOutputStream(), Charset.forName("UTF-8"));
+                    out.write("HTTP/1.1 200 OK\r\nContent-Type: application/json; charset=utf-8\r\n"
+                            + "Connection: close\r\n\r\n");
+                    responseLength[0] = writeEpisodeActions(out, NUM_LARGE_RESPONSE_ACTIONS);
+                    out.flush();
+                } catch (IOException e) {
+                    Log.e(TAG, Log.getStackTraceString(e));
+                }
+            });
+            server.start();
+
+            Request request = new Request.Builder()
+                    .url("http://127.0.0.1:" + serverSocket.getLocalPort() + "/episodes.json")
+                    .build();
+            Runtime runtime = Runtime.getRuntime();
+            runtime.gc();
+            long before = runtime.totalMemory() - runtime.freeMemory();
+            long[] peak = {before};
+            int[] count = new int[1];
+            long timestamp;
+            try (Response response = new OkHttpClient().newCall(request).execute();
+                    JsonReader reader = new JsonReader(response.body().charStream())) {
+                timestamp = GpodnetService.readEpisodeActions(reader, action -> {
+                    count[0]++;
+                    if (count[0] % HEAP_SAMPLE_INTERVAL == 0) {
+                        peak[0] = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory());
+                    }
+                });
+            }
+            server.join();
+
+            assertEquals(NUM_LARGE_RESPONSE_ACTIONS, count[0]);
+            assertEquals(1570000000L, timestamp);
+            long peakGrowth = peak[0] - before;
+            Log.i(TAG, "Read " + responseLength[0] / 1024 + " KiB of episode actions, peak heap growth: "
+                    + peakGrowth / 1024 + " KiB");
+            assertTrue("Peak heap growth of " + peakGrowth + " bytes for a response of " + responseLength[0]
+                    + " bytes", peakGrowth < responseLength[0] / 2);
+        }
+    }
+
+    /**
+     * Writes an episode actions response and returns its length in bytes.
+     */
+    private static long writeEpisodeActions(Writer out, int numActions) throws IOException {
+        long length = 0;
+        length += write(out, "{\"actions\": [");
+        for (int i = 0; i < numActions; i++) {
+            if (i > 0) {
+                length += write(out, ",");
+            }
+            length += write(out, "{\"podcast\": \"http://example.com/feed" + (i % 100) + ".xml\", "
+                    + "\"episode\": \"http://example.com/episode" + i + ".mp3\", "
+                    + "\"device\": \"device\", \"action\": \"play\", "
+                    + "\"timestamp\": \"2019-10-01T12:00:00\", "
+                    + "\"started\": 0, \"position\": " + (i % 1000 + 1) + ", \"total\": 1000}");
+        }
+        length += write(out, "], \"timestamp\": 1570000000}");
+        return length;
+    }
+
+    private static int write(Writer out, String ascii) throws IOException {
+        out.write(ascii);
+        return ascii.length();
+    }
+}
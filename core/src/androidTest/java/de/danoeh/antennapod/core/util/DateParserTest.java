@@ -0,0 +1,90 @@
+package de.danoeh.antennapod.core.util;
+
+import androidx.test.filters.SmallTest;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that the single-pass parser of {@link DateParser} returns the same dates as the
+ * pattern-based parser. Needs to be run on android devices, see {@link DateUtilsTest}.
+ */
+@SmallTest
+public class DateParserTest {
+    /**
+     * Dates that have to be parsed without trying the patterns.
+     */
+    private static final String[] FAST_DATES = {
+            "2015-03-28T13:31:04.963870",
+            "2015-03-28T13:31:04.96",
+            "2015-03-28T13:31:04.9",
+            "2015-03-28T13:31:04.963870 +0700",
+            "2015-03-28T13:31:04.96 +0700",
+            "2015-03-28T13:31:04.9 +0700",
+            "Sat, 28 Mar 2015 01:31:04 EST",
+            "Sat, 28 Mar 2015 01:31 EST",
+            "Sat, 28 March 2015 08:16:12 -0400",
+            "Wed, 25 May 2011 12:33:00",
+            "Tue,  23 Mar   2010 01:06:26 -0500",
+            "2017-02-22T14:28:00.002-08:00",
+            "Sun, 29 Jan 2017 00:00:00 CEST",
+            "Sun, 29 Jan 2017 00:00:00 CET",
+            "Thu, 8 Oct 2014 09:00:00 GMT",
+            "Mon, 8 Sept 2014 00:00:00 GMT",
+            "2015-03-28T13:31:04Z",
+            "2015-03-28T13:31:04+02:00",
+            "2015-03-28T13:31:04+0200",
+            "2015-03-28",
+            "2016-02-29T23:59:59Z",
+            "Mon, 29 Feb 2016 23:59:59 +0000",
+            "Tue, 01 Jan 2019 05:00:00 PST",
+            "Tue, 01 Jan 2019 05:00:00 PDT",
+            "Tue, 01 Jan 2019 05:00:00 UTC",
+            "Tuesday, 01 Jan 2019 05:00:00 GMT",
+            "28 Mar 2015 01:31:04 +0100",
+            "  Sat, 28 Mar 2015 01:31:04 GMT  "
+    };
+
+    /**
+     * Dates that are left to the patterns.
+     */
+    private static final String[] SLOW_DATES = {
+            "Sun 01 Mar 2015 01:00:00 GMT-0400 (EDT)",
+            "Sat, 28 Mar 15 01:31:04 GMT",
+            "2015/03/28",
+            "2015-02-30T00:00:00Z",
+            "Sat, 28 Mar 2015 25:31:04 GMT",
+            "not a date"
+    };
+
+    @Test
+    public void testFastPathMatchesPatterns() {
+        for (String input : FAST_DATES) {
+            Date fast = DateParser.parseFast(input);
+            assertNotNull(input, fast);
+            assertEquals(input, new DateParser().parseWithPatterns(input), fast);
+        }
+    }
+
+    @Test
+    public void testUnsupportedDatesAreLeftToPatterns() {
+        for (String input : SLOW_DATES) {
+            assertNull(input, DateParser.parseFast(input));
+            assertEquals(input, new DateParser().parseWithPatterns(input), new DateParser().parse(input));
+        }
+    }
+
+    @Test
+    public void testLearnedPatternGivesSameResult() {
+        DateParser parser = new DateParser();
+        String[] dates = {"Sat, 28 Mar 15 01:31:04 GMT", "Sun, 29 Mar 15 02:00:00 +0100",
+                "Sun 01 Mar 2015 01:00:00 GMT-0400 (EDT)", "Sat, 28 Mar 15 01:31:04 GMT"};
+        for (String input : dates) {
+            assertEquals(input, new DateParser().parseWithPatterns(input), parser.parse(input));
+        }
+    }
+}
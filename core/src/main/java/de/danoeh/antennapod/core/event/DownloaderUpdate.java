@@ -3,7 +3,9 @@ package de.danoeh.antennapod.core.event;
 import androidx.annotation.NonNull;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedMedia;
@@ -28,10 +30,18 @@ public class DownloaderUpdate {
      */
     public final long[] mediaIds;
 
+    /**
+     * Throughput in bytes per second of each connection of the feed media that are downloaded
+     * with more than one connection, by feed media ID
+     */
+    @NonNull
+    public final Map<Long, long[]> segmentThroughput;
+
     DownloaderUpdate(@NonNull List<Downloader> downloaders) {
         this.downloaders = downloaders;
         LongList feedIds1 = new LongList();
         LongList mediaIds1 = new LongList();
+        Map<Long, long[]> segmentThroughput1 = new HashMap<>();
         for(Downloader d1 : downloaders) {
             int type = d1.getDownloadRequest().getFeedfileType();
             long id = d1.getDownloadRequest().getFeedfileId();
@@ -39,11 +49,16 @@ public class DownloaderUpdate {
                 feedIds1.add(id);
             } else if(type == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
                 mediaIds1.add(id);
+                long[] throughput = d1.getDownloadRequest().getSegmentThroughput();
+                if (throughput.length > 0) {
+                    segmentThroughput1.put(id, throughput);
+                }
             }
         }
 
         this.feedIds = feedIds1.toArray();
         this.mediaIds = mediaIds1.toArray();
+        this.segmentThroughput = segmentThroughput1;
     }
 
     @Override
@@ -3,6 +3,7 @@ package de.danoeh.antennapod.core.event;
 import de.danoeh.antennapod.core.feed.Feed;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class FeedListUpdateEvent {
@@ -25,4 +26,8 @@ public class FeedListUpdateEvent {
     public boolean contains(Feed feed) {
         return feeds.contains(feed.getId());
     }
+
+    public List<Long> getFeedIds() {
+        return Collections.unmodifiableList(feeds);
+    }
 }
@@ -48,10 +48,40 @@ public class Feed extends FeedFile implements ImageResource {
     private List<FeedItem> items;
 
     /**
-     * String that identifies the last update (adopted from Last-Modified or ETag header)
+     * String that identifies the last update (adopted from Last-Modified header)
      */
     private String lastUpdate;
 
+    /**
+     * ETag header of the last update
+     */
+    private String etag;
+
+    /**
+     * Hash of the content of the last downloaded feed file
+     */
+    private String contentHash;
+
+    /**
+     * Number of refreshes that have reached the server.
+     */
+    private int refreshCount;
+
+    /**
+     * Number of refreshes that have been avoided because the feed has not been modified.
+     */
+    private int notModifiedCount;
+
+    /**
+     * Time of the last refresh that has reached the server.
+     */
+    private long lastRefresh;
+
+    /**
+     * Number of automatic refreshes that have been skipped because the feed was not due.
+     */
+    private int skippedRefreshCount;
+
     private String paymentLink;
     /**
      * Feed type, for example RSS 2 or Atom
@@ -195,6 +225,12 @@ public class Feed extends FeedFile implements ImageResource {
         int indexSortOrder = cursor.getColumnIndex(PodDBAdapter.KEY_SORT_ORDER);
         int indexLastUpdateFailed = cursor.getColumnIndex(PodDBAdapter.KEY_LAST_UPDATE_FAILED);
         int indexImageUrl = cursor.getColumnIndex(PodDBAdapter.KEY_IMAGE_URL);
+        int indexEtag = cursor.getColumnIndex(PodDBAdapter.KEY_ETAG);
+        int indexContentHash = cursor.getColumnIndex(PodDBAdapter.KEY_CONTENT_HASH);
+        int indexRefreshCount = cursor.getColumnIndex(PodDBAdapter.KEY_REFRESH_COUNT);
+        int indexNotModifiedCount = cursor.getColumnIndex(PodDBAdapter.KEY_NOT_MODIFIED_COUNT);
+        int indexLastRefresh = cursor.getColumnIndex(PodDBAdapter.KEY_LAST_REFRESH);
+        int indexSkippedRefreshCount = cursor.getColumnIndex(PodDBAdapter.KEY_SKIPPED_REFRESH_COUNT);
 
         Feed feed = new Feed(
                 cursor.getLong(indexId),
@@ -219,6 +255,13 @@ public class Feed extends FeedFile implements ImageResource {
                 cursor.getInt(indexLastUpdateFailed) > 0
         );
 
+        feed.setEtag(cursor.getString(indexEtag));
+        feed.setContentHash(cursor.getString(indexContentHash));
+        feed.refreshCount = cursor.getInt(indexRefreshCount);
+        feed.notModifiedCount = cursor.getInt(indexNotModifiedCount);
+        feed.lastRefresh = cursor.getLong(indexLastRefresh);
+        feed.skippedRefreshCount = cursor.getInt(indexSkippedRefreshCount);
+
         FeedPreferences preferences = FeedPreferences.fromCursor(cursor);
         feed.setPreferences(preferences);
         return feed;
@@ -436,6 +479,50 @@ public class Feed extends FeedFile implements ImageResource {
         this.lastUpdate = lastModified;
     }
 
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public int getRefreshCount() {
+        return refreshCount;
+    }
+
+    public int getNotModifiedCount() {
+        return notModifiedCount;
+    }
+
+    public long getLastRefresh() {
+        return lastRefresh;
+    }
+
+    public int getSkippedRefreshCount() {
+        return skippedRefreshCount;
+    }
+
+    /**
+     * Returns the share of automatic refreshes that have been avoided, either because the feed was
+     * not due or because the server reported that it has not been modified.
+     */
+    public float getAvoidedRefreshRate() {
+        int total = refreshCount + skippedRefreshCount;
+        if (total == 0) {
+            return 0;
+        }
+        return (float) (notModifiedCount + skippedRefreshCount) / total;
+    }
+
     public String getFeedIdentifier() {
         return feedIdentifier;
     }
@@ -1,6 +1,7 @@
 package de.danoeh.antennapod.core.feed;
 
 import android.database.Cursor;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
@@ -45,6 +46,14 @@ public class FeedItem extends FeedComponent implements ShownotesProvider, ImageR
      */
     private String contentEncoded;
 
+    /**
+     * Hashes of the description and content-encoded values as they are stored in the database,
+     * see {@link #hashShownotes(String)}. They make it possible to detect changed shownotes
+     * without loading them. 0 if unknown.
+     */
+    private long descriptionHash;
+    private long contentEncodedHash;
+
     private String link;
     private Date pubDate;
     private FeedMedia media;
@@ -87,6 +96,18 @@ public class FeedItem extends FeedComponent implements ShownotesProvider, ImageR
      */
     private final Set<String> tags = new HashSet<>();
 
+    /**
+     * Is true if {@link #updateFromOther(FeedItem)} has changed attribute values of this item
+     * that have not been saved in the database yet.
+     */
+    private boolean dirty = false;
+
+    /**
+     * Is true if {@link #updateFromOther(FeedItem)} has computed shownotes hashes that are not
+     * stored in the database yet, because the item has been saved before the hashes existed.
+     */
+    private boolean unsavedShownotesHashes = false;
+
     public FeedItem() {
         this.state = UNPLAYED;
         this.hasChapters = false;
@@ -164,12 +185,29 @@ public class FeedItem extends FeedComponent implements ShownotesProvider, ImageR
         long autoDownload = cursor.getLong(indexAutoDownload);
         String imageUrl = cursor.getString(indexImageUrl);
 
-        return new FeedItem(id, title, link, pubDate, paymentLink, feedId,
+        FeedItem item = new FeedItem(id, title, link, pubDate, paymentLink, feedId,
                 hasChapters, imageUrl, state, itemIdentifier, autoDownload);
+        int indexDescriptionHash = cursor.getColumnIndex(PodDBAdapter.KEY_DESCRIPTION_HASH);
+        int indexContentEncodedHash = cursor.getColumnIndex(PodDBAdapter.KEY_CONTENT_ENCODED_HASH);
+        if (indexDescriptionHash >= 0 && indexContentEncodedHash >= 0) {
+            item.setShownotesHashes(cursor.getLong(indexDescriptionHash), cursor.getLong(indexContentEncodedHash));
+        }
+        return item;
     }
 
     public void updateFromOther(FeedItem other) {
         super.updateFromOther(other);
+        if (compareWithOther(other)) {
+            dirty = true;
+        }
+        if (other.description != null && description == null && descriptionHash == 0) {
+            descriptionHash = hashShownotes(other.description);
+            unsavedShownotesHashes = true;
+        }
+        if (other.contentEncoded != null && contentEncoded == null && contentEncodedHash == 0) {
+            contentEncodedHash = hashShownotes(other.contentEncoded);
+            unsavedShownotesHashes = true;
+        }
         if (other.imageUrl != null) {
             this.imageUrl = other.imageUrl;
         }
@@ -207,6 +245,96 @@ public class FeedItem extends FeedComponent implements ShownotesProvider, ImageR
         }
     }
 
+    /**
+     * Compares this FeedItem's attribute values with the values that {@link #updateFromOther(FeedItem)}
+     * would take over from another FeedItem. If the description and content-encoded values have
+     * not been loaded for this item, their stored hashes are compared instead. Shownotes without
+     * a stored hash are not considered changed.
+     *
+     * @return true if attribute values are different, false otherwise
+     */
+    public boolean compareWithOther(FeedItem other) {
+        if (super.compareWithOther(other)) {
+            return true;
+        }
+        if (other.imageUrl != null && !TextUtils.equals(imageUrl, other.imageUrl)) {
+            return true;
+        }
+        if (other.title != null && !TextUtils.equals(title, other.title)) {
+            return true;
+        }
+        if (other.description != null && (description != null
+                ? !TextUtils.equals(description, other.description)
+                : descriptionHash != 0 && descriptionHash != hashShownotes(other.description))) {
+            return true;
+        }
+        if (other.contentEncoded != null && (contentEncoded != null
+                ? !TextUtils.equals(contentEncoded, other.contentEncoded)
+                : contentEncodedHash != 0 && contentEncodedHash != hashShownotes(other.contentEncoded))) {
+            return true;
+        }
+        if (other.link != null && !TextUtils.equals(link, other.link)) {
+            return true;
+        }
+        if (other.media != null) {
+            if (media == null || media.compareWithOther(other.media)) {
+                return true;
+            }
+        }
+        if (other.paymentLink != null && !TextUtils.equals(paymentLink, other.paymentLink)) {
+            return true;
+        }
+        if (other.chapters != null && !hasChapters) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if attribute values of this item have been changed by
+     * {@link #updateFromOther(FeedItem)} since it was last saved in the database.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    /**
+     * Returns true if {@link #updateFromOther(FeedItem)} has computed shownotes hashes that
+     * have to be saved even if the item is not dirty.
+     */
+    public boolean hasUnsavedShownotesHashes() {
+        return unsavedShownotesHashes;
+    }
+
+    public void setUnsavedShownotesHashes(boolean unsavedShownotesHashes) {
+        this.unsavedShownotesHashes = unsavedShownotesHashes;
+    }
+
+    public long getDescriptionHash() {
+        return descriptionHash;
+    }
+
+    public long getContentEncodedHash() {
+        return contentEncodedHash;
+    }
+
+    public void setShownotesHashes(long descriptionHash, long contentEncodedHash) {
+        this.descriptionHash = descriptionHash;
+        this.contentEncodedHash = contentEncodedHash;
+    }
+
+    /**
+     * Computes the value that is stored instead of the shownotes to detect whether they have
+     * changed. It combines the length and the String hash code of the shownotes.
+     */
+    public static long hashShownotes(@NonNull String shownotes) {
+        return ((long) shownotes.length() << 32) | (shownotes.hashCode() & 0xffffffffL);
+    }
+
     /**
      * Returns the value that uniquely identifies this FeedItem. If the
      * itemIdentifier attribute is not null, it will be returned. Else it will
@@ -282,6 +410,11 @@ public class FeedItem extends FeedComponent implements ShownotesProvider, ImageR
         }
     }
 
+    /**
+     * Returns the feed of this item. Items loaded by DBReader share their Feed object with other
+     * items and with the feed cache, so it must not be modified. Load the feed with
+     * DBReader.getFeed(long) to change it.
+     */
     public Feed getFeed() {
         return feed;
     }
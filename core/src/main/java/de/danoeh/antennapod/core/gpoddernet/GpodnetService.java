@@ -1,5 +1,7 @@
 package de.danoeh.antennapod.core.gpoddernet;
 
+import android.util.JsonReader;
+import android.util.JsonToken;
 import androidx.annotation.NonNull;
 
 import org.json.JSONArray;
@@ -31,6 +33,8 @@ import de.danoeh.antennapod.core.gpoddernet.model.GpodnetTag;
 import de.danoeh.antennapod.core.gpoddernet.model.GpodnetUploadChangesResponse;
 import de.danoeh.antennapod.core.preferences.GpodnetPreferences;
 import de.danoeh.antennapod.core.service.download.AntennapodHttpClient;
+import de.danoeh.antennapod.core.util.Consumer;
+import de.danoeh.antennapod.core.util.DateUtils;
 import okhttp3.Credentials;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -108,12 +112,9 @@ public class GpodnetService {
             URL url = new URI(BASE_SCHEME, BASE_HOST, String.format(
                     "/api/2/tag/%s/%d.json", tag.getTag(), count), null).toURL();
             Request.Builder request = new Request.Builder().url(url);
-            String response = executeRequest(request);
-
-            JSONArray jsonArray = new JSONArray(response);
-            return readPodcastListFromJSONArray(jsonArray);
+            return executeRequest(request, GpodnetService::readPodcastList);
 
-        } catch (JSONException | MalformedURLException | URISyntaxException e) {
+        } catch (MalformedURLException | URISyntaxException e) {
             e.printStackTrace();
             throw new GpodnetServiceException(e);
         }
@@ -135,12 +136,9 @@ public class GpodnetService {
             URL url = new URI(BASE_SCHEME, BASE_HOST, String.format(
                     "/toplist/%d.json", count), null).toURL();
             Request.Builder request = new Request.Builder().url(url);
-            String response = executeRequest(request);
+            return executeRequest(request, GpodnetService::readPodcastList);
 
-            JSONArray jsonArray = new JSONArray(response);
-            return readPodcastListFromJSONArray(jsonArray);
-
-        } catch (JSONException | MalformedURLException | URISyntaxException e) {
+        } catch (MalformedURLException | URISyntaxException e) {
             e.printStackTrace();
             throw new GpodnetServiceException(e);
         }
@@ -167,11 +165,8 @@ public class GpodnetService {
             URL url = new URI(BASE_SCHEME, BASE_HOST, String.format(
                     "/suggestions/%d.json", count), null).toURL();
             Request.Builder request = new Request.Builder().url(url);
-            String response = executeRequest(request);
-
-            JSONArray jsonArray = new JSONArray(response);
-            return readPodcastListFromJSONArray(jsonArray);
-        } catch (JSONException | MalformedURLException | URISyntaxException e) {
+            return executeRequest(request, GpodnetService::readPodcastList);
+        } catch (MalformedURLException | URISyntaxException e) {
             e.printStackTrace();
             throw new GpodnetServiceException(e);
         }
@@ -194,12 +189,9 @@ public class GpodnetService {
             URL url = new URI(BASE_SCHEME, null, BASE_HOST, -1, "/search.json",
                     parameters, null).toURL();
             Request.Builder request = new Request.Builder().url(url);
-            String response = executeRequest(request);
+            return executeRequest(request, GpodnetService::readPodcastList);
 
-            JSONArray jsonArray = new JSONArray(response);
-            return readPodcastListFromJSONArray(jsonArray);
-
-        } catch (JSONException | MalformedURLException e) {
+        } catch (MalformedURLException e) {
             e.printStackTrace();
             throw new GpodnetServiceException(e);
         } catch (URISyntaxException e) {
@@ -505,13 +497,14 @@ public class GpodnetService {
                     null).toURL();
             Request.Builder request = new Request.Builder().url(url);
 
-            String response = executeRequest(request);
-            JSONObject json = new JSONObject(response);
-            return readEpisodeActionsFromJSONObject(json);
+            List<GpodnetEpisodeAction> episodeActions = new ArrayList<>();
+            long lastUpdate = executeRequest(request,
+                    reader -> readEpisodeActions(reader, episodeActions::add));
+            return new GpodnetEpisodeActionGetResponse(episodeActions, lastUpdate);
         } catch (URISyntaxException e) {
             e.printStackTrace();
             throw new IllegalStateException(e);
-        } catch (JSONException | MalformedURLException e) {
+        } catch (MalformedURLException e) {
             e.printStackTrace();
             throw new GpodnetServiceException(e);
         }
@@ -577,6 +570,26 @@ public class GpodnetService {
         return responseString;
     }
 
+    /**
+     * Executes a request and converts the JSON response while it is being received, without
+     * loading the whole response into memory first.
+     */
+    private <T> T executeRequest(@NonNull Request.Builder requestB,
+                                 @NonNull JsonResponseReader<T> responseReader)
+            throws GpodnetServiceException {
+        Request request = requestB.header("User-Agent", ClientConfig.USER_AGENT).build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            checkStatusCode(response);
+            try (JsonReader reader = new JsonReader(response.body().charStream())) {
+                return responseReader.read(reader);
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            // JsonReader throws IllegalStateException if a value has an unexpected type
+            e.printStackTrace();
+            throw new GpodnetServiceException(e);
+        }
+    }
+
     private String executeRequestWithAuthentication(Request.Builder requestB,
                                                     String username, String password) throws GpodnetServiceException {
         if (requestB == null || username == null || password == null) {
@@ -641,54 +654,74 @@ public class GpodnetService {
         }
     }
 
-    private List<GpodnetPodcast> readPodcastListFromJSONArray(@NonNull JSONArray array)
-            throws JSONException {
-        List<GpodnetPodcast> result = new ArrayList<>(
-                array.length());
-        for (int i = 0; i < array.length(); i++) {
-            result.add(readPodcastFromJSONObject(array.getJSONObject(i)));
+    static List<GpodnetPodcast> readPodcastList(@NonNull JsonReader reader)
+            throws IOException {
+        List<GpodnetPodcast> result = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            result.add(readPodcast(reader));
         }
+        reader.endArray();
         return result;
     }
 
-    private GpodnetPodcast readPodcastFromJSONObject(JSONObject object)
-            throws JSONException {
-        String url = object.getString("url");
+    private static GpodnetPodcast readPodcast(@NonNull JsonReader reader)
+            throws IOException {
+        String url = null;
+        String title = null;
+        String description = null;
+        int subscribers = 0;
+        String logoUrl = null;
+        String scaledLogoUrl = null;
+        String website = null;
+        String mygpoLink = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "url":
+                    url = nextStringOrNull(reader);
+                    break;
+                case "title":
+                    title = nextStringOrNull(reader);
+                    break;
+                case "description":
+                    description = nextStringOrNull(reader);
+                    break;
+                case "subscribers":
+                    subscribers = nextIntOrDefault(reader, 0);
+                    break;
+                case "logo_url":
+                    logoUrl = nextStringOrNull(reader);
+                    break;
+                case "scaled_logo_url":
+                    scaledLogoUrl = nextStringOrNull(reader);
+                    break;
+                case "website":
+                    website = nextStringOrNull(reader);
+                    break;
+                case "mygpo_link":
+                    mygpoLink = nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
 
-        String title;
-        Object titleObj = object.opt("title");
-        if (titleObj != null && titleObj instanceof String) {
-            title = (String) titleObj;
-        } else {
+        if (url == null) {
+            throw new IOException("Podcast without url");
+        }
+        if (title == null) {
             title = url;
         }
-
-        String description;
-        Object descriptionObj = object.opt("description");
-        if (descriptionObj != null && descriptionObj instanceof String) {
-            description = (String) descriptionObj;
-        } else {
+        if (description == null) {
             description = "";
         }
-
-        int subscribers = object.getInt("subscribers");
-
-        Object logoUrlObj = object.opt("logo_url");
-        String logoUrl = (logoUrlObj instanceof String) ? (String) logoUrlObj
-                : null;
         if (logoUrl == null) {
-            Object scaledLogoUrl = object.opt("scaled_logo_url");
-            if (scaledLogoUrl != null && scaledLogoUrl instanceof String) {
-                logoUrl = (String) scaledLogoUrl;
-            }
-        }
-
-        String website = null;
-        Object websiteObj = object.opt("website");
-        if (websiteObj != null && websiteObj instanceof String) {
-            website = (String) websiteObj;
+            logoUrl = scaledLogoUrl;
         }
-        String mygpoLink = object.getString("mygpo_link");
         return new GpodnetPodcast(url, title, description, subscribers,
                 logoUrl, website, mygpoLink);
     }
@@ -737,21 +770,150 @@ public class GpodnetService {
         return new GpodnetSubscriptionChange(added, removed, timestamp);
     }
 
-    private GpodnetEpisodeActionGetResponse readEpisodeActionsFromJSONObject(
-            @NonNull JSONObject object) throws JSONException {
+    /**
+     * Reads the episode actions of a response and passes each of them to the consumer as soon
+     * as it has been read.
+     *
+     * @return the timestamp of the response
+     */
+    static long readEpisodeActions(@NonNull JsonReader reader,
+                                   @NonNull Consumer<GpodnetEpisodeAction> consumer) throws IOException {
+        Long timestamp = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "timestamp":
+                    timestamp = reader.nextLong();
+                    break;
+                case "actions":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        GpodnetEpisodeAction episodeAction = readEpisodeAction(reader);
+                        if (episodeAction != null) {
+                            consumer.accept(episodeAction);
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        if (timestamp == null) {
+            throw new IOException("Episode actions without timestamp");
+        }
+        return timestamp;
+    }
+
+    /**
+     * Reads an episode action. Mandatory fields are "podcast", "episode" and "action".
+     *
+     * @return episode action object, or null if mandatory values are missing
+     */
+    private static GpodnetEpisodeAction readEpisodeAction(@NonNull JsonReader reader)
+            throws IOException {
+        String podcast = null;
+        String episode = null;
+        String actionString = null;
+        String deviceId = "";
+        String utcTimestamp = null;
+        int started = -1;
+        int position = -1;
+        int total = -1;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "podcast":
+                    podcast = nextStringOrNull(reader);
+                    break;
+                case "episode":
+                    episode = nextStringOrNull(reader);
+                    break;
+                case "action":
+                    actionString = nextStringOrNull(reader);
+                    break;
+                case "device":
+                    String device = nextStringOrNull(reader);
+                    deviceId = (device != null) ? device : "";
+                    break;
+                case "timestamp":
+                    utcTimestamp = nextStringOrNull(reader);
+                    break;
+                case "started":
+                    started = nextIntOrDefault(reader, -1);
+                    break;
+                case "position":
+                    position = nextIntOrDefault(reader, -1);
+                    break;
+                case "total":
+                    total = nextIntOrDefault(reader, -1);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
 
-        List<GpodnetEpisodeAction> episodeActions = new ArrayList<>();
+        if (isEmpty(podcast) || isEmpty(episode) || isEmpty(actionString)) {
+            return null;
+        }
+        GpodnetEpisodeAction.Action action;
+        try {
+            action = GpodnetEpisodeAction.Action.valueOf(actionString.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        GpodnetEpisodeAction.Builder builder = new GpodnetEpisodeAction.Builder(podcast, episode, action)
+                .deviceId(deviceId);
+        if (!isEmpty(utcTimestamp)) {
+            builder.timestamp(DateUtils.parse(utcTimestamp));
+        }
+        if (action == GpodnetEpisodeAction.Action.PLAY && started >= 0 && position > 0 && total > 0) {
+            builder.started(started)
+                    .position(position)
+                    .total(total);
+        }
+        return builder.build();
+    }
 
-        long timestamp = object.getLong("timestamp");
-        JSONArray jsonActions = object.getJSONArray("actions");
-        for(int i=0; i < jsonActions.length(); i++) {
-            JSONObject jsonAction = jsonActions.getJSONObject(i);
-            GpodnetEpisodeAction episodeAction = GpodnetEpisodeAction.readFromJSONObject(jsonAction);
-            if(episodeAction != null) {
-                episodeActions.add(episodeAction);
+    private static boolean isEmpty(String s) {
+        return s == null || s.length() == 0;
+    }
+
+    private static String nextStringOrNull(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * Reads a number like JSONObject.optInt does: numbers in strings are accepted, fractions are
+     * truncated and values that are null, not numbers or out of range give the default value.
+     */
+    private static int nextIntOrDefault(@NonNull JsonReader reader, int defaultValue) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return defaultValue;
+        }
+        try {
+            double value = Double.parseDouble(reader.nextString());
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                return defaultValue;
             }
+            return (int) value;
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
-        return new GpodnetEpisodeActionGetResponse(episodeActions, timestamp);
     }
 
+    private interface JsonResponseReader<T> {
+        T read(JsonReader reader) throws IOException;
+    }
 }
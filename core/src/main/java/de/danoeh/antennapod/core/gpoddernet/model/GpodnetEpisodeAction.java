@@ -1,7 +1,6 @@
 package de.danoeh.antennapod.core.gpoddernet.model;
 
 
-import android.text.TextUtils;
 import android.util.Log;
 
 import org.json.JSONException;
@@ -14,7 +13,6 @@ import java.util.TimeZone;
 
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.preferences.GpodnetPreferences;
-import de.danoeh.antennapod.core.util.DateUtils;
 
 public class GpodnetEpisodeAction {
 
@@ -74,47 +72,6 @@ public class GpodnetEpisodeAction {
         }
     }
 
-    /**
-     * Create an episode action object from JSON representation. Mandatory fields are "podcast",
-     * "episode" and "action".
-     *
-     *  @param object JSON representation
-     *  @return episode action object, or null if mandatory values are missing
-     */
-    public static GpodnetEpisodeAction readFromJSONObject(JSONObject object) {
-        String podcast = object.optString("podcast", null);
-        String episode = object.optString("episode", null);
-        String actionString = object.optString("action", null);
-        if(TextUtils.isEmpty(podcast) || TextUtils.isEmpty(episode) || TextUtils.isEmpty(actionString)) {
-            return null;
-        }
-        GpodnetEpisodeAction.Action action;
-        try {
-            action = GpodnetEpisodeAction.Action.valueOf(actionString.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
-        String deviceId = object.optString("device", "");
-        GpodnetEpisodeAction.Builder builder = new GpodnetEpisodeAction.Builder(podcast, episode, action)
-                .deviceId(deviceId);
-        String utcTimestamp = object.optString("timestamp", null);
-        if(!TextUtils.isEmpty(utcTimestamp)) {
-            builder.timestamp(DateUtils.parse(utcTimestamp));
-        }
-        if(action == GpodnetEpisodeAction.Action.PLAY) {
-            int started = object.optInt("started", -1);
-            int position = object.optInt("position", -1);
-            int total = object.optInt("total", -1);
-            if(started >= 0 && position > 0 && total > 0) {
-                builder
-                    .started(started)
-                    .position(position)
-                    .total(total);
-            }
-        }
-        return builder.build();
-    }
-
     public String getPodcast() {
         return this.podcast;
     }
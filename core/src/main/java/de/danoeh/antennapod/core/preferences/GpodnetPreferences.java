@@ -18,6 +18,7 @@ import de.danoeh.antennapod.core.ClientConfig;
 import de.danoeh.antennapod.core.gpoddernet.GpodnetService;
 import de.danoeh.antennapod.core.gpoddernet.model.GpodnetEpisodeAction;
 import de.danoeh.antennapod.core.service.GpodnetSyncService;
+import de.danoeh.antennapod.core.storage.DBWriter;
 
 /**
  * Manages preferences for accessing gpodder.net service
@@ -52,8 +53,6 @@ public class GpodnetPreferences {
     private static Set<String> addedFeeds;
     private static Set<String> removedFeeds;
 
-    private static List<GpodnetEpisodeAction> queuedEpisodeActions;
-
     /**
      * Last value returned by getSubscriptionChanges call. Will be used for all subsequent calls of getSubscriptionChanges.
      */
@@ -93,7 +92,7 @@ public class GpodnetPreferences {
             lastSyncAttemptResult = prefs.getBoolean(PREF_LAST_SYNC_ATTEMPT_RESULT, false);
             addedFeeds = readListFromString(prefs.getString(PREF_SYNC_ADDED, ""));
             removedFeeds = readListFromString(prefs.getString(PREF_SYNC_REMOVED, ""));
-            queuedEpisodeActions = readEpisodeActionsFromString(prefs.getString(PREF_SYNC_EPISODE_ACTIONS, ""));
+            migrateQueuedEpisodeActions(prefs);
             hostname = checkGpodnetHostname(prefs.getString(PREF_GPODNET_HOSTNAME, GpodnetService.DEFAULT_BASE_HOST));
 
             preferencesLoaded = true;
@@ -267,28 +266,7 @@ public class GpodnetPreferences {
 
     public static void enqueueEpisodeAction(GpodnetEpisodeAction action) {
         ensurePreferencesLoaded();
-        feedListLock.lock();
-        queuedEpisodeActions.add(action);
-        writePreference(PREF_SYNC_EPISODE_ACTIONS, writeEpisodeActionsToString(queuedEpisodeActions));
-        feedListLock.unlock();
-        GpodnetSyncService.sendSyncActionsIntent(ClientConfig.applicationCallbacks.getApplicationInstance());
-    }
-
-    public static List<GpodnetEpisodeAction> getQueuedEpisodeActions() {
-        ensurePreferencesLoaded();
-        List<GpodnetEpisodeAction> copy = new ArrayList<>();
-        feedListLock.lock();
-        copy.addAll(queuedEpisodeActions);
-        feedListLock.unlock();
-        return copy;
-    }
-
-    public static void removeQueuedEpisodeActions(Collection<GpodnetEpisodeAction> queued) {
-        ensurePreferencesLoaded();
-        feedListLock.lock();
-        queuedEpisodeActions.removeAll(queued);
-        writePreference(PREF_SYNC_EPISODE_ACTIONS, writeEpisodeActionsToString(queuedEpisodeActions));
-        feedListLock.unlock();
+        DBWriter.addEpisodeAction(action);
     }
 
     /**
@@ -309,9 +287,8 @@ public class GpodnetPreferences {
         writePreference(PREF_SYNC_ADDED, addedFeeds);
         removedFeeds.clear();
         writePreference(PREF_SYNC_REMOVED, removedFeeds);
-        queuedEpisodeActions.clear();
-        writePreference(PREF_SYNC_EPISODE_ACTIONS, writeEpisodeActionsToString(queuedEpisodeActions));
         feedListLock.unlock();
+        DBWriter.clearEpisodeActions();
         setLastSubscriptionSyncTimestamp(0);
         setLastSyncAttempt(false, 0);
         UserPreferences.setGpodnetNotificationsEnabled();
@@ -332,27 +309,30 @@ public class GpodnetPreferences {
         return result.toString().trim();
     }
 
-    private static List<GpodnetEpisodeAction> readEpisodeActionsFromString(String s) {
-        String[] lines = s.split("\n");
-        List<GpodnetEpisodeAction> result = new ArrayList<>(lines.length);
-        for(String line : lines) {
-            if(TextUtils.isEmpty(line)) {
+    /**
+     * Episode actions used to be stored in the preferences. Moves them to the database. The
+     * preference is only removed once the actions have been committed, so that they are moved
+     * again on the next start if saving them fails.
+     */
+    private static void migrateQueuedEpisodeActions(SharedPreferences prefs) {
+        if (!prefs.contains(PREF_SYNC_EPISODE_ACTIONS)) {
+            return;
+        }
+        List<GpodnetEpisodeAction> actions = new ArrayList<>();
+        for (String line : prefs.getString(PREF_SYNC_EPISODE_ACTIONS, "").split("\n")) {
+            if (!TextUtils.isEmpty(line)) {
                 GpodnetEpisodeAction action = GpodnetEpisodeAction.readFromString(line);
-                if(action != null) {
-                    result.add(GpodnetEpisodeAction.readFromString(line));
+                if (action != null) {
+                    actions.add(action);
                 }
             }
         }
-        return result;
-    }
-
-    private static String writeEpisodeActionsToString(Collection<GpodnetEpisodeAction> c) {
-        StringBuilder result = new StringBuilder();
-        for(GpodnetEpisodeAction item : c) {
-            result.append(item.writeToString());
-            result.append("\n");
+        if (actions.isEmpty()) {
+            prefs.edit().remove(PREF_SYNC_EPISODE_ACTIONS).apply();
+            return;
         }
-        return result.toString();
+        // commit() is fine here, the callback runs on the database thread
+        DBWriter.addEpisodeActions(actions, () -> prefs.edit().remove(PREF_SYNC_EPISODE_ACTIONS).commit());
     }
 
     private static String checkGpodnetHostname(String value) {
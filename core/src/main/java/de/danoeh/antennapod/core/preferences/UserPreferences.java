@@ -91,6 +91,7 @@ public class UserPreferences {
     private static final String PREF_MOBILE_UPDATE = "prefMobileUpdateTypes";
     public static final String PREF_EPISODE_CLEANUP = "prefEpisodeCleanup";
     public static final String PREF_PARALLEL_DOWNLOADS = "prefParallelDownloads";
+    public static final String PREF_SEGMENTED_DOWNLOADS = "prefSegmentedDownloads";
     public static final String PREF_EPISODE_CACHE_SIZE = "prefEpisodeCacheSize";
     public static final String PREF_ENABLE_AUTODL = "prefEnableAutoDl";
     public static final String PREF_ENABLE_AUTODL_ON_BATTERY = "prefEnableAutoDownloadOnBattery";
@@ -548,6 +549,14 @@ public class UserPreferences {
         return prefs.getBoolean(PREF_ENABLE_AUTODL_ON_BATTERY, true);
     }
 
+    /**
+     * Returns true if large episodes should be downloaded with several connections when the
+     * server supports range requests.
+     */
+    public static boolean isSegmentedDownloads() {
+        return prefs.getBoolean(PREF_SEGMENTED_DOWNLOADS, false);
+    }
+
     public static boolean isEnableAutodownloadWifiFilter() {
         return prefs.getBoolean(PREF_ENABLE_AUTODL_WIFI_FILTER, false);
     }
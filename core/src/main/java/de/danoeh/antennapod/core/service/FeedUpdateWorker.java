@@ -31,7 +31,11 @@ public class FeedUpdateWorker extends Worker {
         ClientConfig.initialize(getApplicationContext());
 
         if (NetworkUtils.networkAvailable() && NetworkUtils.isFeedRefreshAllowed()) {
-            DBTasks.refreshAllFeeds(getApplicationContext());
+            if (isRunOnce) {
+                DBTasks.refreshAllFeeds(getApplicationContext());
+            } else {
+                DBTasks.refreshDueFeeds(getApplicationContext());
+            }
         } else {
             Log.d(TAG, "Blocking automatic update: no wifi available / no mobile updates allowed");
         }
@@ -8,13 +8,17 @@ import android.content.Intent;
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.SafeJobIntentService;
-import androidx.collection.ArrayMap;
 import android.util.Log;
 import android.util.Pair;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import de.danoeh.antennapod.core.ClientConfig;
@@ -50,6 +54,8 @@ public class GpodnetSyncService extends SafeJobIntentService {
 
     private static final long WAIT_INTERVAL = 5000L;
 
+    private static final int UPLOAD_CHUNK_SIZE = 500;
+
     private static final String ARG_ACTION = "action";
 
     private static final String ACTION_SYNC = "de.danoeh.antennapod.intent.action.sync";
@@ -211,16 +217,18 @@ public class GpodnetSyncService extends SafeJobIntentService {
             Log.d(TAG, "Downloaded episode actions: " + getResponse);
             List<GpodnetEpisodeAction> remoteActions = getResponse.getEpisodeActions();
 
-            List<GpodnetEpisodeAction> localActions = GpodnetPreferences.getQueuedEpisodeActions();
+            List<GpodnetEpisodeAction> localActions = DBReader.getQueuedEpisodeActions(Integer.MAX_VALUE).actions;
             processEpisodeActions(localActions, remoteActions);
 
-            // upload local actions
-            if(localActions.size() > 0) {
-                Log.d(TAG, "Uploading episode actions: " + localActions);
-                GpodnetEpisodeActionPostResponse postResponse = service.uploadEpisodeActions(localActions);
+            // upload local actions in chunks, so that a failed upload only has to repeat the last chunk
+            DBReader.QueuedEpisodeActions queued = DBReader.getQueuedEpisodeActions(UPLOAD_CHUNK_SIZE);
+            while (queued.actions.size() > 0) {
+                Log.d(TAG, "Uploading episode actions: " + queued.actions);
+                GpodnetEpisodeActionPostResponse postResponse = service.uploadEpisodeActions(queued.actions);
                 lastUpdate = postResponse.timestamp;
                 Log.d(TAG, "Upload episode response: " + postResponse);
-                GpodnetPreferences.removeQueuedEpisodeActions(localActions);
+                DBWriter.removeEpisodeActions(queued.lastId).get();
+                queued = DBReader.getQueuedEpisodeActions(UPLOAD_CHUNK_SIZE);
             }
             GpodnetPreferences.setLastEpisodeActionsSyncTimestamp(lastUpdate);
             GpodnetPreferences.setLastSyncAttempt(true, System.currentTimeMillis());
@@ -228,6 +236,8 @@ public class GpodnetSyncService extends SafeJobIntentService {
         } catch (GpodnetServiceException e) {
             e.printStackTrace();
             updateErrorNotification(e);
+        } catch (InterruptedException | ExecutionException e) {
+            Log.e(TAG, "Could not remove uploaded episode actions", e);
         }
     }
 
@@ -237,7 +247,7 @@ public class GpodnetSyncService extends SafeJobIntentService {
         if(remoteActions.size() == 0) {
             return;
         }
-        Map<Pair<String, String>, GpodnetEpisodeAction> localMostRecentPlayAction = new ArrayMap<>();
+        Map<Pair<String, String>, GpodnetEpisodeAction> localMostRecentPlayAction = new HashMap<>();
         for(GpodnetEpisodeAction action : localActions) {
             Pair<String, String> key = new Pair<>(action.getPodcast(), action.getEpisode());
             GpodnetEpisodeAction mostRecent = localMostRecentPlayAction.get(key);
@@ -249,16 +259,12 @@ public class GpodnetSyncService extends SafeJobIntentService {
         }
 
         // make sure more recent local actions are not overwritten by older remote actions
-        Map<Pair<String, String>, GpodnetEpisodeAction> mostRecentPlayAction = new ArrayMap<>();
+        Map<Pair<String, String>, GpodnetEpisodeAction> mostRecentPlayAction = new HashMap<>();
+        List<GpodnetEpisodeAction> newActions = new ArrayList<>();
         for (GpodnetEpisodeAction action : remoteActions) {
             switch (action.getAction()) {
                 case NEW:
-                    FeedItem newItem = DBReader.getFeedItem(action.getPodcast(), action.getEpisode());
-                    if(newItem != null) {
-                        DBWriter.markItemPlayed(newItem, FeedItem.UNPLAYED, true);
-                    } else {
-                        Log.i(TAG, "Unknown feed item: " + action);
-                    }
+                    newActions.add(action);
                     break;
                 case DOWNLOAD:
                     break;
@@ -283,18 +289,42 @@ public class GpodnetSyncService extends SafeJobIntentService {
                     break;
             }
         }
-        for (GpodnetEpisodeAction action : mostRecentPlayAction.values()) {
-            FeedItem playItem = DBReader.getFeedItem(action.getPodcast(), action.getEpisode());
+
+        // look up all episodes at once instead of one query per action
+        Set<Pair<String, String>> urls = new HashSet<>(mostRecentPlayAction.keySet());
+        for (GpodnetEpisodeAction action : newActions) {
+            urls.add(new Pair<>(action.getPodcast(), action.getEpisode()));
+        }
+        Map<Pair<String, String>, FeedItem> items = DBReader.getFeedItemsByUrl(urls);
+
+        List<FeedItem> unplayedItems = new ArrayList<>();
+        for (GpodnetEpisodeAction action : newActions) {
+            FeedItem newItem = items.get(new Pair<>(action.getPodcast(), action.getEpisode()));
+            if (newItem != null) {
+                unplayedItems.add(newItem);
+            } else {
+                Log.i(TAG, "Unknown feed item: " + action);
+            }
+        }
+        List<FeedMedia> updatedMedia = new ArrayList<>();
+        List<FeedMedia> completedMedia = new ArrayList<>();
+        for (Map.Entry<Pair<String, String>, GpodnetEpisodeAction> entry : mostRecentPlayAction.entrySet()) {
+            FeedItem playItem = items.get(entry.getKey());
             if (playItem != null) {
                 FeedMedia media = playItem.getMedia();
-                media.setPosition(action.getPosition() * 1000);
-                DBWriter.setFeedMedia(media);
-                if(playItem.getMedia().hasAlmostEnded()) {
-                    DBWriter.markItemPlayed(playItem, FeedItem.PLAYED, true);
-                    DBWriter.addItemToPlaybackHistory(playItem.getMedia());
+                media.setPosition(entry.getValue().getPosition() * 1000);
+                if (media.hasAlmostEnded()) {
+                    completedMedia.add(media);
+                } else {
+                    updatedMedia.add(media);
                 }
             }
         }
+        try {
+            DBWriter.setEpisodeActionStates(unplayedItems, updatedMedia, completedMedia).get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.e(TAG, "Could not apply episode actions", e);
+        }
     }
 
     private void clearErrorNotifications() {
@@ -0,0 +1,141 @@
+package de.danoeh.antennapod.core.service.download;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import okio.BufferedSource;
+
+/**
+ * Writes a download to a file. The data is moved from okio's segments into a direct
+ * {@link ByteBuffer} and written to a {@link FileChannel}, so it is neither copied through
+ * intermediate byte arrays nor written in small chunks. The buffer grows while it can be
+ * filled quickly and shrinks on slow connections, so that cancelling and progress updates
+ * stay responsive. The buffers are reused across downloads, because direct buffers are
+ * expensive to allocate and are only freed by the garbage collector.
+ */
+class DownloadFileWriter {
+    static final int MIN_BUFFER_SIZE = 64 * 1024;
+    static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+    private static final long FAST_FILL_NS = 50 * 1000 * 1000L;
+    private static final long SLOW_FILL_NS = 500 * 1000 * 1000L;
+    private static final int MAX_POOLED_BUFFERS = 4;
+
+    private static final Deque<ByteBuffer> bufferPool = new ArrayDeque<>();
+
+    interface Callback {
+        boolean isCancelled();
+
+        /**
+         * Called at most every {@link #PROGRESS_INTERVAL_MS} milliseconds and once the
+         * download has been written completely.
+         *
+         * @param position The number of bytes in the file
+         */
+        void onProgress(long position);
+    }
+
+    private final FileChannel channel;
+    @Nullable
+    private final MessageDigest digest;
+    private long position;
+
+    /**
+     * @param channel  The file to write to
+     * @param position The position in the file at which the download starts
+     * @param digest   Digest that is updated with the downloaded data, or null
+     */
+    DownloadFileWriter(@NonNull FileChannel channel, long position, @Nullable MessageDigest digest) {
+        this.channel = channel;
+        this.position = position;
+        this.digest = digest;
+    }
+
+    /**
+     * Returns the position in the file up to which data has been written. This is also valid
+     * after {@link #write} has thrown an exception.
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * Writes the source to the file until it is exhausted or the download is cancelled.
+     */
+    void write(@NonNull BufferedSource source, @NonNull Callback callback) throws IOException {
+        ByteBuffer buffer = obtainBuffer();
+        try {
+            write(source, callback, buffer);
+        } finally {
+            recycleBuffer(buffer);
+        }
+    }
+
+    private void write(@NonNull BufferedSource source, @NonNull Callback callback, @NonNull ByteBuffer buffer)
+            throws IOException {
+        int bufferSize = MIN_BUFFER_SIZE;
+        long lastProgress = 0;
+        boolean exhausted = false;
+        while (!exhausted && !callback.isCancelled()) {
+            buffer.clear();
+            buffer.limit(bufferSize);
+            long fillStart = System.nanoTime();
+            while (buffer.hasRemaining() && !callback.isCancelled()) {
+                if (source.read(buffer) == -1) {
+                    exhausted = true;
+                    break;
+                }
+            }
+            long fillDuration = System.nanoTime() - fillStart;
+            buffer.flip();
+
+            if (digest != null) {
+                buffer.mark();
+                digest.update(buffer);
+                buffer.reset();
+            }
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastProgress >= PROGRESS_INTERVAL_MS) {
+                callback.onProgress(position);
+                lastProgress = now;
+            }
+
+            if (buffer.limit() == bufferSize && fillDuration < FAST_FILL_NS) {
+                bufferSize = Math.min(bufferSize * 2, MAX_BUFFER_SIZE);
+            } else if (fillDuration > SLOW_FILL_NS) {
+                bufferSize = Math.max(bufferSize / 2, MIN_BUFFER_SIZE);
+            }
+        }
+        callback.onProgress(position);
+    }
+
+    private static ByteBuffer obtainBuffer() {
+        synchronized (bufferPool) {
+            ByteBuffer buffer = bufferPool.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocateDirect(MAX_BUFFER_SIZE);
+    }
+
+    private static void recycleBuffer(ByteBuffer buffer) {
+        synchronized (bufferPool) {
+            if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+                bufferPool.push(buffer);
+            }
+        }
+    }
+}
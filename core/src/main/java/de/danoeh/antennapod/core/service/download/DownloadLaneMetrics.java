@@ -0,0 +1,61 @@
+package de.danoeh.antennapod.core.service.download;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Queue depth and wait time of the downloads of one lane of the {@link DownloadService}, i.e.
+ * of either the feeds or the media files.
+ */
+public class DownloadLaneMetrics {
+    private final int queued;
+    private final int running;
+    private final long started;
+    private final long averageWaitMillis;
+    private final long maxWaitMillis;
+
+    DownloadLaneMetrics(int queued, int running, long started, long averageWaitMillis, long maxWaitMillis) {
+        this.queued = queued;
+        this.running = running;
+        this.started = started;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Returns the number of downloads that wait for a free slot.
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the number of downloads that have been started since the service was created.
+     */
+    public long getStarted() {
+        return started;
+    }
+
+    /**
+     * Returns the average time that the started downloads have waited in the queue.
+     */
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "queued=%d, running=%d, started=%d, avgWait=%dms, maxWait=%dms",
+                queued, running, started, averageWaitMillis, maxWaitMillis);
+    }
+}
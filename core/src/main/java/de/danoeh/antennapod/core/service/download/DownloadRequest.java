@@ -17,15 +17,19 @@ public class DownloadRequest implements Parcelable {
     private String username;
     private String password;
     private String lastModified;
+    private String etag;
+    private String contentHash;
     private final boolean deleteOnFailure;
     private final long feedfileId;
     private final int feedfileType;
     private final Bundle arguments;
+    private final boolean initiatedByUser;
 
     private int progressPercent;
     private long soFar;
     private long size;
     private int statusMsg;
+    private volatile long[] segmentThroughput = new long[0];
 
     public DownloadRequest(@NonNull String destination,
                            @NonNull String source,
@@ -46,6 +50,7 @@ public class DownloadRequest implements Parcelable {
         this.password = password;
         this.deleteOnFailure = deleteOnFailure;
         this.arguments = (arguments != null) ? arguments : new Bundle();
+        this.initiatedByUser = false;
     }
 
     public DownloadRequest(String destination, String source, String title,
@@ -62,8 +67,11 @@ public class DownloadRequest implements Parcelable {
         this.username = builder.username;
         this.password = builder.password;
         this.lastModified = builder.lastModified;
+        this.etag = builder.etag;
+        this.contentHash = builder.contentHash;
         this.deleteOnFailure = builder.deleteOnFailure;
         this.arguments = (builder.arguments != null) ? builder.arguments : new Bundle();
+        this.initiatedByUser = builder.initiatedByUser;
     }
 
     private DownloadRequest(Parcel in) {
@@ -73,7 +81,10 @@ public class DownloadRequest implements Parcelable {
         feedfileId = in.readLong();
         feedfileType = in.readInt();
         lastModified = in.readString();
+        etag = in.readString();
+        contentHash = in.readString();
         deleteOnFailure = (in.readByte() > 0);
+        initiatedByUser = (in.readByte() > 0);
         arguments = in.readBundle();
         if (in.dataAvail() > 0) {
             username = in.readString();
@@ -100,7 +111,10 @@ public class DownloadRequest implements Parcelable {
         dest.writeLong(feedfileId);
         dest.writeInt(feedfileType);
         dest.writeString(lastModified);
+        dest.writeString(etag);
+        dest.writeString(contentHash);
         dest.writeByte((deleteOnFailure) ? (byte) 1 : 0);
+        dest.writeByte((initiatedByUser) ? (byte) 1 : 0);
         dest.writeBundle(arguments);
         if (username != null) {
             dest.writeString(username);
@@ -130,7 +144,12 @@ public class DownloadRequest implements Parcelable {
 
         if (lastModified != null ? !lastModified.equals(that.lastModified) : that.lastModified != null)
             return false;
+        if (etag != null ? !etag.equals(that.etag) : that.etag != null)
+            return false;
+        if (contentHash != null ? !contentHash.equals(that.contentHash) : that.contentHash != null)
+            return false;
         if (deleteOnFailure != that.deleteOnFailure) return false;
+        if (initiatedByUser != that.initiatedByUser) return false;
         if (feedfileId != that.feedfileId) return false;
         if (feedfileType != that.feedfileType) return false;
         if (progressPercent != that.progressPercent) return false;
@@ -156,7 +175,10 @@ public class DownloadRequest implements Parcelable {
         result = 31 * result + (username != null ? username.hashCode() : 0);
         result = 31 * result + (password != null ? password.hashCode() : 0);
         result = 31 * result + (lastModified != null ? lastModified.hashCode() : 0);
+        result = 31 * result + (etag != null ? etag.hashCode() : 0);
+        result = 31 * result + (contentHash != null ? contentHash.hashCode() : 0);
         result = 31 * result + (deleteOnFailure ? 1 : 0);
+        result = 31 * result + (initiatedByUser ? 1 : 0);
         result = 31 * result + (int) (feedfileId ^ (feedfileId >>> 32));
         result = 31 * result + feedfileType;
         result = 31 * result + arguments.hashCode();
@@ -211,6 +233,19 @@ public class DownloadRequest implements Parcelable {
         this.size = size;
     }
 
+    /**
+     * Returns the throughput in bytes per second of each connection if the download uses more
+     * than one connection, or an empty array.
+     */
+    @NonNull
+    public long[] getSegmentThroughput() {
+        return segmentThroughput;
+    }
+
+    public void setSegmentThroughput(@NonNull long[] segmentThroughput) {
+        this.segmentThroughput = segmentThroughput;
+    }
+
     public void setStatusMsg(int statusMsg) {
         this.statusMsg = statusMsg;
     }
@@ -241,6 +276,30 @@ public class DownloadRequest implements Parcelable {
         return lastModified;
     }
 
+    public DownloadRequest setEtag(@Nullable String etag) {
+        this.etag = etag;
+        return this;
+    }
+
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Sets the hash of the downloaded content. Before the download, this is the hash of
+     * the previously downloaded content.
+     */
+    public DownloadRequest setContentHash(@Nullable String contentHash) {
+        this.contentHash = contentHash;
+        return this;
+    }
+
+    @Nullable
+    public String getContentHash() {
+        return contentHash;
+    }
+
     public boolean isDeleteOnFailure() {
         return deleteOnFailure;
     }
@@ -249,6 +308,14 @@ public class DownloadRequest implements Parcelable {
         return arguments;
     }
 
+    /**
+     * Returns true if the user has explicitly asked for this download. These downloads are
+     * started before downloads that were requested automatically.
+     */
+    public boolean isInitiatedByUser() {
+        return initiatedByUser;
+    }
+
     public static class Builder {
         private final String destination;
         private final String source;
@@ -256,10 +323,13 @@ public class DownloadRequest implements Parcelable {
         private String username;
         private String password;
         private String lastModified;
+        private String etag;
+        private String contentHash;
         private boolean deleteOnFailure = false;
         private final long feedfileId;
         private final int feedfileType;
         private Bundle arguments;
+        private boolean initiatedByUser = false;
 
         public Builder(@NonNull String destination, @NonNull FeedFile item) {
             this.destination = destination;
@@ -279,6 +349,16 @@ public class DownloadRequest implements Parcelable {
             return this;
         }
 
+        public Builder etag(String etag) {
+            this.etag = etag;
+            return this;
+        }
+
+        public Builder contentHash(String contentHash) {
+            this.contentHash = contentHash;
+            return this;
+        }
+
         public Builder withAuthentication(String username, String password) {
             this.username = username;
             this.password = password;
@@ -294,5 +374,10 @@ public class DownloadRequest implements Parcelable {
             return this;
         }
 
+        public Builder initiatedByUser(boolean initiatedByUser) {
+            this.initiatedByUser = initiatedByUser;
+            return this;
+        }
+
     }
 }
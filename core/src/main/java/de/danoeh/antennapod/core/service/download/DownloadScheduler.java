@@ -0,0 +1,179 @@
+package de.danoeh.antennapod.core.service.download;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Decides when queued downloads are started. Feeds and media files are queued in separate
+ * lanes with their own number of parallel downloads, so that feed refreshes do not wait for
+ * large media files. Within a lane, downloads that were requested by the user are started
+ * before all other downloads. Independent of the lane, only {@link #maxPerHost} downloads
+ * from the same host run at the same time.
+ */
+class DownloadScheduler<T> {
+
+    enum Lane {
+        FEED, MEDIA
+    }
+
+    private static class Task<T> {
+        final Callable<T> callable;
+        final Lane lane;
+        final String host;
+        final boolean priority;
+        final long enqueuedAt;
+
+        Task(Callable<T> callable, Lane lane, String host, boolean priority, long enqueuedAt) {
+            this.callable = callable;
+            this.lane = lane;
+            this.host = host;
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private static class LaneState<T> {
+        final int capacity;
+        /** Priority tasks first, each group in the order in which they were submitted. */
+        final List<Task<T>> queue = new ArrayList<>();
+        int numPriority;
+        int running;
+        long started;
+        long totalWaitMillis;
+        long maxWaitMillis;
+
+        LaneState(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    private final CompletionService<T> completionService;
+    private final Map<Lane, LaneState<T>> lanes = new EnumMap<>(Lane.class);
+    private final Map<String, Integer> runningPerHost = new HashMap<>();
+    private final int maxPerHost;
+
+    /**
+     * @param executor       Executor that runs the downloads. It must be able to run the
+     *                       capacity of all lanes at the same time.
+     * @param feedCapacity   Number of feeds that are downloaded at the same time
+     * @param mediaCapacity  Number of media files that are downloaded at the same time
+     * @param maxPerHost     Number of downloads from the same host that run at the same time
+     */
+    DownloadScheduler(@NonNull ExecutorService executor, int feedCapacity, int mediaCapacity, int maxPerHost) {
+        this.completionService = new ExecutorCompletionService<>(executor);
+        this.lanes.put(Lane.FEED, new LaneState<>(feedCapacity));
+        this.lanes.put(Lane.MEDIA, new LaneState<>(mediaCapacity));
+        this.maxPerHost = maxPerHost;
+    }
+
+    /**
+     * Queues a download. It is started as soon as its lane and its host allow it.
+     *
+     * @param priority True if the download was requested by the user
+     */
+    synchronized void submit(@NonNull Callable<T> callable, @NonNull Lane lane,
+                             @Nullable String url, boolean priority) {
+        LaneState<T> state = lanes.get(lane);
+        Task<T> task = new Task<>(callable, lane, getHost(url), priority, System.currentTimeMillis());
+        if (priority) {
+            state.queue.add(state.numPriority, task);
+            state.numPriority++;
+        } else {
+            state.queue.add(task);
+        }
+        dispatch();
+    }
+
+    /**
+     * Waits for the next download to finish.
+     */
+    Future<T> take() throws InterruptedException {
+        return completionService.take();
+    }
+
+    /**
+     * Returns the number of queued and running downloads of a lane and how long the started
+     * downloads have waited in the queue.
+     */
+    @NonNull
+    synchronized DownloadLaneMetrics getMetrics(@NonNull Lane lane) {
+        LaneState<T> state = lanes.get(lane);
+        long averageWait = state.started > 0 ? state.totalWaitMillis / state.started : 0;
+        return new DownloadLaneMetrics(state.queue.size(), state.running, state.started,
+                averageWait, state.maxWaitMillis);
+    }
+
+    private synchronized void onFinished(Task<T> task) {
+        lanes.get(task.lane).running--;
+        int running = runningPerHost.get(task.host) - 1;
+        if (running == 0) {
+            runningPerHost.remove(task.host);
+        } else {
+            runningPerHost.put(task.host, running);
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        long now = System.currentTimeMillis();
+        for (LaneState<T> state : lanes.values()) {
+            Iterator<Task<T>> iterator = state.queue.iterator();
+            int index = 0;
+            while (state.running < state.capacity && iterator.hasNext()) {
+                Task<T> task = iterator.next();
+                Integer runningOnHost = runningPerHost.get(task.host);
+                if (runningOnHost != null && runningOnHost >= maxPerHost) {
+                    index++;
+                    continue;
+                }
+                iterator.remove();
+                if (index < state.numPriority) {
+                    state.numPriority--;
+                }
+                state.running++;
+                state.started++;
+                long wait = now - task.enqueuedAt;
+                state.totalWaitMillis += wait;
+                state.maxWaitMillis = Math.max(state.maxWaitMillis, wait);
+                runningPerHost.put(task.host, runningOnHost == null ? 1 : runningOnHost + 1);
+                completionService.submit(() -> {
+                    try {
+                        return task.callable.call();
+                    } finally {
+                        onFinished(task);
+                    }
+                });
+            }
+        }
+    }
+
+    @NonNull
+    static String getHost(@Nullable String url) {
+        if (url != null) {
+            try {
+                String host = new URI(url).getHost();
+                if (host != null) {
+                    return host.toLowerCase(Locale.US);
+                }
+            } catch (URISyntaxException e) {
+                // treat as unknown host
+            }
+        }
+        return "";
+    }
+}
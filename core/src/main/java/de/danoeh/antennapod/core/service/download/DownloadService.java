@@ -24,6 +24,7 @@ import de.danoeh.antennapod.core.preferences.GpodnetPreferences;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.GpodnetSyncService;
 import de.danoeh.antennapod.core.service.download.handler.FailedDownloadHandler;
+import de.danoeh.antennapod.core.service.download.handler.FeedParserTask;
 import de.danoeh.antennapod.core.service.download.handler.FeedSyncTask;
 import de.danoeh.antennapod.core.service.download.handler.MediaDownloadedHandler;
 import de.danoeh.antennapod.core.service.download.handler.PostDownloaderTask;
@@ -31,6 +32,7 @@ import de.danoeh.antennapod.core.storage.DBReader;
 import de.danoeh.antennapod.core.storage.DBTasks;
 import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.core.storage.DownloadRequester;
+import de.danoeh.antennapod.core.syndication.handler.FeedHandlerResult;
 import de.danoeh.antennapod.core.util.DownloadError;
 import java.io.File;
 import java.io.IOException;
@@ -38,11 +40,10 @@ import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -87,8 +88,38 @@ public class DownloadService extends Service {
      * Contains all completed downloads that have not been included in the report yet.
      */
     private final List<DownloadStatus> reportQueue;
+    /**
+     * Saves the results of completed downloads in the order in which the downloads have completed.
+     */
     private final ExecutorService syncExecutor;
-    private final CompletionService<Downloader> downloadExecutor;
+    /**
+     * Parses downloaded feeds in parallel before their results are saved by the syncExecutor.
+     */
+    private final ExecutorService parserExecutor;
+    /**
+     * Feed downloads that have completed but have not been saved yet.
+     */
+    private final List<PendingFeedSync> pendingFeedSyncs = new ArrayList<>();
+    private boolean feedSyncScheduled = false;
+    private static final long FEED_SYNC_BATCH_WINDOW_MILLIS = 1000;
+    /**
+     * Wait and parse times of the parsed feeds. They are only accessed by the syncExecutor.
+     */
+    private int parsedFeeds = 0;
+    private long totalParserQueueWaitMillis = 0;
+    private long maxParserQueueWaitMillis = 0;
+    private long totalParseMillis = 0;
+    private long maxParseMillis = 0;
+    /**
+     * Maximum number of downloads from the same host that run at the same time.
+     */
+    private static final int MAX_DOWNLOADS_PER_HOST = 2;
+    /**
+     * Maximum number of feeds that are downloaded at the same time. Feeds are small, so a few
+     * connections are enough even if many parallel media downloads are allowed.
+     */
+    private static final int MAX_PARALLEL_FEED_DOWNLOADS = 4;
+    private final DownloadScheduler<Downloader> downloadScheduler;
     private final DownloadRequester requester;
     private DownloadServiceNotification notificationManager;
 
@@ -107,6 +138,18 @@ public class DownloadService extends Service {
      */
     public static boolean isRunning = false;
 
+    /**
+     * Scheduler of the running service, read by {@link #getFeedLaneMetrics()} and
+     * {@link #getMediaLaneMetrics()}.
+     */
+    private static volatile DownloadScheduler<Downloader> runningScheduler;
+
+    /**
+     * Parser metrics of the running service, updated after every batch of feeds, see
+     * {@link #getFeedParserMetrics()}.
+     */
+    private static volatile FeedParserMetrics parserMetrics;
+
     private Handler handler;
 
     private NotificationUpdater notificationUpdater;
@@ -135,15 +178,26 @@ public class DownloadService extends Service {
             t.setPriority(Thread.MIN_PRIORITY);
             return t;
         });
-        Log.d(TAG, "parallel downloads: " + UserPreferences.getParallelDownloads());
-        downloadExecutor = new ExecutorCompletionService<>(
-                Executors.newFixedThreadPool(UserPreferences.getParallelDownloads(),
+        int numParserThreads = Runtime.getRuntime().availableProcessors();
+        Log.d(TAG, "parser threads: " + numParserThreads);
+        parserExecutor = Executors.newFixedThreadPool(numParserThreads, r -> {
+            Thread t = new Thread(r);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        int parallelDownloads = UserPreferences.getParallelDownloads();
+        int parallelFeedDownloads = Math.min(parallelDownloads, MAX_PARALLEL_FEED_DOWNLOADS);
+        Log.d(TAG, "parallel downloads: " + parallelDownloads);
+        // feeds and media files have their own lanes, so the pool needs room for both
+        downloadScheduler = new DownloadScheduler<>(
+                Executors.newFixedThreadPool(parallelFeedDownloads + parallelDownloads,
                         r -> {
                             Thread t = new Thread(r);
                             t.setPriority(Thread.MIN_PRIORITY);
                             return t;
                         }
-                )
+                ),
+                parallelFeedDownloads, parallelDownloads, MAX_DOWNLOADS_PER_HOST
         );
         schedExecutor = new ScheduledThreadPoolExecutor(SCHED_EX_POOL_SIZE,
                 r -> {
@@ -168,6 +222,8 @@ public class DownloadService extends Service {
     public void onCreate() {
         Log.d(TAG, "Service started");
         isRunning = true;
+        runningScheduler = downloadScheduler;
+        parserMetrics = null;
         handler = new Handler();
         notificationManager = new DownloadServiceNotification(this);
 
@@ -192,6 +248,8 @@ public class DownloadService extends Service {
     public void onDestroy() {
         Log.d(TAG, "Service shutting down");
         isRunning = false;
+        runningScheduler = null;
+        parserMetrics = null;
 
         if (ClientConfig.downloadServiceCallbacks.shouldCreateReport()
                 && UserPreferences.showDownloadReport()) {
@@ -206,6 +264,7 @@ public class DownloadService extends Service {
         nm.cancel(NOTIFICATION_ID);
 
         downloadCompletionThread.interrupt();
+        parserExecutor.shutdown();
         syncExecutor.shutdown();
         schedExecutor.shutdown();
         cancelNotificationUpdater();
@@ -232,10 +291,20 @@ public class DownloadService extends Service {
             Log.d(TAG, "downloadCompletionThread was started");
             while (!isInterrupted()) {
                 try {
-                    Downloader downloader = downloadExecutor.take().get();
+                    Downloader downloader = downloadScheduler.take().get();
                     Log.d(TAG, "Received 'Download Complete' - message.");
 
-                    if (downloader.getResult().isSuccessful()) {
+                    if (downloader.getResult().isSuccessful()
+                            && downloader.getResult().getFeedfileType() == Feed.FEEDFILETYPE_FEED) {
+                        FeedParserTask parserTask = new FeedParserTask(downloader.getDownloadRequest());
+                        Future<FeedHandlerResult> parserResult = parserExecutor.submit(parserTask);
+                        enqueueFeedSync(new PendingFeedSync(downloader, parserTask, parserResult));
+                    } else if (downloader.getResult().isNotModified()
+                            && downloader.getResult().getFeedfileType() == Feed.FEEDFILETYPE_FEED
+                            && downloader.getResult().getFeedfileId() != 0) {
+                        // the refresh is recorded together with the other feeds of the batch
+                        enqueueFeedSync(new PendingFeedSync(downloader, null, null));
+                    } else if (downloader.getResult().isSuccessful()) {
                         syncExecutor.execute(() -> {
                             handleSuccessfulDownload(downloader);
                             removeDownload(downloader);
@@ -259,26 +328,102 @@ public class DownloadService extends Service {
         }
     };
 
-    private void handleSuccessfulDownload(Downloader downloader) {
-        DownloadRequest request = downloader.getDownloadRequest();
-        DownloadStatus status = downloader.getResult();
-        final int type = status.getFeedfileType();
+    /**
+     * A feed download whose parser might still be running. Feeds that have not been modified
+     * have neither a parser task nor a result.
+     */
+    private static class PendingFeedSync {
+        final Downloader downloader;
+        final FeedParserTask parserTask;
+        final Future<FeedHandlerResult> parserResult;
+
+        PendingFeedSync(Downloader downloader, FeedParserTask parserTask, Future<FeedHandlerResult> parserResult) {
+            this.downloader = downloader;
+            this.parserTask = parserTask;
+            this.parserResult = parserResult;
+        }
+    }
 
-        if (type == Feed.FEEDFILETYPE_FEED) {
-            Log.d(TAG, "Handling completed Feed Download");
-            FeedSyncTask task = new FeedSyncTask(DownloadService.this, request);
-            boolean success = task.run();
+    /**
+     * Collects a completed feed download. Feed downloads that complete within FEED_SYNC_BATCH_WINDOW_MILLIS
+     * of each other are saved together.
+     */
+    private void enqueueFeedSync(PendingFeedSync pendingFeedSync) {
+        synchronized (pendingFeedSyncs) {
+            pendingFeedSyncs.add(pendingFeedSync);
+            if (!feedSyncScheduled) {
+                feedSyncScheduled = true;
+                schedExecutor.schedule(() -> syncExecutor.execute(this::syncPendingFeeds),
+                        FEED_SYNC_BATCH_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
 
-            if (success) {
+    private void syncPendingFeeds() {
+        List<PendingFeedSync> batch;
+        synchronized (pendingFeedSyncs) {
+            batch = new ArrayList<>(pendingFeedSyncs);
+            pendingFeedSyncs.clear();
+            feedSyncScheduled = false;
+        }
+        Log.d(TAG, "Handling " + batch.size() + " completed Feed Downloads");
+
+        List<FeedSyncTask> tasks = new ArrayList<>();
+        List<DownloadRequest> notModifiedRequests = new ArrayList<>();
+        for (PendingFeedSync pendingFeedSync : batch) {
+            if (pendingFeedSync.parserTask == null) {
+                notModifiedRequests.add(pendingFeedSync.downloader.getDownloadRequest());
+                continue;
+            }
+            FeedHandlerResult result = null;
+            try {
+                result = pendingFeedSync.parserResult.get();
+            } catch (InterruptedException | ExecutionException e) {
+                Log.e(TAG, "Parsing of feed failed: " + Log.getStackTraceString(e));
+            }
+            tasks.add(new FeedSyncTask(DownloadService.this, pendingFeedSync.downloader.getDownloadRequest(),
+                    pendingFeedSync.parserTask, result));
+            addParserMetrics(pendingFeedSync.parserTask);
+        }
+        if (!tasks.isEmpty()) {
+            parserMetrics = new FeedParserMetrics(parsedFeeds, totalParserQueueWaitMillis / parsedFeeds,
+                    maxParserQueueWaitMillis, totalParseMillis / parsedFeeds, maxParseMillis);
+            Log.d(TAG, "Feed parser: " + parserMetrics);
+        }
+        FeedSyncTask.runBatch(DownloadService.this, tasks, notModifiedRequests);
+
+        for (FeedSyncTask task : tasks) {
+            if (task.isSuccessful()) {
                 // we create a 'successful' download log if the feed's last refresh failed
-                List<DownloadStatus> log = DBReader.getFeedDownloadLog(request.getFeedfileId());
+                List<DownloadStatus> log = DBReader.getFeedDownloadLog(task.getRequest().getFeedfileId());
                 if (log.size() > 0 && !log.get(0).isSuccessful()) {
                     saveDownloadStatus(task.getDownloadStatus());
                 }
-            } else {
+            } else if (task.getDownloadStatus() != null) {
                 saveDownloadStatus(task.getDownloadStatus());
             }
-        } else if (type == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
+        }
+        for (PendingFeedSync pendingFeedSync : batch) {
+            removeDownload(pendingFeedSync.downloader);
+            numberOfDownloads.decrementAndGet();
+        }
+        queryDownloadsAsync();
+    }
+
+    private void addParserMetrics(FeedParserTask parserTask) {
+        parsedFeeds++;
+        totalParserQueueWaitMillis += parserTask.getQueueWaitMillis();
+        maxParserQueueWaitMillis = Math.max(maxParserQueueWaitMillis, parserTask.getQueueWaitMillis());
+        totalParseMillis += parserTask.getParseMillis();
+        maxParseMillis = Math.max(maxParseMillis, parserTask.getParseMillis());
+    }
+
+    private void handleSuccessfulDownload(Downloader downloader) {
+        DownloadRequest request = downloader.getDownloadRequest();
+        DownloadStatus status = downloader.getResult();
+        final int type = status.getFeedfileType();
+
+        if (type == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
             Log.d(TAG, "Handling completed FeedMedia Download");
             MediaDownloadedHandler handler = new MediaDownloadedHandler(DownloadService.this, status, request);
             handler.run();
@@ -405,7 +550,9 @@ public class DownloadService extends Service {
             } else {
                 downloads.add(downloader);
             }
-            downloadExecutor.submit(downloader);
+            DownloadScheduler.Lane lane = request.getFeedfileType() == Feed.FEEDFILETYPE_FEED
+                    ? DownloadScheduler.Lane.FEED : DownloadScheduler.Lane.MEDIA;
+            downloadScheduler.submit(downloader, lane, request.getSource(), request.isInitiatedByUser());
 
             postDownloaders();
         }
@@ -413,6 +560,35 @@ public class DownloadService extends Service {
         queryDownloads();
     }
 
+    /**
+     * Returns the queue depth and wait times of the feed downloads of the running service,
+     * or null if the service is not running.
+     */
+    @Nullable
+    public static DownloadLaneMetrics getFeedLaneMetrics() {
+        DownloadScheduler<Downloader> scheduler = runningScheduler;
+        return (scheduler != null) ? scheduler.getMetrics(DownloadScheduler.Lane.FEED) : null;
+    }
+
+    /**
+     * Returns the queue depth and wait times of the media downloads of the running service,
+     * or null if the service is not running.
+     */
+    @Nullable
+    public static DownloadLaneMetrics getMediaLaneMetrics() {
+        DownloadScheduler<Downloader> scheduler = runningScheduler;
+        return (scheduler != null) ? scheduler.getMetrics(DownloadScheduler.Lane.MEDIA) : null;
+    }
+
+    /**
+     * Returns the wait and parse times of the feeds parsed by the running service,
+     * or null if the service is not running or has not parsed a feed yet.
+     */
+    @Nullable
+    public static FeedParserMetrics getFeedParserMetrics() {
+        return parserMetrics;
+    }
+
     @VisibleForTesting
     public static DownloaderFactory getDownloaderFactory() {
         return downloaderFactory;
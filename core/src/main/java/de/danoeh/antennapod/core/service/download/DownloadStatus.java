@@ -45,6 +45,10 @@ public class DownloadStatus {
 	// ------------------------------------ NOT STORED IN DB
     private boolean done;
 	private boolean cancelled;
+	/**
+	 * True if the download was cancelled because the content has not been modified.
+	 */
+	private boolean notModified;
 
 	/** Constructor for restoring Download status entries from DB. */
     private DownloadStatus(long id, String title, long feedfileId,
@@ -173,6 +177,10 @@ public class DownloadStatus {
         return cancelled;
     }
 
+    public boolean isNotModified() {
+        return notModified;
+    }
+
     public void setSuccessful() {
         this.successful = true;
         this.reason = DownloadError.SUCCESS;
@@ -193,6 +201,14 @@ public class DownloadStatus {
         this.cancelled = true;
     }
 
+    /**
+     * Cancels the download because the content has not changed since the last download.
+     */
+    public void setNotModified() {
+        setCancelled();
+        this.notModified = true;
+    }
+
     public void setId(long id) {
         this.id = id;
     }
@@ -0,0 +1,57 @@
+package de.danoeh.antennapod.core.service.download;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Wait and parse times of the feeds that have been parsed by the {@link DownloadService}
+ * since it was created.
+ */
+public class FeedParserMetrics {
+    private final int parsed;
+    private final long averageQueueWaitMillis;
+    private final long maxQueueWaitMillis;
+    private final long averageParseMillis;
+    private final long maxParseMillis;
+
+    FeedParserMetrics(int parsed, long averageQueueWaitMillis, long maxQueueWaitMillis,
+                      long averageParseMillis, long maxParseMillis) {
+        this.parsed = parsed;
+        this.averageQueueWaitMillis = averageQueueWaitMillis;
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+        this.averageParseMillis = averageParseMillis;
+        this.maxParseMillis = maxParseMillis;
+    }
+
+    public int getParsed() {
+        return parsed;
+    }
+
+    /**
+     * Returns the average time that the downloaded feeds have waited for a free parser thread.
+     */
+    public long getAverageQueueWaitMillis() {
+        return averageQueueWaitMillis;
+    }
+
+    public long getMaxQueueWaitMillis() {
+        return maxQueueWaitMillis;
+    }
+
+    public long getAverageParseMillis() {
+        return averageParseMillis;
+    }
+
+    public long getMaxParseMillis() {
+        return maxParseMillis;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "parsed=%d, avgQueueWait=%dms, maxQueueWait=%dms, avgParse=%dms, "
+                + "maxParse=%dms", parsed, averageQueueWaitMillis, maxQueueWaitMillis, averageParseMillis,
+                maxParseMillis);
+    }
+}
@@ -6,22 +6,35 @@ import android.util.Log;
 
 import org.apache.commons.io.IOUtils;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.UnknownHostException;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import de.danoeh.antennapod.core.ClientConfig;
 import de.danoeh.antennapod.core.R;
+import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedMedia;
+import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.util.DateUtils;
 import de.danoeh.antennapod.core.util.DownloadError;
 import de.danoeh.antennapod.core.util.StorageUtils;
@@ -37,7 +50,25 @@ import okio.ByteString;
 public class HttpDownloader extends Downloader {
     private static final String TAG = "HttpDownloader";
 
-    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final String CONTENT_HASH_ALGORITHM = "SHA-1";
+    private static final long SEGMENT_PROGRESS_INTERVAL_MS = 1000;
+    /**
+     * Segments of all downloads share these threads, so that parallel segmented downloads do not
+     * open an unbounded number of connections. Segments that do not get a thread wait for one.
+     */
+    private static final int MAX_SEGMENT_THREADS = 2 * SegmentedDownload.NUM_SEGMENTS;
+    private static final ExecutorService segmentExecutor = createSegmentExecutor();
+
+    private static ExecutorService createSegmentExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_SEGMENT_THREADS, MAX_SEGMENT_THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "SegmentDownload");
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
     public HttpDownloader(@NonNull DownloadRequest request) {
         super(request);
@@ -45,20 +76,36 @@ public class HttpDownloader extends Downloader {
 
     @Override
     protected void download() {
+        if (cancelled) {
+            // cancelled while it was waiting to be started
+            onCancelled();
+            return;
+        }
         File destination = new File(request.getDestination());
-        final boolean fileExists = destination.exists();
 
-        if (request.isDeleteOnFailure() && fileExists) {
+        if (request.isDeleteOnFailure() && destination.exists()) {
             Log.w(TAG, "File already exists");
             onSuccess();
             return;
         }
 
+        boolean segmentsAllowed = UserPreferences.isSegmentedDownloads();
+        while (!download(destination, segmentsAllowed)) {
+            // the server did not answer the range requests of the segments. The destination now
+            // only contains the data up to the first gap, so the rest is downloaded with one connection.
+            segmentsAllowed = false;
+        }
+    }
+
+    /**
+     * @return false if a segmented download has been stopped and has to be continued with a
+     * single connection
+     */
+    private boolean download(File destination, boolean segmentsAllowed) {
         OkHttpClient.Builder httpClientBuilder = AntennapodHttpClient.newBuilder();
         httpClientBuilder.interceptors().add(new BasicAuthorizationInterceptor(request));
         OkHttpClient httpClient = httpClientBuilder.build();
         RandomAccessFile out = null;
-        InputStream connection;
         ResponseBody responseBody = null;
 
         try {
@@ -71,6 +118,10 @@ public class HttpDownloader extends Downloader {
                 httpReq.addHeader("Accept-Encoding", "identity");
             }
 
+            if (!TextUtils.isEmpty(request.getEtag())) {
+                Log.d(TAG, "addHeader(\"If-None-Match\", \"" + request.getEtag() + "\")");
+                httpReq.addHeader("If-None-Match", request.getEtag());
+            }
             if (!TextUtils.isEmpty(request.getLastModified())) {
                 String lastModified = request.getLastModified();
                 Date lastModifiedDate = DateUtils.parse(lastModified);
@@ -80,12 +131,20 @@ public class HttpDownloader extends Downloader {
                         Log.d(TAG, "addHeader(\"If-Modified-Since\", \"" + lastModified + "\")");
                         httpReq.addHeader("If-Modified-Since", lastModified);
                     }
-                } else {
+                } else if (TextUtils.isEmpty(request.getEtag())) {
+                    // ETag that has been saved before ETags were stored separately
                     Log.d(TAG, "addHeader(\"If-None-Match\", \"" + lastModified + "\")");
                     httpReq.addHeader("If-None-Match", lastModified);
                 }
             }
 
+            SegmentedDownload segmentedDownload = SegmentedDownload.load(destination);
+            if (segmentedDownload != null) {
+                Log.d(TAG, "Continuing segmented download");
+                return downloadSegments(httpClient, httpReq.build(), segmentedDownload);
+            }
+            // checked after loading the segments, which deletes the destination if it cannot be continued
+            final boolean fileExists = destination.exists();
 
             // add range header if necessary
             if (fileExists && destination.length() > 0) {
@@ -121,8 +180,8 @@ public class HttpDownloader extends Downloader {
 
             if (!response.isSuccessful() && response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
                 Log.d(TAG, "Feed '" + request.getSource() + "' not modified since last update, Download canceled");
-                onCancelled();
-                return;
+                onNotModified();
+                return true;
             }
 
             if (!response.isSuccessful() || response.body() == null) {
@@ -139,12 +198,12 @@ public class HttpDownloader extends Downloader {
                     details = String.valueOf(response.code());
                 }
                 onFail(error, details);
-                return;
+                return true;
             }
 
             if (!StorageUtils.storageAvailable()) {
                 onFail(DownloadError.ERROR_DEVICE_NOT_FOUND, null);
-                return;
+                return true;
             }
 
             // fail with a file type error when the content type is text and
@@ -164,11 +223,22 @@ public class HttpDownloader extends Downloader {
                 if (contentType != null && contentType.startsWith("text/") &&
                         contentLength < 100 * 1024) {
                     onFail(DownloadError.ERROR_FILE_TYPE, null);
-                    return;
+                    return true;
                 }
             }
 
-            connection = new BufferedInputStream(responseBody.byteStream());
+            if (!fileExists && !isGzip && response.code() == HttpURLConnection.HTTP_OK
+                    && request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA
+                    && segmentsAllowed
+                    && "bytes".equalsIgnoreCase(response.header("Accept-Ranges"))
+                    && responseBody.contentLength() >= SegmentedDownload.MIN_SIZE) {
+                Log.d(TAG, "Server accepts range requests, downloading in segments");
+                long size = responseBody.contentLength();
+                IOUtils.closeQuietly(responseBody);
+                responseBody = null;
+                segmentedDownload = SegmentedDownload.create(destination, size, SegmentedDownload.NUM_SEGMENTS);
+                return downloadSegments(httpClient, httpReq.build(), segmentedDownload);
+            }
 
             String contentRangeHeader = (fileExists) ? response.header("Content-Range") : null;
 
@@ -180,15 +250,12 @@ public class HttpDownloader extends Downloader {
                 Log.d(TAG, "Starting download at position " + request.getSoFar());
 
                 out = new RandomAccessFile(destination, "rw");
-                out.seek(request.getSoFar());
             } else {
                 destination.delete();
                 destination.createNewFile();
                 out = new RandomAccessFile(destination, "rw");
             }
 
-            byte[] buffer = new byte[BUFFER_SIZE];
-            int count = 0;
             request.setStatusMsg(R.string.download_running);
             Log.d(TAG, "Getting size of download");
             request.setSize(responseBody.contentLength() + request.getSoFar());
@@ -202,20 +269,38 @@ public class HttpDownloader extends Downloader {
 
             if (request.getSize() != DownloadStatus.SIZE_UNKNOWN && request.getSize() > freeSpace) {
                 onFail(DownloadError.ERROR_NOT_ENOUGH_SPACE, null);
-                return;
+                return true;
+            }
+
+            // feeds are hashed to detect a download that is identical to the last one
+            MessageDigest digest = null;
+            if (request.getFeedfileType() == Feed.FEEDFILETYPE_FEED && request.getSoFar() == 0) {
+                try {
+                    digest = MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+                } catch (NoSuchAlgorithmException e) {
+                    Log.e(TAG, Log.getStackTraceString(e));
+                }
             }
 
             Log.d(TAG, "Starting download");
+            DownloadFileWriter writer = new DownloadFileWriter(out.getChannel(), request.getSoFar(), digest);
             try {
-                while (!cancelled && (count = connection.read(buffer)) != -1) {
-                    out.write(buffer, 0, count);
-                    request.setSoFar(request.getSoFar() + count);
-                    int progressPercent = (int) (100.0 * request.getSoFar() / request.getSize());
-                    request.setProgressPercent(progressPercent);
-                }
+                writer.write(responseBody.source(), new DownloadFileWriter.Callback() {
+                    @Override
+                    public boolean isCancelled() {
+                        return cancelled;
+                    }
+
+                    @Override
+                    public void onProgress(long position) {
+                        request.setSoFar(position);
+                        request.setProgressPercent((int) (100.0 * position / request.getSize()));
+                    }
+                });
             } catch (IOException e) {
                 Log.e(TAG, Log.getStackTraceString(e));
             }
+            request.setSoFar(writer.getPosition());
             if (cancelled) {
                 onCancelled();
             } else {
@@ -225,16 +310,21 @@ public class HttpDownloader extends Downloader {
                         request.getSoFar() != request.getSize()) {
                     onFail(DownloadError.ERROR_IO_ERROR, "Download completed but size: " +
                             request.getSoFar() + " does not equal expected size " + request.getSize());
-                    return;
+                    return true;
                 } else if (request.getSize() > 0 && request.getSoFar() == 0) {
                     onFail(DownloadError.ERROR_IO_ERROR, "Download completed, but nothing was read");
-                    return;
+                    return true;
                 }
-                String lastModified = response.header("Last-Modified");
-                if (lastModified != null) {
-                    request.setLastModified(lastModified);
-                } else {
-                    request.setLastModified(response.header("ETag"));
+                request.setLastModified(response.header("Last-Modified"));
+                request.setEtag(response.header("ETag"));
+                if (digest != null) {
+                    String contentHash = ByteString.of(digest.digest()).hex();
+                    if (contentHash.equals(request.getContentHash())) {
+                        Log.d(TAG, "Feed '" + request.getSource() + "' is identical to the last download");
+                        onNotModified();
+                        return true;
+                    }
+                    request.setContentHash(contentHash);
                 }
                 onSuccess();
             }
@@ -260,6 +350,176 @@ public class HttpDownloader extends Downloader {
             AntennapodHttpClient.cleanup();
             IOUtils.closeQuietly(responseBody);
         }
+        return true;
+    }
+
+    /**
+     * Downloads the remaining parts of all segments in parallel.
+     *
+     * @return false if the server did not answer a range request with the requested range. The
+     * destination then only contains the data from its beginning up to the first gap and the
+     * download has to be continued with a single connection.
+     */
+    private boolean downloadSegments(OkHttpClient httpClient, Request httpReq, SegmentedDownload segmentedDownload) {
+        File destination = new File(request.getDestination());
+        List<SegmentedDownload.Segment> segments = segmentedDownload.getSegments();
+        List<Future<Boolean>> futures = new ArrayList<>();
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        boolean rangeRejected = false;
+        IOException error = null;
+
+        request.setStatusMsg(R.string.download_running);
+        request.setSize(segmentedDownload.getSize());
+        try (RandomAccessFile out = new RandomAccessFile(destination, "rw")) {
+            if (out.length() != segmentedDownload.getSize()) {
+                if (segmentedDownload.getSize() > StorageUtils.getFreeSpaceAvailable()) {
+                    onFail(DownloadError.ERROR_NOT_ENOUGH_SPACE, null);
+                    return true;
+                }
+                out.setLength(segmentedDownload.getSize());
+            }
+            segmentedDownload.saveState(out.getChannel());
+
+            for (SegmentedDownload.Segment segment : segments) {
+                if (!segment.isComplete()) {
+                    futures.add(segmentExecutor.submit(() ->
+                            downloadSegment(httpClient, httpReq, segment, out.getChannel(), aborted)));
+                }
+            }
+
+            long lastUpdate = System.currentTimeMillis();
+            long[] lastPositions = new long[segments.size()];
+            for (int i = 0; i < lastPositions.length; i++) {
+                lastPositions[i] = segments.get(i).position;
+            }
+            boolean done = false;
+            while (!done) {
+                done = true;
+                for (Future<Boolean> future : futures) {
+                    try {
+                        future.get(SEGMENT_PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        done = false;
+                        break;
+                    } catch (ExecutionException e) {
+                        // handled once all segments have finished
+                    }
+                }
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < lastPositions.length; i++) {
+                    SegmentedDownload.Segment segment = segments.get(i);
+                    long position = segment.position;
+                    segment.bytesPerSecond = (now > lastUpdate)
+                            ? (position - lastPositions[i]) * 1000 / (now - lastUpdate) : 0;
+                    lastPositions[i] = position;
+                }
+                lastUpdate = now;
+                request.setSoFar(segmentedDownload.getBytesDownloaded());
+                request.setProgressPercent((int) (100.0 * request.getSoFar() / request.getSize()));
+                request.setSegmentThroughput(segmentedDownload.getThroughput());
+                segmentedDownload.saveState(out.getChannel());
+            }
+
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (!future.get()) {
+                        rangeRejected = true;
+                    }
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        error = (IOException) e.getCause();
+                    } else {
+                        throw new IOException(e.getCause());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            aborted.set(true);
+            error = new IOException(e);
+        } finally {
+            for (Future<Boolean> future : futures) {
+                future.cancel(true);
+            }
+            request.setSegmentThroughput(new long[0]);
+        }
+
+        if (cancelled) {
+            onCancelled();
+        } else if (rangeRejected) {
+            Log.d(TAG, "Range request rejected, continuing with a single connection");
+            long length = segmentedDownload.getContiguousLength();
+            try (RandomAccessFile out = new RandomAccessFile(destination, "rw")) {
+                out.setLength(length);
+            } catch (IOException e) {
+                Log.e(TAG, Log.getStackTraceString(e));
+                destination.delete();
+            }
+            segmentedDownload.deleteState();
+            return false;
+        } else if (error != null || !segmentedDownload.isComplete()) {
+            Log.e(TAG, "Segmented download failed: " + Log.getStackTraceString(error));
+            try (RandomAccessFile out = new RandomAccessFile(destination, "rw")) {
+                segmentedDownload.saveState(out.getChannel());
+            } catch (IOException e) {
+                Log.e(TAG, Log.getStackTraceString(e));
+            }
+            onFail(error instanceof SocketTimeoutException ? DownloadError.ERROR_CONNECTION_ERROR
+                    : DownloadError.ERROR_IO_ERROR, error != null ? error.getMessage() : null);
+        } else {
+            segmentedDownload.deleteState();
+            request.setSoFar(segmentedDownload.getSize());
+            request.setProgressPercent(100);
+            onSuccess();
+        }
+        return true;
+    }
+
+    /**
+     * Downloads the remaining part of a segment.
+     *
+     * @return false if the server did not answer with the requested range
+     */
+    private boolean downloadSegment(OkHttpClient httpClient, Request httpReq, SegmentedDownload.Segment segment,
+                                    FileChannel channel, AtomicBoolean aborted) throws IOException {
+        if (cancelled || aborted.get()) {
+            // stopped while the segment was waiting for a thread
+            return true;
+        }
+        Request rangeRequest = httpReq.newBuilder()
+                .header("Range", "bytes=" + segment.position + "-" + (segment.end - 1))
+                .build();
+        try (Response response = httpClient.newCall(rangeRequest).execute()) {
+            String contentRange = response.header("Content-Range");
+            if (response.code() != HttpURLConnection.HTTP_PARTIAL || contentRange == null
+                    || !contentRange.startsWith("bytes " + segment.position + "-" + (segment.end - 1) + "/")
+                    || response.body().contentLength() != segment.end - segment.position) {
+                Log.d(TAG, "Unexpected response to range request: " + response.code() + " " + contentRange);
+                aborted.set(true);
+                return false;
+            }
+            DownloadFileWriter writer = new DownloadFileWriter(channel, segment.position, null);
+            try {
+                writer.write(response.body().source(), new DownloadFileWriter.Callback() {
+                    @Override
+                    public boolean isCancelled() {
+                        return cancelled || aborted.get();
+                    }
+
+                    @Override
+                    public void onProgress(long position) {
+                        segment.position = position;
+                    }
+                });
+            } catch (IOException e) {
+                aborted.set(true);
+                throw e;
+            } finally {
+                segment.position = writer.getPosition();
+            }
+        }
+        return true;
     }
 
     private void onSuccess() {
@@ -276,6 +536,12 @@ public class HttpDownloader extends Downloader {
         }
     }
 
+    private void onNotModified() {
+        Log.d(TAG, "Content was not modified");
+        result.setNotModified();
+        cleanup();
+    }
+
     private void onCancelled() {
         Log.d(TAG, "Download was cancelled");
         result.setCancelled();
@@ -295,6 +561,7 @@ public class HttpDownloader extends Downloader {
             } else {
                 Log.d(TAG, "cleanup() didn't delete file: does not exist.");
             }
+            SegmentedDownload.getStateFile(dest).delete();
         }
     }
 
@@ -0,0 +1,195 @@
+package de.danoeh.antennapod.core.service.download;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits a download into segments that are downloaded in parallel with range requests. Each
+ * segment writes into its own region of the preallocated destination file. The progress of
+ * the segments is saved next to the destination file, so that an interrupted download can
+ * continue every segment where it stopped.
+ */
+class SegmentedDownload {
+    /**
+     * Files smaller than this are downloaded with a single connection.
+     */
+    static final long MIN_SIZE = 16 * 1024 * 1024;
+    static final int NUM_SEGMENTS = 4;
+
+    private static final String STATE_FILE_SUFFIX = ".segments";
+
+    static class Segment {
+        final long start;
+        /** Exclusive */
+        final long end;
+        volatile long position;
+        volatile long bytesPerSecond;
+
+        Segment(long start, long end, long position) {
+            this.start = start;
+            this.end = end;
+            this.position = position;
+        }
+
+        boolean isComplete() {
+            return position >= end;
+        }
+    }
+
+    private final File destination;
+    private final long size;
+    private final List<Segment> segments;
+
+    private SegmentedDownload(@NonNull File destination, long size, @NonNull List<Segment> segments) {
+        this.destination = destination;
+        this.size = size;
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Splits a new download of the given size into segments of the same size.
+     */
+    static SegmentedDownload create(@NonNull File destination, long size, int numSegments) {
+        List<Segment> segments = new ArrayList<>(numSegments);
+        long segmentSize = size / numSegments;
+        for (int i = 0; i < numSegments; i++) {
+            long start = i * segmentSize;
+            long end = (i == numSegments - 1) ? size : start + segmentSize;
+            segments.add(new Segment(start, end, start));
+        }
+        return new SegmentedDownload(destination, size, segments);
+    }
+
+    /**
+     * Loads the state of an interrupted segmented download. If the saved state cannot be used,
+     * it is deleted together with the destination file. The destination has been preallocated,
+     * so its length says nothing about how much of it has been downloaded.
+     *
+     * @return null if the destination has not been downloaded in segments or if the saved
+     *         state does not match the destination file
+     */
+    @Nullable
+    static SegmentedDownload load(@NonNull File destination) {
+        File stateFile = getStateFile(destination);
+        if (!stateFile.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(stateFile))) {
+            long size = Long.parseLong(reader.readLine());
+            List<Segment> segments = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ");
+                segments.add(new Segment(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                        Long.parseLong(fields[2])));
+            }
+            if (!segments.isEmpty() && destination.length() == size) {
+                return new SegmentedDownload(destination, size, segments);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+        destination.delete();
+        stateFile.delete();
+        return null;
+    }
+
+    static File getStateFile(@NonNull File destination) {
+        return new File(destination.getPath() + STATE_FILE_SUFFIX);
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Returns the number of bytes that have been downloaded in all segments.
+     */
+    long getBytesDownloaded() {
+        long result = 0;
+        for (Segment segment : segments) {
+            result += segment.position - segment.start;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes at the beginning of the file that have been downloaded
+     * without gaps.
+     */
+    long getContiguousLength() {
+        for (Segment segment : segments) {
+            if (!segment.isComplete()) {
+                return segment.position;
+            }
+        }
+        return size;
+    }
+
+    long[] getThroughput() {
+        long[] result = new long[segments.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = segments.get(i).bytesPerSecond;
+        }
+        return result;
+    }
+
+    boolean isComplete() {
+        for (Segment segment : segments) {
+            if (!segment.isComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Saves the positions of the segments. The data of the destination file is synced to the disk
+     * first, so that the saved positions never point behind data that would be lost on a crash.
+     *
+     * @param data The channel that the segments are written to
+     */
+    synchronized void saveState(@NonNull FileChannel data) throws IOException {
+        long[] positions = new long[segments.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = segments.get(i).position;
+        }
+        data.force(false);
+
+        File stateFile = getStateFile(destination);
+        File tempFile = new File(stateFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            Writer writer = new OutputStreamWriter(out, "UTF-8");
+            writer.write(size + "\n");
+            for (int i = 0; i < positions.length; i++) {
+                Segment segment = segments.get(i);
+                writer.write(segment.start + " " + segment.end + " " + positions[i] + "\n");
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        if (!tempFile.renameTo(stateFile)) {
+            throw new IOException("Could not save download state to " + stateFile);
+        }
+    }
+
+    synchronized void deleteState() {
+        getStateFile(destination).delete();
+    }
+}
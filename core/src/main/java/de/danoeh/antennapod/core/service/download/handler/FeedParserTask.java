@@ -1,14 +1,18 @@
 package de.danoeh.antennapod.core.service.download.handler;
 
+import android.os.SystemClock;
 import android.util.Log;
+import androidx.annotation.Nullable;
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedPreferences;
 import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
+import de.danoeh.antennapod.core.storage.DBReader;
 import de.danoeh.antennapod.core.storage.DownloadRequester;
 import de.danoeh.antennapod.core.syndication.handler.FeedHandler;
 import de.danoeh.antennapod.core.syndication.handler.FeedHandlerResult;
+import de.danoeh.antennapod.core.syndication.handler.KnownItems;
 import de.danoeh.antennapod.core.syndication.handler.UnsupportedFeedtypeException;
 import de.danoeh.antennapod.core.util.DownloadError;
 import de.danoeh.antennapod.core.util.InvalidFeedException;
@@ -22,18 +26,30 @@ import java.util.concurrent.Callable;
 
 public class FeedParserTask implements Callable<FeedHandlerResult> {
     private static final String TAG = "FeedParserTask";
+    /**
+     * Number of saved items in a row after which the remaining items of a feed are not parsed.
+     */
+    private static final int KNOWN_ITEMS_CUTOFF = 5;
     private final DownloadRequest request;
     private DownloadStatus downloadStatus;
     private boolean successful = true;
+    private final long creationTime;
+    private long queueWaitMillis;
+    private long parseMillis;
 
     public FeedParserTask(DownloadRequest request) {
         this.request = request;
+        this.creationTime = SystemClock.elapsedRealtime();
     }
 
     @Override
     public FeedHandlerResult call() {
+        long startTime = SystemClock.elapsedRealtime();
+        queueWaitMillis = startTime - creationTime;
         Feed feed = new Feed(request.getSource(), request.getLastModified());
         feed.setFile_url(request.getDestination());
+        feed.setEtag(request.getEtag());
+        feed.setContentHash(request.getContentHash());
         feed.setId(request.getFeedfileId());
         feed.setDownloaded(true);
         feed.setPreferences(new FeedPreferences(0, true, FeedPreferences.AutoDeleteAction.GLOBAL,
@@ -46,7 +62,7 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
 
         FeedHandlerResult result = null;
         try {
-            result = feedHandler.parseFeed(feed);
+            result = feedHandler.parseFeed(feed, getKnownItems(feed.getId()));
             Log.d(TAG, feed.getTitle() + " parsed");
             if (!checkFeedData(feed)) {
                 throw new InvalidFeedException();
@@ -74,6 +90,9 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
                 Log.d(TAG, "Deletion of file '" + feedFile.getAbsolutePath() + "' "
                         + (deleted ? "successful" : "FAILED"));
             }
+            parseMillis = SystemClock.elapsedRealtime() - startTime;
+            Log.d(TAG, "Parsed " + request.getSource() + " in " + parseMillis + " ms, waited "
+                    + queueWaitMillis + " ms in queue");
         }
 
         if (successful) {
@@ -91,6 +110,37 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
         return successful;
     }
 
+    /**
+     * Time in milliseconds between the creation of the task and the start of the parser.
+     */
+    public long getQueueWaitMillis() {
+        return queueWaitMillis;
+    }
+
+    /**
+     * Time in milliseconds the parser needed to process the feed.
+     */
+    public long getParseMillis() {
+        return parseMillis;
+    }
+
+    /**
+     * Loads the saved items of the feed, so that the parser can skip old items that have not
+     * changed. Returns null if the feed has not been saved before or has no items.
+     */
+    @Nullable
+    private static KnownItems getKnownItems(long feedId) {
+        if (feedId == 0) {
+            return null;
+        }
+        Date mostRecentPubDate = DBReader.getMostRecentPubDate(feedId);
+        if (mostRecentPubDate == null) {
+            return null;
+        }
+        return new KnownItems(DBReader.getItemIdentifyingValues(feedId), mostRecentPubDate,
+                KNOWN_ITEMS_CUTOFF);
+    }
+
     /**
      * Checks if the feed was parsed correctly.
      */
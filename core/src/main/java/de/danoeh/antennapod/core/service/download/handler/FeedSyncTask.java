@@ -6,35 +6,104 @@ import de.danoeh.antennapod.core.ClientConfig;
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
-import de.danoeh.antennapod.core.storage.DBReader;
 import de.danoeh.antennapod.core.storage.DBTasks;
 import de.danoeh.antennapod.core.storage.DownloadRequestException;
 import de.danoeh.antennapod.core.storage.DownloadRequester;
 import de.danoeh.antennapod.core.syndication.handler.FeedHandlerResult;
+import de.danoeh.antennapod.core.util.DownloadError;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class FeedSyncTask {
     private static final String TAG = "FeedParserTask";
     private final DownloadRequest request;
     private final Context context;
-    private DownloadStatus downloadStatus;
+    private final FeedParserTask parserTask;
+    private final FeedHandlerResult result;
+    private boolean successful = false;
+    private DownloadStatus failedStatus = null;
 
-    public FeedSyncTask(Context context, DownloadRequest request) {
+    /**
+     * @param parserTask The task that has parsed the feed
+     * @param result     The result of the task
+     */
+    public FeedSyncTask(Context context, DownloadRequest request, FeedParserTask parserTask,
+                        FeedHandlerResult result) {
         this.request = request;
         this.context = context;
+        this.parserTask = parserTask;
+        this.result = result;
     }
 
-    public boolean run() {
-        FeedParserTask task = new FeedParserTask(request);
-        FeedHandlerResult result = task.call();
-        downloadStatus = task.getDownloadStatus();
+    /**
+     * Saves the feeds of several tasks. The feeds are saved in as few calls of
+     * {@link DBTasks#updateFeed(Context, List, Feed...)} as possible, so that they are written in a single
+     * transaction and the UI is only notified once.
+     *
+     * @param notModifiedRequests Requests of feeds that have not been modified. Their refreshes are recorded
+     *                            in the transaction of the first batch.
+     */
+    public static void runBatch(Context context, List<FeedSyncTask> tasks,
+                                List<DownloadRequest> notModifiedRequests) {
+        List<DownloadRequest> pendingNotModified = notModifiedRequests;
+        List<FeedSyncTask> batch = new ArrayList<>();
+        Set<Long> feedIds = new HashSet<>();
+        Set<String> identifyingValues = new HashSet<>();
+        for (FeedSyncTask task : tasks) {
+            if (!task.parserTask.isSuccessful() || task.result == null) {
+                continue;
+            }
+            // updateFeed must not receive the same feed twice. It looks up saved feeds by ID or,
+            // for feeds without an ID, by identifying value.
+            Feed feed = task.result.feed;
+            boolean duplicate = (feed.getId() != 0 && feedIds.contains(feed.getId()))
+                    || identifyingValues.contains(feed.getIdentifyingValue());
+            if (duplicate) {
+                saveBatch(context, batch, pendingNotModified);
+                pendingNotModified = Collections.emptyList();
+                batch.clear();
+                feedIds.clear();
+                identifyingValues.clear();
+            }
+            if (feed.getId() != 0) {
+                feedIds.add(feed.getId());
+            }
+            identifyingValues.add(feed.getIdentifyingValue());
+            batch.add(task);
+        }
+        saveBatch(context, batch, pendingNotModified);
+    }
 
-        if (!task.isSuccessful()) {
-            return false;
+    private static void saveBatch(Context context, List<FeedSyncTask> batch,
+                                  List<DownloadRequest> notModifiedRequests) {
+        if (batch.isEmpty() && notModifiedRequests.isEmpty()) {
+            return;
+        }
+        Feed[] feeds = new Feed[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            feeds[i] = batch.get(i).result.feed;
+        }
+        Feed[] savedFeeds = DBTasks.updateFeed(context, notModifiedRequests, feeds);
+        for (int i = 0; i < batch.size(); i++) {
+            if (savedFeeds[i] != null) {
+                batch.get(i).onFeedSaved(savedFeeds[i]);
+            } else {
+                batch.get(i).onFeedNotSaved();
+            }
         }
+    }
+
+    private void onFeedNotSaved() {
+        Feed feed = result.feed;
+        Log.e(TAG, "Feed could not be saved: " + feed.getDownload_url());
+        failedStatus = new DownloadStatus(feed, feed.getHumanReadableIdentifier(),
+                DownloadError.ERROR_DB_ACCESS_ERROR, false, null);
+    }
 
-        Feed[] savedFeeds = DBTasks.updateFeed(context, result.feed);
-        Feed savedFeed = savedFeeds[0];
+    private void onFeedSaved(Feed savedFeed) {
         // If loadAllPages=true, check if another page is available and queue it for download
         final boolean loadAllPages = request.getArguments().getBoolean(DownloadRequester.REQUEST_ARG_LOAD_ALL_PAGES);
         final Feed feed = result.feed;
@@ -48,10 +117,24 @@ public class FeedSyncTask {
         }
 
         ClientConfig.downloadServiceCallbacks.onFeedParsed(context, savedFeed);
-        return true;
+        successful = true;
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    public DownloadRequest getRequest() {
+        return request;
     }
 
+    /**
+     * Returns the status of the parser, or a failed status if the feed could not be saved.
+     */
     public DownloadStatus getDownloadStatus() {
-        return downloadStatus;
+        if (failedStatus != null) {
+            return failedStatus;
+        }
+        return parserTask.getDownloadStatus();
     }
 }
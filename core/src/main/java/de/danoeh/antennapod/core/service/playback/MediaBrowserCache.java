@@ -0,0 +1,120 @@
+package de.danoeh.antennapod.core.service.playback;
+
+import android.support.v4.media.MediaBrowserCompat;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import de.danoeh.antennapod.core.storage.DBReader;
+
+/**
+ * Keeps the most recently requested pages of the media browser tree, so that clients like
+ * Android Auto can browse back and forth without loading the pages from the database again.
+ * The pages of a node have to be invalidated whenever its children change.
+ */
+final class MediaBrowserCache {
+
+    private static final int MAX_PAGES = 20;
+    private static final int MAX_PAGE_ENDS = 100;
+
+    private final Map<String, List<MediaBrowserCompat.MediaItem>> pages =
+            new LinkedHashMap<String, List<MediaBrowserCompat.MediaItem>>(MAX_PAGES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<MediaBrowserCompat.MediaItem>> eldest) {
+                    return size() > MAX_PAGES;
+                }
+            };
+    /**
+     * The last episode of each loaded page of a feed node. The next page is loaded after it.
+     */
+    private final Map<String, DBReader.EpisodeSummary> pageEnds =
+            new LinkedHashMap<String, DBReader.EpisodeSummary>(MAX_PAGE_ENDS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, DBReader.EpisodeSummary> eldest) {
+                    return size() > MAX_PAGE_ENDS;
+                }
+            };
+    private final Map<String, Long> generations = new HashMap<>();
+
+    /**
+     * Returns the cached page, or null if it has to be loaded.
+     */
+    @Nullable
+    synchronized List<MediaBrowserCompat.MediaItem> get(String parentId, int page, int pageSize) {
+        return pages.get(key(parentId, page, pageSize));
+    }
+
+    /**
+     * Returns the number of invalidations of the given node so far. It has to be read before a
+     * page is loaded and passed to {@link #put(String, int, int, List, long)} together with it.
+     */
+    synchronized long getGeneration(String parentId) {
+        Long generation = generations.get(parentId);
+        return (generation != null) ? generation : 0;
+    }
+
+    /**
+     * Caches the given page unless its node has been invalidated since it was loaded.
+     *
+     * @param loadedGeneration The result of {@link #getGeneration(String)} before the page was loaded
+     */
+    synchronized void put(String parentId, int page, int pageSize,
+                          @NonNull List<MediaBrowserCompat.MediaItem> mediaItems, long loadedGeneration) {
+        if (loadedGeneration != getGeneration(parentId)) {
+            return;
+        }
+        pages.put(key(parentId, page, pageSize), Collections.unmodifiableList(mediaItems));
+    }
+
+    /**
+     * Returns the last episode of the given page of a feed node, or null if it is not known.
+     */
+    @Nullable
+    synchronized DBReader.EpisodeSummary getPageEnd(String parentId, int page, int pageSize) {
+        return pageEnds.get(key(parentId, page, pageSize));
+    }
+
+    /**
+     * Remembers the last episode of the given page of a feed node unless the node has been
+     * invalidated since the page was loaded.
+     *
+     * @param loadedGeneration The result of {@link #getGeneration(String)} before the page was loaded
+     */
+    synchronized void putPageEnd(String parentId, int page, int pageSize,
+                                 @NonNull DBReader.EpisodeSummary lastEpisode, long loadedGeneration) {
+        if (loadedGeneration != getGeneration(parentId)) {
+            return;
+        }
+        pageEnds.put(key(parentId, page, pageSize), lastEpisode);
+    }
+
+    /**
+     * Drops the cached pages of the given node.
+     */
+    synchronized void invalidate(String parentId) {
+        generations.put(parentId, getGeneration(parentId) + 1);
+        String prefix = parentId + "/";
+        removeKeysWithPrefix(pages, prefix);
+        removeKeysWithPrefix(pageEnds, prefix);
+    }
+
+    private static void removeKeysWithPrefix(Map<String, ?> map, String prefix) {
+        Iterator<String> keys = map.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    private static String key(String parentId, int page, int pageSize) {
+        return String.format(Locale.US, "%s/%d/%d", parentId, page, pageSize);
+    }
+}
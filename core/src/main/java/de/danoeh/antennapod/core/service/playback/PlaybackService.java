@@ -48,8 +48,10 @@ import java.util.concurrent.TimeUnit;
 
 import de.danoeh.antennapod.core.ClientConfig;
 import de.danoeh.antennapod.core.R;
+import de.danoeh.antennapod.core.event.FeedListUpdateEvent;
 import de.danoeh.antennapod.core.event.MessageEvent;
 import de.danoeh.antennapod.core.event.PlaybackPositionEvent;
+import de.danoeh.antennapod.core.event.QueueEvent;
 import de.danoeh.antennapod.core.event.ServiceEvent;
 import de.danoeh.antennapod.core.feed.Chapter;
 import de.danoeh.antennapod.core.feed.Feed;
@@ -76,9 +78,13 @@ import de.danoeh.antennapod.core.util.playback.ExternalMedia;
 import de.danoeh.antennapod.core.util.playback.Playable;
 import de.danoeh.antennapod.core.util.playback.PlaybackServiceStarter;
 import io.reactivex.Observable;
+import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
 
 /**
  * Controls the MediaPlayer that plays a FeedMedia-file
@@ -213,6 +219,16 @@ public class PlaybackService extends MediaBrowserServiceCompat {
     private Disposable positionEventTimer;
     private PlaybackServiceNotificationBuilder notificationBuilder;
 
+    /**
+     * Pages of the media browser tree that have been loaded for Android Auto and Android Wear.
+     */
+    private final MediaBrowserCache mediaBrowserCache = new MediaBrowserCache();
+    /**
+     * Whether the last loaded root node of the media browser tree contains the queue.
+     */
+    private volatile boolean mediaBrowserRootShowsQueue;
+    private final CompositeDisposable mediaBrowserLoaders = new CompositeDisposable();
+
     /**
      * Used for Lollipop notifications, Android Wear, and Android Auto.
      */
@@ -319,6 +335,7 @@ public class PlaybackService extends MediaBrowserServiceCompat {
         flavorHelper.initializeMediaPlayer(PlaybackService.this);
         mediaSession.setActive(true);
 
+        EventBus.getDefault().register(this);
         EventBus.getDefault().post(new ServiceEvent(ServiceEvent.Action.SERVICE_STARTED));
     }
 
@@ -337,6 +354,8 @@ public class PlaybackService extends MediaBrowserServiceCompat {
         currentMediaType = MediaType.UNKNOWN;
 
         cancelPositionObserver();
+        mediaBrowserLoaders.dispose();
+        EventBus.getDefault().unregister(this);
         PreferenceManager.getDefaultSharedPreferences(this).unregisterOnSharedPreferenceChangeListener(prefListener);
         if (mediaSession != null) {
             mediaSession.release();
@@ -389,46 +408,169 @@ public class PlaybackService extends MediaBrowserServiceCompat {
                 MediaBrowserCompat.MediaItem.FLAG_BROWSABLE);
     }
 
+    private MediaBrowserCompat.MediaItem createPlayableMediaItem(DBReader.EpisodeSummary episode) {
+        MediaDescriptionCompat.Builder builder = new MediaDescriptionCompat.Builder()
+                .setMediaId(String.valueOf(episode.mediaId))
+                .setTitle(episode.title);
+        if (episode.imageUrl != null) {
+            builder.setIconUri(Uri.parse(episode.imageUrl));
+        }
+        return new MediaBrowserCompat.MediaItem(builder.build(),
+                MediaBrowserCompat.MediaItem.FLAG_PLAYABLE);
+    }
+
     @Override
     public void onLoadChildren(@NonNull String parentId,
                                @NonNull Result<List<MediaBrowserCompat.MediaItem>> result) {
-        Log.d(TAG, "OnLoadChildren: parentMediaId=" + parentId);
+        onLoadChildren(parentId, result, Bundle.EMPTY);
+    }
+
+    @Override
+    public void onLoadChildren(@NonNull String parentId,
+                               @NonNull Result<List<MediaBrowserCompat.MediaItem>> result,
+                               @NonNull Bundle options) {
+        Log.d(TAG, "OnLoadChildren: parentMediaId=" + parentId + " options=" + options);
+        int page = options.getInt(MediaBrowserCompat.EXTRA_PAGE, -1);
+        int pageSize = options.getInt(MediaBrowserCompat.EXTRA_PAGE_SIZE, -1);
+        if (page < 0 || pageSize < 1) {
+            // no paging, send all children
+            page = 0;
+            pageSize = Integer.MAX_VALUE;
+        }
+        List<MediaBrowserCompat.MediaItem> cachedItems = mediaBrowserCache.get(parentId, page, pageSize);
+        if (cachedItems != null) {
+            result.sendResult(cachedItems);
+            return;
+        }
+
+        final int requestedPage = page;
+        final int requestedPageSize = pageSize;
+        final long generation = mediaBrowserCache.getGeneration(parentId);
+        result.detach();
+        mediaBrowserLoaders.add(Single.fromCallable(
+                () -> loadChildren(parentId, requestedPage, requestedPageSize, generation))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(mediaItems -> {
+                    mediaBrowserCache.put(parentId, requestedPage, requestedPageSize, mediaItems, generation);
+                    result.sendResult(mediaItems);
+                }, error -> {
+                    Log.e(TAG, "Failed to load media browser children of " + parentId, error);
+                    result.sendResult(null);
+                }));
+    }
+
+    /**
+     * Loads a page of the children of the given node of the media browser tree. Only the episodes
+     * of the requested page of a feed are loaded from the database.
+     */
+    @NonNull
+    private List<MediaBrowserCompat.MediaItem> loadChildren(String parentId, int page, int pageSize,
+                                                            long generation) throws InterruptedException {
+        int offset = (int) Math.min((long) page * pageSize, Integer.MAX_VALUE);
         List<MediaBrowserCompat.MediaItem> mediaItems = new ArrayList<>();
         if (parentId.equals(getResources().getString(R.string.app_name))) {
             // Root List
-            try {
-                if (!(taskManager.getQueue().isEmpty())) {
-                    mediaItems.add(createBrowsableMediaItemForRoot());
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            mediaBrowserRootShowsQueue = !taskManager.getQueue().isEmpty();
+            if (mediaBrowserRootShowsQueue) {
+                mediaItems.add(createBrowsableMediaItemForRoot());
             }
             List<Feed> feeds = DBReader.getFeedList();
             for (Feed feed : feeds) {
                 mediaItems.add(createBrowsableMediaItemForFeed(feed));
             }
+            return getPage(mediaItems, offset, pageSize);
         } else if (parentId.equals(getResources().getString(R.string.queue_label))) {
             // Child List
-            try {
-                for (FeedItem feedItem : taskManager.getQueue()) {
-                    FeedMedia media = feedItem.getMedia();
-                    if (media != null) {
-                        mediaItems.add(media.getMediaItem());
-                    }
+            for (FeedItem feedItem : taskManager.getQueue()) {
+                FeedMedia media = feedItem.getMedia();
+                if (media != null) {
+                    mediaItems.add(media.getMediaItem());
                 }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
             }
+            return getPage(mediaItems, offset, pageSize);
         } else if (parentId.startsWith("FeedId:")) {
-            Long feedId = Long.parseLong(parentId.split(":")[1]);
-            List<FeedItem> feedItems = DBReader.getFeedItemList(DBReader.getFeed(feedId));
-            for (FeedItem feedItem : feedItems) {
-                if (feedItem.getMedia() != null && feedItem.getMedia().getMediaItem() != null) {
-                    mediaItems.add(feedItem.getMedia().getMediaItem());
+            long feedId = Long.parseLong(parentId.split(":")[1]);
+            for (DBReader.EpisodeSummary episode : loadEpisodePage(parentId, feedId, page, pageSize, generation)) {
+                mediaItems.add(createPlayableMediaItem(episode));
+            }
+        }
+        return mediaItems;
+    }
+
+    /**
+     * Loads a page of the episodes of a feed after the last episode of the previous page. If
+     * that episode is not known, e.g. because the client skipped pages, the pages in between
+     * are loaded first.
+     */
+    @NonNull
+    private List<DBReader.EpisodeSummary> loadEpisodePage(String parentId, long feedId, int page, int pageSize,
+                                                          long generation) {
+        int firstPage = page;
+        DBReader.EpisodeSummary after = null;
+        while (firstPage > 0 && (after = mediaBrowserCache.getPageEnd(parentId, firstPage - 1, pageSize)) == null) {
+            firstPage--;
+        }
+        for (int i = firstPage; ; i++) {
+            List<DBReader.EpisodeSummary> episodes = DBReader.getEpisodeSummaries(feedId, after, pageSize);
+            if (i == page) {
+                if (!episodes.isEmpty()) {
+                    mediaBrowserCache.putPageEnd(parentId, i, pageSize, episodes.get(episodes.size() - 1),
+                            generation);
                 }
+                return episodes;
+            } else if (episodes.size() < pageSize) {
+                return new ArrayList<>();
             }
+            after = episodes.get(episodes.size() - 1);
+            mediaBrowserCache.putPageEnd(parentId, i, pageSize, after, generation);
+        }
+    }
+
+    private static <T> List<T> getPage(List<T> list, int offset, int pageSize) {
+        if (offset >= list.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(list.subList(offset, (int) Math.min((long) offset + pageSize, list.size())));
+    }
+
+    private void invalidateMediaBrowserNode(String parentId) {
+        mediaBrowserCache.invalidate(parentId);
+        notifyChildrenChanged(parentId);
+    }
+
+    @Subscribe
+    public void onEvent(FeedListUpdateEvent event) {
+        invalidateMediaBrowserNode(getResources().getString(R.string.app_name));
+        for (long feedId : event.getFeedIds()) {
+            invalidateMediaBrowserNode("FeedId:" + feedId);
+        }
+    }
+
+    @Subscribe
+    public void onEvent(QueueEvent event) {
+        invalidateMediaBrowserNode(getResources().getString(R.string.queue_label));
+        // the root list only contains the queue if it is not empty
+        boolean rootChanged;
+        switch (event.action) {
+            case MOVED:
+            case SORTED:
+                rootChanged = false;
+                break;
+            case ADDED:
+            case ADDED_ITEMS:
+                rootChanged = !mediaBrowserRootShowsQueue;
+                break;
+            case SET_QUEUE:
+                rootChanged = mediaBrowserRootShowsQueue == event.items.isEmpty();
+                break;
+            default:
+                rootChanged = mediaBrowserRootShowsQueue;
+                break;
+        }
+        if (rootChanged) {
+            invalidateMediaBrowserNode(getResources().getString(R.string.app_name));
         }
-        result.sendResult(mediaItems);
     }
 
     @Override
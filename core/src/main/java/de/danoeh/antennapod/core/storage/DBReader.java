@@ -3,26 +3,33 @@ package de.danoeh.antennapod.core.storage;
 import android.database.Cursor;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.collection.ArrayMap;
 import android.text.TextUtils;
 import android.util.Log;
+import android.util.Pair;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import de.danoeh.antennapod.core.feed.Chapter;
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.feed.FeedPreferences;
+import de.danoeh.antennapod.core.gpoddernet.model.GpodnetEpisodeAction;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
+import de.danoeh.antennapod.core.util.LongHashSet;
 import de.danoeh.antennapod.core.util.LongIntMap;
 import de.danoeh.antennapod.core.util.LongList;
+import de.danoeh.antennapod.core.util.LongObjectMap;
 import de.danoeh.antennapod.core.util.comparator.DownloadStatusComparator;
 import de.danoeh.antennapod.core.util.comparator.FeedItemPubdateComparator;
 import de.danoeh.antennapod.core.util.comparator.PlaybackCompletionDateComparator;
@@ -55,11 +62,12 @@ public final class DBReader {
      *
      * @return A list of Feeds, sorted alphabetically by their title. A Feed-object
      * of the returned list does NOT have its list of FeedItems yet. The FeedItem-list
-     * can be loaded separately with {@link #getFeedItemList(Feed)}.
+     * can be loaded separately with {@link #getFeedItemList(Feed)}. The Feed-objects are
+     * shared through the {@link FeedCache} and must not be modified.
      */
     @NonNull
     public static List<Feed> getFeedList() {
-        Log.d(TAG, "Extracting Feedlist");
+        Log.d(TAG, "Extracting Feedlist, feed cache: " + FeedCache.getStatistics());
 
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
@@ -72,6 +80,11 @@ public final class DBReader {
 
     @NonNull
     private static List<Feed> getFeedList(PodDBAdapter adapter) {
+        List<Feed> cachedFeeds = FeedCache.getFeeds();
+        if (cachedFeeds != null) {
+            return new ArrayList<>(cachedFeeds);
+        }
+        long generation = FeedCache.getGeneration();
         Cursor cursor = null;
         try {
             cursor = adapter.getAllFeedsCursor();
@@ -80,6 +93,7 @@ public final class DBReader {
                 Feed feed = extractFeedFromCursorRow(cursor);
                 feeds.add(feed);
             }
+            FeedCache.put(feeds, generation);
             return feeds;
         } finally {
             if (cursor != null) {
@@ -123,8 +137,8 @@ public final class DBReader {
     }
 
     private static void loadTagsOfFeedItemList(List<FeedItem> items) {
-        LongList favoriteIds = getFavoriteIDList();
-        LongList queueIds = getQueueIDList();
+        LongHashSet favoriteIds = getFavoriteIDSet();
+        LongHashSet queueIds = LongHashSet.of(getQueueIDList());
 
         for (FeedItem item : items) {
             if (favoriteIds.contains(item.getId())) {
@@ -146,7 +160,7 @@ public final class DBReader {
     private static void loadFeedDataOfFeedItemList(List<FeedItem> items) {
         List<Feed> feeds = getFeedList();
 
-        Map<Long, Feed> feedIndex = new ArrayMap<>(feeds.size());
+        LongObjectMap<Feed> feedIndex = new LongObjectMap<>(feeds.size());
         for (Feed feed : feeds) {
             feedIndex.put(feed.getId(), feed);
         }
@@ -189,6 +203,61 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads a page of the FeedItems of a feed, sorted by pubDate in descending order. Unlike
+     * {@link #getFeedItemList(Feed)}, only the requested page is loaded, so that long feeds can be
+     * displayed without holding all of their items in memory.
+     *
+     * @param feed  The feed whose items should be loaded.
+     * @param after The last item of the previous page, or null to load the first page.
+     * @param limit The maximum number of items that should be loaded.
+     */
+    @NonNull
+    public static List<FeedItem> getFeedItemList(final Feed feed, @Nullable FeedItem after, int limit) {
+        Log.d(TAG, "getFeedItemList() called with: " + "feed = [" + feed + "], limit = [" + limit + "]");
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getFeedItemsPageCursor(feed.getId(), after, limit)) {
+            List<FeedItem> items = extractJoinedItemlistFromCursor(cursor);
+            for (FeedItem item : items) {
+                item.setFeed(feed);
+            }
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads a page of the episodes of a feed that have a media file, sorted by pubDate in
+     * descending order. Unlike {@link #getFeedItemList(Feed, FeedItem, int)}, only the fields
+     * that are needed to list the episodes are loaded.
+     *
+     * @param feedId The ID of the feed whose episodes should be loaded.
+     * @param after  The last episode of the previous page, or null to load the first page.
+     * @param limit  The maximum number of episodes that should be loaded.
+     */
+    @NonNull
+    public static List<EpisodeSummary> getEpisodeSummaries(long feedId, @Nullable EpisodeSummary after, int limit) {
+        Log.d(TAG, "getEpisodeSummaries() called with: " + "feedId = [" + feedId + "], limit = [" + limit + "]");
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = (after != null)
+                ? adapter.getEpisodeSummariesCursor(feedId, after.pubDate, after.itemId, limit)
+                : adapter.getEpisodeSummariesCursor(feedId, 0, 0, limit)) {
+            List<EpisodeSummary> episodes = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                episodes.add(new EpisodeSummary(cursor.getLong(0), cursor.getString(1),
+                        cursor.getString(2), cursor.getLong(3), cursor.getLong(4)));
+            }
+            return episodes;
+        } finally {
+            adapter.close();
+        }
+    }
+
     public static List<FeedItem> extractItemlistFromCursor(Cursor itemlistCursor) {
         Log.d(TAG, "extractItemlistFromCursor() called with: " + "itemlistCursor = [" + itemlistCursor + "]");
         PodDBAdapter adapter = PodDBAdapter.getInstance();
@@ -211,7 +280,7 @@ public final class DBReader {
                 result.add(item);
                 itemIds.add(item.getId());
             } while (cursor.moveToNext());
-            Map<Long, FeedMedia> medias = getFeedMedia(adapter, itemIds);
+            LongObjectMap<FeedMedia> medias = getFeedMedia(adapter, itemIds);
             for (FeedItem item : result) {
                 FeedMedia media = medias.get(item.getId());
                 item.setMedia(media);
@@ -223,13 +292,13 @@ public final class DBReader {
         return result;
     }
 
-    private static Map<Long, FeedMedia> getFeedMedia(PodDBAdapter adapter, LongList itemIds) {
+    private static LongObjectMap<FeedMedia> getFeedMedia(PodDBAdapter adapter, LongList itemIds) {
         List<String> ids = new ArrayList<>(itemIds.size());
         for (long item : itemIds.toArray()) {
             ids.add(String.valueOf(item));
         }
 
-        Map<Long, FeedMedia> result = new ArrayMap<>(itemIds.size());
+        LongObjectMap<FeedMedia> result = new LongObjectMap<>(itemIds.size());
         Cursor cursor = adapter.getFeedMediaCursor(ids.toArray(new String[0]));
         try {
             if (cursor.moveToFirst()) {
@@ -246,6 +315,54 @@ public final class DBReader {
         return result;
     }
 
+    /**
+     * Takes a cursor in the joined item list selection of {@link PodDBAdapter} and builds its
+     * FeedItems in a single pass. The media, the queue and favorite tags and the feed of the
+     * items are read from the same rows. All items of a feed share the same Feed object, which
+     * is taken from the {@link FeedCache} if possible. That Feed object must not be modified;
+     * a Feed that is going to be changed has to be loaded with {@link #getFeed(long)}.
+     */
+    @NonNull
+    static List<FeedItem> extractJoinedItemlistFromCursor(Cursor cursor) {
+        List<FeedItem> result = new ArrayList<>(cursor.getCount());
+        LongObjectMap<Feed> feeds = new LongObjectMap<>();
+        Cursor mediaCursor = new PrefixedCursor(cursor, PodDBAdapter.PREFIX_MEDIA);
+        Cursor feedCursor = new PrefixedCursor(cursor, PodDBAdapter.PREFIX_FEED);
+        int indexMediaId = mediaCursor.getColumnIndexOrThrow(PodDBAdapter.KEY_ID);
+        int indexFeedId = feedCursor.getColumnIndexOrThrow(PodDBAdapter.KEY_ID);
+        int indexInQueue = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_IN_QUEUE);
+        int indexIsFavorite = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_IS_FAVORITE);
+        while (cursor.moveToNext()) {
+            FeedItem item = FeedItem.fromCursor(cursor);
+            if (!cursor.isNull(indexMediaId)) {
+                FeedMedia media = FeedMedia.fromCursor(mediaCursor);
+                item.setMedia(media);
+                media.setItem(item);
+            }
+            if (cursor.getInt(indexInQueue) > 0) {
+                item.addTag(FeedItem.TAG_QUEUE);
+            }
+            if (cursor.getInt(indexIsFavorite) > 0) {
+                item.addTag(FeedItem.TAG_FAVORITE);
+            }
+            if (cursor.isNull(indexFeedId)) {
+                Log.w(TAG, "No match found for item with ID " + item.getId() + ". Feed ID was " + item.getFeedId());
+            } else {
+                Feed feed = feeds.get(item.getFeedId());
+                if (feed == null) {
+                    feed = FeedCache.getFeed(item.getFeedId());
+                    if (feed == null) {
+                        feed = extractFeedFromCursorRow(feedCursor);
+                    }
+                    feeds.put(feed.getId(), feed);
+                }
+                item.setFeed(feed);
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
     private static Feed extractFeedFromCursorRow(Cursor cursor) {
         Feed feed = Feed.fromCursor(cursor);
         FeedPreferences preferences = FeedPreferences.fromCursor(cursor);
@@ -259,8 +376,7 @@ public final class DBReader {
         Cursor cursor = null;
         try {
             cursor = adapter.getQueueCursor();
-            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
-            loadAdditionalFeedItemListData(items);
+            List<FeedItem> items = extractJoinedItemlistFromCursor(cursor);
             return items;
         } finally {
             if (cursor != null) {
@@ -269,6 +385,33 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Returns the publishing dates of the items that have been published after the given time.
+     *
+     * @param maxPerFeed The maximum number of publishing dates per feed
+     * @return The publishing dates of each feed, newest first, by feed ID.
+     */
+    @NonNull
+    public static LongObjectMap<LongList> getRecentPubDates(long since, int maxPerFeed) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getRecentPubDatesCursor(since, maxPerFeed)) {
+            LongObjectMap<LongList> result = new LongObjectMap<>();
+            while (cursor.moveToNext()) {
+                long feedId = cursor.getLong(0);
+                LongList pubDates = result.get(feedId);
+                if (pubDates == null) {
+                    pubDates = new LongList();
+                    result.put(feedId, pubDates);
+                }
+                pubDates.add(cursor.getLong(1));
+            }
+            return result;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Loads the IDs of the FeedItems in the queue. This method should be preferred over
      * {@link #getQueue()} if the FeedItems of the queue are not needed.
@@ -287,7 +430,7 @@ public final class DBReader {
         }
     }
 
-    private static LongList getQueueIDList(PodDBAdapter adapter) {
+    static LongList getQueueIDList(PodDBAdapter adapter) {
         Cursor cursor = null;
         try {
             cursor = adapter.getQueueIDCursor();
@@ -337,8 +480,7 @@ public final class DBReader {
         Cursor cursor = null;
         try {
             cursor = adapter.getDownloadedItemsCursor();
-            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
-            loadAdditionalFeedItemListData(items);
+            List<FeedItem> items = extractJoinedItemlistFromCursor(cursor);
             Collections.sort(items, new FeedItemPubdateComparator());
             return items;
         } finally {
@@ -349,6 +491,26 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads a page of the downloaded FeedItems, sorted by pubDate in descending order.
+     *
+     * @param after The last item of the previous page, or null to load the first page.
+     * @param limit The maximum number of items that should be loaded.
+     */
+    @NonNull
+    public static List<FeedItem> getDownloadedItems(@Nullable FeedItem after, int limit) {
+        Log.d(TAG, "getDownloadedItems() called with: " + "limit = [" + limit + "]");
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getDownloadedItemsPageCursor(after, limit)) {
+            List<FeedItem> items = extractJoinedItemlistFromCursor(cursor);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Loads a list of FeedItems that are considered new.
      * Excludes items from feeds that do not have keep updated enabled.
@@ -363,8 +525,7 @@ public final class DBReader {
         Cursor cursor = null;
         try {
             cursor = adapter.getNewItemsCursor();
-            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
-            loadAdditionalFeedItemListData(items);
+            List<FeedItem> items = extractJoinedItemlistFromCursor(cursor);
             return items;
         } finally {
             if (cursor != null) {
@@ -382,8 +543,7 @@ public final class DBReader {
         Cursor cursor = null;
         try {
             cursor = adapter.getFavoritesCursor();
-            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
-            loadAdditionalFeedItemListData(items);
+            List<FeedItem> items = extractJoinedItemlistFromCursor(cursor);
             return items;
         } finally {
             if (cursor != null) {
@@ -393,15 +553,35 @@ public final class DBReader {
         }
     }
 
-    private static LongList getFavoriteIDList() {
-        Log.d(TAG, "getFavoriteIDList() called");
+    /**
+     * Loads a page of the favorite FeedItems, sorted by pubDate in descending order.
+     *
+     * @param after The last item of the previous page, or null to load the first page.
+     * @param limit The maximum number of items that should be loaded.
+     */
+    @NonNull
+    public static List<FeedItem> getFavoriteItemsList(@Nullable FeedItem after, int limit) {
+        Log.d(TAG, "getFavoriteItemsList() called with: " + "limit = [" + limit + "]");
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getFavoritesPageCursor(after, limit)) {
+            List<FeedItem> items = extractJoinedItemlistFromCursor(cursor);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
+    private static LongHashSet getFavoriteIDSet() {
+        Log.d(TAG, "getFavoriteIDSet() called");
 
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
         Cursor cursor = null;
         try {
-            cursor = adapter.getFavoritesCursor();
-            LongList favoriteIDs = new LongList(cursor.getCount());
+            cursor = adapter.getFavoritesIDCursor();
+            LongHashSet favoriteIDs = new LongHashSet(cursor.getCount());
             while (cursor.moveToNext()) {
                 favoriteIDs.add(cursor.getLong(0));
             }
@@ -429,8 +609,7 @@ public final class DBReader {
         Cursor cursor = null;
         try {
             cursor = adapter.getRecentlyPublishedItemsCursor(offset, limit);
-            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
-            loadAdditionalFeedItemListData(items);
+            List<FeedItem> items = extractJoinedItemlistFromCursor(cursor);
             return items;
         } finally {
             if (cursor != null) {
@@ -440,6 +619,28 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads a page of FeedItems sorted by pubDate in descending order. Unlike
+     * {@link #getRecentlyPublishedEpisodes(int, int)}, the page is found through the index on
+     * pubDate instead of skipping all previous rows.
+     *
+     * @param after The last item of the previous page, or null to load the first page.
+     * @param limit The maximum number of episodes that should be loaded.
+     */
+    @NonNull
+    public static List<FeedItem> getRecentlyPublishedEpisodes(@Nullable FeedItem after, int limit) {
+        Log.d(TAG, "getRecentlyPublishedEpisodes() called with: " + "limit = [" + limit + "]");
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getFeedItemsPageCursor(0, after, limit)) {
+            List<FeedItem> items = extractJoinedItemlistFromCursor(cursor);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Loads the playback history from the database. A FeedItem is in the playback history if playback of the correpsonding episode
      * has been completed at least once.
@@ -454,31 +655,48 @@ public final class DBReader {
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
 
-        Cursor mediaCursor = null;
-        Cursor itemCursor = null;
-        try {
-            mediaCursor = adapter.getCompletedMediaCursor(PLAYBACK_HISTORY_SIZE);
-            String[] itemIds = new String[mediaCursor.getCount()];
-            for (int i = 0; i < itemIds.length && mediaCursor.moveToPosition(i); i++) {
-                int index = mediaCursor.getColumnIndex(PodDBAdapter.KEY_FEEDITEM);
-                itemIds[i] = Long.toString(mediaCursor.getLong(index));
-            }
-            itemCursor = adapter.getFeedItemCursor(itemIds);
-            List<FeedItem> items = extractItemlistFromCursor(adapter, itemCursor);
-            loadAdditionalFeedItemListData(items);
-            Collections.sort(items, new PlaybackCompletionDateComparator());
-            return items;
+        try (Cursor mediaCursor = adapter.getCompletedMediaCursor(PLAYBACK_HISTORY_SIZE)) {
+            return getPlaybackHistory(adapter, mediaCursor);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Loads a page of the playback history, sorted by the playbackCompletionDate of the media
+     * in descending order.
+     *
+     * @param after The last item of the previous page, or null to load the first page.
+     * @param limit The maximum number of items that should be loaded.
+     */
+    @NonNull
+    public static List<FeedItem> getPlaybackHistory(@Nullable FeedItem after, int limit) {
+        Log.d(TAG, "getPlaybackHistory() called with: " + "limit = [" + limit + "]");
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        FeedMedia afterMedia = (after != null) ? after.getMedia() : null;
+        try (Cursor mediaCursor = adapter.getCompletedMediaPageCursor(afterMedia, limit)) {
+            return getPlaybackHistory(adapter, mediaCursor);
         } finally {
-            if (mediaCursor != null) {
-                mediaCursor.close();
-            }
-            if (itemCursor != null) {
-                itemCursor.close();
-            }
             adapter.close();
         }
     }
 
+    @NonNull
+    private static List<FeedItem> getPlaybackHistory(PodDBAdapter adapter, Cursor mediaCursor) {
+        String[] itemIds = new String[mediaCursor.getCount()];
+        int index = mediaCursor.getColumnIndex(PodDBAdapter.KEY_FEEDITEM);
+        for (int i = 0; i < itemIds.length && mediaCursor.moveToPosition(i); i++) {
+            itemIds[i] = Long.toString(mediaCursor.getLong(index));
+        }
+        try (Cursor itemCursor = adapter.getFeedItemListCursor(itemIds)) {
+            List<FeedItem> items = extractJoinedItemlistFromCursor(itemCursor);
+            Collections.sort(items, new PlaybackCompletionDateComparator());
+            return items;
+        }
+    }
+
     /**
      * Loads the download log from the database.
      *
@@ -614,6 +832,52 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads the identifying values of all FeedItems of a Feed without loading the FeedItems.
+     *
+     * @param feedId The ID of the Feed
+     * @see FeedItem#getIdentifyingValue()
+     */
+    @NonNull
+    public static Set<String> getItemIdentifyingValues(final long feedId) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getItemIdentifyingValuesCursor(feedId)) {
+            Set<String> result = new HashSet<>(cursor.getCount() * 2);
+            while (cursor.moveToNext()) {
+                FeedItem item = new FeedItem(0, cursor.getString(1), cursor.getString(0),
+                        cursor.getString(3), null, FeedItem.UNPLAYED, null);
+                if (!cursor.isNull(2)) {
+                    item.setMedia(new FeedMedia(item, cursor.getString(2), 0, null));
+                }
+                result.add(item.getIdentifyingValue());
+            }
+            return result;
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Returns the publishing date of the most recent FeedItem of a Feed or null if the Feed
+     * has no items.
+     *
+     * @param feedId The ID of the Feed
+     */
+    @Nullable
+    public static Date getMostRecentPubDate(final long feedId) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getMostRecentPubDateCursor(feedId)) {
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                return new Date(cursor.getLong(0));
+            }
+            return null;
+        } finally {
+            adapter.close();
+        }
+    }
+
     @Nullable
     private static FeedItem getFeedItem(final long itemId, PodDBAdapter adapter) {
         Log.d(TAG, "Loading feeditem with id " + itemId);
@@ -621,15 +885,12 @@ public final class DBReader {
         FeedItem item = null;
         Cursor cursor = null;
         try {
-            cursor = adapter.getFeedItemCursor(Long.toString(itemId));
-            if (cursor.moveToNext()) {
-                List<FeedItem> list = extractItemlistFromCursor(adapter, cursor);
-                if (!list.isEmpty()) {
-                    item = list.get(0);
-                    loadAdditionalFeedItemListData(list);
-                    if (item.hasChapters()) {
-                        loadChaptersOfFeedItem(adapter, item);
-                    }
+            cursor = adapter.getFeedItemListCursor(new String[]{Long.toString(itemId)});
+            List<FeedItem> list = extractJoinedItemlistFromCursor(cursor);
+            if (!list.isEmpty()) {
+                item = list.get(0);
+                if (item.hasChapters()) {
+                    loadChaptersOfFeedItem(adapter, item);
                 }
             }
             return item;
@@ -749,6 +1010,51 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads the FeedItems for several pairs of feed and episode URLs with as few queries as possible.
+     *
+     * @param urls Pairs of the download URL of a feed and the download URL of an episode's media.
+     * @return The FeedItems that could be found, by their pair of URLs. The FeedItems have their
+     * feed and media loaded, but no chapters.
+     */
+    @NonNull
+    public static Map<Pair<String, String>, FeedItem> getFeedItemsByUrl(Collection<Pair<String, String>> urls) {
+        Log.d(TAG, "getFeedItemsByUrl() called with " + urls.size() + " urls");
+        Map<Pair<String, String>, FeedItem> result = new HashMap<>(urls.size());
+        if (urls.isEmpty()) {
+            return result;
+        }
+        Set<Pair<String, String>> wantedUrls = new HashSet<>(urls);
+        Set<String> episodeUrls = new HashSet<>(urls.size());
+        for (Pair<String, String> url : wantedUrls) {
+            episodeUrls.add(url.second);
+        }
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getFeedItemsByEpisodeUrlCursor(episodeUrls.toArray(new String[0]))) {
+            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
+            LongObjectMap<Feed> feedIndex = new LongObjectMap<>();
+            for (Feed feed : getFeedList(adapter)) {
+                feedIndex.put(feed.getId(), feed);
+            }
+            for (FeedItem item : items) {
+                Feed feed = feedIndex.get(item.getFeedId());
+                if (feed == null || item.getMedia() == null) {
+                    continue;
+                }
+                Pair<String, String> key = new Pair<>(feed.getDownload_url(), item.getMedia().getDownload_url());
+                if (wantedUrls.contains(key)) {
+                    item.setFeed(feed);
+                    result.put(key, item);
+                }
+            }
+            return result;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Loads additional information about a FeedItem, e.g. shownotes
      *
@@ -881,47 +1187,35 @@ public final class DBReader {
 
         long totalTimeCountAll = 0;
         long totalTime = 0;
-        List<StatisticsItem> feedTime = new ArrayList<>();
+        List<Feed> feeds = getFeedList(adapter);
+        List<StatisticsItem> feedTime = new ArrayList<>(feeds.size());
 
-        List<Feed> feeds = getFeedList();
+        LongObjectMap<Feed> feedIndex = new LongObjectMap<>(feeds.size());
         for (Feed feed : feeds) {
-            long feedPlayedTimeCountAll = 0;
-            long feedPlayedTime = 0;
-            long feedTotalTime = 0;
-            long episodes = 0;
-            long episodesStarted = 0;
-            long episodesStartedIncludingMarked = 0;
-            List<FeedItem> items = getFeed(feed.getId()).getItems();
-            for (FeedItem item : items) {
-                FeedMedia media = item.getMedia();
-                if (media == null) {
+            feedIndex.put(feed.getId(), feed);
+        }
+        LongObjectMap<StatisticsItem> feedStatistics = new LongObjectMap<>(feeds.size());
+        try (Cursor cursor = adapter.getPlaybackStatisticsCursor()) {
+            while (cursor.moveToNext()) {
+                Feed feed = feedIndex.get(cursor.getLong(0));
+                if (feed == null) {
                     continue;
                 }
+                feedStatistics.put(feed.getId(), new StatisticsItem(feed, cursor.getLong(1),
+                        cursor.getLong(2), cursor.getLong(3), cursor.getLong(4),
+                        cursor.getLong(5), cursor.getLong(6)));
+            }
+        }
 
-                feedPlayedTime += media.getPlayedDuration() / 1000;
-
-                if (item.isPlayed()) {
-                    feedPlayedTimeCountAll += media.getDuration() / 1000;
-                } else {
-                    feedPlayedTimeCountAll += media.getPosition() / 1000;
-                }
-
-                if (media.getPlaybackCompletionDate() != null || media.getPlayedDuration() > 0) {
-                    episodesStarted++;
-                }
-
-                if (item.isPlayed() || media.getPosition() != 0) {
-                    episodesStartedIncludingMarked++;
-                }
-
-                feedTotalTime += media.getDuration() / 1000;
-                episodes++;
+        for (Feed feed : feeds) {
+            StatisticsItem item = feedStatistics.get(feed.getId());
+            if (item == null) {
+                // feed without media
+                item = new StatisticsItem(feed, 0, 0, 0, 0, 0, 0);
             }
-            feedTime.add(new StatisticsItem(
-                    feed, feedTotalTime, feedPlayedTime, feedPlayedTimeCountAll, episodes,
-                    episodesStarted, episodesStartedIncludingMarked));
-            totalTime += feedPlayedTime;
-            totalTimeCountAll += feedPlayedTimeCountAll;
+            feedTime.add(item);
+            totalTime += item.timePlayed;
+            totalTimeCountAll += item.timePlayedCountAll;
         }
 
         if (sortByCountAll) {
@@ -952,6 +1246,47 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads the oldest episode actions that have not been uploaded to gpodder.net yet.
+     *
+     * @param limit The maximum number of actions to load
+     */
+    @NonNull
+    public static QueuedEpisodeActions getQueuedEpisodeActions(int limit) {
+        Log.d(TAG, "getQueuedEpisodeActions() called with: " + "limit = [" + limit + "]");
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getEpisodeActionsCursor(limit)) {
+            List<GpodnetEpisodeAction> actions = new ArrayList<>(cursor.getCount());
+            long lastId = 0;
+            while (cursor.moveToNext()) {
+                lastId = cursor.getLong(0);
+                GpodnetEpisodeAction action = GpodnetEpisodeAction.readFromString(cursor.getString(1));
+                if (action != null) {
+                    actions.add(action);
+                }
+            }
+            return new QueuedEpisodeActions(actions, lastId);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    public static class QueuedEpisodeActions {
+        public final List<GpodnetEpisodeAction> actions;
+
+        /**
+         * Id of the last loaded action. Pass it to {@link DBWriter#removeEpisodeActions(long)}
+         * once the actions have been uploaded.
+         */
+        public final long lastId;
+
+        public QueuedEpisodeActions(List<GpodnetEpisodeAction> actions, long lastId) {
+            this.actions = actions;
+            this.lastId = lastId;
+        }
+    }
+
     public static class StatisticsData {
         /**
          * Simply sums up time of podcasts that are marked as played
@@ -1066,22 +1401,15 @@ public final class DBReader {
                 }
             };
         } else {
+            final LongObjectMap<Long> mostRecentPubDates = getMostRecentPubDates(adapter);
             comparator = (lhs, rhs) -> {
-                if (lhs.getItems() == null || lhs.getItems().size() == 0) {
-                    List<FeedItem> items = DBReader.getFeedItemList(lhs);
-                    lhs.setItems(items);
-                }
-                if (rhs.getItems() == null || rhs.getItems().size() == 0) {
-                    List<FeedItem> items = DBReader.getFeedItemList(rhs);
-                    rhs.setItems(items);
-                }
-                if (lhs.getMostRecentItem() == null) {
+                Long d1 = mostRecentPubDates.get(lhs.getId());
+                Long d2 = mostRecentPubDates.get(rhs.getId());
+                if (d1 == null) {
                     return 1;
-                } else if (rhs.getMostRecentItem() == null) {
+                } else if (d2 == null) {
                     return -1;
                 } else {
-                    Date d1 = lhs.getMostRecentItem().getPubDate();
-                    Date d2 = rhs.getMostRecentItem().getPubDate();
                     return d2.compareTo(d1);
                 }
             };
@@ -1098,6 +1426,17 @@ public final class DBReader {
         return result;
     }
 
+    @NonNull
+    private static LongObjectMap<Long> getMostRecentPubDates(PodDBAdapter adapter) {
+        try (Cursor cursor = adapter.getMostRecentPubDatesCursor()) {
+            LongObjectMap<Long> result = new LongObjectMap<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                result.put(cursor.getLong(0), cursor.getLong(1));
+            }
+            return result;
+        }
+    }
+
     public static class NavDrawerData {
         public final List<Feed> feeds;
         public final int queueSize;
@@ -1120,4 +1459,30 @@ public final class DBReader {
             this.reclaimableSpace = reclaimableSpace;
         }
     }
+
+    /**
+     * The fields of an episode that are needed to list it, e.g. in the media browser.
+     */
+    public static class EpisodeSummary {
+        public final long mediaId;
+        public final String title;
+        /**
+         * The image of the episode or, if the episode has none, the image of its feed.
+         */
+        @Nullable
+        public final String imageUrl;
+        /**
+         * The ID of the FeedItem. Together with the pubDate, it is the key of the next page.
+         */
+        public final long itemId;
+        public final long pubDate;
+
+        public EpisodeSummary(long mediaId, String title, @Nullable String imageUrl, long itemId, long pubDate) {
+            this.mediaId = mediaId;
+            this.title = title;
+            this.imageUrl = imageUrl;
+            this.itemId = itemId;
+            this.pubDate = pubDate;
+        }
+    }
 }
@@ -4,7 +4,6 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.os.Looper;
-import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -12,14 +11,15 @@ import androidx.annotation.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import de.danoeh.antennapod.core.ClientConfig;
@@ -30,12 +30,16 @@ import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.feed.FeedPreferences;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.GpodnetSyncService;
+import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
 import de.danoeh.antennapod.core.service.playback.PlaybackService;
 import de.danoeh.antennapod.core.util.DownloadError;
 import de.danoeh.antennapod.core.util.IntentUtils;
+import de.danoeh.antennapod.core.util.LongHashSet;
 import de.danoeh.antennapod.core.util.LongList;
+import de.danoeh.antennapod.core.util.LongObjectMap;
 import de.danoeh.antennapod.core.util.comparator.FeedItemPubdateComparator;
+import de.danoeh.antennapod.core.util.download.FeedRefreshSchedule;
 import de.danoeh.antennapod.core.util.exception.MediaFileNotFoundException;
 import de.danoeh.antennapod.core.util.playback.PlaybackServiceStarter;
 import org.greenrobot.eventbus.EventBus;
@@ -157,6 +161,34 @@ public final class DBTasks {
      * @param context  Might be used for accessing the database
      */
     public static void refreshAllFeeds(final Context context) {
+        refreshAllFeeds(context, false);
+    }
+
+    /**
+     * Refreshes all feeds.
+     * It must not be from the main thread.
+     * This method might ignore subsequent calls if it is still
+     * enqueuing Feeds for download from a previous call
+     *
+     * @param context         Might be used for accessing the database
+     * @param initiatedByUser True if the user has asked for the refresh, e.g. with pull-to-refresh.
+     *                        The feeds are then downloaded before automatic downloads.
+     */
+    public static void refreshAllFeeds(final Context context, boolean initiatedByUser) {
+        refreshAllFeeds(context, false, initiatedByUser);
+    }
+
+    /**
+     * Refreshes the feeds that are due according to their {@link FeedRefreshSchedule}.
+     * It must not be from the main thread.
+     *
+     * @param context  Might be used for accessing the database
+     */
+    public static void refreshDueFeeds(final Context context) {
+        refreshAllFeeds(context, true, false);
+    }
+
+    private static void refreshAllFeeds(final Context context, boolean onlyDue, boolean initiatedByUser) {
         if (!isRefreshing.compareAndSet(false, true)) {
             Log.d(TAG, "Ignoring request to refresh all feeds: Refresh lock is locked");
             return;
@@ -166,7 +198,11 @@ public final class DBTasks {
             throw new IllegalStateException("DBTasks.refreshAllFeeds() must not be called from the main thread.");
         }
 
-        refreshFeeds(context, DBReader.getFeedList());
+        List<Feed> feeds = DBReader.getFeedList();
+        if (onlyDue) {
+            feeds = getDueFeeds(feeds);
+        }
+        refreshFeeds(context, feeds, initiatedByUser);
         isRefreshing.set(false);
 
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, MODE_PRIVATE);
@@ -181,12 +217,44 @@ public final class DBTasks {
         // See Issue #2577 for the details of the rationale
     }
 
+    /**
+     * Returns the feeds that the automatic refresh should check and counts the skipped refresh
+     * of all other feeds.
+     */
+    private static List<Feed> getDueFeeds(List<Feed> feeds) {
+        long minInterval = UserPreferences.isAutoUpdateTimeOfDay()
+                ? TimeUnit.DAYS.toMillis(1) : UserPreferences.getUpdateInterval();
+        long now = System.currentTimeMillis();
+        LongObjectMap<LongList> pubDates = DBReader.getRecentPubDates(now - FeedRefreshSchedule.PUB_DATE_PERIOD,
+                FeedRefreshSchedule.MAX_PUB_DATES);
+        List<Feed> dueFeeds = new ArrayList<>();
+        LongList skippedFeedIds = new LongList();
+        for (Feed feed : feeds) {
+            if (!feed.getPreferences().getKeepUpdated()) {
+                continue;
+            }
+            LongList feedPubDates = pubDates.get(feed.getId());
+            if (feed.hasLastUpdateFailed() || FeedRefreshSchedule.isDue(feed.getLastRefresh(),
+                    feedPubDates != null ? feedPubDates.toArray() : new long[0],
+                    feed.getRefreshCount(), feed.getNotModifiedCount(), minInterval, now)) {
+                dueFeeds.add(feed);
+            } else {
+                skippedFeedIds.add(feed.getId());
+            }
+        }
+        Log.d(TAG, "Refreshing " + dueFeeds.size() + " feeds, skipping " + skippedFeedIds.size()
+                + " feeds that are not due");
+        DBWriter.addSkippedFeedRefreshes(skippedFeedIds.toArray());
+        return dueFeeds;
+    }
+
     /**
      * @param context
      * @param feedList the list of feeds to refresh
+     * @param initiatedByUser True if the user has asked for the refresh
      */
     private static void refreshFeeds(final Context context,
-                                     final List<Feed> feedList) {
+                                     final List<Feed> feedList, boolean initiatedByUser) {
 
         for (Feed feed : feedList) {
             FeedPreferences prefs = feed.getPreferences();
@@ -194,7 +262,7 @@ public final class DBTasks {
             // directly from the FeedActivity
             if (prefs.getKeepUpdated()) {
                 try {
-                    refreshFeed(context, feed);
+                    refreshFeed(context, feed, initiatedByUser);
                 } catch (DownloadRequestException e) {
                     e.printStackTrace();
                     DBWriter.addDownloadStatus(
@@ -218,7 +286,7 @@ public final class DBTasks {
      */
     public static void forceRefreshCompleteFeed(final Context context, final Feed feed) {
         try {
-            refreshFeed(context, feed, true, true);
+            refreshFeed(context, feed, true, true, true);
         } catch (DownloadRequestException e) {
             e.printStackTrace();
             DBWriter.addDownloadStatus(
@@ -256,13 +324,14 @@ public final class DBTasks {
      * Refresh a specific Feed. The refresh may get canceled if the feed does not seem to be modified
      * and the last update was only few days ago.
      *
-     * @param context Used for requesting the download.
-     * @param feed    The Feed object.
+     * @param context         Used for requesting the download.
+     * @param feed            The Feed object.
+     * @param initiatedByUser True if the user has asked for the refresh
      */
-    private static void refreshFeed(Context context, Feed feed)
+    private static void refreshFeed(Context context, Feed feed, boolean initiatedByUser)
             throws DownloadRequestException {
         Log.d(TAG, "refreshFeed(feed.id: " + feed.getId() +")");
-        refreshFeed(context, feed, false, false);
+        refreshFeed(context, feed, false, false, initiatedByUser);
     }
 
     /**
@@ -274,11 +343,11 @@ public final class DBTasks {
     public static void forceRefreshFeed(Context context, Feed feed)
             throws DownloadRequestException {
         Log.d(TAG, "refreshFeed(feed.id: " + feed.getId() +")");
-        refreshFeed(context, feed, false, true);
+        refreshFeed(context, feed, false, true, true);
     }
 
-    private static void refreshFeed(Context context, Feed feed, boolean loadAllPages, boolean force)
-            throws DownloadRequestException {
+    private static void refreshFeed(Context context, Feed feed, boolean loadAllPages, boolean force,
+                                    boolean initiatedByUser) throws DownloadRequestException {
         Feed f;
         String lastUpdate = feed.hasLastUpdateFailed() ? null : feed.getLastUpdate();
         if (feed.getPreferences() == null) {
@@ -288,7 +357,11 @@ public final class DBTasks {
                     feed.getPreferences().getUsername(), feed.getPreferences().getPassword());
         }
         f.setId(feed.getId());
-        DownloadRequester.getInstance().downloadFeed(context, f, loadAllPages, force);
+        if (!feed.hasLastUpdateFailed()) {
+            f.setEtag(feed.getEtag());
+            f.setContentHash(feed.getContentHash());
+        }
+        DownloadRequester.getInstance().downloadFeed(context, f, loadAllPages, force, initiatedByUser);
     }
 
     /**
@@ -313,10 +386,14 @@ public final class DBTasks {
      */
     public static void downloadFeedItems(final Context context,
                                          FeedItem... items) throws DownloadRequestException {
-        downloadFeedItems(true, context, items);
+        downloadFeedItems(true, true, context, items);
     }
 
-    static void downloadFeedItems(boolean performAutoCleanup,
+    /**
+     * @param initiatedByUser True if the user has asked for the downloads. They are then started before
+     *                        automatic downloads.
+     */
+    static void downloadFeedItems(boolean performAutoCleanup, boolean initiatedByUser,
                                   final Context context, final FeedItem... items)
             throws DownloadRequestException {
         final DownloadRequester requester = DownloadRequester.getInstance();
@@ -347,7 +424,7 @@ public final class DBTasks {
                     && !item.getMedia().isDownloaded()) {
                 if (items.length > 1) {
                     try {
-                        requester.downloadMedia(context, item.getMedia());
+                        requester.downloadMedia(context, item.getMedia(), initiatedByUser);
                     } catch (DownloadRequestException e) {
                         e.printStackTrace();
                         DBWriter.addDownloadStatus(
@@ -360,7 +437,7 @@ public final class DBTasks {
                         );
                     }
                 } else {
-                    requester.downloadMedia(context, item.getMedia());
+                    requester.downloadMedia(context, item.getMedia(), initiatedByUser);
                 }
             }
         }
@@ -372,7 +449,7 @@ public final class DBTasks {
             throws InterruptedException, ExecutionException {
         List<FeedItem> itemsToEnqueue = new ArrayList<>();
         if (UserPreferences.enqueueDownloadedEpisodes()) {
-            LongList queueIDList = DBReader.getQueueIDList();
+            LongHashSet queueIDList = LongHashSet.of(DBReader.getQueueIDList());
             for (FeedItem item : items) {
                 if (!queueIDList.contains(item.getId())) {
                     itemsToEnqueue.add(item);
@@ -462,40 +539,43 @@ public final class DBTasks {
             List<Feed> feeds = DBReader.getFeedList();
             for (Feed f : feeds) {
                 if (f.getIdentifyingValue().equals(feed.getIdentifyingValue())) {
-                    f.setItems(DBReader.getFeedItemList(f));
-                    return f;
+                    // the feeds of the list are shared, so load a separate copy to be updated
+                    return DBReader.getFeed(f.getId(), adapter);
                 }
             }
         }
         return null;
     }
 
-    /**
-     * Get a FeedItem by its identifying value.
-     */
-    private static FeedItem searchFeedItemByIdentifyingValue(Feed feed, String identifier) {
-        for (FeedItem item : feed.getItems()) {
-            if (TextUtils.equals(item.getIdentifyingValue(), identifier)) {
-                return item;
-            }
-        }
-        return null;
-    }
-
     /**
      * Adds new Feeds to the database or updates the old versions if they already exists. If another Feed with the same
      * identifying value already exists, this method will add new FeedItems from the new Feed to the existing Feed.
      * These FeedItems will be marked as unread with the exception of the most recent FeedItem.
      * <p/>
-     * This method can update multiple feeds at once. Submitting a feed twice in the same method call can result in undefined behavior.
+     * This method can update multiple feeds at once. All feeds are saved in a single transaction and a single
+     * FeedListUpdateEvent is posted for them. If that transaction fails, the feeds are saved one by one, so that
+     * only the feeds that cannot be saved are lost. Submitting a feed twice in the same method call can result in
+     * undefined behavior.
      * <p/>
      * This method should NOT be executed on the GUI thread.
      *
      * @param context  Used for accessing the DB.
      * @param newFeeds The new Feed objects.
      * @return The updated Feeds from the database if it already existed, or the new Feed from the parameters otherwise.
+     * The entries of feeds that could not be saved are null.
+     */
+    public static Feed[] updateFeed(final Context context, final Feed... newFeeds) {
+        return updateFeed(context, Collections.emptyList(), newFeeds);
+    }
+
+    /**
+     * Like {@link #updateFeed(Context, Feed...)}, but also records the refreshes of feeds that have not been
+     * modified since their last download in the same transaction.
+     *
+     * @param notModifiedRequests The download requests of feeds that have not been modified.
      */
     public static synchronized Feed[] updateFeed(final Context context,
+                                                 final List<DownloadRequest> notModifiedRequests,
                                                  final Feed... newFeeds) {
         List<Feed> newFeedsList = new ArrayList<>();
         List<Feed> updatedFeedsList = new ArrayList<>();
@@ -551,33 +631,17 @@ public final class DBTasks {
                 }
 
                 // Look for new or updated Items
-                for (int idx = 0; idx < newFeed.getItems().size(); idx++) {
-                    final FeedItem item = newFeed.getItems().get(idx);
-                    FeedItem oldItem = searchFeedItemByIdentifyingValue(savedFeed,
-                            item.getIdentifyingValue());
-                    if (oldItem == null) {
-                        // item is new
-                        item.setFeed(savedFeed);
-                        item.setAutoDownload(savedFeed.getPreferences().getAutoDownload());
-                        savedFeed.getItems().add(idx, item);
-
-                        // only mark the item new if it was published after or at the same time
-                        // as the most recent item
-                        // (if the most recent date is null then we can assume there are no items
-                        // and this is the first, hence 'new')
-                        if (priorMostRecentDate == null ||
-                                priorMostRecentDate.before(item.getPubDate()) ||
-                                priorMostRecentDate.equals(item.getPubDate())) {
-                            Log.d(TAG, "Marking item published on " + item.getPubDate() +
-                                    " new, prior most recent date = " + priorMostRecentDate);
-                            item.setNew();
-                        }
-                    } else {
-                        oldItem.updateFromOther(item);
-                    }
-                }
+                FeedItemReconciler reconciler = new FeedItemReconciler(savedFeed);
+                reconciler.reconcile(newFeed.getItems(), priorMostRecentDate);
+                Log.d(TAG, "Refreshed feed " + savedFeed.getId() + ": " + reconciler.getNewItems().size()
+                        + " new, " + reconciler.getChangedItems().size() + " changed, "
+                        + reconciler.getNumUnchangedItems() + " unchanged, "
+                        + reconciler.getNumTouchedItems() + " items touched");
+
                 // update attributes
                 savedFeed.setLastUpdate(newFeed.getLastUpdate());
+                savedFeed.setEtag(newFeed.getEtag());
+                savedFeed.setContentHash(newFeed.getContentHash());
                 savedFeed.setType(newFeed.getType());
                 savedFeed.setLastUpdateFailed(false);
 
@@ -589,185 +653,65 @@ public final class DBTasks {
         adapter.close();
 
         try {
-            DBWriter.addNewFeed(context, newFeedsList.toArray(new Feed[0])).get();
-            DBWriter.setCompleteFeed(updatedFeedsList.toArray(new Feed[0])).get();
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-        }
-
-        EventBus.getDefault().post(new FeedListUpdateEvent(updatedFeedsList));
-
-        return resultFeeds;
-    }
-
-    /**
-     * Searches the titles of FeedItems of a specific Feed for a given
-     * string.
-     *
-     * @param context Used for accessing the DB.
-     * @param feedID  The id of the feed whose items should be searched.
-     * @param query   The search string.
-     * @return A FutureTask object that executes the search request and returns the search result as a List of FeedItems.
-     */
-    public static FutureTask<List<FeedItem>> searchFeedItemTitle(final Context context,
-                                                                 final long feedID, final String query) {
-        return new FutureTask<>(new QueryTask<List<FeedItem>>(context) {
-            @Override
-            public void execute(PodDBAdapter adapter) {
-                Cursor searchResult = adapter.searchItemTitles(feedID,
-                        query);
-                List<FeedItem> items = DBReader.extractItemlistFromCursor(searchResult);
-                DBReader.loadAdditionalFeedItemListData(items);
-                setResult(items);
-                searchResult.close();
-            }
-        });
-    }
-
-    /**
-     * Searches the authors of FeedItems of a specific Feed for a given
-     * string.
-     *
-     * @param context Used for accessing the DB.
-     * @param feedID  The id of the feed whose items should be searched.
-     * @param query   The search string.
-     * @return A FutureTask object that executes the search request and returns the search result as a List of FeedItems.
-     */
-    public static FutureTask<List<FeedItem>> searchFeedItemAuthor(final Context context,
-                                                                 final long feedID, final String query) {
-        return new FutureTask<>(new QueryTask<List<FeedItem>>(context) {
-            @Override
-            public void execute(PodDBAdapter adapter) {
-                Cursor searchResult = adapter.searchItemAuthors(feedID,
-                        query);
-                List<FeedItem> items = DBReader.extractItemlistFromCursor(searchResult);
-                DBReader.loadAdditionalFeedItemListData(items);
-                setResult(items);
-                searchResult.close();
+            int rowsWritten = DBWriter.setFeedDelta(context, newFeedsList, updatedFeedsList,
+                    notModifiedRequests).get();
+            Log.d(TAG, "Wrote " + rowsWritten + " rows for " + newFeedsList.size() + " new and "
+                    + updatedFeedsList.size() + " refreshed feeds");
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Interrupted while saving feeds", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Saving " + (newFeedsList.size() + updatedFeedsList.size())
+                    + " feeds in one transaction failed, saving them one by one", e);
+            // Feed.equals compares IDs, which new feeds do not have yet
+            Set<Feed> failedFeeds = Collections.newSetFromMap(new IdentityHashMap<>());
+            if (!notModifiedRequests.isEmpty()) {
+                saveFeedDelta(context, Collections.emptyList(), Collections.emptyList(), notModifiedRequests);
             }
-        });
-    }
-
-    /**
-     * Searches the feed identifiers of FeedItems of a specific Feed for a given
-     * string.
-     *
-     * @param context Used for accessing the DB.
-     * @param feedID  The id of the feed whose items should be searched.
-     * @param query   The search string.
-     * @return A FutureTask object that executes the search request and returns the search result as a List of FeedItems.
-     */
-    public static FutureTask<List<FeedItem>> searchFeedItemFeedIdentifier(final Context context,
-                                                                 final long feedID, final String query) {
-        return new FutureTask<>(new QueryTask<List<FeedItem>>(context) {
-            @Override
-            public void execute(PodDBAdapter adapter) {
-                Cursor searchResult = adapter.searchItemFeedIdentifiers(feedID,
-                        query);
-                List<FeedItem> items = DBReader.extractItemlistFromCursor(searchResult);
-                DBReader.loadAdditionalFeedItemListData(items);
-                setResult(items);
-                searchResult.close();
+            for (Feed feed : newFeedsList) {
+                if (!saveFeedDelta(context, Collections.singletonList(feed), Collections.emptyList(),
+                        Collections.emptyList())) {
+                    failedFeeds.add(feed);
+                }
             }
-        });
-    }
-
-    /**
-     * Searches the descriptions of FeedItems of a specific Feed for a given
-     * string.
-     *
-     * @param context Used for accessing the DB.
-     * @param feedID  The id of the feed whose items should be searched.
-     * @param query   The search string
-     * @return A FutureTask object that executes the search request and returns the search result as a List of FeedItems.
-     */
-    public static FutureTask<List<FeedItem>> searchFeedItemDescription(final Context context,
-                                                                       final long feedID, final String query) {
-        return new FutureTask<>(new QueryTask<List<FeedItem>>(context) {
-            @Override
-            public void execute(PodDBAdapter adapter) {
-                Cursor searchResult = adapter.searchItemDescriptions(feedID,
-                        query);
-                List<FeedItem> items = DBReader.extractItemlistFromCursor(searchResult);
-                DBReader.loadAdditionalFeedItemListData(items);
-                setResult(items);
-                searchResult.close();
+            for (Feed feed : updatedFeedsList) {
+                if (!saveFeedDelta(context, Collections.emptyList(), Collections.singletonList(feed),
+                        Collections.emptyList())) {
+                    failedFeeds.add(feed);
+                }
             }
-        });
-    }
-
-    /**
-     * Searches the contentEncoded-value of FeedItems of a specific Feed for a given
-     * string.
-     *
-     * @param context Used for accessing the DB.
-     * @param feedID  The id of the feed whose items should be searched.
-     * @param query   The search string
-     * @return A FutureTask object that executes the search request and returns the search result as a List of FeedItems.
-     */
-    public static FutureTask<List<FeedItem>> searchFeedItemContentEncoded(final Context context,
-                                                                          final long feedID, final String query) {
-        return new FutureTask<>(new QueryTask<List<FeedItem>>(context) {
-            @Override
-            public void execute(PodDBAdapter adapter) {
-                Cursor searchResult = adapter.searchItemContentEncoded(feedID,
-                        query);
-                List<FeedItem> items = DBReader.extractItemlistFromCursor(searchResult);
-                DBReader.loadAdditionalFeedItemListData(items);
-                setResult(items);
-                searchResult.close();
+            for (int feedIdx = 0; feedIdx < resultFeeds.length; feedIdx++) {
+                if (failedFeeds.contains(resultFeeds[feedIdx])) {
+                    resultFeeds[feedIdx] = null;
+                }
             }
-        });
-    }
-
-    /**
-     * Searches chapters of the FeedItems of a specific Feed for a given string.
-     *
-     * @param context Used for accessing the DB.
-     * @param feedID  The id of the feed whose items should be searched.
-     * @param query   The search string
-     * @return A FutureTask object that executes the search request and returns the search result as a List of FeedItems.
-     */
-    public static FutureTask<List<FeedItem>> searchFeedItemChapters(final Context context,
-                                                                    final long feedID, final String query) {
-        return new FutureTask<>(new QueryTask<List<FeedItem>>(context) {
-            @Override
-            public void execute(PodDBAdapter adapter) {
-                Cursor searchResult = adapter.searchItemChapters(feedID,
-                        query);
-                List<FeedItem> items = DBReader.extractItemlistFromCursor(searchResult);
-                DBReader.loadAdditionalFeedItemListData(items);
-                setResult(items);
-                searchResult.close();
+            for (Iterator<Feed> iterator = updatedFeedsList.iterator(); iterator.hasNext(); ) {
+                if (failedFeeds.contains(iterator.next())) {
+                    iterator.remove();
+                }
             }
-        });
-    }
-
-    /**
-     * A runnable which should be used for database queries. The onCompletion
-     * method is executed on the database executor to handle Cursors correctly.
-     * This class automatically creates a PodDBAdapter object and closes it when
-     * it is no longer in use.
-     */
-    abstract static class QueryTask<T> implements Callable<T> {
-        private T result;
-
-        public QueryTask(Context context) {
         }
 
-        @Override
-        public T call() throws Exception {
-            PodDBAdapter adapter = PodDBAdapter.getInstance();
-            adapter.open();
-            execute(adapter);
-            adapter.close();
-            return result;
+        if (newFeeds.length > 0) {
+            EventBus.getDefault().post(new FeedListUpdateEvent(updatedFeedsList));
         }
 
-        public abstract void execute(PodDBAdapter adapter);
+        return resultFeeds;
+    }
 
-        void setResult(T result) {
-            this.result = result;
+    /**
+     * Saves the given feeds in their own transaction.
+     *
+     * @return true if the feeds have been saved
+     */
+    private static boolean saveFeedDelta(Context context, List<Feed> newFeeds, List<Feed> updatedFeeds,
+                                         List<DownloadRequest> notModifiedRequests) {
+        try {
+            DBWriter.setFeedDelta(context, newFeeds, updatedFeeds, notModifiedRequests).get();
+            return true;
+        } catch (InterruptedException | ExecutionException e) {
+            Log.e(TAG, "Saving feed failed", e);
+            return false;
         }
     }
 }
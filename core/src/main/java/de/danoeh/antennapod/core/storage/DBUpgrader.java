@@ -299,6 +299,78 @@ class DBUpgrader {
             db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
                     + " ADD COLUMN " + PodDBAdapter.KEY_SORT_ORDER + " TEXT");
         }
+        if (oldVersion < 1070402) {
+            db.execSQL(PodDBAdapter.CREATE_TABLE_FEED_ITEMS_SEARCH);
+            for (String trigger : PodDBAdapter.CREATE_TRIGGERS_FEED_ITEMS_SEARCH) {
+                db.execSQL(trigger);
+            }
+            db.execSQL(PodDBAdapter.POPULATE_FEED_ITEMS_SEARCH);
+        }
+        if (oldVersion < 1070403) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_ETAG + " TEXT");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_CONTENT_HASH + " TEXT");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_REFRESH_COUNT + " INTEGER DEFAULT 0");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_NOT_MODIFIED_COUNT + " INTEGER DEFAULT 0");
+            // ETags used to be stored in the last update column. Unlike dates, they are quoted strings
+            db.execSQL("UPDATE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " SET " + PodDBAdapter.KEY_ETAG + "=" + PodDBAdapter.KEY_LASTUPDATE
+                    + ", " + PodDBAdapter.KEY_LASTUPDATE + "=NULL"
+                    + " WHERE " + PodDBAdapter.KEY_LASTUPDATE + " LIKE '\"%'"
+                    + " OR " + PodDBAdapter.KEY_LASTUPDATE + " LIKE 'W/\"%'");
+        }
+        if (oldVersion < 1070404) {
+            // Queue ids were 0..n-1. Spread them out so that single items can be inserted
+            // between two rows. Negating first avoids primary key collisions while updating.
+            db.execSQL("UPDATE " + PodDBAdapter.TABLE_NAME_QUEUE
+                    + " SET " + PodDBAdapter.KEY_ID + "=-1-" + PodDBAdapter.KEY_ID);
+            db.execSQL("UPDATE " + PodDBAdapter.TABLE_NAME_QUEUE
+                    + " SET " + PodDBAdapter.KEY_ID + "=-" + PodDBAdapter.KEY_ID
+                    + "*" + PodDBAdapter.QUEUE_POSITION_GAP);
+        }
+        if (oldVersion < 1070405) {
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDMEDIA_DOWNLOAD_URL);
+        }
+        if (oldVersion < 1070406) {
+            db.execSQL(PodDBAdapter.CREATE_TABLE_EPISODE_ACTIONS);
+            db.execSQL(PodDBAdapter.CREATE_INDEX_EPISODE_ACTIONS_EPISODE);
+        }
+        if (oldVersion < 1070407) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_LAST_REFRESH + " INTEGER DEFAULT 0");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_SKIPPED_REFRESH_COUNT + " INTEGER DEFAULT 0");
+        }
+        if (oldVersion < 1070408) {
+            // The download URL index now also contains the item, so lookups do not need the table
+            db.execSQL("DROP INDEX IF EXISTS " + PodDBAdapter.TABLE_NAME_FEED_MEDIA
+                    + "_" + PodDBAdapter.KEY_DOWNLOAD_URL);
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDMEDIA_DOWNLOAD_URL);
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDMEDIA_DOWNLOADED);
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDMEDIA_PLAYBACK_COMPLETION_DATE);
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDITEMS_IMAGE_URL);
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDS_IMAGE_URL);
+            db.execSQL(PodDBAdapter.CREATE_INDEX_DOWNLOAD_LOG_FEEDFILE);
+        }
+        if (oldVersion < 1070409) {
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FAVORITES_FEEDITEM);
+        }
+        if (oldVersion < 1070410) {
+            for (String trigger : PodDBAdapter.OBSOLETE_TRIGGERS_SIMPLECHAPTERS_SEARCH) {
+                db.execSQL("DROP TRIGGER IF EXISTS " + trigger);
+            }
+        }
+        if (oldVersion < 1070411) {
+            // the hashes of unchanged items are filled in when their feed is refreshed the next time,
+            // see FeedItem#updateFromOther
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_DESCRIPTION_HASH + " INTEGER");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_CONTENT_ENCODED_HASH + " INTEGER");
+        }
     }
 
 }
@@ -38,10 +38,14 @@ import de.danoeh.antennapod.core.gpoddernet.model.GpodnetEpisodeAction;
 import de.danoeh.antennapod.core.preferences.GpodnetPreferences;
 import de.danoeh.antennapod.core.preferences.PlaybackPreferences;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
+import de.danoeh.antennapod.core.preferences.UserPreferences.EnqueueLocation;
+import de.danoeh.antennapod.core.service.GpodnetSyncService;
+import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
 import de.danoeh.antennapod.core.service.playback.PlaybackService;
 import de.danoeh.antennapod.core.util.FeedItemPermutors;
 import de.danoeh.antennapod.core.util.IntentUtils;
+import de.danoeh.antennapod.core.util.LongHashSet;
 import de.danoeh.antennapod.core.util.LongList;
 import de.danoeh.antennapod.core.util.Permutor;
 import de.danoeh.antennapod.core.util.SortOrder;
@@ -144,14 +148,14 @@ public class DBWriter {
 
             if (feed != null) {
                 // delete stored media files and mark them as read
-                List<FeedItem> queue = DBReader.getQueue();
+                LongHashSet queueIds = LongHashSet.of(DBReader.getQueueIDList());
                 List<FeedItem> removed = new ArrayList<>();
                 if (feed.getItems() == null) {
                     DBReader.getFeedItemList(feed);
                 }
 
                 for (FeedItem item : feed.getItems()) {
-                    if (queue.remove(item)) {
+                    if (queueIds.contains(item.getId())) {
                         removed.add(item);
                     }
                     if (item.getMedia() != null && item.getMedia().isDownloaded()) {
@@ -163,7 +167,11 @@ public class DBWriter {
                 PodDBAdapter adapter = PodDBAdapter.getInstance();
                 adapter.open();
                 if (removed.size() > 0) {
-                    adapter.setQueue(queue);
+                    LongList removedIds = new LongList(removed.size());
+                    for (FeedItem item : removed) {
+                        removedIds.add(item.getId());
+                    }
+                    adapter.removeQueueItems(removedIds.toArray());
                     for (FeedItem item : removed) {
                         EventBus.getDefault().post(QueueEvent.irreversibleRemoved(item));
                     }
@@ -266,21 +274,22 @@ public class DBWriter {
         return dbExec.submit(() -> {
             final PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            final List<FeedItem> queue = DBReader.getQueue(adapter);
-            FeedItem item;
+            final LongList queueIds = DBReader.getQueueIDList(adapter);
 
-            if (queue != null) {
-                if (!itemListContains(queue, itemId)) {
-                    item = DBReader.getFeedItem(itemId);
-                    if (item != null) {
-                        queue.add(index, item);
-                        adapter.setQueue(queue);
-                        item.addTag(FeedItem.TAG_QUEUE);
-                        EventBus.getDefault().post(QueueEvent.added(item, index));
-                        EventBus.getDefault().post(FeedItemEvent.updated(item));
-                        if (item.isNew()) {
-                            DBWriter.markItemPlayed(FeedItem.UNPLAYED, item.getId());
-                        }
+            if (!queueIds.contains(itemId)) {
+                if (index < 0 || index > queueIds.size()) {
+                    adapter.close();
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + queueIds.size());
+                }
+                FeedItem item = DBReader.getFeedItem(itemId);
+                if (item != null) {
+                    long previousItemId = index > 0 ? queueIds.get(index - 1) : 0;
+                    adapter.addQueueItems(previousItemId, Collections.singletonList(item));
+                    item.addTag(FeedItem.TAG_QUEUE);
+                    EventBus.getDefault().post(QueueEvent.added(item, index));
+                    EventBus.getDefault().post(FeedItemEvent.updated(item));
+                    if (item.isNew()) {
+                        DBWriter.markItemPlayed(FeedItem.UNPLAYED, item.getId());
                     }
                 }
             }
@@ -321,26 +330,38 @@ public class DBWriter {
 
             final PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            final List<FeedItem> queue = DBReader.getQueue(adapter);
+            final LongList queueIdList = DBReader.getQueueIDList(adapter);
+            final LongHashSet queueIds = LongHashSet.of(queueIdList);
+            EnqueueLocation enqueueLocation = UserPreferences.getEnqueueLocation();
+
+            // The complete queue is only needed to sort it or to find the position of the
+            // currently playing or downloading items
+            List<FeedItem> queue = null;
+            int insertPosition = queueIds.size();
+            if (UserPreferences.isQueueKeepSorted() || enqueueLocation != EnqueueLocation.BACK) {
+                queue = DBReader.getQueue(adapter);
+                ItemEnqueuePositionCalculator positionCalculator =
+                        new ItemEnqueuePositionCalculator(enqueueLocation);
+                Playable currentlyPlaying = Playable.PlayableUtils.createInstanceFromPreferences(context);
+                insertPosition = positionCalculator.calcPosition(queue, currentlyPlaying);
+            }
 
-            boolean queueModified = false;
+            final int firstInsertPosition = insertPosition;
             LongList markAsUnplayedIds = new LongList();
             List<QueueEvent> events = new ArrayList<>();
             List<FeedItem> updatedItems = new ArrayList<>();
-            ItemEnqueuePositionCalculator positionCalculator =
-                    new ItemEnqueuePositionCalculator(UserPreferences.getEnqueueLocation());
-            Playable currentlyPlaying = Playable.PlayableUtils.createInstanceFromPreferences(context);
-            int insertPosition = positionCalculator.calcPosition(queue, currentlyPlaying);
             for (long itemId : itemIds) {
-                if (!itemListContains(queue, itemId)) {
+                if (!queueIds.contains(itemId)) {
                     final FeedItem item = DBReader.getFeedItem(itemId);
                     if (item != null) {
-                        queue.add(insertPosition, item);
+                        if (queue != null) {
+                            queue.add(insertPosition, item);
+                        }
+                        queueIds.add(itemId);
                         events.add(QueueEvent.added(item, insertPosition));
 
                         item.addTag(FeedItem.TAG_QUEUE);
                         updatedItems.add(item);
-                        queueModified = true;
                         if (item.isNew()) {
                             markAsUnplayedIds.add(item.getId());
                         }
@@ -348,9 +369,13 @@ public class DBWriter {
                     }
                 }
             }
-            if (queueModified) {
-                applySortOrder(queue, events);
-                adapter.setQueue(queue);
+            if (!updatedItems.isEmpty()) {
+                if (queue != null && applySortOrder(queue, events)) {
+                    adapter.setQueue(queue);
+                } else {
+                    long previousItemId = firstInsertPosition > 0 ? queueIdList.get(firstInsertPosition - 1) : 0;
+                    adapter.addQueueItems(previousItemId, updatedItems);
+                }
                 for (QueueEvent event : events) {
                     EventBus.getDefault().post(event);
                 }
@@ -372,18 +397,19 @@ public class DBWriter {
      *
      * @param queue  The queue to be sorted.
      * @param events Replaces the events by a single SORT event if the list has to be sorted automatically.
+     * @return true if the queue has been sorted
      */
-    private static void applySortOrder(List<FeedItem> queue, List<QueueEvent> events) {
+    private static boolean applySortOrder(List<FeedItem> queue, List<QueueEvent> events) {
         if (!UserPreferences.isQueueKeepSorted()) {
             // queue is not in keep sorted mode, there's nothing to do
-            return;
+            return false;
         }
 
         // Sort queue by configured sort order
         SortOrder sortOrder = UserPreferences.getQueueKeepSortedOrder();
         if (sortOrder == SortOrder.RANDOM) {
             // do not shuffle the list on every change
-            return;
+            return false;
         }
         Permutor<FeedItem> permutor = FeedItemPermutors.getPermutor(sortOrder);
         permutor.reorder(queue);
@@ -391,6 +417,7 @@ public class DBWriter {
         // Replace ADDED events by a single SORTED event
         events.clear();
         events.add(QueueEvent.sorted(queue));
+        return true;
     }
 
     /**
@@ -432,41 +459,35 @@ public class DBWriter {
         }
         final PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        final List<FeedItem> queue = DBReader.getQueue(adapter);
-
-        if (queue != null) {
-            boolean queueModified = false;
-            List<QueueEvent> events = new ArrayList<>();
-            List<FeedItem> updatedItems = new ArrayList<>();
-            for (long itemId : itemIds) {
-                int position = indexInItemList(queue, itemId);
-                if (position >= 0) {
-                    final FeedItem item = DBReader.getFeedItem(itemId);
-                    if (item == null) {
-                        Log.e(TAG, "removeQueueItem - item in queue but somehow cannot be loaded." +
-                                " Item ignored. It should never happen. id:" + itemId);
-                        continue;
-                    }
-                    queue.remove(position);
-                    item.removeTag(FeedItem.TAG_QUEUE);
-                    events.add(QueueEvent.removed(item));
-                    updatedItems.add(item);
-                    queueModified = true;
-                } else {
-                    Log.v(TAG, "removeQueueItem - item  not in queue:" + itemId);
+        final LongHashSet queueIds = LongHashSet.of(DBReader.getQueueIDList(adapter));
+
+        LongList removedIds = new LongList();
+        List<QueueEvent> events = new ArrayList<>();
+        List<FeedItem> updatedItems = new ArrayList<>();
+        for (long itemId : itemIds) {
+            if (queueIds.contains(itemId)) {
+                final FeedItem item = DBReader.getFeedItem(itemId);
+                if (item == null) {
+                    Log.e(TAG, "removeQueueItem - item in queue but somehow cannot be loaded." +
+                            " Item ignored. It should never happen. id:" + itemId);
+                    continue;
                 }
-            }
-            if (queueModified) {
-                adapter.setQueue(queue);
-                for (QueueEvent event : events) {
-                    EventBus.getDefault().post(event);
-                }
-                EventBus.getDefault().post(FeedItemEvent.updated(updatedItems));
+                removedIds.add(itemId);
+                item.removeTag(FeedItem.TAG_QUEUE);
+                events.add(QueueEvent.removed(item));
+                updatedItems.add(item);
             } else {
-                Log.w(TAG, "Queue was not modified by call to removeQueueItem");
+                Log.v(TAG, "removeQueueItem - item  not in queue:" + itemId);
+            }
+        }
+        if (removedIds.size() > 0) {
+            adapter.removeQueueItems(removedIds.toArray());
+            for (QueueEvent event : events) {
+                EventBus.getDefault().post(event);
             }
+            EventBus.getDefault().post(FeedItemEvent.updated(updatedItems));
         } else {
-            Log.e(TAG, "removeQueueItem: Could not load queue");
+            Log.w(TAG, "Queue was not modified by call to removeQueueItem");
         }
         adapter.close();
         if (performAutoDownload) {
@@ -563,20 +584,23 @@ public class DBWriter {
                                             final int to, final boolean broadcastUpdate) {
         final PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        final List<FeedItem> queue = DBReader.getQueue(adapter);
-
-        if (queue != null) {
-            if (from >= 0 && from < queue.size() && to >= 0 && to < queue.size()) {
-                final FeedItem item = queue.remove(from);
-                queue.add(to, item);
-
-                adapter.setQueue(queue);
-                if (broadcastUpdate) {
+        final LongList queueIds = DBReader.getQueueIDList(adapter);
+
+        if (from >= 0 && from < queueIds.size() && to >= 0 && to < queueIds.size()) {
+            // the item ends up after the item that is at index 'to' once it has been removed
+            long previousItemId = 0;
+            if (to > from) {
+                previousItemId = queueIds.get(to);
+            } else if (to > 0) {
+                previousItemId = queueIds.get(to - 1);
+            }
+            adapter.moveQueueItem(queueIds.get(from), previousItemId);
+            if (broadcastUpdate) {
+                final FeedItem item = DBReader.getFeedItem(queueIds.get(from));
+                if (item != null) {
                     EventBus.getDefault().post(QueueEvent.moved(item, to));
                 }
             }
-        } else {
-            Log.e(TAG, "moveQueueItemHelper: Could not load queue");
         }
         adapter.close();
     }
@@ -705,29 +729,51 @@ public class DBWriter {
         });
     }
 
-    static Future<?> addNewFeed(final Context context, final Feed... feeds) {
+    /**
+     * Saves new and refreshed feeds in a single transaction. Of the refreshed feeds, only the items
+     * that are new or have been changed are written. The refreshes of these feeds and of the feeds
+     * that have not been modified are counted in the same transaction.
+     *
+     * @return a Future that resolves to the number of rows that have been written. It fails if the
+     * transaction has been rolled back, see {@link PodDBAdapter#setFeedDelta(List, Feed...)}.
+     */
+    static Future<Integer> setFeedDelta(final Context context, final List<Feed> newFeeds,
+                                        final List<Feed> updatedFeeds,
+                                        final List<DownloadRequest> notModifiedRequests) {
         return dbExec.submit(() -> {
-            final PodDBAdapter adapter = PodDBAdapter.getInstance();
+            List<Feed> feeds = new ArrayList<>(newFeeds);
+            feeds.addAll(updatedFeeds);
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            adapter.setCompleteFeed(feeds);
-            adapter.close();
+            int rowsWritten;
+            try {
+                rowsWritten = adapter.setFeedDelta(notModifiedRequests, feeds.toArray(new Feed[0]));
+            } finally {
+                adapter.close();
+            }
 
-            if (ClientConfig.gpodnetCallbacks.gpodnetEnabled()) {
-                for (Feed feed : feeds) {
-                    GpodnetPreferences.addAddedFeed(feed.getDownload_url());
+            if (!newFeeds.isEmpty()) {
+                if (ClientConfig.gpodnetCallbacks.gpodnetEnabled()) {
+                    for (Feed feed : newFeeds) {
+                        GpodnetPreferences.addAddedFeed(feed.getDownload_url());
+                    }
                 }
-            }
 
-            BackupManager backupManager = new BackupManager(context);
-            backupManager.dataChanged();
+                BackupManager backupManager = new BackupManager(context);
+                backupManager.dataChanged();
+            }
+            return rowsWritten;
         });
     }
 
-    static Future<?> setCompleteFeed(final Feed... feeds) {
+    /**
+     * Counts an automatic refresh that has been skipped because the feeds were not due.
+     */
+    public static Future<?> addSkippedFeedRefreshes(final long... feedIds) {
         return dbExec.submit(() -> {
             PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            adapter.setCompleteFeed(feeds);
+            adapter.incrementSkippedRefreshCount(feedIds);
             adapter.close();
         });
     }
@@ -747,6 +793,95 @@ public class DBWriter {
         });
     }
 
+    /**
+     * Applies the episode states that have been received from gpodder.net in a single transaction.
+     *
+     * @param unplayedItems  Items that should be marked as unplayed.
+     * @param updatedMedia   Media whose position has changed.
+     * @param completedMedia Media that has been played completely. Its item is marked as played and
+     *                       added to the playback history.
+     */
+    public static Future<?> setEpisodeActionStates(final List<FeedItem> unplayedItems,
+                                                   final List<FeedMedia> updatedMedia,
+                                                   final List<FeedMedia> completedMedia) {
+        return dbExec.submit(() -> {
+            Date now = new Date();
+            for (FeedMedia media : completedMedia) {
+                media.setPlaybackCompletionDate(now);
+            }
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.setEpisodeActionStates(unplayedItems, updatedMedia, completedMedia);
+            adapter.close();
+
+            if (!unplayedItems.isEmpty() || !completedMedia.isEmpty()) {
+                EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            }
+            if (!completedMedia.isEmpty()) {
+                EventBus.getDefault().post(PlaybackHistoryEvent.listUpdated());
+            }
+        });
+    }
+
+    /**
+     * Adds an episode action to the actions that will be uploaded to gpodder.net and starts
+     * a synchronization.
+     */
+    public static Future<?> addEpisodeAction(final GpodnetEpisodeAction action) {
+        return dbExec.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.addEpisodeAction(action);
+            adapter.close();
+            GpodnetSyncService.sendSyncActionsIntent(ClientConfig.applicationCallbacks.getApplicationInstance());
+        });
+    }
+
+    /**
+     * Adds several episode actions in a single transaction and starts one synchronization.
+     *
+     * @param onSaved Called on the database thread after the actions have been committed. Not called
+     *                if saving them failed.
+     */
+    public static Future<?> addEpisodeActions(final List<GpodnetEpisodeAction> actions,
+                                              @Nullable final Runnable onSaved) {
+        return dbExec.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            boolean saved = adapter.addEpisodeActions(actions);
+            adapter.close();
+            if (saved) {
+                if (onSaved != null) {
+                    onSaved.run();
+                }
+                GpodnetSyncService.sendSyncActionsIntent(ClientConfig.applicationCallbacks.getApplicationInstance());
+            }
+        });
+    }
+
+    /**
+     * Removes the episode actions that have been uploaded to gpodder.net.
+     *
+     * @param lastId The id of the last uploaded action, see {@link DBReader.QueuedEpisodeActions}
+     */
+    public static Future<?> removeEpisodeActions(final long lastId) {
+        return dbExec.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.removeEpisodeActions(lastId);
+            adapter.close();
+        });
+    }
+
+    public static Future<?> clearEpisodeActions() {
+        return dbExec.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.clearEpisodeActions();
+            adapter.close();
+        });
+    }
+
     /**
      * Saves the 'position', 'duration' and 'last played time' attributes of a FeedMedia object
      *
@@ -805,20 +940,6 @@ public class DBWriter {
         });
     }
 
-    private static boolean itemListContains(List<FeedItem> items, long itemId) {
-        return indexInItemList(items, itemId) >= 0;
-    }
-
-    private static int indexInItemList(List<FeedItem> items, long itemId) {
-        for (int i = 0; i < items.size(); i++) {
-            FeedItem item = items.get(i);
-            if (item.getId() == itemId) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
     /**
      * Saves if a feed's last update failed
      *
@@ -90,7 +90,8 @@ public class DownloadRequester implements DownloadStateProvider {
 
     private void download(Context context, FeedFile item, FeedFile container, File dest,
                           boolean overwriteIfExists, String username, String password,
-                          String lastModified, boolean deleteOnFailure, Bundle arguments) {
+                          String lastModified, String etag, String contentHash,
+                          boolean deleteOnFailure, Bundle arguments, boolean initiatedByUser) {
         final boolean partiallyDownloadedFileExists = item.getFile_url() != null && new File(item.getFile_url()).exists();
 
         Log.d(TAG, "partiallyDownloadedFileExists: " + partiallyDownloadedFileExists);
@@ -134,8 +135,11 @@ public class DownloadRequester implements DownloadStateProvider {
         DownloadRequest.Builder builder = new DownloadRequest.Builder(dest.toString(), item)
                 .withAuthentication(username, password)
                 .lastModified(lastModified)
+                .etag(etag)
+                .contentHash(contentHash)
                 .deleteOnFailure(deleteOnFailure)
-                .withArguments(arguments);
+                .withArguments(arguments)
+                .initiatedByUser(initiatedByUser);
         DownloadRequest request = builder.build();
         download(context, request);
     }
@@ -165,30 +169,52 @@ public class DownloadRequester implements DownloadStateProvider {
      * @param context The application's environment.
      * @param feed Feed to download
      * @param loadAllPages Set to true to download all pages
+     * @param initiatedByUser True if the user has asked for this feed, e.g. by refreshing it
      */
     public synchronized void downloadFeed(Context context, Feed feed, boolean loadAllPages,
-                                          boolean force)
+                                          boolean force, boolean initiatedByUser)
             throws DownloadRequestException {
         if (feedFileValid(feed)) {
             String username = (feed.getPreferences() != null) ? feed.getPreferences().getUsername() : null;
             String password = (feed.getPreferences() != null) ? feed.getPreferences().getPassword() : null;
-            String lastModified = feed.isPaged() || force ? null : feed.getLastUpdate();
+            boolean conditional = !feed.isPaged() && !force;
+            String lastModified = conditional ? feed.getLastUpdate() : null;
+            String etag = conditional ? feed.getEtag() : null;
+            String contentHash = conditional ? feed.getContentHash() : null;
 
             Bundle args = new Bundle();
             args.putInt(REQUEST_ARG_PAGE_NR, feed.getPageNr());
             args.putBoolean(REQUEST_ARG_LOAD_ALL_PAGES, loadAllPages);
 
             download(context, feed, null, new File(getFeedfilePath(), getFeedfileName(feed)),
-                    true, username, password, lastModified, true, args);
+                    true, username, password, lastModified, etag, contentHash, true, args,
+                    initiatedByUser);
         }
     }
 
+    public synchronized void downloadFeed(Context context, Feed feed, boolean loadAllPages,
+                                          boolean force)
+            throws DownloadRequestException {
+        downloadFeed(context, feed, loadAllPages, force, false);
+    }
+
     public synchronized void downloadFeed(Context context, Feed feed) throws DownloadRequestException {
         downloadFeed(context, feed, false, false);
     }
 
     public synchronized void downloadMedia(Context context, FeedMedia feedmedia)
             throws DownloadRequestException {
+        downloadMedia(context, feedmedia, true);
+    }
+
+    /**
+     * Downloads a media file
+     *
+     * @param initiatedByUser False if the media file is downloaded automatically
+     */
+    public synchronized void downloadMedia(Context context, FeedMedia feedmedia,
+                                           boolean initiatedByUser)
+            throws DownloadRequestException {
         if (feedFileValid(feedmedia)) {
             Feed feed = feedmedia.getItem().getFeed();
             String username;
@@ -208,7 +234,7 @@ public class DownloadRequester implements DownloadStateProvider {
                 dest = new File(getMediafilePath(feedmedia), getMediafilename(feedmedia));
             }
             download(context, feedmedia, feed,
-                    dest, false, username, password, null, false, null);
+                    dest, false, username, password, null, null, null, false, null, initiatedByUser);
         }
     }
 
@@ -0,0 +1,128 @@
+package de.danoeh.antennapod.core.storage;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.util.LongObjectMap;
+
+/**
+ * Keeps the list of all feeds in memory, so that it is not loaded from the database every time a
+ * list is displayed. The cache hands out the same Feed objects until it is invalidated by a write
+ * to the feeds table. The Feed objects are shared, so callers must not modify them.
+ */
+public final class FeedCache {
+
+    private static final Object lock = new Object();
+
+    @Nullable
+    private static List<Feed> feeds;
+    @Nullable
+    private static LongObjectMap<Feed> feedsById;
+    private static long generation;
+    private static long hits;
+    private static long misses;
+
+    private FeedCache() {
+
+    }
+
+    /**
+     * Returns the cached feeds in the order in which they were loaded, or null if they have to
+     * be loaded from the database.
+     */
+    @Nullable
+    static List<Feed> getFeeds() {
+        synchronized (lock) {
+            if (feeds == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return feeds;
+        }
+    }
+
+    /**
+     * Returns the cached feed with the given ID, or null if it has to be loaded from the database.
+     */
+    @Nullable
+    static Feed getFeed(long feedId) {
+        synchronized (lock) {
+            Feed feed = (feedsById != null) ? feedsById.get(feedId) : null;
+            if (feed == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return feed;
+        }
+    }
+
+    /**
+     * Returns the number of invalidations so far. It has to be read before the feeds are loaded
+     * and passed to {@link #put(List, long)} together with them.
+     */
+    static long getGeneration() {
+        synchronized (lock) {
+            return generation;
+        }
+    }
+
+    /**
+     * Caches the given feeds unless the cache has been invalidated since they were loaded.
+     *
+     * @param loadedGeneration The result of {@link #getGeneration()} before the feeds were loaded
+     */
+    static void put(@NonNull List<Feed> loadedFeeds, long loadedGeneration) {
+        synchronized (lock) {
+            if (loadedGeneration != generation) {
+                return;
+            }
+            LongObjectMap<Feed> index = new LongObjectMap<>(loadedFeeds.size());
+            for (Feed feed : loadedFeeds) {
+                index.put(feed.getId(), feed);
+            }
+            feeds = Collections.unmodifiableList(new ArrayList<>(loadedFeeds));
+            feedsById = index;
+        }
+    }
+
+    /**
+     * Drops the cached feeds. Has to be called after every write to the feeds table.
+     */
+    static void invalidate() {
+        synchronized (lock) {
+            generation++;
+            feeds = null;
+            feedsById = null;
+        }
+    }
+
+    public static long getHitCount() {
+        synchronized (lock) {
+            return hits;
+        }
+    }
+
+    public static long getMissCount() {
+        synchronized (lock) {
+            return misses;
+        }
+    }
+
+    @NonNull
+    public static String getStatistics() {
+        synchronized (lock) {
+            long total = hits + misses;
+            int hitRate = (total > 0) ? (int) (100 * hits / total) : 0;
+            return String.format(Locale.US, "hits=%d, misses=%d, hitRate=%d%%, invalidations=%d",
+                    hits, misses, hitRate, generation);
+        }
+    }
+}
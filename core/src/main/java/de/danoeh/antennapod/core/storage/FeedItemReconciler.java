@@ -0,0 +1,138 @@
+package de.danoeh.antennapod.core.storage;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+
+/**
+ * Merges the items of a freshly downloaded feed into the saved version of the same feed.
+ * The saved items are indexed by their identifying value, so every downloaded item is matched
+ * in constant time instead of searching the list of saved items.
+ */
+class FeedItemReconciler {
+
+    private final Feed savedFeed;
+    private final Map<String, FeedItem> savedItems;
+
+    private final List<FeedItem> newItems = new ArrayList<>();
+    private final List<FeedItem> changedItems = new ArrayList<>();
+    private final Set<FeedItem> touchedItems = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int numUnchangedItems = 0;
+
+    /**
+     * @param savedFeed The feed from the database. Its list of items must have been loaded.
+     */
+    FeedItemReconciler(@NonNull Feed savedFeed) {
+        this.savedFeed = savedFeed;
+        List<FeedItem> items = savedFeed.getItems();
+        savedItems = new HashMap<>(items.size() * 2);
+        for (FeedItem item : items) {
+            index(item);
+        }
+    }
+
+    private void index(FeedItem item) {
+        String identifier = item.getIdentifyingValue();
+        // keep the first item if there are multiple items with the same identifier
+        if (!savedItems.containsKey(identifier)) {
+            savedItems.put(identifier, item);
+        }
+    }
+
+    /**
+     * Returns the saved item with the given identifying value or null if there is no such item.
+     */
+    @Nullable
+    FeedItem getSavedItem(String identifyingValue) {
+        return savedItems.get(identifyingValue);
+    }
+
+    /**
+     * Adds new items to the saved feed and updates the saved items that have been changed.
+     *
+     * @param downloadedItems     The items of the downloaded feed, sorted by their pubDate.
+     * @param priorMostRecentDate The pubDate of the most recent saved item before the update
+     *                            or null if the feed had no items.
+     */
+    void reconcile(List<FeedItem> downloadedItems, @Nullable Date priorMostRecentDate) {
+        for (int idx = 0; idx < downloadedItems.size(); idx++) {
+            final FeedItem item = downloadedItems.get(idx);
+            FeedItem oldItem = getSavedItem(item.getIdentifyingValue());
+            if (oldItem == null) {
+                // item is new
+                item.setFeed(savedFeed);
+                item.setAutoDownload(savedFeed.getPreferences().getAutoDownload());
+                savedFeed.getItems().add(idx, item);
+                index(item);
+                newItems.add(item);
+                touchedItems.add(item);
+
+                // only mark the item new if it was published after or at the same time
+                // as the most recent item
+                // (if the most recent date is null then we can assume there are no items
+                // and this is the first, hence 'new')
+                if (priorMostRecentDate == null
+                        || priorMostRecentDate.before(item.getPubDate())
+                        || priorMostRecentDate.equals(item.getPubDate())) {
+                    item.setNew();
+                }
+            } else {
+                oldItem.updateFromOther(item);
+                if (!oldItem.isDirty()) {
+                    numUnchangedItems++;
+                } else if (touchedItems.add(oldItem)) {
+                    changedItems.add(oldItem);
+                }
+            }
+        }
+    }
+
+    /**
+     * Items that were not part of the saved feed before.
+     */
+    @NonNull
+    List<FeedItem> getNewItems() {
+        return Collections.unmodifiableList(newItems);
+    }
+
+    /**
+     * Saved items whose attributes have been updated with values from the downloaded feed.
+     */
+    @NonNull
+    List<FeedItem> getChangedItems() {
+        return Collections.unmodifiableList(changedItems);
+    }
+
+    /**
+     * Number of downloaded items that matched a saved item without changing it.
+     */
+    int getNumUnchangedItems() {
+        return numUnchangedItems;
+    }
+
+    /**
+     * Number of saved items that have been added or changed by this reconciliation.
+     */
+    int getNumTouchedItems() {
+        return newItems.size() + changedItems.size();
+    }
+
+    @Override
+    public String toString() {
+        return "FeedItemReconciler{feed=" + savedFeed.getId()
+                + ", new=" + newItems.size()
+                + ", changed=" + changedItems.size()
+                + ", unchanged=" + numUnchangedItems + "}";
+    }
+}
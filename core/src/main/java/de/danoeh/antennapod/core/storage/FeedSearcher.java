@@ -1,20 +1,18 @@
 package de.danoeh.antennapod.core.storage;
 
 import android.content.Context;
+import android.database.Cursor;
 import androidx.annotation.NonNull;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.FutureTask;
 
 import de.danoeh.antennapod.core.R;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.SearchResult;
-import de.danoeh.antennapod.core.util.comparator.InReverseChronologicalOrder;
 
 /**
  * Performs search on Feeds and FeedItems
@@ -24,12 +22,23 @@ public class FeedSearcher {
 
     private static final String TAG = "FeedSearcher";
 
+    /**
+     * Importance of a match, indexed by column of the full-text index
+     * (title, chapters, description, content encoded, author, feed identifier).
+     * The results are ranked by the importance of their first matching column.
+     */
+    private static final int[] COLUMN_VALUES = {2, 1, 0, 0, 0, 0};
 
     /**
      * Search through a feed, or all feeds, for episodes that match the query in either the title,
-     * chapter, or show notes. The search is first performed on titles, then chapters, and finally
-     * show notes. The list of resulting episodes also describes where the first match occurred
-     * (title, chapters, or show notes).
+     * chapter, or show notes. The search is performed on the full-text index in a single query,
+     * so every word of the query has to match the beginning of a word in the episode.
+     * <p/>
+     * The results are ranked by relevance: episodes whose title matches come first, then
+     * episodes whose chapters match, then all others. The rank is taken from the FTS matchinfo
+     * of each result and is also the value of the {@link SearchResult}. Episodes with the same
+     * rank are sorted with the most recent episodes first. Each result describes where the first
+     * match occurred (title, chapters, or show notes).
      *
      * @param context
      * @param query search query
@@ -39,7 +48,6 @@ public class FeedSearcher {
     @NonNull
     public static List<SearchResult> performSearch(final Context context,
                                                    final String query, final long selectedFeed) {
-        final int values[] = {2, 1, 0, 0, 0, 0};
         final String[] subtitles = {context.getString(R.string.found_in_title_label),
                 context.getString(R.string.found_in_chapters_label),
                 context.getString(R.string.found_in_shownotes_label),
@@ -47,36 +55,63 @@ public class FeedSearcher {
                 context.getString(R.string.found_in_authors_label),
                 context.getString(R.string.found_in_feeds_label)};
 
-        final List<SearchResult> result = new ArrayList<>();
+        if (PodDBAdapter.prepareFullTextQuery(query).isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        final List<int[]> hitsOfItems = new ArrayList<>();
+        List<FeedItem> items;
+        try (Cursor cursor = adapter.searchItems(selectedFeed, query)) {
+            int indexMatchinfo = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_SEARCH_MATCHINFO);
+            while (cursor.moveToNext()) {
+                hitsOfItems.add(getColumnHits(cursor.getBlob(indexMatchinfo)));
+            }
+            cursor.moveToPosition(-1);
+            items = DBReader.extractJoinedItemlistFromCursor(cursor);
+        } finally {
+            adapter.close();
+        }
 
-        List<FutureTask<List<FeedItem>>> tasks = new ArrayList<>();
-        tasks.add(DBTasks.searchFeedItemTitle(context, selectedFeed, query));
-        tasks.add(DBTasks.searchFeedItemChapters(context, selectedFeed, query));
-        tasks.add(DBTasks.searchFeedItemDescription(context, selectedFeed, query));
-        tasks.add(DBTasks.searchFeedItemContentEncoded(context, selectedFeed, query));
-        tasks.add(DBTasks.searchFeedItemAuthor(context, selectedFeed, query));
-        tasks.add(DBTasks.searchFeedItemFeedIdentifier(context, selectedFeed, query));
+        final List<SearchResult> result = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            int firstColumn = getFirstMatchingColumn(hitsOfItems.get(i));
+            result.add(new SearchResult(items.get(i), COLUMN_VALUES[firstColumn], subtitles[firstColumn]));
+        }
+        // the sort is stable, so results with the same rank stay sorted by date
+        Collections.sort(result, (result1, result2) -> Integer.compare(result2.getValue(), result1.getValue()));
+        return result;
+    }
 
-        for (FutureTask<List<FeedItem>> task : tasks) {
-            task.run();
+    /**
+     * Returns the first column of the full-text index that contains a hit, or the last column if
+     * none does.
+     */
+    static int getFirstMatchingColumn(int[] hits) {
+        int column = 0;
+        while (column < hits.length - 1 && hits[column] == 0) {
+            column++;
         }
-        try {
-            Set<Long> set = new HashSet<>();
+        return column;
+    }
 
-            for (int i = 0; i < tasks.size(); i++) {
-                FutureTask<List<FeedItem>> task = tasks.get(i);
-                List<FeedItem> items = task.get();
-                for (FeedItem item : items) {
-                    if (!set.contains(item.getId())) { // to prevent duplicate results
-                        result.add(new SearchResult(item, values[i], subtitles[i]));
-                        set.add(item.getId());
-                    }
-                }
+    /**
+     * Sums up the number of hits per column of the full-text index.
+     *
+     * @param matchinfo Result of the FTS matchinfo function in 'pcx' format
+     */
+    static int[] getColumnHits(byte[] matchinfo) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int numPhrases = buffer.getInt(0);
+        int numColumns = buffer.getInt(4);
+        int[] hits = new int[numColumns];
+        for (int phrase = 0; phrase < numPhrases; phrase++) {
+            for (int column = 0; column < numColumns; column++) {
+                // each phrase/column pair consists of three values, the first one are the hits in this row
+                hits[column] += buffer.getInt(4 * (2 + 3 * (column + phrase * numColumns)));
             }
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
         }
-        Collections.sort(result, new InReverseChronologicalOrder());
-        return result;
+        return hits;
     }
 }
@@ -5,7 +5,6 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.DatabaseErrorHandler;
-import android.database.DatabaseUtils;
 import android.database.DefaultDatabaseErrorHandler;
 import android.database.MergeCursor;
 import android.database.SQLException;
@@ -17,11 +16,13 @@ import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -29,12 +30,16 @@ import java.util.Set;
 
 import de.danoeh.antennapod.core.feed.Chapter;
 import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedComponent;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.feed.FeedPreferences;
+import de.danoeh.antennapod.core.gpoddernet.model.GpodnetEpisodeAction;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
+import de.danoeh.antennapod.core.service.download.DownloadRequest;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
 import de.danoeh.antennapod.core.util.LongIntMap;
+import de.danoeh.antennapod.core.util.LongList;
 import de.danoeh.antennapod.core.util.SortOrder;
 
 import static de.danoeh.antennapod.core.feed.FeedPreferences.SPEED_USE_GLOBAL;
@@ -55,6 +60,12 @@ public class PodDBAdapter {
      */
     private static final int IN_OPERATOR_MAXIMUM = 800;
 
+    /**
+     * Distance between the ids of neighbouring queue rows after the queue has been written
+     * completely. The ids define the order of the queue.
+     */
+    static final long QUEUE_POSITION_GAP = 1 << 16;
+
     // Key-constants
     public static final String KEY_ID = "id";
     public static final String KEY_TITLE = "title";
@@ -110,6 +121,28 @@ public class PodDBAdapter {
     public static final String KEY_INCLUDE_FILTER = "include_filter";
     public static final String KEY_EXCLUDE_FILTER = "exclude_filter";
     public static final String KEY_FEED_PLAYBACK_SPEED = "feed_playback_speed";
+    public static final String KEY_ETAG = "etag";
+    public static final String KEY_CONTENT_HASH = "content_hash";
+    public static final String KEY_REFRESH_COUNT = "refresh_count";
+    public static final String KEY_NOT_MODIFIED_COUNT = "not_modified_count";
+    public static final String KEY_LAST_REFRESH = "last_refresh";
+    public static final String KEY_SKIPPED_REFRESH_COUNT = "skipped_refresh_count";
+    public static final String KEY_DESCRIPTION_HASH = "description_hash";
+    public static final String KEY_CONTENT_ENCODED_HASH = "content_encoded_hash";
+    public static final String KEY_SEARCH_CHAPTERS = "chapters";
+    public static final String KEY_SEARCH_MATCHINFO = "search_matchinfo";
+    public static final String KEY_PODCAST = "podcast";
+    public static final String KEY_EPISODE = "episode";
+    public static final String KEY_ACTION = "action";
+    public static final String KEY_ACTION_DATA = "action_data";
+    public static final String KEY_IN_QUEUE = "in_queue";
+    public static final String KEY_IS_FAVORITE = "is_favorite";
+
+    /**
+     * Prefixes of the FeedMedia and Feed columns in the joined item list selection.
+     */
+    public static final String PREFIX_MEDIA = "media_";
+    public static final String PREFIX_FEED = "feed_";
 
     // Table names
     static final String TABLE_NAME_FEEDS = "Feeds";
@@ -120,12 +153,14 @@ public class PodDBAdapter {
     static final String TABLE_NAME_QUEUE = "Queue";
     static final String TABLE_NAME_SIMPLECHAPTERS = "SimpleChapters";
     static final String TABLE_NAME_FAVORITES = "Favorites";
+    static final String TABLE_NAME_FEED_ITEMS_SEARCH = "FeedItemsSearch";
+    static final String TABLE_NAME_EPISODE_ACTIONS = "EpisodeActions";
 
     // SQL Statements for creating new tables
     private static final String TABLE_PRIMARY_KEY = KEY_ID
             + " INTEGER PRIMARY KEY AUTOINCREMENT ,";
 
-    private static final String CREATE_TABLE_FEEDS = "CREATE TABLE "
+    static final String CREATE_TABLE_FEEDS = "CREATE TABLE "
             + TABLE_NAME_FEEDS + " (" + TABLE_PRIMARY_KEY + KEY_TITLE
             + " TEXT," + KEY_CUSTOM_TITLE + " TEXT," + KEY_FILE_URL + " TEXT," + KEY_DOWNLOAD_URL + " TEXT,"
             + KEY_DOWNLOADED + " INTEGER," + KEY_LINK + " TEXT,"
@@ -144,9 +179,15 @@ public class PodDBAdapter {
             + KEY_SORT_ORDER + " TEXT,"
             + KEY_LAST_UPDATE_FAILED + " INTEGER DEFAULT 0,"
             + KEY_AUTO_DELETE_ACTION + " INTEGER DEFAULT 0,"
-            + KEY_FEED_PLAYBACK_SPEED + " REAL DEFAULT " + SPEED_USE_GLOBAL + ")";
-
-    private static final String CREATE_TABLE_FEED_ITEMS = "CREATE TABLE "
+            + KEY_FEED_PLAYBACK_SPEED + " REAL DEFAULT " + SPEED_USE_GLOBAL + ","
+            + KEY_ETAG + " TEXT,"
+            + KEY_CONTENT_HASH + " TEXT,"
+            + KEY_REFRESH_COUNT + " INTEGER DEFAULT 0,"
+            + KEY_NOT_MODIFIED_COUNT + " INTEGER DEFAULT 0,"
+            + KEY_LAST_REFRESH + " INTEGER DEFAULT 0,"
+            + KEY_SKIPPED_REFRESH_COUNT + " INTEGER DEFAULT 0)";
+
+    static final String CREATE_TABLE_FEED_ITEMS = "CREATE TABLE "
             + TABLE_NAME_FEED_ITEMS + " (" + TABLE_PRIMARY_KEY + KEY_TITLE
             + " TEXT," + KEY_CONTENT_ENCODED + " TEXT," + KEY_PUBDATE
             + " INTEGER," + KEY_READ + " INTEGER," + KEY_LINK + " TEXT,"
@@ -154,9 +195,10 @@ public class PodDBAdapter {
             + KEY_MEDIA + " INTEGER," + KEY_FEED + " INTEGER,"
             + KEY_HAS_CHAPTERS + " INTEGER," + KEY_ITEM_IDENTIFIER + " TEXT,"
             + KEY_IMAGE_URL + " TEXT,"
-            + KEY_AUTO_DOWNLOAD + " INTEGER)";
+            + KEY_AUTO_DOWNLOAD + " INTEGER," + KEY_DESCRIPTION_HASH + " INTEGER,"
+            + KEY_CONTENT_ENCODED_HASH + " INTEGER)";
 
-    private static final String CREATE_TABLE_FEED_MEDIA = "CREATE TABLE "
+    static final String CREATE_TABLE_FEED_MEDIA = "CREATE TABLE "
             + TABLE_NAME_FEED_MEDIA + " (" + TABLE_PRIMARY_KEY + KEY_DURATION
             + " INTEGER," + KEY_FILE_URL + " TEXT," + KEY_DOWNLOAD_URL
             + " TEXT," + KEY_DOWNLOADED + " INTEGER," + KEY_POSITION
@@ -174,11 +216,11 @@ public class PodDBAdapter {
             + " INTEGER," + KEY_REASON_DETAILED + " TEXT,"
             + KEY_DOWNLOADSTATUS_TITLE + " TEXT)";
 
-    private static final String CREATE_TABLE_QUEUE = "CREATE TABLE "
+    static final String CREATE_TABLE_QUEUE = "CREATE TABLE "
             + TABLE_NAME_QUEUE + "(" + KEY_ID + " INTEGER PRIMARY KEY,"
             + KEY_FEEDITEM + " INTEGER," + KEY_FEED + " INTEGER)";
 
-    private static final String CREATE_TABLE_SIMPLECHAPTERS = "CREATE TABLE "
+    static final String CREATE_TABLE_SIMPLECHAPTERS = "CREATE TABLE "
             + TABLE_NAME_SIMPLECHAPTERS + " (" + TABLE_PRIMARY_KEY + KEY_TITLE
             + " TEXT," + KEY_START + " INTEGER," + KEY_FEEDITEM + " INTEGER,"
             + KEY_LINK + " TEXT," + KEY_CHAPTER_TYPE + " INTEGER)";
@@ -200,10 +242,38 @@ public class PodDBAdapter {
             + TABLE_NAME_QUEUE + "_" + KEY_FEEDITEM + " ON " + TABLE_NAME_QUEUE + " ("
             + KEY_FEEDITEM + ")";
 
+    static final String CREATE_INDEX_FAVORITES_FEEDITEM = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME_FAVORITES + "_" + KEY_FEEDITEM + " ON " + TABLE_NAME_FAVORITES + " ("
+            + KEY_FEEDITEM + ")";
+
     static final String CREATE_INDEX_FEEDMEDIA_FEEDITEM = "CREATE INDEX "
             + TABLE_NAME_FEED_MEDIA + "_" + KEY_FEEDITEM + " ON " + TABLE_NAME_FEED_MEDIA + " ("
             + KEY_FEEDITEM + ")";
 
+    static final String CREATE_INDEX_FEEDMEDIA_DOWNLOAD_URL = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME_FEED_MEDIA + "_" + KEY_DOWNLOAD_URL + " ON " + TABLE_NAME_FEED_MEDIA + " ("
+            + KEY_DOWNLOAD_URL + "," + KEY_FEEDITEM + ")";
+
+    static final String CREATE_INDEX_FEEDMEDIA_DOWNLOADED = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME_FEED_MEDIA + "_" + KEY_DOWNLOADED + " ON " + TABLE_NAME_FEED_MEDIA + " ("
+            + KEY_DOWNLOADED + "," + KEY_FEEDITEM + ")";
+
+    static final String CREATE_INDEX_FEEDMEDIA_PLAYBACK_COMPLETION_DATE = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME_FEED_MEDIA + "_" + KEY_PLAYBACK_COMPLETION_DATE + " ON " + TABLE_NAME_FEED_MEDIA + " ("
+            + KEY_PLAYBACK_COMPLETION_DATE + ")";
+
+    static final String CREATE_INDEX_FEEDITEMS_IMAGE_URL = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME_FEED_ITEMS + "_" + KEY_IMAGE_URL + " ON " + TABLE_NAME_FEED_ITEMS + " ("
+            + KEY_IMAGE_URL + "," + KEY_FEED + ")";
+
+    static final String CREATE_INDEX_FEEDS_IMAGE_URL = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME_FEEDS + "_" + KEY_IMAGE_URL + " ON " + TABLE_NAME_FEEDS + " ("
+            + KEY_IMAGE_URL + ")";
+
+    static final String CREATE_INDEX_DOWNLOAD_LOG_FEEDFILE = "CREATE INDEX IF NOT EXISTS "
+            + TABLE_NAME_DOWNLOAD_LOG + "_" + KEY_FEEDFILE + " ON " + TABLE_NAME_DOWNLOAD_LOG + " ("
+            + KEY_FEEDFILE + "," + KEY_FEEDFILETYPE + ")";
+
     static final String CREATE_INDEX_SIMPLECHAPTERS_FEEDITEM = "CREATE INDEX "
             + TABLE_NAME_SIMPLECHAPTERS + "_" + KEY_FEEDITEM + " ON " + TABLE_NAME_SIMPLECHAPTERS + " ("
             + KEY_FEEDITEM + ")";
@@ -212,6 +282,103 @@ public class PodDBAdapter {
             + TABLE_NAME_FAVORITES + "(" + KEY_ID + " INTEGER PRIMARY KEY,"
             + KEY_FEEDITEM + " INTEGER," + KEY_FEED + " INTEGER)";
 
+    /**
+     * Episode actions that still have to be uploaded to gpodder.net, in the order they happened.
+     * The action data is the string representation of {@link GpodnetEpisodeAction}.
+     */
+    static final String CREATE_TABLE_EPISODE_ACTIONS = "CREATE TABLE "
+            + TABLE_NAME_EPISODE_ACTIONS + " (" + TABLE_PRIMARY_KEY + KEY_PODCAST + " TEXT,"
+            + KEY_EPISODE + " TEXT," + KEY_ACTION + " TEXT," + KEY_ACTION_DATA + " TEXT)";
+
+    static final String CREATE_INDEX_EPISODE_ACTIONS_EPISODE = "CREATE INDEX "
+            + TABLE_NAME_EPISODE_ACTIONS + "_" + KEY_EPISODE + " ON " + TABLE_NAME_EPISODE_ACTIONS + " ("
+            + KEY_EPISODE + "," + KEY_PODCAST + ")";
+
+    /**
+     * Full-text index over the searchable text of FeedItems. The docid of a row is the ID of the
+     * FeedItem. The order of the columns is also the order in which search results are ranked.
+     */
+    static final String CREATE_TABLE_FEED_ITEMS_SEARCH = "CREATE VIRTUAL TABLE "
+            + TABLE_NAME_FEED_ITEMS_SEARCH + " USING fts4(" + KEY_TITLE + ","
+            + KEY_SEARCH_CHAPTERS + "," + KEY_DESCRIPTION + "," + KEY_CONTENT_ENCODED + ","
+            + KEY_AUTHOR + "," + KEY_FEED_IDENTIFIER + ")";
+
+    private static final String SEARCH_CHAPTERS_OF_ITEM = "(SELECT group_concat("
+            + KEY_TITLE + ", ' ') FROM " + TABLE_NAME_SIMPLECHAPTERS + " WHERE "
+            + KEY_FEEDITEM + "=%s)";
+
+    /**
+     * Triggers that keep the full-text index in sync with the FeedItems and Feeds tables. Updates
+     * only touch the index if one of the indexed values has actually changed. The chapter titles
+     * are updated by {@link #setChapters(FeedItem)} instead, so that the row of an item is rebuilt
+     * once for all of its chapters.
+     */
+    static final String[] CREATE_TRIGGERS_FEED_ITEMS_SEARCH = {
+            "CREATE TRIGGER " + TABLE_NAME_FEED_ITEMS + "_search_insert AFTER INSERT ON "
+                    + TABLE_NAME_FEED_ITEMS + " BEGIN INSERT INTO " + TABLE_NAME_FEED_ITEMS_SEARCH
+                    + " (docid," + KEY_TITLE + "," + KEY_DESCRIPTION + "," + KEY_CONTENT_ENCODED + ","
+                    + KEY_AUTHOR + "," + KEY_FEED_IDENTIFIER + ") VALUES (new." + KEY_ID
+                    + ",new." + KEY_TITLE + ",new." + KEY_DESCRIPTION + ",new." + KEY_CONTENT_ENCODED
+                    + ",(SELECT " + KEY_AUTHOR + " FROM " + TABLE_NAME_FEEDS + " WHERE " + KEY_ID + "=new." + KEY_FEED + ")"
+                    + ",(SELECT " + KEY_FEED_IDENTIFIER + " FROM " + TABLE_NAME_FEEDS + " WHERE " + KEY_ID + "=new." + KEY_FEED + ")"
+                    + "); END",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_ITEMS + "_search_update AFTER UPDATE OF "
+                    + KEY_TITLE + "," + KEY_DESCRIPTION + "," + KEY_CONTENT_ENCODED + " ON " + TABLE_NAME_FEED_ITEMS
+                    + " WHEN old." + KEY_TITLE + " IS NOT new." + KEY_TITLE
+                    + " OR old." + KEY_DESCRIPTION + " IS NOT new." + KEY_DESCRIPTION
+                    + " OR old." + KEY_CONTENT_ENCODED + " IS NOT new." + KEY_CONTENT_ENCODED
+                    + " BEGIN UPDATE " + TABLE_NAME_FEED_ITEMS_SEARCH + " SET " + KEY_TITLE + "=new." + KEY_TITLE
+                    + "," + KEY_DESCRIPTION + "=new." + KEY_DESCRIPTION
+                    + "," + KEY_CONTENT_ENCODED + "=new." + KEY_CONTENT_ENCODED
+                    + " WHERE docid=new." + KEY_ID + "; END",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_ITEMS + "_search_delete AFTER DELETE ON "
+                    + TABLE_NAME_FEED_ITEMS + " BEGIN DELETE FROM " + TABLE_NAME_FEED_ITEMS_SEARCH
+                    + " WHERE docid=old." + KEY_ID + "; END",
+            "CREATE TRIGGER " + TABLE_NAME_FEEDS + "_search_update AFTER UPDATE OF "
+                    + KEY_AUTHOR + "," + KEY_FEED_IDENTIFIER + " ON " + TABLE_NAME_FEEDS
+                    + " WHEN old." + KEY_AUTHOR + " IS NOT new." + KEY_AUTHOR
+                    + " OR old." + KEY_FEED_IDENTIFIER + " IS NOT new." + KEY_FEED_IDENTIFIER
+                    + " BEGIN UPDATE " + TABLE_NAME_FEED_ITEMS_SEARCH + " SET " + KEY_AUTHOR + "=new." + KEY_AUTHOR
+                    + "," + KEY_FEED_IDENTIFIER + "=new." + KEY_FEED_IDENTIFIER
+                    + " WHERE docid IN (SELECT " + KEY_ID + " FROM " + TABLE_NAME_FEED_ITEMS
+                    + " WHERE " + KEY_FEED + "=new." + KEY_ID + "); END"
+    };
+
+    /**
+     * Names of the triggers that used to update the chapter titles in the full-text index
+     * once for every chapter row.
+     */
+    static final String[] OBSOLETE_TRIGGERS_SIMPLECHAPTERS_SEARCH = {
+            TABLE_NAME_SIMPLECHAPTERS + "_search_insert",
+            TABLE_NAME_SIMPLECHAPTERS + "_search_update",
+            TABLE_NAME_SIMPLECHAPTERS + "_search_delete"
+    };
+
+    /**
+     * Rebuilds the chapter titles of the FeedItem with the ID ?1 in the full-text index
+     * if they have changed.
+     */
+    private static final String UPDATE_SEARCH_CHAPTERS = "UPDATE " + TABLE_NAME_FEED_ITEMS_SEARCH
+            + " SET " + KEY_SEARCH_CHAPTERS + "=" + String.format(SEARCH_CHAPTERS_OF_ITEM, "?1")
+            + " WHERE docid=?1 AND " + KEY_SEARCH_CHAPTERS + " IS NOT "
+            + String.format(SEARCH_CHAPTERS_OF_ITEM, "?1");
+
+    /**
+     * Fills the full-text index with all FeedItems that are already in the database.
+     */
+    static final String POPULATE_FEED_ITEMS_SEARCH = "INSERT INTO " + TABLE_NAME_FEED_ITEMS_SEARCH
+            + " (docid," + KEY_TITLE + "," + KEY_SEARCH_CHAPTERS + "," + KEY_DESCRIPTION + ","
+            + KEY_CONTENT_ENCODED + "," + KEY_AUTHOR + "," + KEY_FEED_IDENTIFIER + ")"
+            + " SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID
+            + "," + TABLE_NAME_FEED_ITEMS + "." + KEY_TITLE
+            + "," + String.format(SEARCH_CHAPTERS_OF_ITEM, TABLE_NAME_FEED_ITEMS + "." + KEY_ID)
+            + "," + TABLE_NAME_FEED_ITEMS + "." + KEY_DESCRIPTION
+            + "," + TABLE_NAME_FEED_ITEMS + "." + KEY_CONTENT_ENCODED
+            + "," + TABLE_NAME_FEEDS + "." + KEY_AUTHOR
+            + "," + TABLE_NAME_FEEDS + "." + KEY_FEED_IDENTIFIER
+            + " FROM " + TABLE_NAME_FEED_ITEMS + " LEFT JOIN " + TABLE_NAME_FEEDS
+            + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID;
+
     /**
      * Select all columns from the feed-table
      */
@@ -243,12 +410,18 @@ public class PodDBAdapter {
             TABLE_NAME_FEEDS + "." + KEY_AUTO_DELETE_ACTION,
             TABLE_NAME_FEEDS + "." + KEY_INCLUDE_FILTER,
             TABLE_NAME_FEEDS + "." + KEY_EXCLUDE_FILTER,
-            TABLE_NAME_FEEDS + "." + KEY_FEED_PLAYBACK_SPEED
+            TABLE_NAME_FEEDS + "." + KEY_FEED_PLAYBACK_SPEED,
+            TABLE_NAME_FEEDS + "." + KEY_ETAG,
+            TABLE_NAME_FEEDS + "." + KEY_CONTENT_HASH,
+            TABLE_NAME_FEEDS + "." + KEY_REFRESH_COUNT,
+            TABLE_NAME_FEEDS + "." + KEY_NOT_MODIFIED_COUNT,
+            TABLE_NAME_FEEDS + "." + KEY_LAST_REFRESH,
+            TABLE_NAME_FEEDS + "." + KEY_SKIPPED_REFRESH_COUNT
     };
 
     /**
      * Select all columns from the feeditems-table except description and
-     * content-encoded.
+     * content-encoded. Their hashes are selected instead.
      */
     private static final String[] FEEDITEM_SEL_FI_SMALL = {
             TABLE_NAME_FEED_ITEMS + "." + KEY_ID,
@@ -262,9 +435,36 @@ public class PodDBAdapter {
             TABLE_NAME_FEED_ITEMS + "." + KEY_HAS_CHAPTERS,
             TABLE_NAME_FEED_ITEMS + "." + KEY_ITEM_IDENTIFIER,
             TABLE_NAME_FEED_ITEMS + "." + KEY_IMAGE_URL,
-            TABLE_NAME_FEED_ITEMS + "." + KEY_AUTO_DOWNLOAD
+            TABLE_NAME_FEED_ITEMS + "." + KEY_AUTO_DOWNLOAD,
+            TABLE_NAME_FEED_ITEMS + "." + KEY_DESCRIPTION_HASH,
+            TABLE_NAME_FEED_ITEMS + "." + KEY_CONTENT_ENCODED_HASH
     };
 
+    /**
+     * All columns of the FeedMedia table.
+     */
+    private static final String[] FEEDMEDIA_COLUMNS = {
+            KEY_ID,
+            KEY_DURATION,
+            KEY_FILE_URL,
+            KEY_DOWNLOAD_URL,
+            KEY_DOWNLOADED,
+            KEY_POSITION,
+            KEY_SIZE,
+            KEY_MIME_TYPE,
+            KEY_PLAYBACK_COMPLETION_DATE,
+            KEY_FEEDITEM,
+            KEY_PLAYED_DURATION,
+            KEY_HAS_EMBEDDED_PICTURE,
+            KEY_LAST_PLAYED_TIME
+    };
+
+    private static final String JOIN_FEED_MEDIA = " LEFT JOIN " + TABLE_NAME_FEED_MEDIA
+            + " ON " + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM + "=" + TABLE_NAME_FEED_ITEMS + "." + KEY_ID;
+
+    private static final String JOIN_FEEDS = " LEFT JOIN " + TABLE_NAME_FEEDS
+            + " ON " + TABLE_NAME_FEEDS + "." + KEY_ID + "=" + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED;
+
     /**
      * All the tables in the database
      */
@@ -275,18 +475,89 @@ public class PodDBAdapter {
             TABLE_NAME_DOWNLOAD_LOG,
             TABLE_NAME_QUEUE,
             TABLE_NAME_SIMPLECHAPTERS,
-            TABLE_NAME_FAVORITES
+            TABLE_NAME_FAVORITES,
+            TABLE_NAME_FEED_ITEMS_SEARCH,
+            TABLE_NAME_EPISODE_ACTIONS
     };
 
     /**
      * Contains FEEDITEM_SEL_FI_SMALL as comma-separated list. Useful for raw queries.
      */
-    private static final String SEL_FI_SMALL_STR;
+    static final String SEL_FI_SMALL_STR;
+
+    /**
+     * Contains FEEDITEM_SEL_FI_SMALL, the columns of the item's media prefixed with PREFIX_MEDIA,
+     * the columns of the item's feed prefixed with PREFIX_FEED and whether the item is in the
+     * queue (KEY_IN_QUEUE) or a favorite (KEY_IS_FAVORITE). Queries using it have to join
+     * FeedMedia and Feeds, e.g. with JOIN_FEED_MEDIA and JOIN_FEEDS. This way, the lists of the
+     * UI can be loaded with a single query.
+     */
+    private static final String SEL_FI_JOINED_STR;
 
     static {
         String selFiSmall = Arrays.toString(FEEDITEM_SEL_FI_SMALL);
         SEL_FI_SMALL_STR = selFiSmall.substring(1, selFiSmall.length() - 1);
-    }
+
+        StringBuilder selFiJoined = new StringBuilder(SEL_FI_SMALL_STR);
+        for (String column : FEEDMEDIA_COLUMNS) {
+            selFiJoined.append(", ").append(TABLE_NAME_FEED_MEDIA).append(".").append(column)
+                    .append(" AS ").append(PREFIX_MEDIA).append(column);
+        }
+        for (String column : FEED_SEL_STD) {
+            String name = column.substring(TABLE_NAME_FEEDS.length() + 1);
+            selFiJoined.append(", ").append(column).append(" AS ").append(PREFIX_FEED).append(name);
+        }
+        selFiJoined.append(", EXISTS (SELECT 1 FROM ").append(TABLE_NAME_QUEUE)
+                .append(" WHERE ").append(TABLE_NAME_QUEUE).append(".").append(KEY_FEEDITEM)
+                .append("=").append(TABLE_NAME_FEED_ITEMS).append(".").append(KEY_ID)
+                .append(") AS ").append(KEY_IN_QUEUE);
+        selFiJoined.append(", EXISTS (SELECT 1 FROM ").append(TABLE_NAME_FAVORITES)
+                .append(" WHERE ").append(TABLE_NAME_FAVORITES).append(".").append(KEY_FEEDITEM)
+                .append("=").append(TABLE_NAME_FEED_ITEMS).append(".").append(KEY_ID)
+                .append(") AS ").append(KEY_IS_FAVORITE);
+        SEL_FI_JOINED_STR = selFiJoined.toString();
+    }
+
+    /*
+     * Queries of frequent lookups. Each of them finds its rows through index searches, which is
+     * checked by a query plan test. The indexes are not covering: the selected columns are still
+     * read from the tables. Arguments are given in the order of the placeholders.
+     */
+
+    /** Arguments: episode download URL, podcast download URL */
+    static final String QUERY_FEED_ITEM_BY_URLS = "SELECT " + SEL_FI_SMALL_STR
+            + " FROM " + TABLE_NAME_FEED_MEDIA
+            + " INNER JOIN " + TABLE_NAME_FEED_ITEMS
+            + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+            + " INNER JOIN " + TABLE_NAME_FEEDS
+            + " ON " + TABLE_NAME_FEEDS + "." + KEY_ID + "=" + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED
+            + " WHERE " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_URL + "=?"
+            + " AND " + TABLE_NAME_FEEDS + "." + KEY_DOWNLOAD_URL + "=?";
+
+    /** Arguments: image URL, image URL */
+    static final String QUERY_IMAGE_AUTHENTICATION = "SELECT " + KEY_USERNAME + "," + KEY_PASSWORD
+            + " FROM " + TABLE_NAME_FEEDS
+            + " WHERE " + KEY_IMAGE_URL + "=?"
+            + " OR " + KEY_ID + " IN (SELECT " + KEY_FEED + " FROM " + TABLE_NAME_FEED_ITEMS
+            + " WHERE " + KEY_IMAGE_URL + "=?)";
+
+    /** No arguments */
+    static final String QUERY_DOWNLOADED_ITEMS = "SELECT " + SEL_FI_JOINED_STR
+            + " FROM " + TABLE_NAME_FEED_MEDIA
+            + " INNER JOIN " + TABLE_NAME_FEED_ITEMS
+            + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+            + JOIN_FEEDS
+            + " WHERE " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED + "=1";
+
+    /** Arguments: limit */
+    static final String QUERY_COMPLETED_MEDIA = "SELECT * FROM " + TABLE_NAME_FEED_MEDIA
+            + " WHERE " + KEY_PLAYBACK_COMPLETION_DATE + ">0"
+            + " ORDER BY " + KEY_PLAYBACK_COMPLETION_DATE + " DESC LIMIT ?";
+
+    /** Arguments: feed file ID, feed file type */
+    static final String QUERY_DOWNLOAD_LOG = "SELECT * FROM " + TABLE_NAME_DOWNLOAD_LOG
+            + " WHERE " + KEY_FEEDFILE + "=? AND " + KEY_FEEDFILETYPE + "=?"
+            + " ORDER BY " + KEY_ID + " DESC";
 
     /**
      * Select id, description and content-encoded column from feeditems.
@@ -348,6 +619,7 @@ public class PodDBAdapter {
             for (String tableName : ALL_TABLES) {
                 db.delete(tableName, "1", null);
             }
+            FeedCache.invalidate();
             return true;
         } finally {
             adapter.close();
@@ -355,7 +627,9 @@ public class PodDBAdapter {
     }
 
     /**
-     * Inserts or updates a feed entry
+     * Inserts or updates a feed entry and invalidates the {@link FeedCache}. Callers that save the
+     * feed in a transaction have to invalidate the cache again after the transaction has ended, so
+     * that feeds that have been loaded before the commit are not cached.
      *
      * @return the id of the entry
      */
@@ -385,6 +659,8 @@ public class PodDBAdapter {
         }
         values.put(KEY_SORT_ORDER, toCodeString(feed.getSortOrder()));
         values.put(KEY_LAST_UPDATE_FAILED, feed.hasLastUpdateFailed());
+        values.put(KEY_ETAG, feed.getEtag());
+        values.put(KEY_CONTENT_HASH, feed.getContentHash());
         if (feed.getId() == 0) {
             // Create new entry
             Log.d(this.toString(), "Inserting new Feed into db");
@@ -394,6 +670,7 @@ public class PodDBAdapter {
             db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?",
                     new String[]{String.valueOf(feed.getId())});
         }
+        FeedCache.invalidate();
         return feed.getId();
     }
 
@@ -411,6 +688,7 @@ public class PodDBAdapter {
         values.put(KEY_EXCLUDE_FILTER, prefs.getFilter().getExcludeFilter());
         values.put(KEY_FEED_PLAYBACK_SPEED, prefs.getFeedPlaybackSpeed());
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(prefs.getFeedID())});
+        FeedCache.invalidate();
     }
 
     public void setFeedItemFilter(long feedId, Set<String> filterValues) {
@@ -420,12 +698,14 @@ public class PodDBAdapter {
         ContentValues values = new ContentValues();
         values.put(KEY_HIDE, valuesList);
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.invalidate();
     }
 
     public void setFeedItemSortOrder(long feedId, @Nullable SortOrder sortOrder) {
         ContentValues values = new ContentValues();
         values.put(KEY_SORT_ORDER, toCodeString(sortOrder));
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.invalidate();
     }
 
     /**
@@ -507,6 +787,7 @@ public class PodDBAdapter {
      * transaction
      */
     public void setCompleteFeed(Feed... feeds) {
+        boolean successful = false;
         try {
             db.beginTransactionNonExclusive();
             for (Feed feed : feeds) {
@@ -521,10 +802,118 @@ public class PodDBAdapter {
                 }
             }
             db.setTransactionSuccessful();
+            successful = true;
         } catch (SQLException e) {
             Log.e(TAG, Log.getStackTraceString(e));
         } finally {
             db.endTransaction();
+            FeedCache.invalidate();
+        }
+        if (successful) {
+            for (Feed feed : feeds) {
+                if (feed.getItems() != null) {
+                    markSaved(feed.getItems());
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the feed object and only those FeedItems of the feed that are new or have been changed
+     * since they were loaded, in a single transaction. Whether the shownotes of a saved item have
+     * changed is decided by {@link FeedItem#compareWithOther(FeedItem)}, so unchanged items are
+     * skipped without touching the database.
+     *
+     * @return the number of feed, item and media rows that have been written
+     * @throws SQLException if the transaction has been rolled back. The IDs that have been assigned
+     *                      to new feeds, items, media and chapters are reset to 0 in this case,
+     *                      so that the feeds can be saved again.
+     */
+    public int setFeedDelta(Feed... feeds) {
+        return setFeedDelta(Collections.emptyList(), feeds);
+    }
+
+    /**
+     * Like {@link #setFeedDelta(Feed...)}, but also counts a refresh of every saved feed and of every feed
+     * that has not been modified since its last download, all in the same transaction.
+     *
+     * @param notModifiedRequests Requests of feeds that have not been modified. Their ETag and Last-Modified
+     *                            values are saved as well, if the server has sent them.
+     */
+    public int setFeedDelta(List<DownloadRequest> notModifiedRequests, Feed... feeds) {
+        int rowsWritten = 0;
+        List<FeedItem> writtenItems = new ArrayList<>();
+        List<FeedComponent> insertedComponents = new ArrayList<>();
+        boolean successful = false;
+        try {
+            db.beginTransactionNonExclusive();
+            for (DownloadRequest request : notModifiedRequests) {
+                setFeedNotModified(request);
+            }
+            for (Feed feed : feeds) {
+                if (feed.getId() == 0) {
+                    insertedComponents.add(feed);
+                }
+                setFeed(feed);
+                incrementFeedRefreshCount(feed.getId());
+                rowsWritten++;
+                if (feed.getItems() != null) {
+                    for (FeedItem item : feed.getItems()) {
+                        if (item.getId() == 0 || item.isDirty()) {
+                            addUnsavedComponents(item, insertedComponents);
+                            setFeedItem(item, false);
+                            writtenItems.add(item);
+                            rowsWritten += (item.getMedia() != null) ? 2 : 1;
+                        } else if (item.hasUnsavedShownotesHashes()) {
+                            setFeedItemShownotesHashes(item);
+                            writtenItems.add(item);
+                            rowsWritten++;
+                        }
+                    }
+                }
+                if (feed.getPreferences() != null) {
+                    setFeedPreferences(feed.getPreferences());
+                }
+            }
+            db.setTransactionSuccessful();
+            successful = true;
+        } finally {
+            db.endTransaction();
+            FeedCache.invalidate();
+            if (!successful) {
+                for (FeedComponent component : insertedComponents) {
+                    component.setId(0);
+                }
+            }
+        }
+        markSaved(writtenItems);
+        return rowsWritten;
+    }
+
+    private static void addUnsavedComponents(FeedItem item, List<FeedComponent> components) {
+        if (item.getId() == 0) {
+            components.add(item);
+        }
+        if (item.getMedia() != null && item.getMedia().getId() == 0) {
+            components.add(item.getMedia());
+        }
+        if (item.getChapters() != null) {
+            for (Chapter chapter : item.getChapters()) {
+                if (chapter.getId() == 0) {
+                    components.add(chapter);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the dirty flag of items that have been written. This must only be called after the
+     * transaction has been committed, as the changes are not stored if it is rolled back.
+     */
+    private static void markSaved(List<FeedItem> items) {
+        for (FeedItem item : items) {
+            item.setDirty(false);
+            item.setUnsavedShownotesHashes(false);
         }
     }
 
@@ -535,19 +924,26 @@ public class PodDBAdapter {
         ContentValues values = new ContentValues();
         values.put(KEY_DOWNLOAD_URL, updated);
         db.update(TABLE_NAME_FEEDS, values, KEY_DOWNLOAD_URL + "=?", new String[]{original});
+        FeedCache.invalidate();
     }
 
     public void setFeedItemlist(List<FeedItem> items) {
+        boolean successful = false;
         try {
             db.beginTransactionNonExclusive();
             for (FeedItem item : items) {
                 setFeedItem(item, true);
             }
             db.setTransactionSuccessful();
+            successful = true;
         } catch (SQLException e) {
             Log.e(TAG, Log.getStackTraceString(e));
         } finally {
             db.endTransaction();
+            FeedCache.invalidate();
+        }
+        if (successful) {
+            markSaved(items);
         }
     }
 
@@ -559,8 +955,14 @@ public class PodDBAdapter {
             db.setTransactionSuccessful();
         } catch (SQLException e) {
             Log.e(TAG, Log.getStackTraceString(e));
+            result = 0;
         } finally {
             db.endTransaction();
+            FeedCache.invalidate();
+        }
+        if (result != 0) {
+            item.setDirty(false);
+            item.setUnsavedShownotesHashes(false);
         }
         return result;
     }
@@ -577,11 +979,17 @@ public class PodDBAdapter {
         ContentValues values = new ContentValues();
         values.put(KEY_TITLE, item.getTitle());
         values.put(KEY_LINK, item.getLink());
+        long descriptionHash = item.getDescriptionHash();
+        long contentEncodedHash = item.getContentEncodedHash();
         if (item.getDescription() != null) {
+            descriptionHash = FeedItem.hashShownotes(item.getDescription());
             values.put(KEY_DESCRIPTION, item.getDescription());
+            values.put(KEY_DESCRIPTION_HASH, descriptionHash);
         }
         if (item.getContentEncoded() != null) {
+            contentEncodedHash = FeedItem.hashShownotes(item.getContentEncoded());
             values.put(KEY_CONTENT_ENCODED, item.getContentEncoded());
+            values.put(KEY_CONTENT_ENCODED_HASH, contentEncodedHash);
         }
         values.put(KEY_PUBDATE, item.getPubDate().getTime());
         values.put(KEY_PAYMENT_LINK, item.getPaymentLink());
@@ -613,9 +1021,25 @@ public class PodDBAdapter {
         if (item.getChapters() != null) {
             setChapters(item);
         }
+        item.setShownotesHashes(descriptionHash, contentEncodedHash);
         return item.getId();
     }
 
+    /**
+     * Stores the shownotes hashes of an unchanged item that has been saved before the hashes
+     * existed, without writing the rest of the item.
+     */
+    private void setFeedItemShownotesHashes(FeedItem item) {
+        ContentValues values = new ContentValues();
+        if (item.getDescriptionHash() != 0) {
+            values.put(KEY_DESCRIPTION_HASH, item.getDescriptionHash());
+        }
+        if (item.getContentEncodedHash() != 0) {
+            values.put(KEY_CONTENT_ENCODED_HASH, item.getContentEncodedHash());
+        }
+        db.update(TABLE_NAME_FEED_ITEMS, values, KEY_ID + "=?", new String[]{String.valueOf(item.getId())});
+    }
+
     public void setFeedItemRead(int played, long itemId, long mediaId,
                                 boolean resetMediaPosition) {
         try {
@@ -677,6 +1101,9 @@ public class PodDBAdapter {
                         new String[]{String.valueOf(chapter.getId())});
             }
         }
+        if (!item.getChapters().isEmpty()) {
+            db.execSQL(UPDATE_SEARCH_CHAPTERS, new Object[]{item.getId()});
+        }
     }
 
     public void setFeedLastUpdateFailed(long feedId, boolean failed) {
@@ -684,12 +1111,60 @@ public class PodDBAdapter {
                 + " SET " + KEY_LAST_UPDATE_FAILED + "=" + (failed ? "1" : "0")
                 + " WHERE " + KEY_ID + "=" + feedId;
         db.execSQL(sql);
+        FeedCache.invalidate();
+    }
+
+    /**
+     * Counts a refresh of a feed that reached the server and returned a modified feed.
+     */
+    private void incrementFeedRefreshCount(long feedId) {
+        final String sql = "UPDATE " + TABLE_NAME_FEEDS
+                + " SET " + KEY_REFRESH_COUNT + "=" + KEY_REFRESH_COUNT + "+1"
+                + ", " + KEY_LAST_REFRESH + "=" + System.currentTimeMillis()
+                + " WHERE " + KEY_ID + "=" + feedId;
+        db.execSQL(sql);
+    }
+
+    /**
+     * Counts a refresh of a feed that the server reported as not modified, or whose download was
+     * identical to the last one, and saves the validators of the response.
+     */
+    private void setFeedNotModified(DownloadRequest request) {
+        final String sql = "UPDATE " + TABLE_NAME_FEEDS
+                + " SET " + KEY_REFRESH_COUNT + "=" + KEY_REFRESH_COUNT + "+1"
+                + ", " + KEY_NOT_MODIFIED_COUNT + "=" + KEY_NOT_MODIFIED_COUNT + "+1"
+                + ", " + KEY_LAST_REFRESH + "=" + System.currentTimeMillis()
+                + ", " + KEY_LASTUPDATE + "=COALESCE(?, " + KEY_LASTUPDATE + ")"
+                + ", " + KEY_ETAG + "=COALESCE(?, " + KEY_ETAG + ")"
+                + " WHERE " + KEY_ID + "=" + request.getFeedfileId();
+        db.execSQL(sql, new Object[]{request.getLastModified(), request.getEtag()});
+    }
+
+    /**
+     * Counts an automatic refresh that has been skipped because the feeds were not due. The feeds
+     * are updated with a single statement per {@link #IN_OPERATOR_MAXIMUM} feeds.
+     */
+    public void incrementSkippedRefreshCount(long... feedIds) {
+        for (int start = 0; start < feedIds.length; start += IN_OPERATOR_MAXIMUM) {
+            int length = Math.min(IN_OPERATOR_MAXIMUM, feedIds.length - start);
+            Object[] args = new Object[length];
+            for (int i = 0; i < length; i++) {
+                args[i] = feedIds[start + i];
+            }
+            db.execSQL("UPDATE " + TABLE_NAME_FEEDS
+                    + " SET " + KEY_SKIPPED_REFRESH_COUNT + "=" + KEY_SKIPPED_REFRESH_COUNT + "+1"
+                    + " WHERE " + KEY_ID + " IN " + buildInOperator(length), args);
+        }
+        if (feedIds.length > 0) {
+            FeedCache.invalidate();
+        }
     }
 
     void setFeedCustomTitle(long feedId, String customTitle) {
         ContentValues values = new ContentValues();
         values.put(KEY_CUSTOM_TITLE, customTitle);
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.invalidate();
     }
 
     /**
@@ -779,17 +1254,132 @@ public class PodDBAdapter {
         return count > 0;
     }
 
+    /**
+     * Replaces the queue. The rows get ids that are {@link #QUEUE_POSITION_GAP} apart, so that later
+     * inserts and moves can pick an id between two neighbours without touching other rows.
+     */
     public void setQueue(List<FeedItem> queue) {
+        LongList itemIds = new LongList(queue.size());
+        LongList feedIds = new LongList(queue.size());
+        for (FeedItem item : queue) {
+            itemIds.add(item.getId());
+            feedIds.add(item.getFeed().getId());
+        }
+        try {
+            db.beginTransactionNonExclusive();
+            writeQueue(itemIds, feedIds);
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void writeQueue(LongList itemIds, LongList feedIds) {
         ContentValues values = new ContentValues();
+        db.delete(TABLE_NAME_QUEUE, null, null);
+        for (int i = 0; i < itemIds.size(); i++) {
+            values.put(KEY_ID, (i + 1) * QUEUE_POSITION_GAP);
+            values.put(KEY_FEEDITEM, itemIds.get(i));
+            values.put(KEY_FEED, feedIds.get(i));
+            db.insertWithOnConflict(TABLE_NAME_QUEUE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        }
+    }
+
+    /**
+     * Spreads the ids of the queue rows evenly again. Only needed when repeated inserts at the
+     * same position have used up the gap between two rows.
+     */
+    private void respaceQueue() {
+        Log.d(TAG, "respaceQueue()");
+        LongList itemIds = new LongList();
+        LongList feedIds = new LongList();
+        try (Cursor cursor = db.query(TABLE_NAME_QUEUE, new String[]{KEY_FEEDITEM, KEY_FEED},
+                null, null, null, null, KEY_ID + " ASC")) {
+            while (cursor.moveToNext()) {
+                itemIds.add(cursor.getLong(0));
+                feedIds.add(cursor.getLong(1));
+            }
+        }
+        writeQueue(itemIds, feedIds);
+    }
+
+    /**
+     * Returns an unused queue row id that sorts the row right after the row of the given item, or
+     * null if that row and the next one have adjacent ids. Both rows are looked up through indexes,
+     * so this does not depend on the length of the queue.
+     *
+     * @param previousItemId ID of the FeedItem that should come before the row, or 0 for the front of the queue.
+     */
+    @Nullable
+    private Long getQueuePositionAfter(long previousItemId) {
+        Long before = null;
+        if (previousItemId != 0) {
+            before = getQueuePosition(previousItemId);
+        }
+        Long after;
+        if (before == null) {
+            after = querySingleLong("SELECT MIN(" + KEY_ID + ") FROM " + TABLE_NAME_QUEUE, null);
+        } else {
+            after = querySingleLong("SELECT MIN(" + KEY_ID + ") FROM " + TABLE_NAME_QUEUE
+                    + " WHERE " + KEY_ID + ">?", new String[]{String.valueOf(before)});
+        }
+        if (before == null && after == null) {
+            return QUEUE_POSITION_GAP;
+        } else if (before == null) {
+            return after - QUEUE_POSITION_GAP;
+        } else if (after == null) {
+            return before + QUEUE_POSITION_GAP;
+        } else if (after - before < 2) {
+            return null;
+        }
+        return before + (after - before) / 2;
+    }
+
+    @Nullable
+    private Long getQueuePosition(long itemId) {
+        return querySingleLong("SELECT " + KEY_ID + " FROM " + TABLE_NAME_QUEUE
+                + " WHERE " + KEY_FEEDITEM + "=?", new String[]{String.valueOf(itemId)});
+    }
+
+    @Nullable
+    private Long querySingleLong(String sql, String[] selectionArgs) {
+        try (Cursor cursor = db.rawQuery(sql, selectionArgs)) {
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+            return null;
+        }
+    }
+
+    private void insertQueueItem(long previousItemId, long itemId, long feedId) {
+        Long position = getQueuePositionAfter(previousItemId);
+        if (position == null) {
+            respaceQueue();
+            position = getQueuePositionAfter(previousItemId);
+        }
+        ContentValues values = new ContentValues();
+        values.put(KEY_ID, position);
+        values.put(KEY_FEEDITEM, itemId);
+        values.put(KEY_FEED, feedId);
+        db.insertWithOnConflict(TABLE_NAME_QUEUE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Inserts FeedItems into the queue, the first one right after the given item and the others right
+     * after it. Unlike {@link #setQueue(List)}, this only writes the rows of the new items.
+     *
+     * @param previousItemId ID of the queued FeedItem that the items are inserted after, or 0 to insert
+     *                       them at the front of the queue.
+     */
+    public void addQueueItems(long previousItemId, List<FeedItem> items) {
         try {
             db.beginTransactionNonExclusive();
-            db.delete(TABLE_NAME_QUEUE, null, null);
-            for (int i = 0; i < queue.size(); i++) {
-                FeedItem item = queue.get(i);
-                values.put(KEY_ID, i);
-                values.put(KEY_FEEDITEM, item.getId());
-                values.put(KEY_FEED, item.getFeed().getId());
-                db.insertWithOnConflict(TABLE_NAME_QUEUE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            long previous = previousItemId;
+            for (FeedItem item : items) {
+                insertQueueItem(previous, item.getId(), item.getFeedId());
+                previous = item.getId();
             }
             db.setTransactionSuccessful();
         } catch (SQLException e) {
@@ -799,6 +1389,48 @@ public class PodDBAdapter {
         }
     }
 
+    /**
+     * Removes the FeedItems with the given ids from the queue. The other rows are not touched.
+     */
+    public void removeQueueItems(long... itemIds) {
+        for (int start = 0; start < itemIds.length; start += IN_OPERATOR_MAXIMUM) {
+            int length = Math.min(IN_OPERATOR_MAXIMUM, itemIds.length - start);
+            String[] args = new String[length];
+            for (int i = 0; i < length; i++) {
+                args[i] = String.valueOf(itemIds[start + i]);
+            }
+            db.delete(TABLE_NAME_QUEUE, KEY_FEEDITEM + " IN " + buildInOperator(length), args);
+        }
+    }
+
+    /**
+     * Moves a queue entry by changing only the id of its row.
+     *
+     * @param itemId         ID of the queued FeedItem that is moved.
+     * @param previousItemId ID of the queued FeedItem that the item is moved after, or 0 to move it to
+     *                       the front of the queue.
+     */
+    public void moveQueueItem(long itemId, long previousItemId) {
+        try {
+            db.beginTransactionNonExclusive();
+            long feedId;
+            try (Cursor cursor = db.query(TABLE_NAME_QUEUE, new String[]{KEY_FEED}, KEY_FEEDITEM + "=?",
+                    new String[]{String.valueOf(itemId)}, null, null, null)) {
+                if (!cursor.moveToFirst()) {
+                    return;
+                }
+                feedId = cursor.getLong(0);
+            }
+            removeQueueItems(itemId);
+            insertQueueItem(previousItemId, itemId, feedId);
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
     public void clearQueue() {
         db.delete(TABLE_NAME_QUEUE, null, null);
     }
@@ -853,6 +1485,7 @@ public class PodDBAdapter {
             Log.e(TAG, Log.getStackTraceString(e));
         } finally {
             db.endTransaction();
+            FeedCache.invalidate();
         }
     }
 
@@ -876,6 +1509,35 @@ public class PodDBAdapter {
                 KEY_TITLE + " COLLATE NOCASE ASC");
     }
 
+    /**
+     * Returns the feed and publishing date of the newest items of every feed that have been published
+     * after the given time, ordered by feed and newest first.
+     *
+     * @param maxPerFeed The maximum number of items per feed
+     */
+    public final Cursor getRecentPubDatesCursor(long since, int maxPerFeed) {
+        final String query = "SELECT " + TABLE_NAME_FEEDS + "." + KEY_ID + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE
+                + " FROM " + TABLE_NAME_FEEDS + " INNER JOIN " + TABLE_NAME_FEED_ITEMS
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " IN ("
+                + "SELECT " + KEY_ID + " FROM " + TABLE_NAME_FEED_ITEMS + " AS recent"
+                + " WHERE recent." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
+                + " AND recent." + KEY_PUBDATE + ">?"
+                + " ORDER BY recent." + KEY_PUBDATE + " DESC LIMIT " + maxPerFeed + ")"
+                + " ORDER BY " + TABLE_NAME_FEEDS + "." + KEY_ID + " ASC, "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC";
+        return db.rawQuery(query, new String[]{String.valueOf(since)});
+    }
+
+    /**
+     * Returns a cursor with the ID of every feed that has items with a publishing date and the
+     * publishing date of its most recent item.
+     */
+    public final Cursor getMostRecentPubDatesCursor() {
+        return db.query(TABLE_NAME_FEED_ITEMS, new String[]{KEY_FEED, "MAX(" + KEY_PUBDATE + ")"},
+                KEY_PUBDATE + ">0", null, KEY_FEED, null, null);
+    }
+
     public final Cursor getFeedCursorDownloadUrls() {
         return db.query(TABLE_NAME_FEEDS, new String[]{KEY_ID, KEY_DOWNLOAD_URL}, null, null, null, null, null);
     }
@@ -896,6 +1558,29 @@ public class PodDBAdapter {
                 null);
     }
 
+    /**
+     * Returns a cursor with the item identifier, title, media download URL and link of all
+     * FeedItems of a Feed, i.e. the values that make up their identifying value.
+     */
+    public final Cursor getItemIdentifyingValuesCursor(final long feedId) {
+        final String query = "SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_ITEM_IDENTIFIER + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_TITLE + ", "
+                + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_URL + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_LINK
+                + " FROM " + TABLE_NAME_FEED_ITEMS + JOIN_FEED_MEDIA
+                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=?";
+        return db.rawQuery(query, new String[]{String.valueOf(feedId)});
+    }
+
+    /**
+     * Returns a cursor with the publishing date of the most recent item of a feed. The
+     * cursor contains null if the feed has no items.
+     */
+    public final Cursor getMostRecentPubDateCursor(final long feedId) {
+        return db.query(TABLE_NAME_FEED_ITEMS, new String[]{"MAX(" + KEY_PUBDATE + ")"},
+                KEY_FEED + "=?", new String[]{String.valueOf(feedId)}, null, null, null);
+    }
+
     /**
      * Return a cursor with the SEL_FI_EXTRA selection of a single feeditem.
      */
@@ -957,10 +1642,8 @@ public class PodDBAdapter {
     }
 
     public final Cursor getDownloadLog(final int feedFileType, final long feedFileId) {
-        final String query = "SELECT * FROM " + TABLE_NAME_DOWNLOAD_LOG +
-                " WHERE " + KEY_FEEDFILE + "=" + feedFileId + " AND " + KEY_FEEDFILETYPE + "=" + feedFileType
-                + " ORDER BY " + KEY_ID + " DESC";
-        return db.rawQuery(query, null);
+        return db.rawQuery(QUERY_DOWNLOAD_LOG,
+                new String[]{String.valueOf(feedFileId), String.valueOf(feedFileType)});
     }
 
     public final Cursor getDownloadLogCursor(final int limit) {
@@ -970,17 +1653,17 @@ public class PodDBAdapter {
 
     /**
      * Returns a cursor which contains all feed items in the queue. The returned
-     * cursor uses the FEEDITEM_SEL_FI_SMALL selection.
-     * cursor uses the FEEDITEM_SEL_FI_SMALL selection.
+     * cursor uses the SEL_FI_JOINED_STR selection.
      */
     public final Cursor getQueueCursor() {
         Object[] args = new String[]{
-                SEL_FI_SMALL_STR,
+                SEL_FI_JOINED_STR,
                 TABLE_NAME_FEED_ITEMS, TABLE_NAME_QUEUE,
                 TABLE_NAME_FEED_ITEMS + "." + KEY_ID,
                 TABLE_NAME_QUEUE + "." + KEY_FEEDITEM,
+                JOIN_FEED_MEDIA + JOIN_FEEDS,
                 TABLE_NAME_QUEUE + "." + KEY_ID};
-        String query = String.format("SELECT %s FROM %s INNER JOIN %s ON %s=%s ORDER BY %s", args);
+        String query = String.format("SELECT %s FROM %s INNER JOIN %s ON %s=%s%s ORDER BY %s", args);
         return db.rawQuery(query, null);
     }
 
@@ -989,14 +1672,23 @@ public class PodDBAdapter {
     }
 
 
+    public Cursor getFavoritesIDCursor() {
+        return db.query(TABLE_NAME_FAVORITES, new String[]{KEY_FEEDITEM}, null, null, null, null, null);
+    }
+
+    /**
+     * Returns a cursor which contains all favorite items. The returned cursor uses the
+     * SEL_FI_JOINED_STR selection.
+     */
     public final Cursor getFavoritesCursor() {
         Object[] args = new String[]{
-                SEL_FI_SMALL_STR,
+                SEL_FI_JOINED_STR,
                 TABLE_NAME_FEED_ITEMS, TABLE_NAME_FAVORITES,
                 TABLE_NAME_FEED_ITEMS + "." + KEY_ID,
                 TABLE_NAME_FAVORITES + "." + KEY_FEEDITEM,
+                JOIN_FEED_MEDIA + JOIN_FEEDS,
                 TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE};
-        String query = String.format("SELECT %s FROM %s INNER JOIN %s ON %s=%s ORDER BY %s DESC", args);
+        String query = String.format("SELECT %s FROM %s INNER JOIN %s ON %s=%s%s ORDER BY %s DESC", args);
         return db.rawQuery(query, null);
     }
 
@@ -1027,34 +1719,171 @@ public class PodDBAdapter {
     /**
      * Returns a cursor which contains all feed items that are considered new.
      * Excludes those feeds that do not have 'Keep Updated' enabled.
-     * The returned cursor uses the FEEDITEM_SEL_FI_SMALL selection.
+     * The returned cursor uses the SEL_FI_JOINED_STR selection.
      */
     public final Cursor getNewItemsCursor() {
         Object[] args = new String[]{
-                SEL_FI_SMALL_STR,
+                SEL_FI_JOINED_STR,
                 TABLE_NAME_FEED_ITEMS,
                 TABLE_NAME_FEEDS,
                 TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID,
+                JOIN_FEED_MEDIA,
                 TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.NEW + " AND " + TABLE_NAME_FEEDS + "." + KEY_KEEP_UPDATED + " > 0",
-                KEY_PUBDATE + " DESC"
+                TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC"
         };
-        final String query = String.format("SELECT %s FROM %s INNER JOIN %s ON %s WHERE %s ORDER BY %s", args);
+        final String query = String.format("SELECT %s FROM %s INNER JOIN %s ON %s%s WHERE %s ORDER BY %s", args);
         return db.rawQuery(query, null);
     }
 
+    /**
+     * Returns a cursor which contains feed items sorted by pubDate in descending order. The
+     * returned cursor uses the SEL_FI_JOINED_STR selection.
+     */
     public final Cursor getRecentlyPublishedItemsCursor(int offset, int limit) {
-        return db.query(TABLE_NAME_FEED_ITEMS, FEEDITEM_SEL_FI_SMALL, null, null, null, null, KEY_PUBDATE + " DESC LIMIT " + offset + ", " + limit);
+        String query = "SELECT " + SEL_FI_JOINED_STR
+                + " FROM " + TABLE_NAME_FEED_ITEMS + JOIN_FEED_MEDIA + JOIN_FEEDS
+                + " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC"
+                + " LIMIT " + offset + ", " + limit;
+        return db.rawQuery(query, null);
     }
 
-    public Cursor getDownloadedItemsCursor() {
-        final String query = "SELECT " + SEL_FI_SMALL_STR
+    /**
+     * Returns the condition that selects the rows following the given key when the rows are
+     * ordered by dateColumn and idColumn in descending order.
+     */
+    private static String keysetCondition(String dateColumn, String idColumn, long date, long id) {
+        return "(" + dateColumn + "<" + date + " OR (" + dateColumn + "=" + date
+                + " AND " + idColumn + "<" + id + "))";
+    }
+
+    private static long getPubDateTime(FeedItem item) {
+        return (item.getPubDate() != null) ? item.getPubDate().getTime() : 0;
+    }
+
+    /**
+     * Returns a page of feed items sorted by pubDate in descending order. The returned cursor
+     * uses the SEL_FI_JOINED_STR selection.
+     *
+     * @param feedId ID of the feed, or 0 for the items of all feeds.
+     * @param after  The last item of the previous page, or null for the first page.
+     * @param limit  The maximum number of items.
+     */
+    public final Cursor getFeedItemsPageCursor(long feedId, @Nullable FeedItem after, int limit) {
+        String pubDate = TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE;
+        String id = TABLE_NAME_FEED_ITEMS + "." + KEY_ID;
+        String where = (feedId != 0) ? TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + feedId : null;
+        if (after != null) {
+            String keyset = keysetCondition(pubDate, id, getPubDateTime(after), after.getId());
+            where = (where != null) ? where + " AND " + keyset : keyset;
+        }
+        String query = "SELECT " + SEL_FI_JOINED_STR
+                + " FROM " + TABLE_NAME_FEED_ITEMS + JOIN_FEED_MEDIA + JOIN_FEEDS;
+        if (where != null) {
+            query += " WHERE " + where;
+        }
+        query += " ORDER BY " + pubDate + " DESC, " + id + " DESC LIMIT " + limit;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Returns a page of the items of a feed that have a media file, sorted by pubDate in
+     * descending order. The columns of the returned cursor are the ID of the media file, the
+     * title of the item, the image URL of the item or, if the item has none, of the feed, the
+     * ID of the item and its pubDate.
+     *
+     * @param feedId        ID of the feed.
+     * @param afterPubDate  The pubDate of the last item of the previous page.
+     * @param afterItemId   The ID of the last item of the previous page, or 0 for the first page.
+     * @param limit         The maximum number of items.
+     */
+    public final Cursor getEpisodeSummariesCursor(long feedId, long afterPubDate, long afterItemId, int limit) {
+        String pubDate = TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE;
+        String id = TABLE_NAME_FEED_ITEMS + "." + KEY_ID;
+        String query = "SELECT " + TABLE_NAME_FEED_MEDIA + "." + KEY_ID + ", "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_TITLE + ", "
+                + "IFNULL(" + TABLE_NAME_FEED_ITEMS + "." + KEY_IMAGE_URL + ", "
+                + TABLE_NAME_FEEDS + "." + KEY_IMAGE_URL + "), "
+                + id + ", " + pubDate
                 + " FROM " + TABLE_NAME_FEED_ITEMS
                 + " INNER JOIN " + TABLE_NAME_FEED_MEDIA
-                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                + " ON " + id + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                + " INNER JOIN " + TABLE_NAME_FEEDS
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
+                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + feedId;
+        if (afterItemId != 0) {
+            query += " AND " + keysetCondition(pubDate, id, afterPubDate, afterItemId);
+        }
+        query += " ORDER BY " + pubDate + " DESC, " + id + " DESC LIMIT " + limit;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Returns a page of downloaded items sorted by pubDate in descending order. The returned
+     * cursor uses the SEL_FI_JOINED_STR selection.
+     *
+     * @param after The last item of the previous page, or null for the first page.
+     * @param limit The maximum number of items.
+     */
+    public final Cursor getDownloadedItemsPageCursor(@Nullable FeedItem after, int limit) {
+        String pubDate = TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE;
+        String id = TABLE_NAME_FEED_ITEMS + "." + KEY_ID;
+        String query = "SELECT " + SEL_FI_JOINED_STR
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " INNER JOIN " + TABLE_NAME_FEED_MEDIA
+                + " ON " + id + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                + JOIN_FEEDS
                 + " WHERE " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED + ">0";
+        if (after != null) {
+            query += " AND " + keysetCondition(pubDate, id, getPubDateTime(after), after.getId());
+        }
+        query += " ORDER BY " + pubDate + " DESC, " + id + " DESC LIMIT " + limit;
         return db.rawQuery(query, null);
     }
 
+    /**
+     * Returns a page of favorite items sorted by pubDate in descending order. The returned
+     * cursor uses the SEL_FI_JOINED_STR selection.
+     *
+     * @param after The last item of the previous page, or null for the first page.
+     * @param limit The maximum number of items.
+     */
+    public final Cursor getFavoritesPageCursor(@Nullable FeedItem after, int limit) {
+        String pubDate = TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE;
+        String id = TABLE_NAME_FEED_ITEMS + "." + KEY_ID;
+        String query = "SELECT " + SEL_FI_JOINED_STR
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " INNER JOIN " + TABLE_NAME_FAVORITES
+                + " ON " + id + "=" + TABLE_NAME_FAVORITES + "." + KEY_FEEDITEM
+                + JOIN_FEED_MEDIA + JOIN_FEEDS;
+        if (after != null) {
+            query += " WHERE " + keysetCondition(pubDate, id, getPubDateTime(after), after.getId());
+        }
+        query += " ORDER BY " + pubDate + " DESC, " + id + " DESC LIMIT " + limit;
+        return db.rawQuery(query, null);
+    }
+
+    /**
+     * Returns a page of feed media objects with a playback completion date, sorted by the
+     * completion date in descending order.
+     *
+     * @param after The media of the last item of the previous page, or null for the first page.
+     * @param limit The maximum number of media objects.
+     */
+    public final Cursor getCompletedMediaPageCursor(@Nullable FeedMedia after, int limit) {
+        String where = KEY_PLAYBACK_COMPLETION_DATE + " > 0";
+        if (after != null) {
+            long completionDate = (after.getPlaybackCompletionDate() != null)
+                    ? after.getPlaybackCompletionDate().getTime() : 0;
+            where += " AND " + keysetCondition(KEY_PLAYBACK_COMPLETION_DATE, KEY_ID, completionDate, after.getId());
+        }
+        return db.query(TABLE_NAME_FEED_MEDIA, null, where, null, null, null,
+                KEY_PLAYBACK_COMPLETION_DATE + " DESC, " + KEY_ID + " DESC", String.valueOf(limit));
+    }
+
+    public Cursor getDownloadedItemsCursor() {
+        return db.rawQuery(QUERY_DOWNLOADED_ITEMS, null);
+    }
+
     /**
      * Returns a cursor which contains feed media objects with a playback
      * completion date in ascending order.
@@ -1068,9 +1897,7 @@ public class PodDBAdapter {
             throw new IllegalArgumentException("Limit must be >= 0");
         }
 
-        return db.query(TABLE_NAME_FEED_MEDIA, null,
-                KEY_PLAYBACK_COMPLETION_DATE + " > 0", null, null,
-                null, String.format("%s DESC LIMIT %d", KEY_PLAYBACK_COMPLETION_DATE, limit));
+        return db.rawQuery(QUERY_COMPLETED_MEDIA, new String[]{String.valueOf(limit)});
     }
 
     public final Cursor getSingleFeedMediaCursor(long id) {
@@ -1146,31 +1973,155 @@ public class PodDBAdapter {
 
     }
 
+    /**
+     * Returns a cursor with the FeedItems with the given IDs. Unlike getFeedItemCursor, the
+     * returned cursor uses the SEL_FI_JOINED_STR selection.
+     */
+    public final Cursor getFeedItemListCursor(final String[] ids) {
+        if (ids.length > IN_OPERATOR_MAXIMUM) {
+            throw new IllegalArgumentException(
+                    "number of IDs must not be larger than "
+                            + IN_OPERATOR_MAXIMUM
+            );
+        }
+        String query = "SELECT " + SEL_FI_JOINED_STR
+                + " FROM " + TABLE_NAME_FEED_ITEMS + JOIN_FEED_MEDIA + JOIN_FEEDS
+                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " IN " + buildInOperator(ids.length);
+        return db.rawQuery(query, ids);
+    }
+
     public final Cursor getFeedItemCursor(final String podcastUrl, final String episodeUrl) {
-        String escapedPodcastUrl = DatabaseUtils.sqlEscapeString(podcastUrl);
-        String escapedEpisodeUrl = DatabaseUtils.sqlEscapeString(episodeUrl);
-        final String query = ""
-                + "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS
-                + " INNER JOIN " + TABLE_NAME_FEEDS
-                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
+        return db.rawQuery(QUERY_FEED_ITEM_BY_URLS, new String[]{episodeUrl, podcastUrl});
+    }
+
+    /**
+     * Returns a cursor with the FeedItems whose media has one of the given download URLs. The
+     * returned cursor uses the FEEDITEM_SEL_FI_SMALL selection.
+     */
+    public final Cursor getFeedItemsByEpisodeUrlCursor(final String... episodeUrls) {
+        String query = "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS
                 + " INNER JOIN " + TABLE_NAME_FEED_MEDIA
                 + " ON " + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM + "=" + TABLE_NAME_FEED_ITEMS + "." + KEY_ID
-                + " WHERE " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_URL + "=" + escapedEpisodeUrl
-                + " AND " + TABLE_NAME_FEEDS + "." + KEY_DOWNLOAD_URL + "=" + escapedPodcastUrl;
-        Log.d(TAG, "SQL: " + query);
-        return db.rawQuery(query, null);
+                + " WHERE " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOAD_URL + " IN ";
+        int numCursors = (episodeUrls.length + IN_OPERATOR_MAXIMUM - 1) / IN_OPERATOR_MAXIMUM;
+        if (numCursors <= 1) {
+            return db.rawQuery(query + buildInOperator(episodeUrls.length), episodeUrls);
+        }
+        Cursor[] cursors = new Cursor[numCursors];
+        for (int i = 0; i < numCursors; i++) {
+            String[] parts = Arrays.copyOfRange(episodeUrls, i * IN_OPERATOR_MAXIMUM,
+                    Math.min((i + 1) * IN_OPERATOR_MAXIMUM, episodeUrls.length));
+            cursors[i] = db.rawQuery(query + buildInOperator(parts.length), parts);
+        }
+        return new MergeCursor(cursors);
+    }
+
+    /**
+     * Applies the episode states that have been received from gpodder.net in a single transaction.
+     *
+     * @param unplayedItems  Items that are marked as unplayed. The position of their media is reset.
+     * @param updatedMedia   Media whose position has changed.
+     * @param completedMedia Media that has been played completely. Its item is marked as played,
+     *                       its position is reset and its playback completion date is stored.
+     */
+    public void setEpisodeActionStates(List<FeedItem> unplayedItems, List<FeedMedia> updatedMedia,
+                                       List<FeedMedia> completedMedia) {
+        try {
+            db.beginTransactionNonExclusive();
+            ContentValues values = new ContentValues();
+            for (FeedItem item : unplayedItems) {
+                long mediaId = item.hasMedia() ? item.getMedia().getId() : 0;
+                setFeedItemRead(FeedItem.UNPLAYED, item.getId(), mediaId, true);
+            }
+            for (FeedMedia media : updatedMedia) {
+                values.clear();
+                values.put(KEY_POSITION, media.getPosition());
+                db.update(TABLE_NAME_FEED_MEDIA, values, KEY_ID + "=?",
+                        new String[]{String.valueOf(media.getId())});
+            }
+            for (FeedMedia media : completedMedia) {
+                setFeedItemRead(FeedItem.PLAYED, media.getItem().getId(), media.getId(), true);
+                setFeedMediaPlaybackCompletionDate(media);
+            }
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Appends an episode action to the actions that have to be uploaded. A PLAY action replaces
+     * the PLAY actions of the same episode that have not been uploaded yet, because only the
+     * most recent position matters.
+     */
+    public void addEpisodeAction(GpodnetEpisodeAction action) {
+        addEpisodeActions(Collections.singletonList(action));
+    }
+
+    /**
+     * Appends several episode actions in a single transaction, see {@link #addEpisodeAction(GpodnetEpisodeAction)}.
+     *
+     * @return true if the actions have been saved, false if the transaction has been rolled back
+     */
+    public boolean addEpisodeActions(List<GpodnetEpisodeAction> actions) {
+        try {
+            db.beginTransactionNonExclusive();
+            ContentValues values = new ContentValues();
+            for (GpodnetEpisodeAction action : actions) {
+                if (action.getAction() == GpodnetEpisodeAction.Action.PLAY) {
+                    db.delete(TABLE_NAME_EPISODE_ACTIONS, KEY_EPISODE + "=? AND " + KEY_PODCAST + "=? AND "
+                            + KEY_ACTION + "=?", new String[]{action.getEpisode(), action.getPodcast(),
+                            GpodnetEpisodeAction.Action.PLAY.name()});
+                }
+                values.put(KEY_PODCAST, action.getPodcast());
+                values.put(KEY_EPISODE, action.getEpisode());
+                values.put(KEY_ACTION, action.getAction().name());
+                values.put(KEY_ACTION_DATA, action.writeToString());
+                db.insertOrThrow(TABLE_NAME_EPISODE_ACTIONS, null, values);
+            }
+            db.setTransactionSuccessful();
+            return true;
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Returns a cursor with the ids and the data of the oldest episode actions that have not been
+     * uploaded yet.
+     */
+    public final Cursor getEpisodeActionsCursor(int limit) {
+        return db.query(TABLE_NAME_EPISODE_ACTIONS, new String[]{KEY_ID, KEY_ACTION_DATA}, null, null,
+                null, null, KEY_ID + " ASC", String.valueOf(limit));
+    }
+
+    /**
+     * Removes the episode actions up to and including the one with the given id. Actions that
+     * are added later always have a larger id.
+     */
+    public void removeEpisodeActions(long lastId) {
+        db.delete(TABLE_NAME_EPISODE_ACTIONS, KEY_ID + "<=?", new String[]{String.valueOf(lastId)});
+    }
+
+    public void clearEpisodeActions() {
+        db.delete(TABLE_NAME_EPISODE_ACTIONS, null, null);
     }
 
     public Cursor getImageAuthenticationCursor(final String imageUrl) {
-        String downloadUrl = DatabaseUtils.sqlEscapeString(imageUrl);
-        final String query = ""
-                + "SELECT " + KEY_USERNAME + "," + KEY_PASSWORD + " FROM " + TABLE_NAME_FEED_ITEMS
-                + " INNER JOIN " + TABLE_NAME_FEEDS
-                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + " = " + TABLE_NAME_FEEDS + "." + KEY_ID
-                + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_IMAGE_URL + "=" + downloadUrl
-                + " UNION SELECT " + KEY_USERNAME + "," + KEY_PASSWORD + " FROM " + TABLE_NAME_FEEDS
-                + " WHERE " + TABLE_NAME_FEEDS + "." + KEY_IMAGE_URL + "=" + downloadUrl;
-        return db.rawQuery(query, null);
+        return db.rawQuery(QUERY_IMAGE_AUTHENTICATION, new String[]{imageUrl, imageUrl});
+    }
+
+    /**
+     * Returns the query plan of the given query. The fourth column of each row describes one step.
+     */
+    @VisibleForTesting
+    Cursor explainQueryPlan(String query, String... args) {
+        return db.rawQuery("EXPLAIN QUERY PLAN " + query, args);
     }
 
     public int getQueueSize() {
@@ -1261,6 +2212,29 @@ public class PodDBAdapter {
         return result;
     }
 
+    /**
+     * Returns a cursor with one row of playback statistics per feed that has media. The columns are
+     * the feed id, the total duration, the played duration, the played duration counting episodes
+     * marked as played completely, the number of episodes, the number of started episodes and the
+     * number of started episodes including those that are marked as played. Durations are in seconds.
+     */
+    public final Cursor getPlaybackStatisticsCursor() {
+        final String played = TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.PLAYED;
+        final String query = "SELECT " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED
+                + ", SUM(" + KEY_DURATION + " / 1000)"
+                + ", SUM(" + KEY_PLAYED_DURATION + " / 1000)"
+                + ", SUM(CASE WHEN " + played + " THEN " + KEY_DURATION + " / 1000"
+                + " ELSE " + KEY_POSITION + " / 1000 END)"
+                + ", COUNT(" + TABLE_NAME_FEED_MEDIA + "." + KEY_ID + ")"
+                + ", SUM(" + KEY_PLAYBACK_COMPLETION_DATE + " > 0 OR " + KEY_PLAYED_DURATION + " > 0)"
+                + ", SUM(" + played + " OR " + KEY_POSITION + " != 0)"
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " INNER JOIN " + TABLE_NAME_FEED_MEDIA + " ON "
+                + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                + " GROUP BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED;
+        return db.rawQuery(query, null);
+    }
+
     public final LongIntMap getPlayedEpisodesCounters(long... feedIds) {
         String whereRead = KEY_READ + "=" + FeedItem.PLAYED;
         return conditionalFeedCounterRead(whereRead, feedIds);
@@ -1280,146 +2254,61 @@ public class PodDBAdapter {
     }
 
     /**
-     * Uses DatabaseUtils to escape a search query and removes ' at the
-     * beginning and the end of the string returned by the escape method.
+     * Converts a user-entered search query into an FTS query. Every word of the query is turned
+     * into a prefix term, so that all words have to occur in the item, but not necessarily next
+     * to each other. Unlike the former LIKE search, a word only matches the beginning of a word
+     * in the item, so "raffe" does not find "giraffe".
+     *
+     * @return The FTS query or an empty String if the query does not contain any searchable words.
      */
-    private String prepareSearchQuery(String query) {
+    static String prepareFullTextQuery(String query) {
         StringBuilder builder = new StringBuilder();
-        DatabaseUtils.appendEscapedSQLString(builder, query);
-        builder.deleteCharAt(0);
-        builder.deleteCharAt(builder.length() - 1);
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= query.length(); i++) {
+            char c = i < query.length() ? query.charAt(i) : ' ';
+            // same separators as the 'simple' tokenizer: all non-alphanumeric ASCII characters
+            if (c >= 128 || Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                if (builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(token).append('*');
+                token.setLength(0);
+            }
+        }
         return builder.toString();
     }
 
     /**
-     * Searches for the given query in the description of all items or the items
-     * of a specified feed.
+     * Searches the full-text index for items whose title, chapters, shownotes, author or feed
+     * identifier match the query. Words are matched by prefix, see {@link #prepareFullTextQuery(String)}.
      *
-     * @return A cursor with all search results in SEL_FI_EXTRA selection.
+     * @param feedID ID of the feed whose items should be searched, 0 to search all items
+     * @return A cursor with all search results in SEL_FI_JOINED_STR selection, most recent items
+     * first. Additionally, the cursor contains the FTS matchinfo ('pcx' format) in the
+     * {@link #KEY_SEARCH_MATCHINFO} column, from which FeedSearcher ranks the results.
      */
-    public Cursor searchItemDescriptions(long feedID, String query) {
-        if (feedID != 0) {
-            // search items in specific feed
-            return db.query(TABLE_NAME_FEED_ITEMS, FEEDITEM_SEL_FI_SMALL, KEY_FEED
-                            + "=? AND " + KEY_DESCRIPTION + " LIKE '%"
-                            + prepareSearchQuery(query) + "%'",
-                    new String[]{String.valueOf(feedID)}, null, null,
-                    null
-            );
-        } else {
-            // search through all items
-            return db.query(TABLE_NAME_FEED_ITEMS, FEEDITEM_SEL_FI_SMALL,
-                    KEY_DESCRIPTION + " LIKE '%" + prepareSearchQuery(query)
-                            + "%'", null, null, null, null
-            );
-        }
+    public Cursor searchItems(long feedID, String searchQuery) {
+        return db.rawQuery(getSearchItemsQuery(feedID), new String[]{prepareFullTextQuery(searchQuery)});
     }
 
     /**
-     * Searches for the given query in the content-encoded field of all items or
-     * the items of a specified feed.
-     *
-     * @return A cursor with all search results in SEL_FI_EXTRA selection.
+     * Returns the query of {@link #searchItems(long, String)}. Its only parameter is the FTS query.
      */
-    public Cursor searchItemContentEncoded(long feedID, String query) {
+    static String getSearchItemsQuery(long feedID) {
+        String query = "SELECT " + SEL_FI_JOINED_STR
+                + ", matchinfo(" + TABLE_NAME_FEED_ITEMS_SEARCH + ", 'pcx') AS " + KEY_SEARCH_MATCHINFO
+                + " FROM " + TABLE_NAME_FEED_ITEMS_SEARCH
+                + " INNER JOIN " + TABLE_NAME_FEED_ITEMS
+                + " ON " + TABLE_NAME_FEED_ITEMS_SEARCH + ".docid=" + TABLE_NAME_FEED_ITEMS + "." + KEY_ID
+                + JOIN_FEED_MEDIA + JOIN_FEEDS
+                + " WHERE " + TABLE_NAME_FEED_ITEMS_SEARCH + " MATCH ?";
         if (feedID != 0) {
-            // search items in specific feed
-            return db.query(TABLE_NAME_FEED_ITEMS, FEEDITEM_SEL_FI_SMALL, KEY_FEED
-                            + "=? AND " + KEY_CONTENT_ENCODED + " LIKE '%"
-                            + prepareSearchQuery(query) + "%'",
-                    new String[]{String.valueOf(feedID)}, null, null,
-                    null
-            );
-        } else {
-            // search through all items
-            return db.query(TABLE_NAME_FEED_ITEMS, FEEDITEM_SEL_FI_SMALL,
-                    KEY_CONTENT_ENCODED + " LIKE '%"
-                            + prepareSearchQuery(query) + "%'", null, null,
-                    null, null
-            );
+            query += " AND " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + feedID;
         }
-    }
-
-    public Cursor searchItemTitles(long feedID, String query) {
-        if (feedID != 0) {
-            // search items in specific feed
-            return db.query(TABLE_NAME_FEED_ITEMS, FEEDITEM_SEL_FI_SMALL, KEY_FEED
-                            + "=? AND " + KEY_TITLE + " LIKE '%"
-                            + prepareSearchQuery(query) + "%'",
-                    new String[]{String.valueOf(feedID)}, null, null,
-                    null
-            );
-        } else {
-            // search through all items
-            return db.query(TABLE_NAME_FEED_ITEMS, FEEDITEM_SEL_FI_SMALL,
-                    KEY_TITLE + " LIKE '%"
-                            + prepareSearchQuery(query) + "%'", null, null,
-                    null, null
-            );
-        }
-    }
-
-    public Cursor searchItemAuthors(long feedID, String query) {
-        if (feedID != 0) {
-            // search items in specific feed
-            return db.rawQuery("SELECT " + TextUtils.join(", ", FEEDITEM_SEL_FI_SMALL) + " FROM " + TABLE_NAME_FEED_ITEMS
-                            + " JOIN " + TABLE_NAME_FEEDS + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
-                            + " WHERE " + KEY_FEED
-                            + "=? AND " + KEY_AUTHOR + " LIKE '%"
-                            + prepareSearchQuery(query) + "%' ORDER BY "
-                            + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC",
-                    new String[]{String.valueOf(feedID)}
-            );
-        } else {
-            // search through all items
-            return db.rawQuery("SELECT " + TextUtils.join(", ", FEEDITEM_SEL_FI_SMALL) + " FROM " + TABLE_NAME_FEED_ITEMS
-                            + " JOIN " + TABLE_NAME_FEEDS + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
-                            + " WHERE " + KEY_AUTHOR + " LIKE '%"
-                            + prepareSearchQuery(query) + "%' ORDER BY "
-                            + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC",
-                    null
-            );
-        }
-    }
-
-    public Cursor searchItemFeedIdentifiers(long feedID, String query) {
-        if (feedID != 0) {
-            // search items in specific feed
-            return db.rawQuery("SELECT " + TextUtils.join(", ", FEEDITEM_SEL_FI_SMALL) + " FROM " + TABLE_NAME_FEED_ITEMS
-                            + " JOIN " + TABLE_NAME_FEEDS + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
-                            + " WHERE " + KEY_FEED
-                            + "=? AND " + KEY_FEED_IDENTIFIER + " LIKE '%"
-                            + prepareSearchQuery(query) + "%' ORDER BY "
-                            + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC",
-                    new String[]{String.valueOf(feedID)}
-            );
-        } else {
-            // search through all items
-            return db.rawQuery("SELECT " + TextUtils.join(", ", FEEDITEM_SEL_FI_SMALL) + " FROM " + TABLE_NAME_FEED_ITEMS
-                            + " JOIN " + TABLE_NAME_FEEDS + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
-                            + " WHERE " + KEY_FEED_IDENTIFIER + " LIKE '%"
-                            + prepareSearchQuery(query) + "%' ORDER BY "
-                            + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC",
-                    null
-            );
-        }
-    }
-
-    public Cursor searchItemChapters(long feedID, String searchQuery) {
-        final String query;
-        if (feedID != 0) {
-            query = "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS + " INNER JOIN " +
-                    TABLE_NAME_SIMPLECHAPTERS + " ON " + TABLE_NAME_SIMPLECHAPTERS + "." + KEY_FEEDITEM + "=" +
-                    TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" +
-                    feedID + " AND " + TABLE_NAME_SIMPLECHAPTERS + "." + KEY_TITLE + " LIKE '%"
-                    + prepareSearchQuery(searchQuery) + "%'";
-        } else {
-            query = "SELECT " + SEL_FI_SMALL_STR + " FROM " + TABLE_NAME_FEED_ITEMS + " INNER JOIN " +
-                    TABLE_NAME_SIMPLECHAPTERS + " ON " + TABLE_NAME_SIMPLECHAPTERS + "." + KEY_FEEDITEM + "=" +
-                    TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " WHERE " + TABLE_NAME_SIMPLECHAPTERS + "." + KEY_TITLE + " LIKE '%"
-                    + prepareSearchQuery(searchQuery) + "%'";
-        }
-        return db.rawQuery(query, null);
+        query += " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC";
+        return query;
     }
 
     /**
@@ -1467,7 +2356,7 @@ public class PodDBAdapter {
      */
     private static class PodDBHelper extends SQLiteOpenHelper {
 
-        private static final int VERSION = 1070401;
+        private static final int VERSION = 1070411;
 
         private final Context context;
 
@@ -1498,9 +2387,22 @@ public class PodDBAdapter {
             db.execSQL(CREATE_INDEX_FEEDITEMS_PUBDATE);
             db.execSQL(CREATE_INDEX_FEEDITEMS_READ);
             db.execSQL(CREATE_INDEX_FEEDMEDIA_FEEDITEM);
+            db.execSQL(CREATE_INDEX_FEEDMEDIA_DOWNLOAD_URL);
+            db.execSQL(CREATE_INDEX_FEEDMEDIA_DOWNLOADED);
+            db.execSQL(CREATE_INDEX_FEEDMEDIA_PLAYBACK_COMPLETION_DATE);
+            db.execSQL(CREATE_INDEX_FEEDITEMS_IMAGE_URL);
+            db.execSQL(CREATE_INDEX_FEEDS_IMAGE_URL);
+            db.execSQL(CREATE_INDEX_DOWNLOAD_LOG_FEEDFILE);
             db.execSQL(CREATE_INDEX_QUEUE_FEEDITEM);
+            db.execSQL(CREATE_INDEX_FAVORITES_FEEDITEM);
             db.execSQL(CREATE_INDEX_SIMPLECHAPTERS_FEEDITEM);
 
+            db.execSQL(CREATE_TABLE_EPISODE_ACTIONS);
+            db.execSQL(CREATE_INDEX_EPISODE_ACTIONS_EPISODE);
+            db.execSQL(CREATE_TABLE_FEED_ITEMS_SEARCH);
+            for (String trigger : CREATE_TRIGGERS_FEED_ITEMS_SEARCH) {
+                db.execSQL(trigger);
+            }
         }
 
         @Override
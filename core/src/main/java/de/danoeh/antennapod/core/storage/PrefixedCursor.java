@@ -0,0 +1,28 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+/**
+ * Makes the columns of a cursor whose names start with a prefix available under their name
+ * without the prefix. This allows the fromCursor-methods of the feed classes to read their
+ * columns from a query that joins several tables.
+ */
+class PrefixedCursor extends CursorWrapper {
+    private final String prefix;
+
+    PrefixedCursor(Cursor cursor, String prefix) {
+        super(cursor);
+        this.prefix = prefix;
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        return super.getColumnIndex(prefix + columnName);
+    }
+
+    @Override
+    public int getColumnIndexOrThrow(String columnName) {
+        return super.getColumnIndexOrThrow(prefix + columnName);
+    }
+}
@@ -1,12 +1,20 @@
 package de.danoeh.antennapod.core.syndication.handler;
 
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
 import org.apache.commons.io.input.XmlStreamReader;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.util.Locale;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -14,23 +22,113 @@ import javax.xml.parsers.SAXParserFactory;
 
 import de.danoeh.antennapod.core.feed.Feed;
 
+/**
+ * Parses a feed in a single pass. The type of the feed is recognized by the root element
+ * while the document is parsed, so the source only has to be read once.
+ */
 public class FeedHandler {
+	private static final String TAG = "FeedHandler";
+	/**
+	 * Number of bytes at the start of a document that are checked for HTML tags if the document
+	 * is no valid XML document.
+	 */
+	private static final int HTML_SNIFF_LENGTH = 1024;
+
+	public enum Type {
+		RSS20, RSS091, ATOM, INVALID
+	}
 
 	public FeedHandlerResult parseFeed(Feed feed) throws SAXException, IOException,
 			ParserConfigurationException, UnsupportedFeedtypeException {
-		TypeGetter tg = new TypeGetter();
-		TypeGetter.Type type = tg.getType(feed);
-		SyndHandler handler = new SyndHandler(feed, type);
+		return parseFeed(feed, (KnownItems) null);
+	}
+
+	/**
+	 * Parses a feed from its file.
+	 *
+	 * @param knownItems The saved items of the feed. If given, the remaining items are skipped once
+	 *                   enough saved items have been parsed in a row.
+	 */
+	public FeedHandlerResult parseFeed(Feed feed, @Nullable KnownItems knownItems) throws SAXException,
+			IOException, ParserConfigurationException, UnsupportedFeedtypeException {
+		if (feed.getFile_url() == null) {
+			Log.d(TAG, "Type is invalid");
+			throw new UnsupportedFeedtypeException(Type.INVALID);
+		}
+		try (InputStream in = new BufferedInputStream(new FileInputStream(new File(feed.getFile_url())))) {
+			return parseFeed(feed, in, knownItems);
+		}
+	}
+
+	/**
+	 * Parses a feed from a stream. The stream is not closed by this method.
+	 */
+	public FeedHandlerResult parseFeed(Feed feed, InputStream in) throws SAXException, IOException,
+			ParserConfigurationException, UnsupportedFeedtypeException {
+		return parseFeed(feed, in, null);
+	}
+
+	/**
+	 * Parses a feed from a stream. The stream is not closed by this method.
+	 *
+	 * @param knownItems The saved items of the feed. If given, the remaining items are skipped once
+	 *                   enough saved items have been parsed in a row.
+	 */
+	public FeedHandlerResult parseFeed(Feed feed, InputStream in, @Nullable KnownItems knownItems)
+			throws SAXException, IOException, ParserConfigurationException, UnsupportedFeedtypeException {
+		if (!in.markSupported()) {
+			in = new BufferedInputStream(in);
+		}
+		String prefix = readPrefix(in);
+		SyndHandler handler = new SyndHandler(feed, knownItems);
 
 		SAXParserFactory factory = SAXParserFactory.newInstance();
 		factory.setNamespaceAware(true);
 		SAXParser saxParser = factory.newSAXParser();
-		File file = new File(feed.getFile_url());
-		Reader inputStreamReader = new XmlStreamReader(file);
+		Reader inputStreamReader = new XmlStreamReader(in);
 		InputSource inputSource = new InputSource(inputStreamReader);
 
-		saxParser.parse(inputSource, handler);
-		inputStreamReader.close();
+		try {
+			saxParser.parse(inputSource, handler);
+		} catch (SAXException e) {
+			if (e.getException() instanceof UnsupportedFeedtypeException) {
+				throw (UnsupportedFeedtypeException) e.getException();
+			} else if (handler.getType() == null && isHtml(prefix)) {
+				// the document is no valid XML document before the root element
+				// because it is actually a HTML document
+				Log.e(TAG, Log.getStackTraceString(e));
+				throw new UnsupportedFeedtypeException(Type.INVALID, "html");
+			}
+			throw e;
+		}
+		if (handler.getType() == null) {
+			Log.d(TAG, "Type is invalid");
+			throw new UnsupportedFeedtypeException(Type.INVALID);
+		}
+		if (handler.state.getNumSkippedItems() > 0) {
+			Log.d(TAG, "Skipped " + handler.state.getNumSkippedItems() + " items after "
+					+ handler.state.getItems().size() + " parsed items, " + knownItems);
+		}
 		return new FeedHandlerResult(handler.state.feed, handler.state.alternateUrls);
 	}
+
+	/**
+	 * Returns the first bytes of the stream without consuming them.
+	 */
+	private static String readPrefix(InputStream in) throws IOException {
+		byte[] prefix = new byte[HTML_SNIFF_LENGTH];
+		int length = 0;
+		in.mark(HTML_SNIFF_LENGTH);
+		int count;
+		while (length < prefix.length && (count = in.read(prefix, length, prefix.length - length)) != -1) {
+			length += count;
+		}
+		in.reset();
+		return new String(prefix, 0, length, "ISO-8859-1");
+	}
+
+	private static boolean isHtml(String prefix) {
+		String lowerCasePrefix = prefix.toLowerCase(Locale.US);
+		return lowerCasePrefix.contains("<!doctype html") || lowerCasePrefix.contains("<html");
+	}
 }
@@ -1,8 +1,11 @@
 package de.danoeh.antennapod.core.syndication.handler;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.collection.ArrayMap;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.Map;
 import java.util.Stack;
 
@@ -10,6 +13,7 @@ import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.syndication.namespace.Namespace;
 import de.danoeh.antennapod.core.syndication.namespace.SyndElement;
+import de.danoeh.antennapod.core.util.DateParser;
 
 /**
  * Contains all relevant information to describe the current state of a
@@ -44,7 +48,27 @@ public class HandlerState {
      */
     private final Map<String, Object> tempObjects;
 
+    /**
+     * Parses the dates of the feed and remembers their format.
+     */
+    private final DateParser dateParser;
+
+    /**
+     * Saved items of the feed, null if all items have to be parsed.
+     */
+    @Nullable
+    private final KnownItems knownItems;
+    private int numKnownItemsInRow;
+    private int numSkippedItems;
+    private boolean sortedNewestFirst = true;
+    @Nullable
+    private Date previousPubDate;
+
     public HandlerState(Feed feed) {
+        this(feed, null);
+    }
+
+    public HandlerState(Feed feed, @Nullable KnownItems knownItems) {
         this.feed = feed;
         alternateUrls = new ArrayMap<>();
         items = new ArrayList<>();
@@ -52,6 +76,8 @@ public class HandlerState {
         namespaces = new ArrayMap<>();
         defaultNamespaces = new Stack<>();
         tempObjects = new ArrayMap<>();
+        dateParser = new DateParser();
+        this.knownItems = knownItems;
     }
 
     public Feed getFeed() {
@@ -108,4 +134,48 @@ public class HandlerState {
     public Map<String, Object> getTempObjects() {
         return tempObjects;
     }
+
+    public DateParser getDateParser() {
+        return dateParser;
+    }
+
+    /**
+     * Called after an item has been parsed completely.
+     */
+    void onItemEnd(@NonNull FeedItem item) {
+        if (knownItems == null || !sortedNewestFirst) {
+            return;
+        }
+        Date pubDate = item.getPubDate();
+        if (pubDate == null || (previousPubDate != null && pubDate.after(previousPubDate))) {
+            // the following items might be newer, they all have to be parsed
+            sortedNewestFirst = false;
+            return;
+        }
+        previousPubDate = pubDate;
+        if (knownItems.isKnown(item)) {
+            numKnownItemsInRow++;
+        } else {
+            numKnownItemsInRow = 0;
+        }
+    }
+
+    /**
+     * Returns true if the remaining items of the feed can be skipped because the last items
+     * have all been saved before.
+     */
+    boolean isKnownItemsCutoffReached() {
+        return knownItems != null && sortedNewestFirst && numKnownItemsInRow >= knownItems.getCutoff();
+    }
+
+    void onItemSkipped() {
+        numSkippedItems++;
+    }
+
+    /**
+     * Number of items that were not parsed because of the known items cutoff.
+     */
+    public int getNumSkippedItems() {
+        return numSkippedItems;
+    }
 }
@@ -0,0 +1,59 @@
+package de.danoeh.antennapod.core.syndication.handler;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Date;
+import java.util.Set;
+
+import de.danoeh.antennapod.core.feed.FeedItem;
+
+/**
+ * Describes the items of a feed that have already been saved. If a feed is sorted by date,
+ * newest first, the parser stops building items once it has seen a number of saved items in
+ * a row, because the remaining items are older and will not change the saved feed.
+ */
+public class KnownItems {
+
+    private final Set<String> identifyingValues;
+    @Nullable
+    private final Date mostRecentPubDate;
+    private final int cutoff;
+
+    /**
+     * @param identifyingValues The identifying values of the saved items
+     * @param mostRecentPubDate The pubDate of the most recent saved item
+     * @param cutoff            Number of saved items in a row after which the remaining items
+     *                          are skipped
+     */
+    public KnownItems(@NonNull Set<String> identifyingValues, @Nullable Date mostRecentPubDate, int cutoff) {
+        if (cutoff < 1) {
+            throw new IllegalArgumentException("Cutoff must be positive");
+        }
+        this.identifyingValues = identifyingValues;
+        this.mostRecentPubDate = mostRecentPubDate;
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * Returns true if the item has been saved before. Items that are more recent than the
+     * most recent saved item are never considered known, even if their identifying value
+     * matches, e.g. because it is a title that is used for every episode.
+     */
+    boolean isKnown(@NonNull FeedItem item) {
+        Date pubDate = item.getPubDate();
+        return mostRecentPubDate != null && pubDate != null && !pubDate.after(mostRecentPubDate)
+                && identifyingValues.contains(item.getIdentifyingValue());
+    }
+
+    int getCutoff() {
+        return cutoff;
+    }
+
+    @Override
+    public String toString() {
+        return "KnownItems{items=" + identifyingValues.size()
+                + ", mostRecentPubDate=" + mostRecentPubDate
+                + ", cutoff=" + cutoff + "}";
+    }
+}
@@ -2,11 +2,14 @@ package de.danoeh.antennapod.core.syndication.handler;
 
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.syndication.namespace.NSContent;
 import de.danoeh.antennapod.core.syndication.namespace.NSDublinCore;
 import de.danoeh.antennapod.core.syndication.namespace.NSITunes;
@@ -21,20 +24,50 @@ import de.danoeh.antennapod.core.syndication.namespace.atom.NSAtom;
 class SyndHandler extends DefaultHandler {
 	private static final String TAG = "SyndHandler";
 	private static final String DEFAULT_PREFIX = "";
+	private static final String ATOM_ROOT = "feed";
+	private static final String RSS_ROOT = "rss";
+	private static final String XML_NSURI = "http://www.w3.org/XML/1998/namespace";
+
 	final HandlerState state;
+	/**
+	 * Type of the feed, null until the root element has been read.
+	 */
+	private FeedHandler.Type type;
+	/**
+	 * Depth of the current element within an item that is skipped, 0 if no item is skipped.
+	 */
+	private int skipDepth = 0;
+
+	public SyndHandler(Feed feed) {
+		this(feed, null);
+	}
 
-	public SyndHandler(Feed feed, TypeGetter.Type type) {
-		state = new HandlerState(feed);
-		if (type == TypeGetter.Type.RSS20 || type == TypeGetter.Type.RSS091) {
-			state.defaultNamespaces.push(new NSRSS20());
-		}
+	public SyndHandler(Feed feed, @Nullable KnownItems knownItems) {
+		state = new HandlerState(feed, knownItems);
 	}
 
 	@Override
 	public void startElement(String uri, String localName, String qName,
 			Attributes attributes) throws SAXException {
-		state.contentBuf = new StringBuilder();
+		if (type == null) {
+			type = getType(localName, attributes);
+			if (type == FeedHandler.Type.RSS20 || type == FeedHandler.Type.RSS091) {
+				// RSS is the outermost default namespace
+				state.defaultNamespaces.add(0, new NSRSS20());
+			}
+		}
+		if (skipDepth > 0) {
+			skipDepth++;
+			return;
+		}
 		Namespace handler = getHandlingNamespace(uri, qName);
+		if (handler != null && isItem(handler, localName) && state.isKnownItemsCutoffReached()) {
+			skipDepth = 1;
+			state.contentBuf = null;
+			state.onItemSkipped();
+			return;
+		}
+		state.contentBuf = new StringBuilder();
 		if (handler != null) {
 			SyndElement element = handler.handleElementStart(localName, state,
 					attributes);
@@ -46,6 +79,9 @@ class SyndHandler extends DefaultHandler {
 	@Override
 	public void characters(char[] ch, int start, int length)
 			throws SAXException {
+		if (skipDepth > 0) {
+			return;
+		}
 		if (!state.tagstack.empty()) {
 			if (state.getTagstack().size() >= 2) {
 				if (state.contentBuf != null) {
@@ -58,10 +94,18 @@ class SyndHandler extends DefaultHandler {
 	@Override
 	public void endElement(String uri, String localName, String qName)
 			throws SAXException {
+		if (skipDepth > 0) {
+			skipDepth--;
+			return;
+		}
 		Namespace handler = getHandlingNamespace(uri, qName);
 		if (handler != null) {
+			FeedItem item = state.getCurrentItem();
 			handler.handleElementEnd(localName, state);
 			state.tagstack.pop();
+			if (item != null && state.getCurrentItem() == null) {
+				state.onItemEnd(item);
+			}
 
 		}
 		state.contentBuf = null;
@@ -111,6 +155,54 @@ class SyndHandler extends DefaultHandler {
 		}
 	}
 
+	/**
+	 * Recognizes the type of the feed by its root element.
+	 */
+	private FeedHandler.Type getType(String rootElement, Attributes attributes) throws SAXException {
+		Feed feed = state.getFeed();
+		switch (rootElement) {
+			case ATOM_ROOT:
+				feed.setType(Feed.TYPE_ATOM1);
+				Log.d(TAG, "Recognized type Atom");
+
+				String strLang = attributes.getValue(XML_NSURI, "lang");
+				if (strLang != null) {
+					feed.setLanguage(strLang);
+				}
+				return FeedHandler.Type.ATOM;
+			case RSS_ROOT:
+				String strVersion = attributes.getValue("version");
+				if (strVersion == null) {
+					feed.setType(Feed.TYPE_RSS2);
+					Log.d(TAG, "Assuming type RSS 2.0");
+					return FeedHandler.Type.RSS20;
+				} else if (strVersion.equals("2.0")) {
+					feed.setType(Feed.TYPE_RSS2);
+					Log.d(TAG, "Recognized type RSS 2.0");
+					return FeedHandler.Type.RSS20;
+				} else if (strVersion.equals("0.91") || strVersion.equals("0.92")) {
+					Log.d(TAG, "Recognized type RSS 0.91/0.92");
+					return FeedHandler.Type.RSS091;
+				}
+				throw new SAXException(new UnsupportedFeedtypeException("Unsupported rss version"));
+			default:
+				Log.d(TAG, "Type is invalid");
+				throw new SAXException(new UnsupportedFeedtypeException(FeedHandler.Type.INVALID, rootElement));
+		}
+	}
+
+	FeedHandler.Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns true if the element starts a new item.
+	 */
+	private static boolean isItem(Namespace handler, String localName) {
+		return (handler instanceof NSRSS20 && NSRSS20.ITEM.equals(localName))
+				|| (handler instanceof NSAtom && NSAtom.ENTRY.equals(localName));
+	}
+
 	private Namespace getHandlingNamespace(String uri, String qName) {
 		Namespace handler = state.namespaces.get(uri);
 		if (handler == null && !state.defaultNamespaces.empty()
@@ -1,10 +1,10 @@
 package de.danoeh.antennapod.core.syndication.handler;
 
-import de.danoeh.antennapod.core.syndication.handler.TypeGetter.Type;
+import de.danoeh.antennapod.core.syndication.handler.FeedHandler.Type;
 
 public class UnsupportedFeedtypeException extends Exception {
     private static final long serialVersionUID = 9105878964928170669L;
-    private final TypeGetter.Type type;
+    private final FeedHandler.Type type;
     private String rootElement;
     private String message = null;
 
@@ -23,7 +23,7 @@ public class UnsupportedFeedtypeException extends Exception {
         type = Type.INVALID;
     }
 
-    public TypeGetter.Type getType() {
+    public FeedHandler.Type getType() {
         return type;
     }
 
@@ -35,7 +35,7 @@ public class UnsupportedFeedtypeException extends Exception {
     public String getMessage() {
         if (message != null) {
             return message;
-        } else if (type == TypeGetter.Type.INVALID) {
+        } else if (type == FeedHandler.Type.INVALID) {
             return "Invalid type";
         } else {
             return "Type " + type + " not supported";
@@ -4,7 +4,6 @@ import org.xml.sax.Attributes;
 
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.syndication.handler.HandlerState;
-import de.danoeh.antennapod.core.util.DateUtils;
 
 public class NSDublinCore extends Namespace {
     private static final String TAG = "NSDublinCore";
@@ -29,7 +28,7 @@ public class NSDublinCore extends Namespace {
             String second = state.getSecondTag().getName();
             if (DATE.equals(top) && ITEM.equals(second)) {
                 String content = state.getContentBuf().toString();
-                currentItem.setPubDate(DateUtils.parse(content));
+                currentItem.setPubDate(state.getDateParser().parse(content));
             }
         }
     }
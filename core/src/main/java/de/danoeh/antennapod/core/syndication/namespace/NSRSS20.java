@@ -9,7 +9,6 @@ import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.syndication.handler.HandlerState;
 import de.danoeh.antennapod.core.syndication.util.SyndTypeUtils;
-import de.danoeh.antennapod.core.util.DateUtils;
 
 /**
  * SAX-Parser for reading RSS-Feeds
@@ -126,7 +125,7 @@ public class NSRSS20 extends Namespace {
 					state.getCurrentItem().setLink(content);
 				}
 			} else if (PUBDATE.equals(top) && ITEM.equals(second) && state.getCurrentItem() != null) {
-				state.getCurrentItem().setPubDate(DateUtils.parse(content));
+				state.getCurrentItem().setPubDate(state.getDateParser().parse(content));
 			} else if (URL.equals(top) && IMAGE.equals(second) && CHANNEL.equals(third)) {
 				// prefer itunes:image
 				if (state.getFeed() != null) {
@@ -13,7 +13,6 @@ import de.danoeh.antennapod.core.syndication.namespace.NSRSS20;
 import de.danoeh.antennapod.core.syndication.namespace.Namespace;
 import de.danoeh.antennapod.core.syndication.namespace.SyndElement;
 import de.danoeh.antennapod.core.syndication.util.SyndTypeUtils;
-import de.danoeh.antennapod.core.util.DateUtils;
 
 public class NSAtom extends Namespace {
     private static final String TAG = "NSAtom";
@@ -23,7 +22,7 @@ public class NSAtom extends Namespace {
     private static final String FEED = "feed";
     private static final String ID = "id";
     private static final String TITLE = "title";
-    private static final String ENTRY = "entry";
+    public static final String ENTRY = "entry";
     private static final String LINK = "link";
     private static final String UPDATED = "updated";
     private static final String AUTHOR = "author";
@@ -204,9 +203,9 @@ public class NSAtom extends Namespace {
                 state.getCurrentItem().setDescription(textElement.getProcessedContent());
             } else if (UPDATED.equals(top) && ENTRY.equals(second) && state.getCurrentItem() != null &&
                 state.getCurrentItem().getPubDate() == null) {
-                state.getCurrentItem().setPubDate(DateUtils.parse(content));
+                state.getCurrentItem().setPubDate(state.getDateParser().parse(content));
             } else if (PUBLISHED.equals(top) && ENTRY.equals(second) && state.getCurrentItem() != null) {
-                state.getCurrentItem().setPubDate(DateUtils.parse(content));
+                state.getCurrentItem().setPubDate(state.getDateParser().parse(content));
             } else if (IMAGE_LOGO.equals(top) && state.getFeed() != null && state.getFeed().getImageUrl() == null) {
                 state.getFeed().setImageUrl(content);
             } else if (IMAGE_ICON.equals(top) && state.getFeed() != null) {
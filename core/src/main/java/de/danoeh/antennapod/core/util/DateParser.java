@@ -0,0 +1,497 @@
+package de.danoeh.antennapod.core.util;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Parses the dates of a feed. The common RFC 822 and ISO 8601 / RFC 3339 dates are read in a
+ * single pass without creating a formatter. All other dates are tried against a list of patterns.
+ * The pattern that matched the last date is tried first, because the dates of a feed usually
+ * share the same format, so one instance should be used per feed.
+ */
+public class DateParser {
+    private static final String TAG = "DateParser";
+
+    private static final TimeZone defaultTimezone = TimeZone.getTimeZone("GMT");
+
+    private static final String[] PATTERNS = {
+            "dd MMM yy HH:mm:ss Z",
+            "dd MMM yy HH:mm Z",
+            "EEE, dd MMM yyyy HH:mm:ss Z",
+            "EEE, dd MMM yyyy HH:mm:ss",
+            "EEE, dd MMMM yyyy HH:mm:ss Z",
+            "EEE, dd MMMM yyyy HH:mm:ss",
+            "EEEE, dd MMM yyyy HH:mm:ss Z",
+            "EEEE, dd MMM yy HH:mm:ss Z",
+            "EEEE, dd MMM yyyy HH:mm:ss",
+            "EEEE, dd MMM yy HH:mm:ss",
+            "EEE MMM d HH:mm:ss yyyy",
+            "EEE, dd MMM yyyy HH:mm Z",
+            "EEE, dd MMM yyyy HH:mm",
+            "EEE, dd MMMM yyyy HH:mm Z",
+            "EEE, dd MMMM yyyy HH:mm",
+            "EEEE, dd MMM yyyy HH:mm Z",
+            "EEEE, dd MMM yy HH:mm Z",
+            "EEEE, dd MMM yyyy HH:mm",
+            "EEEE, dd MMM yy HH:mm",
+            "EEE MMM d HH:mm yyyy",
+            "yyyy-MM-dd'T'HH:mm:ss",
+            "yyyy-MM-dd'T'HH:mm:ss.SSS Z",
+            "yyyy-MM-dd'T'HH:mm:ss.SSS",
+            "yyyy-MM-dd'T'HH:mm:ssZ",
+            "yyyy-MM-dd'T'HH:mm:ss'Z'",
+            "yyyy-MM-dd'T'HH:mm:ss.SSSZ",
+            "yyyy-MM-ddZ",
+            "yyyy-MM-dd",
+            "EEE d MMM yyyy HH:mm:ss 'GMT'Z (z)"
+    };
+
+    private static final String[] MONTHS = {
+            "january", "february", "march", "april", "may", "june",
+            "july", "august", "september", "october", "november", "december"
+    };
+
+    /**
+     * Time zone names that are accepted by the single-pass parser, with their offsets in minutes.
+     */
+    private static final String[] ZONE_NAMES = {"GMT", "UTC", "EST", "EDT", "PST", "PDT", "CET", "CEST"};
+    private static final int[] ZONE_OFFSETS = {0, 0, -5 * 60, -4 * 60, -8 * 60, -7 * 60, 60, 2 * 60};
+
+    private static final int INVALID = Integer.MIN_VALUE;
+
+    /**
+     * The single-pass parser only accepts years for which the proleptic Gregorian calendar
+     * matches the calendar of SimpleDateFormat.
+     */
+    private static final int MIN_YEAR = 1900;
+
+    private SimpleDateFormat parser;
+    private int lastPattern = -1;
+
+    /**
+     * @return The parsed date, or null if the input is not a date in one of the known formats
+     */
+    @Nullable
+    public Date parse(final String input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Date must not be null");
+        }
+        Date date = parseFast(input);
+        if (date == null) {
+            date = parseWithPatterns(input);
+        }
+        return date;
+    }
+
+    /**
+     * Parses RFC 822 dates with a four-digit year and ISO 8601 dates in a single pass.
+     *
+     * @return The date, or null if the input is not in one of these formats. Such inputs
+     * have to be parsed with {@link #parseWithPatterns(String)}.
+     */
+    @Nullable
+    static Date parseFast(@NonNull String input) {
+        Scanner in = new Scanner(input.trim());
+        if (in.length >= 10 && in.isDigit(0) && in.isDigit(3) && in.charAt(4) == '-') {
+            return parseIso8601(in);
+        }
+        return parseRfc822(in);
+    }
+
+    /**
+     * [weekday ","] day month year hour ":" minute [":" second] [zone]
+     */
+    @Nullable
+    private static Date parseRfc822(Scanner in) {
+        if (in.isLetter(in.pos)) {
+            // the weekday is not checked, a wrong weekday does not prevent parsing either
+            in.skipLetters();
+            if (!in.skip(',') || !in.skipSpaces()) {
+                return null;
+            }
+        }
+        int day = in.readNumber(1, 2);
+        if (day == INVALID || !in.skipSpaces()) {
+            return null;
+        }
+        int month = in.readMonth();
+        if (month == INVALID || !in.skipSpaces()) {
+            return null;
+        }
+        int year = in.readNumber(4, 4);
+        if (year == INVALID || !in.skipSpaces()) {
+            return null;
+        }
+        int hour = in.readNumber(1, 2);
+        if (hour == INVALID || !in.skip(':')) {
+            return null;
+        }
+        int minute = in.readNumber(2, 2);
+        int second = 0;
+        if (in.skip(':')) {
+            second = in.readNumber(2, 2);
+        }
+        int offset = 0;
+        if (!in.atEnd()) {
+            if (!in.skipSpaces()) {
+                return null;
+            }
+            offset = in.readZone(false);
+        }
+        if (!in.atEnd()) {
+            return null;
+        }
+        return toDate(year, month, day, hour, minute, second, 0, offset);
+    }
+
+    /**
+     * year "-" month "-" day ["T" hour ":" minute ":" second ["." fraction] [[" "] zone]]
+     */
+    @Nullable
+    private static Date parseIso8601(Scanner in) {
+        int year = in.readNumber(4, 4);
+        if (!in.skip('-')) {
+            return null;
+        }
+        int month = in.readNumber(2, 2);
+        if (!in.skip('-')) {
+            return null;
+        }
+        int day = in.readNumber(2, 2);
+        if (in.atEnd()) {
+            return toDate(year, month, day, 0, 0, 0, 0, 0);
+        }
+        if (!in.skip('T')) {
+            return null;
+        }
+        int hour = in.readNumber(2, 2);
+        if (!in.skip(':')) {
+            return null;
+        }
+        int minute = in.readNumber(2, 2);
+        if (!in.skip(':')) {
+            return null;
+        }
+        int second = in.readNumber(2, 2);
+        int millis = 0;
+        boolean hasFraction = in.skip('.');
+        if (hasFraction) {
+            millis = in.readFraction();
+        }
+        int offset = 0;
+        if (!in.atEnd()) {
+            if (in.charAt(in.pos) == ' ') {
+                // a space before the zone is only accepted after a fraction
+                if (!hasFraction || !in.skipSpaces()) {
+                    return null;
+                }
+            }
+            offset = in.readZone(true);
+        }
+        if (!in.atEnd()) {
+            return null;
+        }
+        return toDate(year, month, day, hour, minute, second, millis, offset);
+    }
+
+    @Nullable
+    private static Date toDate(int year, int month, int day, int hour, int minute, int second,
+                               int millis, int offsetMinutes) {
+        if (year == INVALID || month == INVALID || day == INVALID || hour == INVALID
+                || minute == INVALID || second == INVALID || millis == INVALID || offsetMinutes == INVALID) {
+            return null;
+        }
+        if (year < MIN_YEAR || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return null;
+        }
+        long days = daysSinceEpoch(year, month, day);
+        long seconds = days * 86400 + hour * 3600 + minute * 60 + second - offsetMinutes * 60;
+        return new Date(seconds * 1000 + millis);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Returns the number of days between 1970-01-01 and the given date of the Gregorian calendar.
+     */
+    private static long daysSinceEpoch(int year, int month, int day) {
+        // count years from March, so that the leap day is the last day of a year
+        int y = (month <= 2) ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * Parses the date with SimpleDateFormat and a list of patterns.
+     */
+    @Nullable
+    Date parseWithPatterns(@NonNull final String input) {
+        String date = input.trim().replace('/', '-').replaceAll("( ){2,}+", " ");
+
+        // CEST is widely used but not in the "ISO 8601 Time zone" list. Let's hack around.
+        date = date.replaceAll("CEST$", "+02:00");
+        date = date.replaceAll("CET$", "+01:00");
+
+        // some generators use "Sept" for September
+        date = date.replaceAll("\\bSept\\b", "Sep");
+
+        // if datetime is more precise than seconds, make sure the value is in ms
+        if (date.contains(".")) {
+            int start = date.indexOf('.');
+            int current = start + 1;
+            while (current < date.length() && Character.isDigit(date.charAt(current))) {
+                current++;
+            }
+            // even more precise than microseconds: discard further decimal places
+            if (current - start > 4) {
+                if (current < date.length() - 1) {
+                    date = date.substring(0, start + 4) + date.substring(current);
+                } else {
+                    date = date.substring(0, start + 4);
+                }
+                // less than 4 decimal places: pad to have a consistent format for the parser
+            } else if (current - start < 4) {
+                if (current < date.length() - 1) {
+                    date = date.substring(0, current) + StringUtils.repeat("0", 4 - (current - start)) + date.substring(current);
+                } else {
+                    date = date.substring(0, current) + StringUtils.repeat("0", 4 - (current - start));
+                }
+            }
+        }
+
+        if (parser == null) {
+            parser = new SimpleDateFormat("", Locale.US);
+            parser.setLenient(false);
+            parser.setTimeZone(defaultTimezone);
+        }
+
+        ParsePosition pos = new ParsePosition(0);
+        if (lastPattern >= 0) {
+            Date result = parse(date, lastPattern, pos);
+            if (result != null) {
+                return result;
+            }
+        }
+        for (int i = 0; i < PATTERNS.length; i++) {
+            if (i == lastPattern) {
+                continue;
+            }
+            Date result = parse(date, i, pos);
+            if (result != null) {
+                lastPattern = i;
+                return result;
+            }
+        }
+
+        // if date string starts with a weekday, try parsing date string without it
+        if (date.matches("^\\w+, .*$")) {
+            return parseWithPatterns(date.substring(date.indexOf(',') + 1));
+        }
+
+        Log.d(TAG, "Could not parse date string \"" + input + "\" [" + date + "]");
+        return null;
+    }
+
+    @Nullable
+    private Date parse(String date, int pattern, ParsePosition pos) {
+        parser.applyPattern(PATTERNS[pattern]);
+        pos.setIndex(0);
+        try {
+            Date result = parser.parse(date, pos);
+            if (result != null && pos.getIndex() == date.length()) {
+                return result;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        }
+        return null;
+    }
+
+    /**
+     * Reads the parts of a date. The read-methods return INVALID if the input does not match.
+     */
+    private static class Scanner {
+        final String input;
+        final int length;
+        int pos;
+
+        Scanner(String input) {
+            this.input = input;
+            this.length = input.length();
+        }
+
+        boolean atEnd() {
+            return pos >= length;
+        }
+
+        char charAt(int index) {
+            return index < length ? input.charAt(index) : 0;
+        }
+
+        boolean isDigit(int index) {
+            char c = charAt(index);
+            return c >= '0' && c <= '9';
+        }
+
+        boolean isLetter(int index) {
+            char c = charAt(index);
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        boolean skip(char c) {
+            if (charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Skips one or more spaces.
+         */
+        boolean skipSpaces() {
+            int start = pos;
+            while (charAt(pos) == ' ') {
+                pos++;
+            }
+            return pos > start;
+        }
+
+        void skipLetters() {
+            while (isLetter(pos)) {
+                pos++;
+            }
+        }
+
+        int readNumber(int minDigits, int maxDigits) {
+            int start = pos;
+            int value = 0;
+            while (pos - start < maxDigits && isDigit(pos)) {
+                value = value * 10 + (input.charAt(pos) - '0');
+                pos++;
+            }
+            if (pos - start < minDigits || isDigit(pos)) {
+                return INVALID;
+            }
+            return value;
+        }
+
+        /**
+         * Reads two digits, regardless of the characters that follow them.
+         */
+        int readTwoDigits() {
+            if (!isDigit(pos) || !isDigit(pos + 1)) {
+                return INVALID;
+            }
+            int value = (input.charAt(pos) - '0') * 10 + (input.charAt(pos + 1) - '0');
+            pos += 2;
+            return value;
+        }
+
+        /**
+         * Reads the digits of a decimal fraction of a second and returns it in milliseconds.
+         */
+        int readFraction() {
+            int start = pos;
+            int millis = 0;
+            while (isDigit(pos)) {
+                if (pos - start < 3) {
+                    millis = millis * 10 + (input.charAt(pos) - '0');
+                }
+                pos++;
+            }
+            int digits = pos - start;
+            if (digits == 0) {
+                return INVALID;
+            }
+            for (int i = digits; i < 3; i++) {
+                millis *= 10;
+            }
+            return millis;
+        }
+
+        /**
+         * Reads an English month name or its three-letter abbreviation, or "Sept".
+         */
+        int readMonth() {
+            int start = pos;
+            skipLetters();
+            int nameLength = pos - start;
+            if (nameLength < 3) {
+                return INVALID;
+            }
+            for (int i = 0; i < MONTHS.length; i++) {
+                String month = MONTHS[i];
+                if (nameLength == 3 || nameLength == month.length()) {
+                    if (month.regionMatches(true, 0, input, start, nameLength)) {
+                        return i + 1;
+                    }
+                }
+            }
+            if (nameLength == 4 && "sept".regionMatches(true, 0, input, start, 4)) {
+                return 9;
+            }
+            return INVALID;
+        }
+
+        /**
+         * Reads a zone as numeric offset or as one of the ZONE_NAMES and returns its offset in
+         * minutes.
+         *
+         * @param iso8601 true if "Z" is accepted for UTC
+         */
+        int readZone(boolean iso8601) {
+            char c = charAt(pos);
+            if (c == '+' || c == '-') {
+                pos++;
+                int hours = readTwoDigits();
+                skip(':');
+                int minutes = readTwoDigits();
+                if (hours == INVALID || minutes == INVALID || hours > 23 || minutes > 59) {
+                    return INVALID;
+                }
+                int offset = hours * 60 + minutes;
+                return (c == '-') ? -offset : offset;
+            } else if (iso8601 && c == 'Z') {
+                pos++;
+                return 0;
+            }
+            int start = pos;
+            skipLetters();
+            for (int i = 0; i < ZONE_NAMES.length; i++) {
+                String name = ZONE_NAMES[i];
+                if (pos - start == name.length() && input.startsWith(name, start)) {
+                    return ZONE_OFFSETS[i];
+                }
+            }
+            return INVALID;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package de.danoeh.antennapod.core.util;
+
+import java.util.Arrays;
+
+/**
+ * Fast and memory efficient set of longs. Unlike {@link LongList#contains(long)}, lookups take
+ * constant time, so it should be used to test many IDs against a large list of IDs.
+ *
+ * The values are stored in an open addressing hash table with linear probing. The iteration
+ * order of {@link #toArray()} is undefined.
+ */
+public final class LongHashSet {
+
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * Marks free slots of the table. The value 0 itself is stored in {@link #containsZero}.
+     */
+    private static final long FREE = 0;
+
+    private long[] table;
+    private boolean containsZero;
+    private int size;
+
+    /**
+     * Constructs an empty instance with a default initial capacity.
+     */
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty instance that can hold the given number of values without resizing.
+     *
+     * @param expectedSize {@code >= 0;} expected number of values
+     */
+    public LongHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must be 0 or higher");
+        }
+        table = new long[tableSizeFor(expectedSize)];
+        size = 0;
+    }
+
+    public static LongHashSet of(long... values) {
+        if (values == null || values.length == 0) {
+            return new LongHashSet(0);
+        }
+        LongHashSet result = new LongHashSet(values.length);
+        for (long value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    public static LongHashSet of(LongList values) {
+        LongHashSet result = new LongHashSet(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            result.add(values.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (long value : table) {
+            hashCode += (int)(value ^ (value >>> 32));
+        }
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if (! (other instanceof LongHashSet)) {
+            return false;
+        }
+        LongHashSet otherSet = (LongHashSet) other;
+        if (size != otherSet.size || containsZero != otherSet.containsZero) {
+            return false;
+        }
+        for (long value : table) {
+            if (value != FREE && !otherSet.contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the values in ascending order.
+     */
+    @Override
+    public String toString() {
+        long[] values = toArray();
+        Arrays.sort(values);
+        StringBuilder sb = new StringBuilder(size * 5 + 13);
+        sb.append("LongHashSet{");
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            sb.append(values[i]);
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+    /**
+     * Gets the number of values in this set.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns true if the given value is contained in the set
+     *
+     * @param value value to look for
+     * @return {@code true} if this set contains {@code value}, {@code false} otherwise
+     */
+    public boolean contains(long value) {
+        if (value == FREE) {
+            return containsZero;
+        }
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Adds a value to this set. This will increase the set's capacity if necessary.
+     *
+     * @param value the value to add
+     * @return {@code true} if the value was added, {@code false} if it was already contained
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != FREE) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        size++;
+        growIfNeeded();
+        return true;
+    }
+
+    /**
+     * Removes a value from this set.
+     *
+     * @param value value to remove
+     * @return {@code true} if the value was removed, {@code false} otherwise
+     */
+    public boolean remove(long value) {
+        if (value == FREE) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        // Move the following values of the same probe sequence into the gap, so that
+        // lookups do not stop at the removed value
+        int mask = table.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (table[next] != FREE) {
+            int home = hash(table[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[gap] = table[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        table = new long[MIN_CAPACITY];
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Returns an array with a copy of this set's values in undefined order
+     *
+     * @return array with a copy of this set's values
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int i = 0;
+        if (containsZero) {
+            values[i++] = 0;
+        }
+        for (long value : table) {
+            if (value != FREE) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the table index of the given non-zero value, or -1 if the value is not contained.
+     */
+    private int indexOf(long value) {
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != FREE) {
+            if (table[index] == value) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Doubles the size of the table if it is more than three quarters full
+     */
+    private void growIfNeeded() {
+        if (size <= table.length / 4 * 3) {
+            return;
+        }
+        long[] oldTable = table;
+        table = new long[oldTable.length * 2];
+        int mask = table.length - 1;
+        for (long value : oldTable) {
+            if (value != FREE) {
+                int index = hash(value) & mask;
+                while (table[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+
+    /**
+     * Spreads consecutive database IDs over the table.
+     */
+    static int hash(long value) {
+        int h = (int) (value ^ (value >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns a power of two that keeps the table at most three quarters full.
+     */
+    static int tableSizeFor(int expectedSize) {
+        int tableSize = MIN_CAPACITY;
+        while (tableSize / 4 * 3 < expectedSize) {
+            tableSize *= 2;
+        }
+        return tableSize;
+    }
+}
@@ -130,7 +130,7 @@ public class LongIntMap {
      * smallest key and <code>keyAt(size()-1)</code> will return the largest
      * key.</p>
      */
-    private long keyAt(int index) {
+    public long keyAt(int index) {
         if (index >= size) {
             throw new IndexOutOfBoundsException("n >= size()");
         } else if(index < 0) {
@@ -150,7 +150,7 @@ public class LongIntMap {
      * smallest key and <code>valueAt(size()-1)</code> will return the value
      * associated with the largest key.</p>
      */
-    private int valueAt(int index) {
+    public int valueAt(int index) {
         if (index >= size) {
             throw new IndexOutOfBoundsException("n >= size()");
         } else if(index < 0) {
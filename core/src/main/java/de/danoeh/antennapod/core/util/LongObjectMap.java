@@ -0,0 +1,326 @@
+package de.danoeh.antennapod.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fast and memory efficient long to object map. Unlike a {@code Map<Long, V>}, the keys are not
+ * boxed, and unlike {@link LongIntMap}, lookups take constant time.
+ *
+ * The mappings are stored in an open addressing hash table with linear probing. The iteration
+ * order of {@link #keys()} and {@link #values()} is undefined.
+ */
+public final class LongObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * Marks free slots of the table. A mapping of the key 0 is stored in {@link #zeroValue}.
+     */
+    private static final long FREE = 0;
+
+    private long[] keys;
+    private Object[] values;
+    private boolean containsZeroKey;
+    private V zeroValue;
+    private int size;
+
+    /**
+     * Creates a new LongObjectMap containing no mappings.
+     */
+    public LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates a new LongObjectMap containing no mappings that can hold the given number of
+     * mappings without resizing.
+     *
+     * @param expectedSize {@code >= 0;} expected number of mappings
+     */
+    public LongObjectMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must be 0 or higher");
+        }
+        int tableSize = LongHashSet.tableSizeFor(expectedSize);
+        keys = new long[tableSize];
+        values = new Object[tableSize];
+        size = 0;
+    }
+
+    /**
+     * Gets the object mapped from the specified key, or <code>null</code>
+     * if no such mapping has been made.
+     */
+    public V get(long key) {
+        return get(key, null);
+    }
+
+    /**
+     * Gets the object mapped from the specified key, or the specified value
+     * if no such mapping has been made.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key, V valueIfKeyNotFound) {
+        if (key == FREE) {
+            return containsZeroKey ? zeroValue : valueIfKeyNotFound;
+        }
+        int index = indexOfKey(key);
+        if (index >= 0) {
+            return (V) values[index];
+        } else {
+            return valueIfKeyNotFound;
+        }
+    }
+
+    /**
+     * Returns true if a mapping from the specified key has been made.
+     */
+    public boolean containsKey(long key) {
+        if (key == FREE) {
+            return containsZeroKey;
+        }
+        return indexOfKey(key) >= 0;
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value,
+     * replacing the previous mapping from the specified key if there
+     * was one.
+     *
+     * @return the previous value of the key, or <code>null</code> if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == FREE) {
+            V previous = zeroValue;
+            zeroValue = value;
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int index = LongHashSet.hash(key) & mask;
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        growIfNeeded();
+        return null;
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     *
+     * @return the removed value, or <code>null</code> if there was no mapping
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == FREE) {
+            V previous = zeroValue;
+            if (containsZeroKey) {
+                containsZeroKey = false;
+                zeroValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int index = indexOfKey(key);
+        if (index < 0) {
+            return null;
+        }
+        V previous = (V) values[index];
+        // Move the following mappings of the same probe sequence into the gap, so that
+        // lookups do not stop at the removed mapping
+        int mask = keys.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = LongHashSet.hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE;
+        values[gap] = null;
+        size--;
+        return previous;
+    }
+
+    /**
+     * Returns the number of key-value mappings that this LongObjectMap
+     * currently stores.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all key-value mappings from this LongObjectMap.
+     */
+    public void clear() {
+        keys = new long[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+        containsZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * Returns a copy of the keys contained in this map in undefined order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsZeroKey) {
+            result[i++] = 0;
+        }
+        for (long key : keys) {
+            if (key != FREE) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the values contained in this map in the same order as {@link #keys()}.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        if (containsZeroKey) {
+            result.add(zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                result.add((V) values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the table index of the given non-zero key, or -1 if the key is not mapped.
+     */
+    private int indexOfKey(long key) {
+        int mask = keys.length - 1;
+        int index = LongHashSet.hash(key) & mask;
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Doubles the size of the table if it is more than three quarters full
+     */
+    private void growIfNeeded() {
+        if (size <= keys.length / 4 * 3) {
+            return;
+        }
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int index = LongHashSet.hash(oldKeys[i]) & mask;
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if (! (other instanceof LongObjectMap)) {
+            return false;
+        }
+        LongObjectMap<?> otherMap = (LongObjectMap<?>) other;
+        if (size != otherMap.size || containsZeroKey != otherMap.containsZeroKey) {
+            return false;
+        }
+        if (containsZeroKey && !equal(zeroValue, otherMap.zeroValue)) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE && (!otherMap.containsKey(keys[i])
+                    || !equal(values[i], otherMap.get(keys[i])))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return (a == null) ? (b == null) : a.equals(b);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = containsZeroKey ? hashCode(0, zeroValue) : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                hashCode += hashCode(keys[i], values[i]);
+            }
+        }
+        return hashCode;
+    }
+
+    private static int hashCode(long key, Object value) {
+        return (int)(key ^ (key >>> 32)) ^ (value == null ? 0 : value.hashCode());
+    }
+
+    /**
+     * Returns the mappings in ascending order of their keys.
+     */
+    @Override
+    public String toString() {
+        if (size() <= 0) {
+            return "LongObjectMap{}";
+        }
+
+        long[] sortedKeys = keys();
+        Arrays.sort(sortedKeys);
+        StringBuilder buffer = new StringBuilder(size * 28);
+        buffer.append("LongObjectMap{");
+        for (int i = 0; i < sortedKeys.length; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(sortedKeys[i]);
+            buffer.append('=');
+            buffer.append(get(sortedKeys[i]));
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -115,7 +115,7 @@ public class AutoUpdateManager {
     public static void runImmediate(@NonNull Context context) {
         Log.d(TAG, "Run auto update immediately in background.");
         new Thread(() -> {
-            DBTasks.refreshAllFeeds(context.getApplicationContext());
+            DBTasks.refreshAllFeeds(context.getApplicationContext(), true);
         }, "ManualRefreshAllFeeds").start();
     }
 
@@ -0,0 +1,98 @@
+package de.danoeh.antennapod.core.util.download;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which feeds need to be checked by the automatic refresh. Every feed gets its own
+ * refresh interval, which is derived from the time between its recent episodes. Feeds are
+ * checked a few times per expected episode, and at every automatic refresh once the next
+ * episode is about to be published. Feeds without usable publishing dates fall back to the
+ * share of refreshes in which the server reported the feed as unchanged.
+ */
+public class FeedRefreshSchedule {
+    /**
+     * Longest time a feed goes without a refresh.
+     */
+    static final long MAX_INTERVAL = TimeUnit.DAYS.toMillis(1);
+    /**
+     * Number of recent publishing dates that are used to estimate the cadence.
+     */
+    public static final int MAX_PUB_DATES = 10;
+    /**
+     * Recent publishing dates are only looked up within this period.
+     */
+    public static final long PUB_DATE_PERIOD = TimeUnit.DAYS.toMillis(365);
+    private static final int CHECKS_PER_EPISODE = 4;
+    /**
+     * Number of refreshes needed before the not-modified history is trusted.
+     */
+    private static final int MIN_REFRESH_HISTORY = 5;
+
+    private FeedRefreshSchedule() {
+
+    }
+
+    /**
+     * Returns the median time between the given publishing dates, or 0 if it is unknown.
+     *
+     * @param pubDates Publishing dates in milliseconds, newest first
+     */
+    static long estimateCadence(long[] pubDates) {
+        if (pubDates.length < 2) {
+            return 0;
+        }
+        int numGaps = Math.min(pubDates.length, MAX_PUB_DATES) - 1;
+        long[] gaps = new long[numGaps];
+        for (int i = 0; i < numGaps; i++) {
+            gaps[i] = Math.abs(pubDates[i] - pubDates[i + 1]);
+        }
+        Arrays.sort(gaps);
+        return gaps[numGaps / 2];
+    }
+
+    /**
+     * Returns the time that should pass between two refreshes of a feed.
+     *
+     * @param pubDates         Publishing dates of the recent episodes in milliseconds, newest first
+     * @param refreshCount     Number of refreshes of the feed that reached the server
+     * @param notModifiedCount Number of these refreshes in which the feed had not been modified
+     * @param minInterval      Interval of the automatic refresh
+     * @param now              Current time in milliseconds
+     */
+    static long getRefreshInterval(long[] pubDates, int refreshCount, int notModifiedCount,
+                                   long minInterval, long now) {
+        long interval;
+        long cadence = estimateCadence(pubDates);
+        if (cadence > 0) {
+            interval = cadence / CHECKS_PER_EPISODE;
+            if (now - pubDates[0] >= cadence - interval) {
+                // the next episode is expected soon
+                interval = minInterval;
+            }
+        } else if (refreshCount >= MIN_REFRESH_HISTORY) {
+            // the feed changes about once per refreshCount / modifiedCount automatic refreshes
+            int modifiedCount = Math.max(refreshCount - notModifiedCount, 1);
+            interval = minInterval * refreshCount / modifiedCount / CHECKS_PER_EPISODE;
+        } else {
+            interval = minInterval;
+        }
+        return Math.max(minInterval, Math.min(interval, MAX_INTERVAL));
+    }
+
+    /**
+     * Returns true if the automatic refresh should check the feed.
+     *
+     * @param lastRefresh Time of the last refresh that reached the server, or 0
+     * @see #getRefreshInterval
+     */
+    public static boolean isDue(long lastRefresh, long[] pubDates, int refreshCount, int notModifiedCount,
+                                long minInterval, long now) {
+        if (lastRefresh <= 0) {
+            return true;
+        }
+        long interval = getRefreshInterval(pubDates, refreshCount, notModifiedCount, minInterval, now);
+        // the automatic refresh does not run exactly on time
+        return now - lastRefresh >= interval - minInterval / 2;
+    }
+}
@@ -5,6 +5,7 @@ import android.content.res.TypedArray;
 import android.graphics.Color;
 import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import android.text.TextUtils;
 import android.util.Log;
 import android.util.TypedValue;
@@ -66,6 +67,22 @@ public class Timeline {
         );
     }
 
+    /**
+     * Creates a timeline with the given style values instead of reading them from a context.
+     */
+    @VisibleForTesting
+    Timeline(ShownotesProvider shownotesProvider, String noShownotesLabel, String colorPrimaryString,
+             String colorSecondaryString, int pageMargin) {
+        if (shownotesProvider == null) {
+            throw new IllegalArgumentException("shownotesProvider = null");
+        }
+        this.shownotesProvider = shownotesProvider;
+        this.noShownotesLabel = noShownotesLabel;
+        this.colorPrimaryString = colorPrimaryString;
+        this.colorSecondaryString = colorSecondaryString;
+        this.pageMargin = pageMargin;
+    }
+
     private static final Pattern TIMECODE_LINK_REGEX = Pattern.compile("antennapod://timecode/((\\d+))");
     private static final String TIMECODE_LINK = "<a class=\"timecode\" href=\"antennapod://timecode/%d\">%s</a>";
     private static final Pattern TIMECODE_REGEX = Pattern.compile("\\b((\\d+):)?(\\d+):(\\d{2})\\b");
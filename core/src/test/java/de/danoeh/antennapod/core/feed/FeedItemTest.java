@@ -6,6 +6,7 @@ import org.junit.Test;
 import static de.danoeh.antennapod.core.feed.FeedItemMother.anyFeedItemWithImage;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class FeedItemTest {
 
@@ -40,6 +41,49 @@ public class FeedItemTest {
         assertFeedItemImageWasUpdated();
     }
 
+    @Test
+    public void testUpdateFromOther_changedItemIsDirty() {
+        setNewFeedItemImageDownloadUrl();
+        original.updateFromOther(changedFeedItem);
+        assertTrue(original.isDirty());
+    }
+
+    @Test
+    public void testUpdateFromOther_unchangedItemIsNotDirty() {
+        original.updateFromOther(changedFeedItem);
+        assertFalse(original.isDirty());
+    }
+
+    @Test
+    public void testUpdateFromOther_unchangedShownotesNotLoaded() {
+        original.setShownotesHashes(FeedItem.hashShownotes("Description"), FeedItem.hashShownotes("Content"));
+        changedFeedItem.setDescription("Description");
+        changedFeedItem.setContentEncoded("Content");
+        original.updateFromOther(changedFeedItem);
+        assertFalse(original.isDirty());
+    }
+
+    @Test
+    public void testUpdateFromOther_changedShownotesNotLoaded() {
+        original.setShownotesHashes(FeedItem.hashShownotes("Description"), FeedItem.hashShownotes("Content"));
+        changedFeedItem.setDescription("Description");
+        changedFeedItem.setContentEncoded("Changed content");
+        original.updateFromOther(changedFeedItem);
+        assertTrue(original.isDirty());
+        assertEquals("Changed content", original.getContentEncoded());
+    }
+
+    @Test
+    public void testUpdateFromOther_shownotesHashesNotStored() {
+        changedFeedItem.setDescription("Description");
+        changedFeedItem.setContentEncoded("Content");
+        original.updateFromOther(changedFeedItem);
+        assertFalse(original.isDirty());
+        assertTrue(original.hasUnsavedShownotesHashes());
+        assertEquals(FeedItem.hashShownotes("Description"), original.getDescriptionHash());
+        assertEquals(FeedItem.hashShownotes("Content"), original.getContentEncodedHash());
+    }
+
     /**
      * Test that a played item loses that state after being marked as new.
      */
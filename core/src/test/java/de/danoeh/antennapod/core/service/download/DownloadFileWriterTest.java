@@ -0,0 +1,93 @@
+package de.danoeh.antennapod.core.service.download;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DownloadFileWriterTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        byte[] data = randomBytes(5 * 1024 * 1024 + 17);
+        File file = folder.newFile();
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        long[] progress = new long[1];
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            DownloadFileWriter writer = new DownloadFileWriter(out.getChannel(), 0, digest);
+            writer.write(new Buffer().write(data), new TestCallback(progress, Long.MAX_VALUE));
+            assertEquals(data.length, writer.getPosition());
+        }
+        assertEquals(data.length, progress[0]);
+        assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+        assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(data), digest.digest());
+    }
+
+    @Test
+    public void testWriteAtPosition() throws Exception {
+        byte[] data = randomBytes(300 * 1024);
+        int start = 1000;
+        File file = folder.newFile();
+        Files.write(file.toPath(), Arrays.copyOf(data, start));
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            DownloadFileWriter writer = new DownloadFileWriter(out.getChannel(), start, null);
+            writer.write(new Buffer().write(data, start, data.length - start),
+                    new TestCallback(new long[1], Long.MAX_VALUE));
+            assertEquals(data.length, writer.getPosition());
+        }
+        assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        byte[] data = randomBytes(10 * DownloadFileWriter.MAX_BUFFER_SIZE);
+        File file = folder.newFile();
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            DownloadFileWriter writer = new DownloadFileWriter(out.getChannel(), 0, null);
+            writer.write(new Buffer().write(data), new TestCallback(new long[1], 0));
+            assertTrue(writer.getPosition() < data.length);
+            assertEquals(writer.getPosition(), file.length());
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    private static class TestCallback implements DownloadFileWriter.Callback {
+        private final long[] progress;
+        private final long cancelAfter;
+
+        TestCallback(long[] progress, long cancelAfter) {
+            this.progress = progress;
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return progress[0] > cancelAfter;
+        }
+
+        @Override
+        public void onProgress(long position) {
+            progress[0] = position;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package de.danoeh.antennapod.core.service.download;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DownloadSchedulerTest {
+
+    private ExecutorService executor;
+    private List<String> started;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        started = Collections.synchronizedList(new ArrayList<>());
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLanesAreIndependent() throws Exception {
+        DownloadScheduler<String> scheduler = new DownloadScheduler<>(executor, 1, 1, 10);
+        scheduler.submit(blocking("media1"), DownloadScheduler.Lane.MEDIA, "http://a.com/1.mp3", false);
+        scheduler.submit(blocking("media2"), DownloadScheduler.Lane.MEDIA, "http://b.com/2.mp3", false);
+        scheduler.submit(blocking("feed1"), DownloadScheduler.Lane.FEED, "http://c.com/feed", false);
+        waitForStarted(2);
+        Thread.sleep(100);
+
+        assertEquals(2, started.size());
+        assertTrue(started.contains("media1"));
+        assertTrue(started.contains("feed1"));
+
+        release.countDown();
+        for (int i = 0; i < 3; i++) {
+            scheduler.take().get();
+        }
+        assertEquals(3, started.size());
+        assertEquals("media2", started.get(2));
+    }
+
+    @Test
+    public void testUserInitiatedDownloadsFirst() throws Exception {
+        DownloadScheduler<String> scheduler = new DownloadScheduler<>(executor, 1, 1, 10);
+        scheduler.submit(blocking("first"), DownloadScheduler.Lane.MEDIA, "http://a.com/0", false);
+        waitForStarted(1);
+        scheduler.submit(blocking("auto1"), DownloadScheduler.Lane.MEDIA, "http://a.com/1", false);
+        scheduler.submit(blocking("auto2"), DownloadScheduler.Lane.MEDIA, "http://a.com/2", false);
+        scheduler.submit(blocking("user1"), DownloadScheduler.Lane.MEDIA, "http://a.com/3", true);
+        scheduler.submit(blocking("user2"), DownloadScheduler.Lane.MEDIA, "http://a.com/4", true);
+
+        release.countDown();
+        for (int i = 0; i < 5; i++) {
+            scheduler.take().get();
+        }
+        assertEquals(Arrays.asList("first", "user1", "user2", "auto1", "auto2"), started);
+    }
+
+    @Test
+    public void testHostLimit() throws Exception {
+        DownloadScheduler<String> scheduler = new DownloadScheduler<>(executor, 1, 3, 2);
+        scheduler.submit(blocking("a1"), DownloadScheduler.Lane.MEDIA, "http://cdn.com/1", false);
+        scheduler.submit(blocking("a2"), DownloadScheduler.Lane.MEDIA, "http://CDN.com/2", false);
+        scheduler.submit(blocking("a3"), DownloadScheduler.Lane.MEDIA, "http://cdn.com/3", false);
+        scheduler.submit(blocking("b1"), DownloadScheduler.Lane.MEDIA, "http://other.com/1", false);
+        scheduler.submit(blocking("feed"), DownloadScheduler.Lane.FEED, "http://cdn.com/feed", false);
+        waitForStarted(3);
+        Thread.sleep(100);
+
+        assertEquals(3, started.size());
+        assertTrue(started.contains("b1"));
+        assertFalse(started.contains("a3"));
+        assertFalse(started.contains("feed"));
+
+        release.countDown();
+        for (int i = 0; i < 5; i++) {
+            scheduler.take().get();
+        }
+        assertEquals(5, started.size());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        DownloadScheduler<String> scheduler = new DownloadScheduler<>(executor, 1, 1, 10);
+        scheduler.submit(blocking("media1"), DownloadScheduler.Lane.MEDIA, "http://a.com/1", false);
+        scheduler.submit(blocking("media2"), DownloadScheduler.Lane.MEDIA, "http://a.com/2", false);
+        waitForStarted(1);
+        Thread.sleep(100);
+
+        DownloadLaneMetrics media = scheduler.getMetrics(DownloadScheduler.Lane.MEDIA);
+        assertEquals(1, media.getQueued());
+        assertEquals(1, media.getRunning());
+        assertEquals(1, media.getStarted());
+        assertEquals(0, scheduler.getMetrics(DownloadScheduler.Lane.FEED).getQueued());
+
+        release.countDown();
+        for (int i = 0; i < 2; i++) {
+            scheduler.take().get();
+        }
+        media = scheduler.getMetrics(DownloadScheduler.Lane.MEDIA);
+        assertEquals(0, media.getQueued());
+        assertEquals(0, media.getRunning());
+        assertEquals(2, media.getStarted());
+        assertTrue(media.getMaxWaitMillis() >= 100);
+        assertEquals(0, scheduler.getMetrics(DownloadScheduler.Lane.FEED).getStarted());
+    }
+
+    @Test
+    public void testGetHost() {
+        assertEquals("example.com", DownloadScheduler.getHost("https://Example.com:8080/feed.xml"));
+        assertEquals("", DownloadScheduler.getHost("not a url"));
+        assertEquals("", DownloadScheduler.getHost(null));
+    }
+
+    private Callable<String> blocking(String name) {
+        return () -> {
+            started.add(name);
+            release.await(10, TimeUnit.SECONDS);
+            return name;
+        };
+    }
+
+    private void waitForStarted(int count) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (started.size() < count && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, started.size());
+    }
+}
@@ -0,0 +1,104 @@
+package de.danoeh.antennapod.core.service.download;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedDownloadTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCreate() {
+        SegmentedDownload download = SegmentedDownload.create(new File("test"), 1003, 4);
+        List<SegmentedDownload.Segment> segments = download.getSegments();
+        assertEquals(4, segments.size());
+        assertEquals(0, segments.get(0).start);
+        assertEquals(250, segments.get(0).end);
+        assertEquals(750, segments.get(3).start);
+        assertEquals(1003, segments.get(3).end);
+        assertEquals(0, download.getBytesDownloaded());
+        assertEquals(0, download.getContiguousLength());
+        assertFalse(download.isComplete());
+    }
+
+    @Test
+    public void testProgress() {
+        SegmentedDownload download = SegmentedDownload.create(new File("test"), 1000, 4);
+        List<SegmentedDownload.Segment> segments = download.getSegments();
+        segments.get(0).position = 250;
+        segments.get(1).position = 300;
+        segments.get(2).position = 750;
+        assertEquals(550, download.getBytesDownloaded());
+        assertEquals(300, download.getContiguousLength());
+
+        segments.get(1).position = 500;
+        segments.get(3).position = 1000;
+        assertEquals(1000, download.getContiguousLength());
+        assertTrue(download.isComplete());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        File destination = folder.newFile();
+        SegmentedDownload download = SegmentedDownload.create(destination, 1000, 2);
+        download.getSegments().get(0).position = 123;
+        download.getSegments().get(1).position = 600;
+        try (RandomAccessFile out = new RandomAccessFile(destination, "rw")) {
+            out.setLength(1000);
+            download.saveState(out.getChannel());
+        }
+
+        SegmentedDownload loaded = SegmentedDownload.load(destination);
+        assertNotNull(loaded);
+        assertEquals(1000, loaded.getSize());
+        assertEquals(2, loaded.getSegments().size());
+        assertEquals(123, loaded.getSegments().get(0).position);
+        assertEquals(500, loaded.getSegments().get(1).start);
+        assertEquals(600, loaded.getSegments().get(1).position);
+
+        loaded.deleteState();
+        assertNull(SegmentedDownload.load(destination));
+    }
+
+    @Test
+    public void testLoadWithDifferentFileSize() throws Exception {
+        File destination = folder.newFile();
+        try (RandomAccessFile out = new RandomAccessFile(destination, "rw")) {
+            out.setLength(900);
+            SegmentedDownload.create(destination, 1000, 2).saveState(out.getChannel());
+        }
+
+        assertNull(SegmentedDownload.load(destination));
+        assertFalse(SegmentedDownload.getStateFile(destination).exists());
+        assertFalse(destination.exists());
+    }
+
+    @Test
+    public void testLoadCorruptState() throws Exception {
+        File destination = folder.newFile();
+        try (RandomAccessFile out = new RandomAccessFile(destination, "rw")) {
+            out.setLength(1000);
+        }
+        try (Writer writer = new FileWriter(SegmentedDownload.getStateFile(destination))) {
+            writer.write("1000\n0 500");
+        }
+
+        assertNull(SegmentedDownload.load(destination));
+        assertFalse(SegmentedDownload.getStateFile(destination).exists());
+        assertFalse(destination.exists());
+    }
+}
@@ -0,0 +1,68 @@
+package de.danoeh.antennapod.core.storage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import de.danoeh.antennapod.core.feed.Feed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FeedCacheTest {
+
+    private List<Feed> feeds;
+
+    @Before
+    public void setUp() {
+        FeedCache.invalidate();
+        Feed feed1 = new Feed("url1", null, "feed 1");
+        feed1.setId(1);
+        Feed feed2 = new Feed("url2", null, "feed 2");
+        feed2.setId(2);
+        feeds = Arrays.asList(feed1, feed2);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        long misses = FeedCache.getMissCount();
+        assertNull(FeedCache.getFeeds());
+        assertEquals(misses + 1, FeedCache.getMissCount());
+
+        FeedCache.put(feeds, FeedCache.getGeneration());
+        long hits = FeedCache.getHitCount();
+        List<Feed> cached = FeedCache.getFeeds();
+        assertNotNull(cached);
+        assertEquals(2, cached.size());
+        assertSame(feeds.get(0), cached.get(0));
+        assertSame(feeds.get(1), FeedCache.getFeed(2));
+        assertEquals(hits + 2, FeedCache.getHitCount());
+
+        assertNull(FeedCache.getFeed(3));
+        assertEquals(misses + 2, FeedCache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidate() {
+        FeedCache.put(feeds, FeedCache.getGeneration());
+        FeedCache.invalidate();
+        assertNull(FeedCache.getFeeds());
+        assertNull(FeedCache.getFeed(1));
+    }
+
+    @Test
+    public void testPutAfterInvalidateIsIgnored() {
+        long generation = FeedCache.getGeneration();
+        // a write happens while the feeds are being loaded
+        FeedCache.invalidate();
+        FeedCache.put(feeds, generation);
+        assertNull(FeedCache.getFeeds());
+
+        FeedCache.put(feeds, FeedCache.getGeneration());
+        assertNotNull(FeedCache.getFeeds());
+    }
+}
@@ -0,0 +1,111 @@
+package de.danoeh.antennapod.core.storage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedMother;
+import de.danoeh.antennapod.core.feed.FeedPreferences;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FeedItemReconcilerTest {
+
+    private Feed savedFeed;
+
+    @Before
+    public void setUp() {
+        savedFeed = FeedMother.anyFeed();
+        savedFeed.setId(1);
+        savedFeed.setPreferences(new FeedPreferences(1, true, FeedPreferences.AutoDeleteAction.GLOBAL, null, null));
+        savedFeed.setItems(new ArrayList<>());
+        for (int i = 0; i < 10; i++) {
+            FeedItem item = new FeedItem(i + 1, "Item " + i, "guid" + i, "link" + i, new Date(1000 * i),
+                    FeedItem.PLAYED, savedFeed);
+            savedFeed.getItems().add(item);
+        }
+    }
+
+    @Test
+    public void testGetSavedItem() {
+        FeedItemReconciler reconciler = new FeedItemReconciler(savedFeed);
+        assertSame(savedFeed.getItems().get(3), reconciler.getSavedItem("guid3"));
+        assertNull(reconciler.getSavedItem("unknown"));
+    }
+
+    @Test
+    public void testReconcileUnchanged() {
+        List<FeedItem> downloaded = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            downloaded.add(new FeedItem(0, "Item " + i, "guid" + i, "link" + i, new Date(1000 * i),
+                    FeedItem.UNPLAYED, null));
+        }
+        FeedItemReconciler reconciler = new FeedItemReconciler(savedFeed);
+        reconciler.reconcile(downloaded, new Date(9000));
+        assertEquals(0, reconciler.getNewItems().size());
+        assertEquals(0, reconciler.getChangedItems().size());
+        assertEquals(10, reconciler.getNumUnchangedItems());
+        assertEquals(0, reconciler.getNumTouchedItems());
+        assertEquals(10, savedFeed.getItems().size());
+    }
+
+    @Test
+    public void testReconcileNewAndChanged() {
+        List<FeedItem> downloaded = new ArrayList<>();
+        downloaded.add(new FeedItem(0, "Item 10", "guid10", "link10", new Date(10000), FeedItem.UNPLAYED, null));
+        downloaded.add(new FeedItem(0, "Item 9 (updated)", "guid9", "link9", new Date(9000), FeedItem.UNPLAYED, null));
+        downloaded.add(new FeedItem(0, "Item 8", "guid8", "link8", new Date(8000), FeedItem.UNPLAYED, null));
+
+        FeedItemReconciler reconciler = new FeedItemReconciler(savedFeed);
+        reconciler.reconcile(downloaded, new Date(9000));
+
+        assertEquals(1, reconciler.getNewItems().size());
+        FeedItem newItem = reconciler.getNewItems().get(0);
+        assertEquals("guid10", newItem.getItemIdentifier());
+        assertTrue(newItem.isNew());
+        assertSame(savedFeed, newItem.getFeed());
+        assertSame(newItem, savedFeed.getItems().get(0));
+
+        assertEquals(1, reconciler.getChangedItems().size());
+        assertEquals("Item 9 (updated)", reconciler.getChangedItems().get(0).getTitle());
+        assertEquals(1, reconciler.getNumUnchangedItems());
+        assertEquals(2, reconciler.getNumTouchedItems());
+        assertEquals(11, savedFeed.getItems().size());
+    }
+
+    @Test
+    public void testReconcileOldNewItemIsNotMarkedNew() {
+        List<FeedItem> downloaded = new ArrayList<>();
+        downloaded.add(new FeedItem(0, "Old item", "guidOld", "linkOld", new Date(500), FeedItem.UNPLAYED, null));
+
+        FeedItemReconciler reconciler = new FeedItemReconciler(savedFeed);
+        reconciler.reconcile(downloaded, new Date(9000));
+
+        assertEquals(1, reconciler.getNewItems().size());
+        assertFalse(reconciler.getNewItems().get(0).isNew());
+    }
+
+    @Test
+    public void testReconcileDuplicateDownloadedItems() {
+        List<FeedItem> downloaded = new ArrayList<>();
+        downloaded.add(new FeedItem(0, "Item 10", "guid10", "link10", new Date(10000), FeedItem.UNPLAYED, null));
+        downloaded.add(new FeedItem(0, "Item 10 again", "guid10", "link10", new Date(10000), FeedItem.UNPLAYED, null));
+
+        FeedItemReconciler reconciler = new FeedItemReconciler(savedFeed);
+        reconciler.reconcile(downloaded, new Date(9000));
+
+        assertEquals(1, reconciler.getNewItems().size());
+        assertEquals(0, reconciler.getChangedItems().size());
+        assertEquals("Item 10 again", reconciler.getNewItems().get(0).getTitle());
+        assertEquals(11, savedFeed.getItems().size());
+    }
+}
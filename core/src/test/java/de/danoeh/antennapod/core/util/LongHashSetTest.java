@@ -0,0 +1,100 @@
+package de.danoeh.antennapod.core.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testEmptySet() {
+        LongHashSet set = new LongHashSet();
+        assertEquals(0, set.size());
+        assertEquals(true, set.isEmpty());
+        assertEquals("LongHashSet{}", set.toString());
+        assertEquals(false, set.contains(42));
+        assertEquals(false, set.contains(0));
+        assertEquals(false, set.remove(42));
+        assertEquals(0, set.toArray().length);
+        assertEquals(0, set.hashCode());
+    }
+
+    @Test
+    public void testSingleElement() {
+        LongHashSet set = new LongHashSet();
+        assertEquals(true, set.add(17));
+        assertEquals(false, set.add(17));
+        assertEquals(1, set.size());
+        assertEquals("LongHashSet{17}", set.toString());
+        assertEquals(true, set.contains(17));
+        assertEquals(false, set.contains(42));
+        assertEquals(true, set.remove(17));
+        assertEquals(false, set.contains(17));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void testZero() {
+        LongHashSet set = LongHashSet.of(0, 8);
+        assertEquals(2, set.size());
+        assertEquals("LongHashSet{0, 8}", set.toString());
+        assertEquals(true, set.contains(0));
+        assertEquals(true, set.remove(0));
+        assertEquals(false, set.contains(0));
+        assertEquals(true, set.contains(8));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testAddAndDelete() {
+        LongHashSet set = new LongHashSet();
+        for(int i=0; i < 100; i++) {
+            set.add(i * 17);
+        }
+        assertEquals(100, set.size());
+        assertEquals(true, set.contains(0));
+        assertEquals(true, set.contains(17));
+        assertEquals(false, set.contains(18));
+        assertEquals(true, set.contains(99 * 17));
+        for(int i=0; i < 100; i++) {
+            assertEquals(true, set.remove(i * 17));
+        }
+        assertEquals(0, set.size());
+        assertEquals(false, set.contains(17));
+    }
+
+    @Test
+    public void testOfLongList() {
+        LongHashSet set = LongHashSet.of(LongList.of(3, 1, 2, 3));
+        assertEquals(3, set.size());
+        assertEquals("LongHashSet{1, 2, 3}", set.toString());
+        assertEquals(LongHashSet.of(1, 2, 3), set);
+        assertEquals(LongHashSet.of(1, 2, 3).hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet(0);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            // small range, so that there are many collisions and removals of existing values
+            long value = random.nextInt(500) - 20;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long value = -20; value < 480; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+        assertEquals(expected.hashCode(), set.hashCode());
+    }
+
+}
@@ -0,0 +1,111 @@
+package de.danoeh.antennapod.core.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void testEmptyMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertEquals(0, map.size());
+        assertEquals(true, map.isEmpty());
+        assertEquals("LongObjectMap{}", map.toString());
+        assertNull(map.get(42));
+        assertEquals("default", map.get(42, "default"));
+        assertEquals(false, map.containsKey(42));
+        assertNull(map.remove(42));
+        assertEquals(0, map.keys().length);
+        assertEquals(0, map.values().size());
+        assertEquals(0, map.hashCode());
+    }
+
+    @Test
+    public void testSingleElement() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertNull(map.put(17, "42"));
+        assertEquals(1, map.size());
+        assertEquals("LongObjectMap{17=42}", map.toString());
+        assertEquals("42", map.get(17));
+        assertEquals("42", map.get(17, "default"));
+        assertEquals(true, map.containsKey(17));
+        assertEquals("42", map.remove(17));
+        assertEquals(false, map.containsKey(17));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testZeroKey() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(0, "zero");
+        map.put(8, "eight");
+        assertEquals(2, map.size());
+        assertEquals("LongObjectMap{0=zero, 8=eight}", map.toString());
+        assertEquals("zero", map.get(0));
+        assertEquals("zero", map.remove(0));
+        assertEquals(false, map.containsKey(0));
+        assertEquals("eight", map.get(8));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testAddAndDelete() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        for(int i=0; i < 100; i++) {
+            map.put(i * 17, String.valueOf(i * 42));
+        }
+        assertEquals(100, map.size());
+        assertEquals("0", map.get(0));
+        assertEquals("42", map.get(17));
+        assertEquals("42", map.get(17, "default"));
+        assertNull(map.get(18));
+        for(int i=0; i < 100; i++) {
+            assertEquals(String.valueOf(i * 42), map.remove(i * 17));
+        }
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testOverwrite() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(17, "42");
+        assertEquals(1, map.size());
+        assertEquals("LongObjectMap{17=42}", map.toString());
+        assertEquals("42", map.get(17));
+        assertEquals("42", map.put(17, "23"));
+        assertEquals(1, map.size());
+        assertEquals("LongObjectMap{17=23}", map.toString());
+        assertEquals("23", map.get(17));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(42);
+        LongObjectMap<Integer> map = new LongObjectMap<>(0);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            // small range, so that there are many collisions and removals of existing keys
+            long key = random.nextInt(500) - 20;
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = -20; key < 480; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        long[] keys = map.keys();
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(expected.get(keys[i]), map.values().get(i));
+        }
+    }
+
+}
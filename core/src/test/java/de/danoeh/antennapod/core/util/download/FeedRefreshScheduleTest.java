@@ -0,0 +1,80 @@
+package de.danoeh.antennapod.core.util.download;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FeedRefreshScheduleTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long NOW = 1000 * DAY;
+
+    @Test
+    public void testEstimateCadence() {
+        assertEquals(0, FeedRefreshSchedule.estimateCadence(new long[0]));
+        assertEquals(0, FeedRefreshSchedule.estimateCadence(new long[]{NOW}));
+        assertEquals(7 * DAY, FeedRefreshSchedule.estimateCadence(weekly(NOW, 5)));
+        // a single late episode does not change the estimate
+        long[] pubDates = weekly(NOW, 5);
+        pubDates[0] += 3 * DAY;
+        assertEquals(7 * DAY, FeedRefreshSchedule.estimateCadence(pubDates));
+    }
+
+    @Test
+    public void testWeeklyFeed() {
+        long[] pubDates = weekly(NOW - DAY, 10);
+        assertEquals(FeedRefreshSchedule.MAX_INTERVAL,
+                FeedRefreshSchedule.getRefreshInterval(pubDates, 0, 0, HOUR, NOW));
+        assertFalse(FeedRefreshSchedule.isDue(NOW - HOUR, pubDates, 0, 0, HOUR, NOW));
+        assertTrue(FeedRefreshSchedule.isDue(NOW - DAY, pubDates, 0, 0, HOUR, NOW));
+    }
+
+    @Test
+    public void testEpisodeExpectedSoon() {
+        long[] pubDates = weekly(NOW - 6 * DAY, 10);
+        assertEquals(HOUR, FeedRefreshSchedule.getRefreshInterval(pubDates, 0, 0, HOUR, NOW));
+        assertTrue(FeedRefreshSchedule.isDue(NOW - HOUR, pubDates, 0, 0, HOUR, NOW));
+    }
+
+    @Test
+    public void testDailyFeed() {
+        long[] pubDates = new long[10];
+        for (int i = 0; i < pubDates.length; i++) {
+            pubDates[i] = NOW - HOUR - i * DAY;
+        }
+        assertEquals(6 * HOUR, FeedRefreshSchedule.getRefreshInterval(pubDates, 0, 0, HOUR, NOW));
+    }
+
+    @Test
+    public void testNeverLessThanAutomaticRefresh() {
+        long[] pubDates = {NOW - 10 * 60 * 1000, NOW - 20 * 60 * 1000, NOW - 30 * 60 * 1000};
+        assertEquals(2 * HOUR, FeedRefreshSchedule.getRefreshInterval(pubDates, 0, 0, 2 * HOUR, NOW));
+    }
+
+    @Test
+    public void testNotModifiedHistory() {
+        assertEquals(HOUR, FeedRefreshSchedule.getRefreshInterval(new long[0], 2, 2, HOUR, NOW));
+        assertEquals(HOUR, FeedRefreshSchedule.getRefreshInterval(new long[0], 10, 0, HOUR, NOW));
+        assertEquals(5 * HOUR, FeedRefreshSchedule.getRefreshInterval(new long[0], 20, 19, HOUR, NOW));
+        assertEquals(FeedRefreshSchedule.MAX_INTERVAL,
+                FeedRefreshSchedule.getRefreshInterval(new long[0], 100, 100, HOUR, NOW));
+    }
+
+    @Test
+    public void testNeverRefreshed() {
+        assertTrue(FeedRefreshSchedule.isDue(0, weekly(NOW - DAY, 10), 0, 0, HOUR, NOW));
+    }
+
+    private static long[] weekly(long newest, int count) {
+        long[] pubDates = new long[count];
+        for (int i = 0; i < count; i++) {
+            pubDates[i] = newest - i * 7 * DAY;
+        }
+        return pubDates;
+    }
+}